@@ -0,0 +1,114 @@
+package nl.airsupplies.utilities.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs the benchmarks of the image, signal and collection hot paths.
+ * <p>
+ * Options:
+ * <pre>
+ * --warmup &lt;n&gt;              Number of warmup iterations per benchmark (default 5)
+ * --iterations &lt;n&gt;          Number of measurement iterations per benchmark (default 5)
+ * --time &lt;ms&gt;               Duration of every iteration (default 1000)
+ * --filter &lt;regex&gt;          Only run benchmarks of which the name and parameters contain a match
+ * -p &lt;name&gt;=&lt;v1&gt;,&lt;v2&gt;...    Override a parameter: size, radius, fftSize or collectionSize
+ * --csv &lt;file&gt;              Write the results as CSV
+ * --baseline &lt;file&gt;         Compare to results written earlier with --csv
+ * --threshold &lt;percent&gt;     Score drop that counts as a regression (default 10)
+ * </pre>
+ * The exit code is 1 if any benchmark regressed compared to the baseline, and 2 for usage errors.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+public final class BenchmarkMain {
+	public static void main(String... args) throws IOException {
+		BenchmarkRunner runner       = new BenchmarkRunner();
+		@Nullable Path  csvFile      = null;
+		@Nullable Path  baselineFile = null;
+		double          threshold    = 10;
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String option = args[i];
+				if (i + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for " + option);
+				}
+
+				String value = args[++i];
+				switch (option) {
+					case "--warmup":
+						runner.setWarmupIterations(Integer.parseInt(value));
+						break;
+					case "--iterations":
+						runner.setMeasurementIterations(Integer.parseInt(value));
+						break;
+					case "--time":
+						runner.setIterationMillis(Long.parseLong(value));
+						break;
+					case "--filter":
+						runner.setFilter(Pattern.compile(value));
+						break;
+					case "-p":
+						overrideParameter(runner, value);
+						break;
+					case "--csv":
+						csvFile = Paths.get(value);
+						break;
+					case "--baseline":
+						baselineFile = Paths.get(value);
+						break;
+					case "--threshold":
+						threshold = Double.parseDouble(value);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option: " + option);
+				}
+			}
+		} catch (IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			System.exit(2);
+		}
+
+		ImageBenchmarks.register(runner);
+		SignalBenchmarks.register(runner);
+		CollectionBenchmarks.register(runner);
+		DoubleDoubleBenchmarks.register(runner);
+
+		List<BenchmarkResult> results = runner.run(System.out);
+
+		if (csvFile != null) {
+			BenchmarkRunner.writeCsv(results, csvFile);
+		}
+
+		if (baselineFile != null) {
+			List<BenchmarkResult> baseline = BenchmarkRunner.readCsv(baselineFile);
+
+			System.out.println();
+			int regressions = BenchmarkRunner.compareToBaseline(results, baseline, threshold, System.out);
+			if (regressions > 0) {
+				System.out.println(regressions + " benchmark(s) regressed more than " + threshold + '%');
+				System.exit(1);
+			}
+		}
+	}
+
+	private static void overrideParameter(BenchmarkRunner runner, String value) {
+		int equals = value.indexOf('=');
+		if (equals <= 0) {
+			throw new IllegalArgumentException("Expected <name>=<v1>,<v2>...: " + value);
+		}
+
+		int[] values = Arrays.stream(value.substring(equals + 1).split(","))
+		                     .mapToInt(Integer::parseInt)
+		                     .toArray();
+		runner.overrideParameter(value.substring(0, equals), values);
+	}
+}
@@ -0,0 +1,15 @@
+package nl.airsupplies.utilities.benchmark;
+
+/**
+ * One invocation of the code under test.
+ * <p>
+ * The returned value is consumed by the {@link BenchmarkRunner} so the JIT can't eliminate the computation. Return
+ * something that depends on the result, like a sample of the output image.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@FunctionalInterface
+public interface BenchmarkOperation {
+	double run();
+}
@@ -0,0 +1,71 @@
+package nl.airsupplies.utilities.benchmark;
+
+import java.util.Locale;
+
+/**
+ * The throughput of one benchmark with one set of parameters.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+public final class BenchmarkResult {
+	static final String CSV_HEADER = "benchmark,params,score,error,unit";
+
+	private final String benchmark;
+	private final String params;
+	private final double score;
+	private final double error;
+
+	/**
+	 * @param params the parameters, as {@code name=value} pairs separated by {@code ;}
+	 * @param score  the mean throughput, in operations per second
+	 * @param error  the standard deviation of the throughput over the measurement iterations
+	 */
+	public BenchmarkResult(String benchmark, String params, double score, double error) {
+		this.benchmark = benchmark;
+		this.params    = params;
+		this.score     = score;
+		this.error     = error;
+	}
+
+	public String getBenchmark() {
+		return benchmark;
+	}
+
+	public String getParams() {
+		return params;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	public double getError() {
+		return error;
+	}
+
+	/**
+	 * Returns the key by which a result is matched to the baseline.
+	 */
+	public String getKey() {
+		return params.isEmpty() ? benchmark : benchmark + '[' + params + ']';
+	}
+
+	public String toCsv() {
+		return String.format(Locale.ROOT, "%s,%s,%.6g,%.6g,ops/s", benchmark, params, score, error);
+	}
+
+	public static BenchmarkResult fromCsv(String line) {
+		String[] fields = line.split(",", -1);
+		if (fields.length != 5) {
+			throw new IllegalArgumentException("Malformed result line: " + line);
+		}
+
+		return new BenchmarkResult(fields[0], fields[1], Double.parseDouble(fields[2]), Double.parseDouble(fields[3]));
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%-40s %14.3f +- %12.3f ops/s", getKey(), score, error);
+	}
+}
@@ -0,0 +1,267 @@
+package nl.airsupplies.utilities.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import net.jcip.annotations.NotThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * A minimal throughput benchmark harness.
+ * <p>
+ * Every benchmark is run for a number of warmup iterations, to let the JIT compile the hot paths, followed by a number
+ * of measurement iterations. During each iteration, the operation is invoked repeatedly for a fixed amount of time. The
+ * score is the mean number of invocations per second over the measurement iterations, and the error is the standard
+ * deviation.
+ * <p>
+ * Benchmarks are set up lazily, one at a time, so large inputs of one benchmark don't linger while the next runs.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@NotThreadSafe
+public class BenchmarkRunner {
+	private final Map<String, Supplier<BenchmarkOperation>> benchmarks         = new LinkedHashMap<>(64);
+	private final Map<String, String>                       benchmarkNames     = new HashMap<>(64);
+	private final Map<String, String>                       benchmarkParams    = new HashMap<>(64);
+	private final Map<String, int[]>                        parameterOverrides = new HashMap<>(8);
+
+	private int               warmupIterations      = 5;
+	private int               measurementIterations = 5;
+	private long              iterationMillis       = 1000;
+	private @Nullable Pattern filter                = null;
+
+	/**
+	 * Consumes the results of the operations. Volatile so the JIT can't prove it's never read.
+	 */
+	@SuppressWarnings("unused")
+	private volatile double sink = 0;
+
+	public int getWarmupIterations() {
+		return warmupIterations;
+	}
+
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = requireAtLeast(0, warmupIterations, "warmupIterations");
+	}
+
+	public int getMeasurementIterations() {
+		return measurementIterations;
+	}
+
+	public void setMeasurementIterations(int measurementIterations) {
+		this.measurementIterations = requireAtLeast(1, measurementIterations, "measurementIterations");
+	}
+
+	public long getIterationMillis() {
+		return iterationMillis;
+	}
+
+	public void setIterationMillis(long iterationMillis) {
+		this.iterationMillis = requireAtLeast(1L, iterationMillis, "iterationMillis");
+	}
+
+	public @Nullable Pattern getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Only benchmarks of which the key (see {@link BenchmarkResult#getKey()}) contains a match for the filter are run.
+	 */
+	public void setFilter(@Nullable Pattern filter) {
+		this.filter = filter;
+	}
+
+	/**
+	 * Replaces the default values of a parameter, for all benchmarks that use it.
+	 */
+	public void overrideParameter(String name, int... values) {
+		requireNonNull(name, "name");
+		requireAtLeast(1, values.length, "values.length");
+
+		parameterOverrides.put(name, values.clone());
+	}
+
+	/**
+	 * Returns the values to run a parameter with: the override if set, otherwise the given defaults.
+	 */
+	public int[] getParameter(String name, int... defaultValues) {
+		int[] values = parameterOverrides.get(name);
+		return values != null ? values : defaultValues;
+	}
+
+	/**
+	 * @param params the parameters, as {@code name=value} pairs separated by {@code ;}, or an empty string
+	 * @param setup  creates the inputs and returns the operation to benchmark. Called only when the benchmark runs.
+	 */
+	public void add(String benchmark, String params, Supplier<BenchmarkOperation> setup) {
+		requireNonNull(benchmark, "benchmark");
+		requireNonNull(params, "params");
+		requireNonNull(setup, "setup");
+		if (benchmark.contains(",") || params.contains(",")) {
+			throw new IllegalArgumentException("Benchmark names and parameters can't contain ','");
+		}
+
+		String key = params.isEmpty() ? benchmark : benchmark + '[' + params + ']';
+		if (benchmarks.containsKey(key)) {
+			throw new IllegalArgumentException("Duplicate benchmark: " + key);
+		}
+
+		benchmarks.put(key, setup);
+		benchmarkNames.put(key, benchmark);
+		benchmarkParams.put(key, params);
+	}
+
+	/**
+	 * Runs all benchmarks that pass the filter, printing progress and results to {@code log}.
+	 */
+	public List<BenchmarkResult> run(PrintStream log) {
+		List<BenchmarkResult> results = new ArrayList<>(benchmarks.size());
+
+		for (Map.Entry<String, Supplier<BenchmarkOperation>> entry : benchmarks.entrySet()) {
+			String key = entry.getKey();
+			if (filter != null && !filter.matcher(key).find()) {
+				continue;
+			}
+
+			log.println("# " + key);
+			BenchmarkOperation operation = entry.getValue().get();
+
+			for (int i = 0; i < warmupIterations; i++) {
+				double opsPerSecond = runIteration(operation);
+				log.printf(Locale.ROOT, "  Warmup %2d: %14.3f ops/s\n", i + 1, opsPerSecond);
+			}
+
+			double[] scores = new double[measurementIterations];
+			for (int i = 0; i < measurementIterations; i++) {
+				scores[i] = runIteration(operation);
+				log.printf(Locale.ROOT, "  Iter   %2d: %14.3f ops/s\n", i + 1, scores[i]);
+			}
+
+			BenchmarkResult result = new BenchmarkResult(benchmarkNames.get(key), benchmarkParams.get(key),
+			                                             mean(scores), standardDeviation(scores));
+			results.add(result);
+			log.println(result);
+		}
+
+		return results;
+	}
+
+	private double runIteration(BenchmarkOperation operation) {
+		long   duration = iterationMillis * 1_000_000;
+		long   count    = 0;
+		double sum      = 0;
+
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			sum += operation.run();
+			count++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < duration);
+
+		sink = sum;
+		return count * 1.0e9 / elapsed;
+	}
+
+	private static double mean(double[] values) {
+		double sum = 0;
+		for (double value : values) {
+			sum += value;
+		}
+
+		return sum / values.length;
+	}
+
+	private static double standardDeviation(double[] values) {
+		if (values.length < 2) {
+			return 0;
+		}
+
+		double mean = mean(values);
+		double sum  = 0;
+		for (double value : values) {
+			sum += (value - mean) * (value - mean);
+		}
+
+		return Math.sqrt(sum / (values.length - 1));
+	}
+
+	public static void writeCsv(Collection<BenchmarkResult> results, Path file) throws IOException {
+		try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write(BenchmarkResult.CSV_HEADER);
+			out.write('\n');
+
+			for (BenchmarkResult result : results) {
+				out.write(result.toCsv());
+				out.write('\n');
+			}
+		}
+	}
+
+	public static List<BenchmarkResult> readCsv(Path file) throws IOException {
+		List<String>          lines   = Files.readAllLines(file, StandardCharsets.UTF_8);
+		List<BenchmarkResult> results = new ArrayList<>(lines.size());
+
+		for (String line : lines) {
+			if (line.trim().isEmpty() || line.equals(BenchmarkResult.CSV_HEADER)) {
+				continue;
+			}
+
+			results.add(BenchmarkResult.fromCsv(line));
+		}
+
+		return results;
+	}
+
+	/**
+	 * Compares results to a baseline, printing the relative change of every benchmark present in both.
+	 *
+	 * @param thresholdPercent how many percent a score may drop below the baseline before it counts as a regression
+	 * @return the number of regressions
+	 */
+	public static int compareToBaseline(Collection<BenchmarkResult> results,
+	                                    Collection<BenchmarkResult> baseline,
+	                                    double thresholdPercent,
+	                                    PrintStream log) {
+		Map<String, BenchmarkResult> baselineByKey = new HashMap<>(baseline.size() * 2);
+		for (BenchmarkResult result : baseline) {
+			baselineByKey.put(result.getKey(), result);
+		}
+
+		int regressions = 0;
+		for (BenchmarkResult result : results) {
+			BenchmarkResult previous = baselineByKey.get(result.getKey());
+			if (previous == null) {
+				log.printf(Locale.ROOT, "%-40s (not in baseline)\n", result.getKey());
+				continue;
+			}
+
+			double  changePercent = (result.getScore() / previous.getScore() - 1) * 100;
+			boolean regressed     = changePercent < -thresholdPercent;
+			if (regressed) {
+				regressions++;
+			}
+
+			log.printf(Locale.ROOT, "%-40s %+8.2f%%%s\n", result.getKey(), changePercent, regressed ? "  REGRESSION" : "");
+		}
+
+		return regressions;
+	}
+}
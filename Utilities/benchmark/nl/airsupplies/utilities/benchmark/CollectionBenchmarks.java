@@ -0,0 +1,71 @@
+package nl.airsupplies.utilities.benchmark;
+
+import java.util.Random;
+
+import nl.airsupplies.utilities.annotation.StaticClass;
+import nl.airsupplies.utilities.collection.IntHashMap;
+
+/**
+ * Parameters: {@code collectionSize}
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@StaticClass
+public final class CollectionBenchmarks {
+	public static void register(BenchmarkRunner runner) {
+		for (int collectionSize : runner.getParameter("collectionSize", 1000, 100_000, 1_000_000)) {
+			String params = "collectionSize=" + collectionSize;
+
+			runner.add("intHashMap.put", params, () -> setUpPut(collectionSize));
+			runner.add("intHashMap.get", params, () -> setUpGet(collectionSize));
+		}
+	}
+
+	/**
+	 * Fills an empty map, including all rehashing along the way.
+	 */
+	private static BenchmarkOperation setUpPut(int collectionSize) {
+		int[] keys = createKeys(collectionSize);
+
+		return () -> {
+			IntHashMap<Integer> map = new IntHashMap<>();
+			for (int key : keys) {
+				map.put(key, key);
+			}
+
+			return map.size();
+		};
+	}
+
+	/**
+	 * Looks up every key once, in random order.
+	 */
+	private static BenchmarkOperation setUpGet(int collectionSize) {
+		int[]               keys = createKeys(collectionSize);
+		IntHashMap<Integer> map  = new IntHashMap<>();
+		for (int key : keys) {
+			map.put(key, key);
+		}
+
+		return () -> {
+			int sum = 0;
+			for (int key : keys) {
+				sum += map.get(key);
+			}
+
+			return sum;
+		};
+	}
+
+	private static int[] createKeys(int collectionSize) {
+		Random random = new Random(collectionSize);
+		int[]  keys   = new int[collectionSize];
+
+		for (int i = 0; i < collectionSize; i++) {
+			keys[i] = random.nextInt();
+		}
+
+		return keys;
+	}
+}
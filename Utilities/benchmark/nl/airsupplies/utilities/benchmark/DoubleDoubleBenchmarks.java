@@ -0,0 +1,53 @@
+package nl.airsupplies.utilities.benchmark;
+
+import java.util.Random;
+
+import nl.airsupplies.utilities.annotation.StaticClass;
+import nl.airsupplies.utilities.complex.DoubleDouble;
+
+/**
+ * Every operation is applied to all elements of an array of {@code collectionSize} values.
+ * <p>
+ * Parameters: {@code collectionSize}
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@StaticClass
+public final class DoubleDoubleBenchmarks {
+	public static void register(BenchmarkRunner runner) {
+		for (int collectionSize : runner.getParameter("collectionSize", 1000)) {
+			String params = "collectionSize=" + collectionSize;
+
+			runner.add("doubleDouble.add", params, () -> setUp(collectionSize, DoubleDouble::add));
+			runner.add("doubleDouble.mul", params, () -> setUp(collectionSize, DoubleDouble::mul));
+			runner.add("doubleDouble.div", params, () -> setUp(collectionSize, DoubleDouble::div));
+			runner.add("doubleDouble.sqrt", params, () -> setUp(collectionSize, (x, y) -> x.sqrt()));
+		}
+	}
+
+	private static BenchmarkOperation setUp(int collectionSize, Operator operator) {
+		Random         random = new Random(collectionSize);
+		DoubleDouble[] x      = new DoubleDouble[collectionSize];
+		DoubleDouble[] y      = new DoubleDouble[collectionSize];
+
+		for (int i = 0; i < collectionSize; i++) {
+			x[i] = new DoubleDouble(random.nextDouble() + 1).div(3);
+			y[i] = new DoubleDouble(random.nextDouble() + 1).div(7);
+		}
+
+		return () -> {
+			double sum = 0;
+			for (int i = 0; i < collectionSize; i++) {
+				sum += operator.apply(x[i], y[i]).hi;
+			}
+
+			return sum;
+		};
+	}
+
+	@FunctionalInterface
+	private interface Operator {
+		DoubleDouble apply(DoubleDouble x, DoubleDouble y);
+	}
+}
@@ -0,0 +1,96 @@
+package nl.airsupplies.utilities.benchmark;
+
+import java.util.Random;
+
+import nl.airsupplies.utilities.annotation.StaticClass;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.filter.ImageConvolutionFilter;
+import nl.airsupplies.utilities.graphics.image.filter.ImageMedianFilter;
+
+/**
+ * Parameters: {@code size} (width and height of the image), {@code radius} (of the kernel)
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@StaticClass
+public final class ImageBenchmarks {
+	private static final int NUM_COMPONENTS = 3;
+
+	public static void register(BenchmarkRunner runner) {
+		int[] sizes = runner.getParameter("size", 256, 1024);
+		int[] radii = runner.getParameter("radius", 1, 2, 4);
+
+		for (int size : sizes) {
+			for (int radius : radii) {
+				String params = "size=" + size + ";radius=" + radius;
+
+				runner.add("convolution.direct", params, () -> setUpConvolution(size, radius, false));
+				runner.add("convolution.separable", params, () -> setUpConvolution(size, radius, true));
+				runner.add("median", params, () -> setUpMedian(size, radius));
+			}
+		}
+	}
+
+	private static BenchmarkOperation setUpConvolution(int size, int radius, boolean separable) {
+		ImageMatrixFloat in   = createImage(size, radius);
+		ImageMatrixFloat temp = new ImageMatrixFloat(size, size, NUM_COMPONENTS, radius);
+		ImageMatrixFloat out  = new ImageMatrixFloat(size, size, NUM_COMPONENTS, radius);
+
+		ImageConvolutionFilter filter;
+		if (separable) {
+			filter = ImageConvolutionFilter.designGaussianBlur(radius / 2.0f, 1.0e-3f, radius);
+		} else {
+			filter = new ImageConvolutionFilter(createKernel(radius));
+			filter.setSeparableTolerance(0);
+		}
+
+		return () -> {
+			filter.filter(in, temp, out);
+			return out.matrix[0][radius][radius];
+		};
+	}
+
+	private static BenchmarkOperation setUpMedian(int size, int radius) {
+		ImageMatrixFloat  in     = createImage(size, radius);
+		ImageMatrixFloat  out    = new ImageMatrixFloat(size, size, NUM_COMPONENTS, radius);
+		ImageMedianFilter filter = new ImageMedianFilter(radius);
+
+		return () -> {
+			filter.filter(in, out);
+			return out.matrix[0][radius][radius];
+		};
+	}
+
+	private static ImageMatrixFloat createImage(int size, int border) {
+		Random           random = new Random(size);
+		ImageMatrixFloat image  = new ImageMatrixFloat(size, size, NUM_COMPONENTS, border);
+
+		for (float[][] plane : image.matrix) {
+			for (float[] row : plane) {
+				for (int x = 0; x < row.length; x++) {
+					row[x] = random.nextFloat();
+				}
+			}
+		}
+
+		return image;
+	}
+
+	/**
+	 * Random, so it's not separable.
+	 */
+	private static float[][] createKernel(int radius) {
+		Random    random   = new Random(radius);
+		int       diameter = radius * 2 + 1;
+		float[][] kernel   = new float[diameter][diameter];
+
+		for (float[] row : kernel) {
+			for (int x = 0; x < diameter; x++) {
+				row[x] = random.nextFloat();
+			}
+		}
+
+		return kernel;
+	}
+}
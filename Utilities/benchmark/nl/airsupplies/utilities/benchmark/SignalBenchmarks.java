@@ -0,0 +1,39 @@
+package nl.airsupplies.utilities.benchmark;
+
+import java.util.Random;
+
+import nl.airsupplies.utilities.annotation.StaticClass;
+import nl.airsupplies.utilities.complex.Complex2d;
+import nl.airsupplies.utilities.signal.FFTEngine;
+
+/**
+ * Parameters: {@code fftSize}
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@StaticClass
+public final class SignalBenchmarks {
+	public static void register(BenchmarkRunner runner) {
+		for (int fftSize : runner.getParameter("fftSize", 256, 4096, 65536)) {
+			runner.add("fft.transform", "fftSize=" + fftSize, () -> setUpTransform(fftSize));
+		}
+	}
+
+	private static BenchmarkOperation setUpTransform(int fftSize) {
+		Random      random = new Random(fftSize);
+		FFTEngine   fft    = new FFTEngine(fftSize);
+		Complex2d[] in     = new Complex2d[fftSize];
+		Complex2d[] out    = new Complex2d[fftSize];
+
+		for (int i = 0; i < fftSize; i++) {
+			in[i]  = new Complex2d(random.nextDouble() - 0.5);
+			out[i] = new Complex2d();
+		}
+
+		return () -> {
+			fft.transform(in, out);
+			return out[1].real;
+		};
+	}
+}
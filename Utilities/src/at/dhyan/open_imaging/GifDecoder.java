@@ -1,13 +1,21 @@
 package at.dhyan.open_imaging;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import static java.lang.System.arraycopy;
 
 /*
@@ -131,6 +139,9 @@ public final class GifDecoder {
 			initTableSize = fr.endOfInfoCode + 1;
 			nextCode = initTableSize;
 			for (int c = numColors - 1; c >= 0; c--) {
+				if (tbl[c].length != 1) { // Overwritten by a frame with fewer colors
+					tbl[c] = new int[1];
+				}
 				tbl[c][0] = activeColTbl[c]; // Translated color
 			} // A gap may follow with no colors assigned if numCols < CLEAR
 			tbl[fr.clearCode] = new int[]{fr.clearCode}; // CLEAR
@@ -145,68 +156,225 @@ public final class GifDecoder {
 	final class GifFrame {
 		// Graphic control extension (optional)
 		// Disposal: 0=NO_ACTION, 1=NO_DISPOSAL, 2=RESTORE_BG, 3=RESTORE_PREV
-		private int           disposalMethod; // 0-3 as above, 4-7 undefined
-		private boolean       transpColFlag; // 1 Bit
-		private int           delay; // Unsigned, LSByte first, n * 1/100 * s
-		private int           transpColIndex; // 1 Byte
+		private int     disposalMethod; // 0-3 as above, 4-7 undefined
+		private boolean transpColFlag; // 1 Bit
+		private int     delay; // Unsigned, LSByte first, n * 1/100 * s
+		private int     transpColIndex; // 1 Byte
 		// Image descriptor
-		private int           x; // Position on the canvas from the left
-		private int           y; // Position on the canvas from the top
-		private int           w; // May be smaller than the base image
-		private int           h; // May be smaller than the base image
-		private int           wh; // width * height
-		private boolean       hasLocColTbl; // Has local color table? 1 Bit
-		private boolean       interlaceFlag; // Is an interlace image? 1 Bit
+		private int     x; // Position on the canvas from the left
+		private int     y; // Position on the canvas from the top
+		private int     w; // May be smaller than the base image
+		private int     h; // May be smaller than the base image
+		private int     wh; // width * height
+		private boolean hasLocColTbl; // Has local color table? 1 Bit
+		private boolean interlaceFlag; // Is an interlace image? 1 Bit
 		@SuppressWarnings("unused")
-		private boolean       sortFlag; // True if local colors are sorted, 1 Bit
-		private int           sizeOfLocColTbl; // Size of the local color table, 3 Bits
-		private int[]         localColTbl; // Local color table (optional)
+		private boolean sortFlag; // True if local colors are sorted, 1 Bit
+		private int     sizeOfLocColTbl; // Size of the local color table, 3 Bits
+		private int[]   localColTbl; // Local color table (optional)
 		// Image data
-		private int           firstCodeSize; // LZW minimum code size + 1 for CLEAR & EOI
-		private int           clearCode;
-		private int           endOfInfoCode;
-		private byte[]        data; // Holds LZW encoded data
-		private BufferedImage img; // Full drawn image, not just the frame area
+		private int     firstCodeSize; // LZW minimum code size + 1 for CLEAR & EOI
+		private int     clearCode;
+		private int     endOfInfoCode;
+		private byte[]  data; // Holds LZW encoded data
+	}
+
+	/**
+	 * Per-thread LZW decoding state, so frames can be decoded concurrently.
+	 */
+	static final class Decoder {
+		private final BitReader bits  = new BitReader();
+		private final CodeTable codes = new CodeTable();
 	}
 
+	private static final ThreadLocal<Decoder> DECODERS = ThreadLocal.withInitial(Decoder::new);
+
 	public final class GifImage {
-		public        String         header; // Bytes 0-5, GIF87a or GIF89a
-		private       int            w; // Unsigned 16 Bit, least significant byte first
-		private       int            h; // Unsigned 16 Bit, least significant byte first
-		private       int            wh; // Image width * image height
-		public        boolean        hasGlobColTbl; // 1 Bit
-		public        int            colorResolution; // 3 Bits
-		public        boolean        sortFlag; // True if global colors are sorted, 1 Bit
-		public        int            sizeOfGlobColTbl; // 2^(val(3 Bits) + 1), see spec
-		public        int            bgColIndex; // Background color index, 1 Byte
-		public        int            pxAspectRatio; // Pixel aspect ratio, 1 Byte
-		public        int[]          globalColTbl; // Global color table
-		private final List<GifFrame> frames      = new ArrayList<GifFrame>(64);
-		public        String         appId       = ""; // 8 Bytes at in[i+3], usually "NETSCAPE"
-		public        String         appAuthCode = ""; // 3 Bytes at in[i+11], usually "2.0"
-		public        int            repetitions = 0; // 0: infinite loop, N: number of loops
-		private       BufferedImage  img         = null; // Currently drawn frame
-		private       int[]          prevPx      = null; // Previous frame's pixels
-		private final BitReader      bits        = new BitReader();
-		private final CodeTable      codes       = new CodeTable();
-		private       Graphics2D     g;
+		public        String                      header; // Bytes 0-5, GIF87a or GIF89a
+		private       int                         w; // Unsigned 16 Bit, least significant byte first
+		private       int                         h; // Unsigned 16 Bit, least significant byte first
+		private       int                         wh; // Image width * image height
+		public        boolean                     hasGlobColTbl; // 1 Bit
+		public        int                         colorResolution; // 3 Bits
+		public        boolean                     sortFlag; // True if global colors are sorted, 1 Bit
+		public        int                         sizeOfGlobColTbl; // 2^(val(3 Bits) + 1), see spec
+		public        int                         bgColIndex; // Background color index, 1 Byte
+		public        int                         pxAspectRatio; // Pixel aspect ratio, 1 Byte
+		public        int[]                       globalColTbl; // Global color table
+		private final List<GifFrame>              frames             = new ArrayList<>(64);
+		public        String                      appId              = ""; // 8 Bytes at in[i+3], usually "NETSCAPE"
+		public        String                      appAuthCode        = ""; // 3 Bytes at in[i+11], usually "2.0"
+		public        int                         repetitions        = 0; // 0: infinite loop, N: number of loops
+		// Frame access
+		private       int                         maxCachedFrames    = 8; // LRU of frames returned by getFrame()
+		private       int                         checkpointInterval = 64; // Frames between canvas checkpoints
+		private       int                         decodeAhead        = 2; // Frames decoded concurrently
+		private final Map<Integer, BufferedImage> cache              = new LinkedHashMap<>(16, 0.75f, true);
+		private final Map<Integer, int[]>         checkpoints        = new HashMap<>(16); // Canvas before frame
+		private       Compositor                  randomAccess       = null; // Used by getFrame()
+
+		/**
+		 * Draws frames one after another onto a single canvas, which is the
+		 * only full-size image it keeps. The LZW data of the next frames is
+		 * decoded concurrently on the common pool while compositing. Only the
+		 * compositor of getFrame() records checkpoints, so streaming through
+		 * the frames doesn't accumulate copies of the canvas.
+		 */
+		private final class Compositor {
+			private final boolean                   checkpointing; // Records checkpoints while drawing
+			private final BufferedImage             image   = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+			private final int[]                     canvas  = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+			private       int[]                     restore = null; // Canvas before the current frame, for disposal 3
+			private       int                       current = -1; // Frame on the canvas
+			private       boolean                   disposed; // Is the current frame already disposed?
+			private final ArrayDeque<Future<int[]>> pending = new ArrayDeque<>(8); // Frames being decoded
+			private       int                       pendingIndex; // Frame index of the first pending decode
+
+			Compositor(boolean checkpointing) {
+				this.checkpointing = checkpointing;
+			}
+
+			/**
+			 * Draws the next frame.
+			 */
+			private final void advance() {
+				int index = current + 1;
+				if (current >= 0 && !disposed) {
+					dispose(frames.get(current));
+				}
+				// The canvas now holds the state before the frame at index
+				if (checkpointing && checkpointInterval > 0 && index % checkpointInterval == 0 && index > 0 &&
+				    !isKeyframe(index) && !checkpoints.containsKey(index)) {
+					checkpoints.put(index, canvas.clone());
+				}
+				GifFrame fr = frames.get(index);
+				if (fr.disposalMethod == 3) { // Keep the canvas to restore it
+					if (restore == null) {
+						restore = new int[wh];
+					}
+					arraycopy(canvas, 0, restore, 0, wh);
+				}
+				draw(fr, takePixels(index));
+				current = index;
+				disposed = false;
+			}
+
+			/**
+			 * Draws frames until the given frame is on the canvas. Starts from
+			 * the nearest keyframe or checkpoint if that's closer than the
+			 * current frame.
+			 */
+			private final void seek(int index) {
+				if (index == current) {
+					return;
+				}
+				int start = index; // The frame to start drawing at
+				while (start > 0 && !isKeyframe(start) && !checkpoints.containsKey(start)) {
+					start--;
+				}
+				if (index < current || current < start - 1) {
+					int[] checkpoint = checkpoints.get(start);
+					if (checkpoint != null) {
+						arraycopy(checkpoint, 0, canvas, 0, wh);
+					} else {
+						Arrays.fill(canvas, 0);
+					}
+					// Pretend the frame before start was drawn and disposed
+					current = start - 1;
+					disposed = true;
+				}
+				while (current < index) {
+					advance();
+				}
+			}
+
+			private final void draw(GifFrame fr, int[] pixels) {
+				int endX = Math.min(fr.x + fr.w, w); // Clip to the canvas
+				int endY = Math.min(fr.y + fr.h, h);
+				for (int y = fr.y; y < endY; y++) {
+					int src = (y - fr.y) * fr.w;
+					int dst = y * w;
+					for (int x = fr.x; x < endX; x++) {
+						int px = pixels[src + x - fr.x];
+						if (px != 0) { // Transparent pixels are 0
+							canvas[dst + x] = px;
+						}
+					}
+				}
+			}
+
+			private final void dispose(GifFrame fr) {
+				if (fr.disposalMethod == 2) {
+					// Restore to background color (clear frame area only)
+					int endX = Math.min(fr.x + fr.w, w);
+					int endY = Math.min(fr.y + fr.h, h);
+					for (int y = fr.y; y < endY; y++) {
+						if (fr.x < endX) {
+							Arrays.fill(canvas, y * w + fr.x, y * w + endX, 0);
+						}
+					}
+				} else if (fr.disposalMethod == 3 && restore != null) {
+					// Restore previous frame
+					arraycopy(restore, 0, canvas, 0, wh);
+				}
+			}
+
+			/**
+			 * Returns the decoded pixels of a frame, and starts decoding the
+			 * frames after it.
+			 */
+			private final int[] takePixels(int index) {
+				if (decodeAhead <= 1) {
+					return decodePixels(frames.get(index));
+				}
+				if (pending.isEmpty() || pendingIndex != index) { // Jumped
+					for (Future<int[]> future : pending) {
+						future.cancel(false);
+					}
+					pending.clear();
+					pendingIndex = index;
+				}
+				fillPending();
+				Future<int[]> future = pending.poll();
+				pendingIndex++;
+				fillPending();
+				try {
+					return future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				} catch (ExecutionException e) {
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+
+			private final void fillPending() {
+				while (pending.size() < decodeAhead && pendingIndex + pending.size() < frames.size()) {
+					GifFrame fr = frames.get(pendingIndex + pending.size());
+					pending.add(ForkJoinPool.commonPool().submit(() -> decodePixels(fr)));
+				}
+			}
+		}
 
 		private final int[] decode(GifFrame fr, int[] activeColTbl) {
+			Decoder   decoder = DECODERS.get();
+			BitReader bits    = decoder.bits;
+			CodeTable codes   = decoder.codes;
 			codes.init(fr, activeColTbl, bits);
 			bits.init(fr.data); // Incoming codes
 			int     clearCode = fr.clearCode, endCode = fr.endOfInfoCode;
-			int[]   out       = new int[wh]; // Target image pixel array
+			int[]   out       = new int[fr.wh]; // Target frame pixel array
 			int[][] tbl       = codes.tbl; // Code table
 			int     outPos    = 0; // Next pixel position in the output image array
 			codes.clear(); // Init code table
-			int code = bits.read(); // Read first code
-			if (code == clearCode) { // Skip leading clear code
-				code = bits.read();
-			}
-			int[] pixels = tbl[code]; // Output pixel for first code
-			arraycopy(pixels, 0, out, outPos, pixels.length);
-			outPos += pixels.length;
 			try {
+				int code = bits.read(); // Read first code
+				if (code == clearCode) { // Skip leading clear code
+					code = bits.read();
+				}
+				int[] pixels = tbl[code]; // Output pixel for first code
+				arraycopy(pixels, 0, out, outPos, pixels.length);
+				outPos += pixels.length;
 				while (true) {
 					int prevCode = code;
 					code = bits.read(); // Get next code in stream
@@ -236,6 +404,7 @@ public final class GifDecoder {
 					codes.add(prevValsAndK); // Previous indices + K
 				}
 			} catch (ArrayIndexOutOfBoundsException e) {
+				// Truncated or overlong data, keep what was decoded
 			}
 			return out;
 		}
@@ -268,7 +437,11 @@ public final class GifDecoder {
 			return dest; // All pixel lines have now been rearranged
 		}
 
-		private final void drawFrame(GifFrame fr) {
+		/**
+		 * Decodes the frame area to ARGB, with transparent pixels as 0. Safe
+		 * to call concurrently for different frames.
+		 */
+		private final int[] decodePixels(GifFrame fr) {
 			// Determine the color table that will be active for this frame
 			int[] activeColTbl = fr.hasLocColTbl ? fr.localColTbl : globalColTbl;
 			// Get pixels from data stream
@@ -276,38 +449,16 @@ public final class GifDecoder {
 			if (fr.interlaceFlag) {
 				pixels = deinterlace(pixels, fr); // Rearrange pixel lines
 			}
-			// Create image of type 2=ARGB for frame area
-			BufferedImage frame = new BufferedImage(fr.w, fr.h, 2);
-			arraycopy(pixels, 0, ((DataBufferInt)frame.getRaster().getDataBuffer()).getData(), 0, fr.wh);
-			// Draw frame area on top of working image
-			g.drawImage(frame, fr.x, fr.y, null);
-
-			// Visualize frame boundaries during testing
-			// if (DEBUG_MODE) {
-			// if (prev != null) {
-			// g.setColor(Color.RED); // Previous frame color
-			// g.drawRect(prev.x, prev.y, prev.w - 1, prev.h - 1);
-			// }
-			// g.setColor(Color.GREEN); // New frame color
-			// g.drawRect(fr.x, fr.y, fr.w - 1, fr.h - 1);
-			// }
-
-			// Keep one copy as "previous frame" in case we need to restore it
-			prevPx = new int[wh];
-			arraycopy(((DataBufferInt)img.getRaster().getDataBuffer()).getData(), 0, prevPx, 0, wh);
-
-			// Create another copy for the end user to not expose internal state
-			fr.img = new BufferedImage(w, h, 2); // 2 = ARGB
-			arraycopy(prevPx, 0, ((DataBufferInt)fr.img.getRaster().getDataBuffer()).getData(), 0, wh);
-
-			// Handle disposal of current frame
-			if (fr.disposalMethod == 2) {
-				// Restore to background color (clear frame area only)
-				g.clearRect(fr.x, fr.y, fr.w, fr.h);
-			} else if (fr.disposalMethod == 3 && prevPx != null) {
-				// Restore previous frame
-				arraycopy(prevPx, 0, ((DataBufferInt)img.getRaster().getDataBuffer()).getData(), 0, wh);
-			}
+			return pixels;
+		}
+
+		/**
+		 * A keyframe covers the whole canvas without transparency, so drawing
+		 * can start there regardless of what came before.
+		 */
+		private final boolean isKeyframe(int index) {
+			GifFrame fr = frames.get(index);
+			return fr.x == 0 && fr.y == 0 && fr.w >= w && fr.h >= h && !fr.transpColFlag && fr.disposalMethod != 3;
 		}
 
 		/**
@@ -343,30 +494,131 @@ public final class GifDecoder {
 		 * @param index Index of the frame to return as image, starting from 0.
 		 *              For incremental calls such as [0, 1, 2, ...] the method's
 		 *              run time is O(1) as only one frame is drawn per call. For
-		 *              random access calls such as [7, 12, ...] the run time is
-		 *              O(N+1) with N being the number of previous frames that
-		 *              need to be drawn before N+1 can be drawn on top. Once a
-		 *              frame has been drawn it is being cached and the run time
-		 *              is more or less O(0) to retrieve it from the list.
-		 * @return A BufferedImage for the specified frame.
+		 *              random access calls such as [7, 12, ...] drawing starts
+		 *              at the nearest keyframe or checkpoint before the frame.
+		 *              The last {@link #getMaxCachedFrames()} frames returned
+		 *              are cached.
+		 * @return A new BufferedImage for the specified frame, or the cached
+		 * one if it was returned before.
 		 */
 		public final BufferedImage getFrame(int index) {
-			if (img == null) { // Init
-				img = new BufferedImage(w, h, 2); // 2 = ARGB
-				g = img.createGraphics();
-				g.setBackground(new Color(0, true)); // Transparent color
+			if (index < 0 || index >= frames.size()) {
+				throw new IndexOutOfBoundsException("Frame " + index + " of " + frames.size());
 			}
-			GifFrame fr = frames.get(index);
-			if (fr.img == null) {
-				// Draw all frames until and including the requested frame
-				for (int i = 0; i <= index; i++) {
-					fr = frames.get(i);
-					if (fr.img == null) {
-						drawFrame(fr);
+			BufferedImage img = cache.get(index);
+			if (img != null) {
+				return img;
+			}
+			if (randomAccess == null) {
+				randomAccess = new Compositor(true);
+			}
+			randomAccess.seek(index);
+			// Create a copy for the end user to not expose internal state
+			img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+			arraycopy(randomAccess.canvas, 0, ((DataBufferInt)img.getRaster().getDataBuffer()).getData(), 0, wh);
+			if (maxCachedFrames > 0) {
+				cache.put(index, img);
+				trimCache();
+			}
+			return img;
+		}
+
+		/**
+		 * Returns the frames in order, drawn into a single image that is
+		 * reused for every frame: copy it to keep it. Memory use is bounded by
+		 * a few frames regardless of the number of frames. Every iterator draws
+		 * independently, and doesn't use or fill the cache or the checkpoints
+		 * of {@link #getFrame(int)}.
+		 */
+		public final Iterator<BufferedImage> frameIterator() {
+			Compositor compositor = new Compositor(false);
+			return new Iterator<BufferedImage>() {
+				@Override
+				public boolean hasNext() {
+					return compositor.current + 1 < frames.size();
+				}
+
+				@Override
+				public BufferedImage next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
 					}
+					compositor.advance();
+					return compositor.image;
 				}
+			};
+		}
+
+		/**
+		 * @return The maximum number of frames cached by {@link #getFrame(int)}
+		 */
+		public final int getMaxCachedFrames() {
+			return maxCachedFrames;
+		}
+
+		/**
+		 * @param maxCachedFrames The maximum number of frames cached by
+		 *                        {@link #getFrame(int)}, least recently used
+		 *                        first out. 0 disables caching.
+		 */
+		public final void setMaxCachedFrames(int maxCachedFrames) {
+			if (maxCachedFrames < 0) {
+				throw new IllegalArgumentException("'maxCachedFrames' must be at least 0: " + maxCachedFrames);
+			}
+			this.maxCachedFrames = maxCachedFrames;
+			trimCache();
+		}
+
+		private final void trimCache() {
+			Iterator<Integer> iterator = cache.keySet().iterator();
+			while (cache.size() > maxCachedFrames) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+
+		/**
+		 * @return The number of frames between canvas checkpoints
+		 */
+		public final int getCheckpointInterval() {
+			return checkpointInterval;
+		}
+
+		/**
+		 * @param checkpointInterval The number of frames between copies of the
+		 *                           canvas kept for random access by
+		 *                           {@link #getFrame(int)}, each costing one
+		 *                           frame of memory. Frames that are natural
+		 *                           keyframes don't need a copy. 0 disables
+		 *                           checkpoints.
+		 */
+		public final void setCheckpointInterval(int checkpointInterval) {
+			if (checkpointInterval < 0) {
+				throw new IllegalArgumentException("'checkpointInterval' must be at least 0: " + checkpointInterval);
+			}
+			this.checkpointInterval = checkpointInterval;
+			checkpoints.clear();
+		}
+
+		/**
+		 * @return The number of frames decoded concurrently ahead of drawing
+		 */
+		public final int getDecodeAhead() {
+			return decodeAhead;
+		}
+
+		/**
+		 * @param decodeAhead The number of frames decoded concurrently ahead of
+		 *                    drawing, 2 by default. 0 or 1 decodes on the
+		 *                    calling thread. Every frame ahead holds its
+		 *                    pixels and a task on the common pool, so raise
+		 *                    it only when decoding is the bottleneck.
+		 */
+		public final void setDecodeAhead(int decodeAhead) {
+			if (decodeAhead < 0) {
+				throw new IllegalArgumentException("'decodeAhead' must be at least 0: " + decodeAhead);
 			}
-			return fr.img;
+			this.decodeAhead = decodeAhead;
 		}
 
 		/**
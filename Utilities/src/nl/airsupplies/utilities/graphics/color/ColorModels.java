@@ -10,11 +10,13 @@ import nl.airsupplies.utilities.graphics.color.colormodel.RGBColorModel;
 import nl.airsupplies.utilities.graphics.color.colormodel.YIQColorModel;
 import nl.airsupplies.utilities.graphics.color.colormodel.YPbPrColorModel;
 import nl.airsupplies.utilities.graphics.color.colormodel.YUVColorModel;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
 
 /**
  * @author Mark Jeronimus
  */
 // Created 2016-02-28
+// Changed 2026-10-17 Added batch conversion
 public enum ColorModels {
 	/**
 	 * This color model is a cube with the grays at the volume-diagonal and the primaries and secondaries at vertices.
@@ -71,4 +73,34 @@ public enum ColorModels {
 	public Color3f toRGB(Color3f color) {
 		return colorModel.toRGB(color);
 	}
+
+	/**
+	 * @see ColorModel#fromRGB(float[], float[], float[], float[], float[], float[], int, int)
+	 */
+	public void fromRGB(float[] r, float[] g, float[] b, float[] out0, float[] out1, float[] out2,
+	                    int offset, int length) {
+		colorModel.fromRGB(r, g, b, out0, out1, out2, offset, length);
+	}
+
+	/**
+	 * @see ColorModel#toRGB(float[], float[], float[], float[], float[], float[], int, int)
+	 */
+	public void toRGB(float[] in0, float[] in1, float[] in2, float[] r, float[] g, float[] b,
+	                  int offset, int length) {
+		colorModel.toRGB(in0, in1, in2, r, g, b, offset, length);
+	}
+
+	/**
+	 * @see ColorModel#fromRGB(ImageMatrixFloat, ImageMatrixFloat)
+	 */
+	public void fromRGB(ImageMatrixFloat in, ImageMatrixFloat out) {
+		colorModel.fromRGB(in, out);
+	}
+
+	/**
+	 * @see ColorModel#toRGB(ImageMatrixFloat, ImageMatrixFloat)
+	 */
+	public void toRGB(ImageMatrixFloat in, ImageMatrixFloat out) {
+		colorModel.toRGB(in, out);
+	}
 }
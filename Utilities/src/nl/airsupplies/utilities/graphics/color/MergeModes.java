@@ -1,12 +1,20 @@
 package nl.airsupplies.utilities.graphics.color;
 
+import org.jetbrains.annotations.Nullable;
+
 import nl.airsupplies.utilities.brokenorold.Color4fOld;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
 import nl.airsupplies.utilities.math.FastTrig;
 
 /**
+ * Besides single colors, every mode can merge whole spans of ARGB pixels or planar images at once. These unpack the
+ * colors to planar arrays once per row, and run a loop specialized for the mode over every component.
+ *
  * @author Mark Jeronimus
  */
 // Created 2009-05-08
+// Changed 2026-10-17 Added batch merging
 public enum MergeModes {
 	NORMAL {
 		@Override
@@ -16,6 +24,11 @@ public enum MergeModes {
 			bot.b = top.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			System.arraycopy(top, begin, bot, begin, end - begin);
+		}
 	},
 	DARKEN {
 		@Override
@@ -25,6 +38,15 @@ public enum MergeModes {
 			bot.b = Math.min(bot.b, top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = Math.min(b, t);
+			}
+		}
 	},
 	LIGHTEN {
 		@Override
@@ -34,6 +56,15 @@ public enum MergeModes {
 			bot.b = Math.max(bot.b, top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = Math.max(b, t);
+			}
+		}
 	},
 	/** Equivalent to AND in real-valued logic */
 	MULTIPLY {
@@ -44,6 +75,15 @@ public enum MergeModes {
 			bot.b *= top.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b * t;
+			}
+		}
 	},
 	/** Equivalent to OR in real-valued logic */
 	SCREEN {
@@ -54,6 +94,15 @@ public enum MergeModes {
 			bot.b = 1 - (1 - bot.b) * (1 - top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = 1 - (1 - b) * (1 - t);
+			}
+		}
 	},
 	/** a combination of multiply and screen */
 	OVERLAY {
@@ -64,6 +113,15 @@ public enum MergeModes {
 			bot.b = bot.b < 0.5 ? 2 * top.b * bot.b : 1 - 2 * (1 - bot.b) * (1 - top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b < 0.5 ? 2 * t * b : 1 - 2 * (1 - b) * (1 - t);
+			}
+		}
 	},
 	/** a combination of multiply and screen */
 	HARD_LIGHT {
@@ -74,6 +132,15 @@ public enum MergeModes {
 			bot.b = top.b < 0.5 ? 2 * top.b * bot.b : 1 - 2 * (1 - bot.b) * (1 - top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t < 0.5 ? 2 * t * b : 1 - 2 * (1 - b) * (1 - t);
+			}
+		}
 	},
 	SOFT_LIGHT {
 		@Override
@@ -83,6 +150,15 @@ public enum MergeModes {
 			bot.b = bot.b * bot.b + 2 * (1 - bot.b) * bot.b * top.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b * b + 2 * (1 - b) * b * t;
+			}
+		}
 	},
 	SOFT_LIGHT_GAMMA {
 		@Override
@@ -92,6 +168,15 @@ public enum MergeModes {
 			bot.b = (float)Math.pow(bot.b, Math.pow(2, 1 - 2 * top.b));
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = (float)Math.pow(b, Math.pow(2, 1 - 2 * t));
+			}
+		}
 	},
 	SOFT_LIGHT_PS {
 		@Override
@@ -107,6 +192,17 @@ public enum MergeModes {
 			        2 * bot.b * (1 - top.b) + (float)StrictMath.sqrt(bot.b) * (2 * top.b - 1);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t <= 0.5f ?
+				         2 * b * t + b * b * (1 - 2 * t) :
+				         2 * b * (1 - t) + (float)StrictMath.sqrt(b) * (2 * t - 1);
+			}
+		}
 	},
 	SOFT_LIGHT_W3C {
 		@Override
@@ -128,6 +224,17 @@ public enum MergeModes {
 			                                    (float)Math.sqrt(bot.b)) - bot.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t <= 0.5f ?
+				         b - (1 - 2 * t) * b * (1 - b) :
+				         b + (2 * t - 1) * ((b <= 0.25 ? ((16 * b - 12) * b + 4) * b : (float)Math.sqrt(b)) - b);
+			}
+		}
 	},
 	SOFT_LIGHT_UF {
 		@Override
@@ -137,6 +244,15 @@ public enum MergeModes {
 			bot.b = top.b < 0.5f ? (top.b + 0.5f) * bot.b : 1 - (1.5f - top.b) * (1 - bot.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t < 0.5f ? (t + 0.5f) * b : 1 - (1.5f - t) * (1 - b);
+			}
+		}
 	},
 	/** a combination of color burn and color dodge */
 	VIVID_LIGHT {
@@ -146,13 +262,24 @@ public enum MergeModes {
 			        top.r == 0 ? -1e10f : 1 - (1 - bot.r) / 2 / top.r :
 			        top.r == 1 ? 1e10f : bot.r / 2 / (1 - top.r);
 			bot.g = top.g < 0.5f ?
-			        top.r == 0 ? -1e10f : 1 - (1 - bot.g) / 2 / top.g :
-			        top.r == 1 ? 1e10f : bot.g / 2 / (1 - top.g);
+			        top.g == 0 ? -1e10f : 1 - (1 - bot.g) / 2 / top.g :
+			        top.g == 1 ? 1e10f : bot.g / 2 / (1 - top.g);
 			bot.b = top.b < 0.5f ?
-			        top.r == 0 ? -1e10f : 1 - (1 - bot.b) / 2 / top.b :
-			        top.r == 1 ? 1e10f : bot.b / 2 / (1 - top.b);
+			        top.b == 0 ? -1e10f : 1 - (1 - bot.b) / 2 / top.b :
+			        top.b == 1 ? 1e10f : bot.b / 2 / (1 - top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t < 0.5f ?
+				         t == 0 ? -1e10f : 1 - (1 - b) / 2 / t :
+				         t == 1 ? 1e10f : b / 2 / (1 - t);
+			}
+		}
 	},
 	/** a combination of darken and lighten */
 	PIN_LIGHT {
@@ -163,6 +290,15 @@ public enum MergeModes {
 			bot.b = top.b < 0.5f ? Math.min(bot.b, 2 * top.b) : Math.max(bot.b, 2 * top.b - 1);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t < 0.5f ? Math.min(b, 2 * t) : Math.max(b, 2 * t - 1);
+			}
+		}
 	},
 	/** a combination of linear burn and linear dodge */
 	LINEAR_LIGHT {
@@ -173,6 +309,15 @@ public enum MergeModes {
 			bot.b = bot.b + 2 * top.b - 1;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b + 2 * t - 1;
+			}
+		}
 	},
 	AVERAGE {
 		@Override
@@ -182,6 +327,15 @@ public enum MergeModes {
 			bot.b = (bot.b + top.b) * 0.5f;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = (b + t) * 0.5f;
+			}
+		}
 	},
 	SUBTRACT {
 		@Override
@@ -191,6 +345,15 @@ public enum MergeModes {
 			bot.b -= top.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b - t;
+			}
+		}
 	},
 	DIFFERENCE {
 		@Override
@@ -200,6 +363,15 @@ public enum MergeModes {
 			bot.b = Math.abs(bot.b - top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = Math.abs(b - t);
+			}
+		}
 	},
 	NEGATION {
 		@Override
@@ -209,6 +381,15 @@ public enum MergeModes {
 			bot.b = 1 - Math.abs(1 - bot.b - top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = 1 - Math.abs(1 - b - t);
+			}
+		}
 	},
 	INTERPOLATION {
 		@Override
@@ -218,6 +399,15 @@ public enum MergeModes {
 			bot.b = ((3 - 2 * bot.b) * bot.b * bot.b + (3 - 2 * top.b) * top.b * top.b) * 0.5f;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = ((3 - 2 * b) * b * b + (3 - 2 * t) * t * t) * 0.5f;
+			}
+		}
 	},
 	/** Equivalent to XOR in real-valued logic */
 	EXCLUSION {
@@ -228,6 +418,15 @@ public enum MergeModes {
 			bot.b = bot.b + top.b - 2 * bot.b * top.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b + t - 2 * b * t;
+			}
+		}
 	},
 	GRAIN_EXTRACT {
 		@Override
@@ -237,6 +436,15 @@ public enum MergeModes {
 			bot.b = bot.b - top.b + 0.5f;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b - t + 0.5f;
+			}
+		}
 	},
 	GRAIN_MERGE {
 		@Override
@@ -246,6 +454,15 @@ public enum MergeModes {
 			bot.b = bot.b + top.b - 0.5f;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b + t - 0.5f;
+			}
+		}
 	},
 	DIVIDE {
 		@Override
@@ -255,15 +472,33 @@ public enum MergeModes {
 			bot.b = top.b == 0 ? 1e10f : bot.b / top.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t == 0 ? 1e10f : b / t;
+			}
+		}
 	},
 	COLOR_DODGE {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 			bot.r = top.r == 1 ? 1e10f : bot.r / (1 - top.r);
-			bot.g = top.r == 1 ? 1e10f : bot.g / (1 - top.g);
-			bot.b = top.r == 1 ? 1e10f : bot.b / (1 - top.b);
+			bot.g = top.g == 1 ? 1e10f : bot.g / (1 - top.g);
+			bot.b = top.b == 1 ? 1e10f : bot.b / (1 - top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t == 1 ? 1e10f : b / (1 - t);
+			}
+		}
 	},
 	REVERSE_DODGE {
 		@Override
@@ -273,13 +508,22 @@ public enum MergeModes {
 			bot.b = bot.b == 1 ? 1e10f : top.b / (1 - bot.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b == 1 ? 1e10f : t / (1 - b);
+			}
+		}
 	},
 	SMOOTH_DODGE {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 			bot.r = bot.r + top.r > 1 ?
 			        1 - 0.5f * (1 - top.r) / bot.r :
-			        top.r == 1 ? 1 : 0.5f * bot.r / (1 - top.r);
+			        top.r == 1 ? 0 : 0.5f * bot.r / (1 - top.r);
 			bot.g = bot.g + top.g > 1 ?
 			        1 - 0.5f * (1 - top.g) / bot.g :
 			        top.g == 1 ? 0 : 0.5f * bot.g / (1 - top.g);
@@ -288,6 +532,15 @@ public enum MergeModes {
 			        top.b == 1 ? 0 : 0.5f * bot.b / (1 - top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b + t > 1 ? 1 - 0.5f * (1 - t) / b : t == 1 ? 0 : 0.5f * b / (1 - t);
+			}
+		}
 	},
 	LINEAR_DODGE {
 		@Override
@@ -297,6 +550,15 @@ public enum MergeModes {
 			bot.b += top.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b + t;
+			}
+		}
 	},
 	COLOR_BURN {
 		@Override
@@ -306,6 +568,15 @@ public enum MergeModes {
 			bot.b = top.b == 0 ? -1e10f : 1 - (1 - bot.b) / top.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t == 0 ? -1e10f : 1 - (1 - b) / t;
+			}
+		}
 	},
 	REVERSE_BURN {
 		@Override
@@ -315,6 +586,15 @@ public enum MergeModes {
 			bot.b = bot.b == 0 ? -1e10f : 1 - (1 - top.b) / bot.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b == 0 ? -1e10f : 1 - (1 - t) / b;
+			}
+		}
 	},
 	SMOOTH_BURN {
 		@Override
@@ -324,12 +604,21 @@ public enum MergeModes {
 			        bot.r == 1 ? 0 : 0.5f * top.r / (1 - bot.r);
 			bot.g = bot.g + top.g > 1 ?
 			        1 - 0.5f * (1 - bot.g) / top.g :
-			        bot.g == 1 ? 0 : 0.5f * top.g / (1 - bot.b);
+			        bot.g == 1 ? 0 : 0.5f * top.g / (1 - bot.g);
 			bot.b = bot.b + top.b > 1 ?
 			        1 - 0.5f * (1 - bot.b) / top.b :
 			        bot.b == 1 ? 0 : 0.5f * top.b / (1 - bot.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b + t > 1 ? 1 - 0.5f * (1 - b) / t : b == 1 ? 0 : 0.5f * t / (1 - b);
+			}
+		}
 	},
 	/** a combination of burn and dodge */
 	LINEAR_BURN {
@@ -340,6 +629,15 @@ public enum MergeModes {
 			bot.b = bot.b + top.b - 1;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b + t - 1;
+			}
+		}
 	},
 	REFLECT {
 		@Override
@@ -349,6 +647,15 @@ public enum MergeModes {
 			bot.b = top.b == 1 ? 1e10f : bot.b * bot.b / (1 - top.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t == 1 ? 1e10f : b * b / (1 - t);
+			}
+		}
 	},
 	GLOW {
 		@Override
@@ -358,6 +665,15 @@ public enum MergeModes {
 			bot.b = bot.b == 1 ? 1e10f : top.b * top.b / (1 - bot.b);
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b == 1 ? 1e10f : t * t / (1 - b);
+			}
+		}
 	},
 	FREEZE {
 		@Override
@@ -367,6 +683,15 @@ public enum MergeModes {
 			bot.b = top.b == 0 ? -1e10f : 1 - (1 - bot.b) * (1 - bot.b) / top.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = t == 0 ? -1e10f : 1 - (1 - b) * (1 - b) / t;
+			}
+		}
 	},
 	HEAT {
 		@Override
@@ -376,6 +701,15 @@ public enum MergeModes {
 			bot.b = bot.b == 0 ? -1e10f : 1 - (1 - top.b) * (1 - top.b) / bot.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			for (int i = begin; i < end; i++) {
+				float b = bot[i];
+				float t = top[i];
+				bot[i] = b == 0 ? -1e10f : 1 - (1 - t) * (1 - t) / b;
+			}
+		}
 	},
 	RED {
 		@Override
@@ -383,6 +717,13 @@ public enum MergeModes {
 			bot.r = top.r;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			if (component == 0) {
+				System.arraycopy(top, begin, bot, begin, end - begin);
+			}
+		}
 	},
 	GREEN {
 		@Override
@@ -390,6 +731,13 @@ public enum MergeModes {
 			bot.g = top.g;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			if (component == 1) {
+				System.arraycopy(top, begin, bot, begin, end - begin);
+			}
+		}
 	},
 	BLUE {
 		@Override
@@ -397,61 +745,349 @@ public enum MergeModes {
 			bot.b = top.b;
 			bot.a = top.a;
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+			if (component == 2) {
+				System.arraycopy(top, begin, bot, begin, end - begin);
+			}
+		}
 	},
-	HUE {
+	HUE(false) {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+		}
 	},
-	SATURATION {
+	SATURATION(false) {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+		}
 	},
-	COLOR {
+	COLOR(false) {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+		}
 	},
-	HSL_LUMINANCE {
+	HSL_LUMINANCE(false) {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+		}
 	},
-	HSV_VALUE {
+	HSV_VALUE(false) {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+		}
 	},
-	HSB_BRIGHTNESS {
+	HSB_BRIGHTNESS(false) {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+		}
 	},
-	HSL_ADD {
+	HSL_ADD(false) {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+		}
 	},
-	HSV_ADD {
+	HSV_ADD(false) {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+		}
 	},
-	HSB_ADD {
+	HSB_ADD(false) {
 		@Override
 		public void apply(Color4fOld bot, Color4fOld top) {
 		}
+
+		@Override
+		protected void applySpan(int component, float[] bot, float[] top, int begin, int end) {
+		}
 	};
 
 	static final FastTrig fastTrig = new FastTrig(524288, 4.0f);
 
+	/** The number of components of the planar spans: red, green, blue and alpha */
+	private static final int NUM_COMPONENTS = 4;
+	private static final int ALPHA          = 3;
+
+	/** Whether {@link #apply(Color4fOld, Color4fOld)} sets the alpha of {@code bot} to the alpha of {@code top} */
+	private final boolean replacesAlpha;
+
+	MergeModes() {
+		this(true);
+	}
+
+	MergeModes(boolean replacesAlpha) {
+		this.replacesAlpha = replacesAlpha;
+	}
+
 	/**
 	 * @param bot pre-multiplied
 	 * @param top not pre-multiplied
 	 */
 	public abstract void apply(Color4fOld bot, Color4fOld top);
 
+	/**
+	 * Same as {@link #apply(Color4fOld, Color4fOld)}, for the elements {@code begin} to {@code end} (exclusive) of a
+	 * single color component (0 to 2). Alpha is handled by the caller.
+	 */
+	protected abstract void applySpan(int component, float[] bot, float[] top, int begin, int end);
+
+	/**
+	 * Same as {@link #merge(Color4fOld, Color4fOld, Color4fOld, float, boolean)} for every pixel of a span of ARGB
+	 * colors. The result is written to {@code bot}, and {@code top} is left unchanged.
+	 *
+	 * @param mask    per-pixel opacity in [0, 1] that is multiplied with {@code opacity}, indexed like the colors, or
+	 *                {@code null}
+	 * @param opacity the opacity of the top layer
+	 */
+	public void merge(int[] bot,
+	                  int[] top,
+	                  @Nullable float[] mask,
+	                  float opacity,
+	                  boolean intermediateClamp,
+	                  int offset,
+	                  int length) {
+		if (length <= 0) {
+			return;
+		}
+
+		Planes planes = new Planes(length);
+		mergeARGB(bot, top, mask, opacity, intermediateClamp, offset, length, planes);
+	}
+
+	/**
+	 * Same as {@link #merge(Color4fOld, Color4fOld, Color4fOld, float, boolean)} for every pixel of two ARGB rasters
+	 * of {@code width * height} pixels in scanline order. The result is written to {@code bot}, and {@code top} is left
+	 * unchanged. Rows are processed in parallel bands by the {@link ImageMatrixExecutor}.
+	 *
+	 * @param mask    per-pixel opacity in [0, 1] that is multiplied with {@code opacity}, or {@code null}
+	 * @param opacity the opacity of the top layer
+	 */
+	public void mergeRaster(int[] bot,
+	                        int[] top,
+	                        @Nullable float[] mask,
+	                        float opacity,
+	                        boolean intermediateClamp,
+	                        int width,
+	                        int height) {
+		int size = width * height;
+		if (bot.length < size || top.length < size || mask != null && mask.length < size) {
+			throw new IllegalArgumentException("Rasters not compatible");
+		}
+
+		ImageMatrixExecutor.forEachBand(1, 0, height, width * NUM_COMPONENTS, (ignored, beginY, endY) -> {
+			Planes planes = new Planes(width);
+
+			for (int y = beginY; y < endY; y++) {
+				mergeARGB(bot, top, mask, opacity, intermediateClamp, y * width, width, planes);
+			}
+		});
+	}
+
+	/**
+	 * Same as {@link #merge(Color4fOld, Color4fOld, Color4fOld, float, boolean)} for every pixel of two images with
+	 * the components red, green, blue and alpha. The result is written to {@code bot}, and {@code top} is left
+	 * unchanged. Rows are processed in parallel bands by the {@link ImageMatrixExecutor}.
+	 *
+	 * @param mask    per-pixel opacity in [0, 1] (the first component is used) that is multiplied with {@code
+	 *                opacity}, or {@code null}
+	 * @param opacity the opacity of the top layer
+	 */
+	public void merge(ImageMatrixFloat bot,
+	                  ImageMatrixFloat top,
+	                  @Nullable ImageMatrixFloat mask,
+	                  float opacity,
+	                  boolean intermediateClamp) {
+		if (bot.numComponents != NUM_COMPONENTS || top.numComponents != NUM_COMPONENTS ||
+		    !bot.isCompatibleByBorderAndSize(top) || mask != null && !bot.isCompatibleByBorderAndSize(mask)) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		int rowLength = bot.border + bot.width;
+		int samples   = bot.width * NUM_COMPONENTS;
+
+		ImageMatrixExecutor.forEachBand(1, bot.border, bot.endY, samples, (ignored, beginY, endY) -> {
+			float[][] botRow  = new float[NUM_COMPONENTS][];
+			float[][] topRow  = new float[NUM_COMPONENTS][];
+			float[][] tempRow = new float[NUM_COMPONENTS][rowLength];
+
+			for (int y = beginY; y < endY; y++) {
+				for (int z = 0; z < NUM_COMPONENTS; z++) {
+					botRow[z] = bot.matrix[z][y];
+					topRow[z] = top.matrix[z][y];
+				}
+
+				mergePlanes(botRow, topRow, tempRow, mask == null ? null : mask.matrix[0][y], bot.border, opacity,
+				            intermediateClamp, bot.border, rowLength);
+			}
+		});
+	}
+
+	/**
+	 * Scratch space for converting ARGB spans to planar colors
+	 */
+	private static final class Planes {
+		private final float[][] bot;
+		private final float[][] top;
+		private final float[][] temp;
+
+		private Planes(int length) {
+			bot  = new float[NUM_COMPONENTS][length];
+			top  = new float[NUM_COMPONENTS][length];
+			temp = new float[NUM_COMPONENTS][length];
+		}
+	}
+
+	private void mergeARGB(int[] bot,
+	                       int[] top,
+	                       @Nullable float[] mask,
+	                       float opacity,
+	                       boolean intermediateClamp,
+	                       int offset,
+	                       int length,
+	                       Planes planes) {
+		unpack(bot, offset, length, planes.bot);
+		unpack(top, offset, length, planes.top);
+
+		mergePlanes(planes.bot, planes.top, planes.temp, mask, offset, opacity, intermediateClamp, 0, length);
+
+		pack(planes.bot, bot, offset, length);
+	}
+
+	/**
+	 * Merges the elements {@code begin} to {@code end} (exclusive) of planar colors.
+	 *
+	 * @param maskOffset the index in {@code mask} that corresponds to {@code begin}
+	 */
+	private void mergePlanes(float[][] bot,
+	                         float[][] top,
+	                         float[][] temp,
+	                         @Nullable float[] mask,
+	                         int maskOffset,
+	                         float opacity,
+	                         boolean intermediateClamp,
+	                         int begin,
+	                         int end) {
+		for (int z = 0; z < NUM_COMPONENTS; z++) {
+			System.arraycopy(bot[z], begin, temp[z], begin, end - begin);
+		}
+
+		for (int z = 0; z < ALPHA; z++) {
+			applySpan(z, temp[z], top[z], begin, end);
+		}
+
+		if (replacesAlpha) {
+			System.arraycopy(top[ALPHA], begin, temp[ALPHA], begin, end - begin);
+		}
+
+		if (intermediateClamp) {
+			for (float[] component : temp) {
+				for (int i = begin; i < end; i++) {
+					component[i] = Math.max(0, Math.min(component[i], 1));
+				}
+			}
+		}
+
+		// Inner loop
+		int     i; // 3
+		float   botA; // 2
+		float   botA1; // 2
+		float   topA; // 2
+		float   topA1; // 2
+		float   mixA; // 2
+		float   newA; // 2
+		float   mixR; // 1
+		float   mixG; // 1
+		float   mixB; // 1
+		float[] botR  = bot[0]; // 1
+		float[] botG  = bot[1]; // 1
+		float[] botB  = bot[2]; // 1
+		float[] botAs = bot[ALPHA]; // 1
+
+		for (i = begin; i < end; i++) {
+			// lerp(top, temp, bot.a)
+			botA  = botAs[i];
+			botA1 = 1 - botA;
+			mixR  = top[0][i] * botA1 + temp[0][i] * botA;
+			mixG  = top[1][i] * botA1 + temp[1][i] * botA;
+			mixB  = top[2][i] * botA1 + temp[2][i] * botA;
+			mixA  = top[ALPHA][i] * botA1 + temp[ALPHA][i] * botA;
+
+			// compose(bot, mix, opacity)
+			topA  = mixA * (mask == null ? opacity : opacity * mask[maskOffset + i - begin]);
+			topA1 = 1 - topA;
+			newA  = botA * topA1 + 1 * topA;
+
+			botR[i]  = newA == 0 ? mixR : (botR[i] * botA * topA1 + mixR * topA) / newA;
+			botG[i]  = newA == 0 ? mixG : (botG[i] * botA * topA1 + mixG * topA) / newA;
+			botB[i]  = newA == 0 ? mixB : (botB[i] * botA * topA1 + mixB * topA) / newA;
+			botAs[i] = newA;
+		}
+	}
+
+	private static void unpack(int[] argb, int offset, int length, float[][] planes) {
+		float[] r = planes[0];
+		float[] g = planes[1];
+		float[] b = planes[2];
+		float[] a = planes[ALPHA];
+
+		for (int i = 0; i < length; i++) {
+			int pixel = argb[offset + i];
+			a[i] = (pixel >> 24 & 0xFF) / 255.0f;
+			r[i] = (pixel >> 16 & 0xFF) / 255.0f;
+			g[i] = (pixel >> 8 & 0xFF) / 255.0f;
+			b[i] = (pixel & 0xFF) / 255.0f;
+		}
+	}
+
+	private static void pack(float[][] planes, int[] argb, int offset, int length) {
+		float[] r = planes[0];
+		float[] g = planes[1];
+		float[] b = planes[2];
+		float[] a = planes[ALPHA];
+
+		for (int i = 0; i < length; i++) {
+			argb[offset + i] = toByte(a[i]) << 24 | toByte(r[i]) << 16 | toByte(g[i]) << 8 | toByte(b[i]);
+		}
+	}
+
+	private static int toByte(float value) {
+		// NaN becomes 0
+		return (int)(Math.max(0, Math.min(value, 1)) * 255 + 0.5f);
+	}
+
 	/**
 	 * Linearly interpolate between two colors. Alpha is blended too and doesn't participate in the blending of other
 	 * components.
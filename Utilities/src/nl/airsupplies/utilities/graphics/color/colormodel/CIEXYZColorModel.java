@@ -13,8 +13,19 @@ import nl.airsupplies.utilities.graphics.color.Color3f;
  * @author Mark Jeronimus
  */
 // Created 2025-06-01
+// Changed 2026-10-17 Added batch conversion
 @SuppressWarnings("UnaryPlus")
 public class CIEXYZColorModel extends ColorModel {
+	private static final float[] FROM_RGB = {
+			0.43030295f, 0.34163640f, 0.17822778f,
+			0.22187495f, 0.70683396f, 0.07129111f,
+			0.02017045f, 0.12958622f, 0.93866630f};
+
+	private static final float[] TO_RGB = {
+			2.06084660f, -0.93738980f, -0.32010582f,
+			-1.14153440f, 2.20943570f, 0.04894180f,
+			0.08068783f, -0.27204585f, 1.27116410f};
+
 	@Override
 	public Color3f fromRGB(Color3f color) {
 		return new Color3f(0.43030295f * color.r + 0.34163640f * color.g + 0.17822778f * color.b,
@@ -28,4 +39,16 @@ public class CIEXYZColorModel extends ColorModel {
 		                   -1.14153440f * color.r + 2.20943570f * color.g + 0.04894180f * color.b,
 		                   +0.08068783f * color.r - 0.27204585f * color.g + 1.27116410f * color.b);
 	}
+
+	@Override
+	public void fromRGB(float[] r, float[] g, float[] b, float[] out0, float[] out1, float[] out2,
+	                    int offset, int length) {
+		multiply(FROM_RGB, r, g, b, out0, out1, out2, offset, length);
+	}
+
+	@Override
+	public void toRGB(float[] in0, float[] in1, float[] in2, float[] r, float[] g, float[] b,
+	                  int offset, int length) {
+		multiply(TO_RGB, in0, in1, in2, r, g, b, offset, length);
+	}
 }
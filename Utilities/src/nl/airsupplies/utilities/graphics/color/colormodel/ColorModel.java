@@ -1,16 +1,101 @@
 package nl.airsupplies.utilities.graphics.color.colormodel;
 
 import nl.airsupplies.utilities.graphics.color.Color3f;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
 
 /**
+ * Besides single colors, colors can be converted in batches from planar arrays (one array per component), or as
+ * whole images. The batch methods don't allocate.
+ *
  * @author Mark Jeronimus
  */
 // Created 2025-06-01
+// Changed 2026-10-17 Added batch conversion
 public abstract class ColorModel {
 	public abstract Color3f fromRGB(Color3f color);
 
 	public abstract Color3f toRGB(Color3f color);
 
+	/**
+	 * Converts {@code length} colors, starting at {@code offset} in every array, from RGB to this color model. The
+	 * output arrays may be the same as the input arrays.
+	 * <p>
+	 * The default implementation converts one {@link Color3f} at a time. Subclasses should override this.
+	 */
+	public void fromRGB(float[] r, float[] g, float[] b, float[] out0, float[] out1, float[] out2,
+	                    int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			Color3f color = fromRGB(new Color3f(r[i], g[i], b[i]));
+			out0[i] = color.r;
+			out1[i] = color.g;
+			out2[i] = color.b;
+		}
+	}
+
+	/**
+	 * Converts {@code length} colors, starting at {@code offset} in every array, from this color model to RGB. The
+	 * output arrays may be the same as the input arrays.
+	 * <p>
+	 * The default implementation converts one {@link Color3f} at a time. Subclasses should override this.
+	 */
+	public void toRGB(float[] in0, float[] in1, float[] in2, float[] r, float[] g, float[] b,
+	                  int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			Color3f color = toRGB(new Color3f(in0[i], in1[i], in2[i]));
+			r[i] = color.r;
+			g[i] = color.g;
+			b[i] = color.b;
+		}
+	}
+
+	/**
+	 * Converts the first three components of the image area from RGB to this color model. Any further components are
+	 * copied. Parameters in and out may be the same image.
+	 */
+	public void fromRGB(ImageMatrixFloat in, ImageMatrixFloat out) {
+		convert(in, out, true);
+	}
+
+	/**
+	 * Converts the first three components of the image area from this color model to RGB. Any further components are
+	 * copied. Parameters in and out may be the same image.
+	 */
+	public void toRGB(ImageMatrixFloat in, ImageMatrixFloat out) {
+		convert(in, out, false);
+	}
+
+	private void convert(ImageMatrixFloat in, ImageMatrixFloat out, boolean fromRGB) {
+		if (in.numComponents < 3 || out.numComponents < 3 || !in.isCompatibleByBorderAndSize(out)) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		int numComponents = Math.min(in.numComponents, out.numComponents);
+
+		ImageMatrixExecutor.forEachBand(1, in.border, in.endY, in.width * numComponents, (ignored, beginY, endY) -> {
+			for (int y = beginY; y < endY; y++) {
+				float[] in0  = in.matrix[0][y];
+				float[] in1  = in.matrix[1][y];
+				float[] in2  = in.matrix[2][y];
+				float[] out0 = out.matrix[0][y];
+				float[] out1 = out.matrix[1][y];
+				float[] out2 = out.matrix[2][y];
+
+				if (fromRGB) {
+					fromRGB(in0, in1, in2, out0, out1, out2, in.border, in.width);
+				} else {
+					toRGB(in0, in1, in2, out0, out1, out2, in.border, in.width);
+				}
+
+				if (in != out) {
+					for (int z = 3; z < numComponents; z++) {
+						System.arraycopy(in.matrix[z][y], in.border, out.matrix[z][y], in.border, in.width);
+					}
+				}
+			}
+		});
+	}
+
 	protected static float rgb2hueInternal(float r, float g, float b, float min, float max, float chroma) {
 		assert chroma != 0.0f;
 
@@ -28,4 +113,49 @@ public abstract class ColorModel {
 			}
 		}
 	}
+
+	/**
+	 * Same as {@link #rgb2hueInternal(float, float, float, float, float, float)}, but with selects instead of
+	 * branches so it can be vectorized, and returning 0 for grays ({@code chroma < 1.0e-7}).
+	 */
+	protected static float rgb2hueBranchless(float r, float g, float b, float max, float chroma) {
+		float delta  = max == r ? g - b : max == g ? b - r : r - g;
+		float sector = max == r ? (g < b ? 6.0f : 0.0f) : max == g ? 2.0f : 4.0f;
+		float hue    = (delta / chroma + sector) / 6.0f;
+		return chroma < 1.0e-7f ? 0.0f : hue;
+	}
+
+	/**
+	 * Multiplies colors by a 3x3 matrix.
+	 *
+	 * @param matrix the matrix in row-major order. Row {@code i} produces output component {@code i}.
+	 */
+	protected static void multiply(float[] matrix, float[] in0, float[] in1, float[] in2,
+	                               float[] out0, float[] out1, float[] out2, int offset, int length) {
+		// Inner loop
+		int   i; // 3
+		float c0; // 2
+		float c1; // 2
+		float c2; // 2
+		float m00 = matrix[0]; // 1
+		float m01 = matrix[1]; // 1
+		float m02 = matrix[2]; // 1
+		float m10 = matrix[3]; // 1
+		float m11 = matrix[4]; // 1
+		float m12 = matrix[5]; // 1
+		float m20 = matrix[6]; // 1
+		float m21 = matrix[7]; // 1
+		float m22 = matrix[8]; // 1
+		int   end = offset + length; // 1
+
+		for (i = offset; i < end; i++) {
+			c0 = in0[i];
+			c1 = in1[i];
+			c2 = in2[i];
+
+			out0[i] = m00 * c0 + m01 * c1 + m02 * c2;
+			out1[i] = m10 * c0 + m11 * c1 + m12 * c2;
+			out2[i] = m20 * c0 + m21 * c1 + m22 * c2;
+		}
+	}
 }
@@ -20,6 +20,7 @@ import nl.airsupplies.utilities.gui.color.ColorUtilities;
  * @author Mark Jeronimus
  */
 // Created 2025-06-01
+// Changed 2026-10-17 Added batch conversion
 public class HCIColorModel2 extends ColorModel {
 	@Override
 	public Color3f fromRGB(Color3f color) {
@@ -56,6 +57,56 @@ public class HCIColorModel2 extends ColorModel {
 		}
 	}
 
+	@Override
+	public void fromRGB(float[] r, float[] g, float[] b, float[] out0, float[] out1, float[] out2,
+	                    int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			float red    = r[i];
+			float green  = g[i];
+			float blue   = b[i];
+			float min    = Math.min(Math.min(red, green), blue);
+			float max    = Math.max(Math.max(red, green), blue);
+			float chroma = max - min;
+
+			if (chroma < 1.0e-7f) {
+				out0[i] = 0.0f;
+				out1[i] = 0.0f;
+				out2[i] = max;
+			} else {
+				out0[i] = rgb2hueBranchless(red, green, blue, max, chroma);
+				out1[i] = chroma / (1.0f - Math.abs(min + max - 1.0f));
+				out2[i] = ColorUtilities.toSRGB(ColorUtilities.getPerceptualLuminosity(red, green, blue));
+			}
+		}
+	}
+
+	@Override
+	public void toRGB(float[] in0, float[] in1, float[] in2, float[] r, float[] g, float[] b,
+	                  int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			float hue6 = (in0[i] - (float)Math.floor(in0[i])) * 6;
+
+			// Hue & sat coding
+			float red   = Math.max(0.0f, Math.min(1.0f, Math.abs(hue6 - 3.0f) - 1.0f)) * in1[i];
+			float green = Math.max(0.0f, Math.min(1.0f, 2.0f - Math.abs(hue6 - 2.0f))) * in1[i];
+			float blue  = Math.max(0.0f, Math.min(1.0f, 2.0f - Math.abs(hue6 - 4.0f))) * in1[i];
+
+			// Luma searching
+			float intensity = in2[i];
+			if (intensity < ColorUtilities.getPerceptualLuminosity(red, green, blue)) {
+				float mul = findDarkerMultiplier(red, green, blue, intensity);
+				r[i] = red * mul;
+				g[i] = green * mul;
+				b[i] = blue * mul;
+			} else {
+				float add = findBrighterAddend(red, green, blue, intensity);
+				r[i] = Math.min(red + add, 1.0f);
+				g[i] = Math.min(green + add, 1.0f);
+				b[i] = Math.min(blue + add, 1.0f);
+			}
+		}
+	}
+
 	/**
 	 * Calculate linear perceptual luminosity from a color in sRGB color space.
 	 */
@@ -64,6 +115,18 @@ public class HCIColorModel2 extends ColorModel {
 	}
 
 	private static Color3f findDarkerColor(float r, float g, float b, float targetIntensity) {
+		float mul = findDarkerMultiplier(r, g, b, targetIntensity);
+		return new Color3f(r * mul, g * mul, b * mul);
+	}
+
+	private static Color3f findBrighterColor(float r, float g, float b, float targetIntensity) {
+		float add = findBrighterAddend(r, g, b, targetIntensity);
+		return new Color3f(Math.min(r + add, 1.0f),
+		                   Math.min(g + add, 1.0f),
+		                   Math.min(b + add, 1.0f));
+	}
+
+	private static float findDarkerMultiplier(float r, float g, float b, float targetIntensity) {
 		float minMul = 0.0f;
 		float maxMul = 1.0f;
 		float mul    = 0.0f;
@@ -79,10 +142,10 @@ public class HCIColorModel2 extends ColorModel {
 			}
 		}
 
-		return new Color3f(r * mul, g * mul, b * mul);
+		return mul;
 	}
 
-	private static Color3f findBrighterColor(float r, float g, float b, float targetIntensity) {
+	private static float findBrighterAddend(float r, float g, float b, float targetIntensity) {
 		float minAdd = 0.0f;
 		float maxAdd = 1.0f;
 		float add    = 0.0f;
@@ -101,8 +164,6 @@ public class HCIColorModel2 extends ColorModel {
 			}
 		}
 
-		return new Color3f(Math.min(r + add, 1.0f),
-		                   Math.min(g + add, 1.0f),
-		                   Math.min(b + add, 1.0f));
+		return add;
 	}
 }
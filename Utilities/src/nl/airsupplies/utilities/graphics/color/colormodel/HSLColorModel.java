@@ -14,6 +14,7 @@ import nl.airsupplies.utilities.graphics.color.Color3f;
  * @author Mark Jeronimus
  */
 // Created 2025-06-01
+// Changed 2026-10-17 Added batch conversion
 public class HSLColorModel extends ColorModel {
 	@Override
 	public Color3f fromRGB(Color3f color) {
@@ -50,4 +51,52 @@ public class HSLColorModel extends ColorModel {
 		                   g * c + m,
 		                   b * c + m);
 	}
+
+	@Override
+	public void fromRGB(float[] r, float[] g, float[] b, float[] out0, float[] out1, float[] out2,
+	                    int offset, int length) {
+		// Inner loop
+		int   i; // 4
+		float red; // 3
+		float green; // 3
+		float blue; // 3
+		float min; // 2
+		float max; // 2
+		float chroma; // 2
+		int   end = offset + length; // 1
+
+		for (i = offset; i < end; i++) {
+			red    = r[i];
+			green  = g[i];
+			blue   = b[i];
+			min    = Math.min(Math.min(red, green), blue);
+			max    = Math.max(Math.max(red, green), blue);
+			chroma = max - min;
+
+			out0[i] = rgb2hueBranchless(red, green, blue, max, chroma);
+			out1[i] = chroma < 1.0e-7f ? 0.0f : chroma / (1 - Math.abs(min + max - 1.0f));
+			out2[i] = (min + max) / 2.0f;
+		}
+	}
+
+	@Override
+	public void toRGB(float[] in0, float[] in1, float[] in2, float[] r, float[] g, float[] b,
+	                  int offset, int length) {
+		// Inner loop
+		int   i; // 4
+		float hue6; // 3
+		float c; // 2
+		float m; // 2
+		int   end = offset + length; // 1
+
+		for (i = offset; i < end; i++) {
+			hue6 = (in0[i] - (float)Math.floor(in0[i])) * 6.0f;
+			c    = in1[i] * (1.0f - Math.abs(2.0f * in2[i] - 1.0f));
+			m    = in2[i] - c / 2.0f;
+
+			r[i] = Math.max(0.0f, Math.min(1.0f, Math.abs(hue6 - 3.0f) - 1.0f)) * c + m;
+			g[i] = Math.max(0.0f, Math.min(1.0f, 2.0f - Math.abs(hue6 - 2.0f))) * c + m;
+			b[i] = Math.max(0.0f, Math.min(1.0f, 2.0f - Math.abs(hue6 - 4.0f))) * c + m;
+		}
+	}
 }
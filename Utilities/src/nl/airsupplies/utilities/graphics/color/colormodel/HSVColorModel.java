@@ -14,6 +14,7 @@ import nl.airsupplies.utilities.graphics.color.Color3f;
  * @author Mark Jeronimus
  */
 // Created 2025-06-01
+// Changed 2026-10-17 Added batch conversion
 public class HSVColorModel extends ColorModel {
 	@Override
 	public Color3f fromRGB(Color3f color) {
@@ -46,4 +47,50 @@ public class HSVColorModel extends ColorModel {
 		                   g * c + color.b,
 		                   b * c + color.b);
 	}
+
+	@Override
+	public void fromRGB(float[] r, float[] g, float[] b, float[] out0, float[] out1, float[] out2,
+	                    int offset, int length) {
+		// Inner loop
+		int   i; // 4
+		float red; // 3
+		float green; // 3
+		float blue; // 3
+		float max; // 2
+		float chroma; // 2
+		int   end = offset + length; // 1
+
+		for (i = offset; i < end; i++) {
+			red    = r[i];
+			green  = g[i];
+			blue   = b[i];
+			max    = Math.max(Math.max(red, green), blue);
+			chroma = max - Math.min(Math.min(red, green), blue);
+
+			out0[i] = rgb2hueBranchless(red, green, blue, max, chroma);
+			out1[i] = chroma < 1.0e-7f || max < 1.0e-7f ? 0.0f : chroma / max;
+			out2[i] = max;
+		}
+	}
+
+	@Override
+	public void toRGB(float[] in0, float[] in1, float[] in2, float[] r, float[] g, float[] b,
+	                  int offset, int length) {
+		// Inner loop
+		int   i; // 4
+		float hue6; // 3
+		float c; // 2
+		float v; // 2
+		int   end = offset + length; // 1
+
+		for (i = offset; i < end; i++) {
+			hue6 = (in0[i] - (float)Math.floor(in0[i])) * 6.0f;
+			v    = in2[i];
+			c    = in1[i] * v;
+
+			r[i] = Math.max(-1.0f, Math.min(0.0f, Math.abs(hue6 - 3.0f) - 2.0f)) * c + v;
+			g[i] = Math.max(-1.0f, Math.min(0.0f, 1.0f - Math.abs(hue6 - 2.0f))) * c + v;
+			b[i] = Math.max(-1.0f, Math.min(0.0f, 1.0f - Math.abs(hue6 - 4.0f))) * c + v;
+		}
+	}
 }
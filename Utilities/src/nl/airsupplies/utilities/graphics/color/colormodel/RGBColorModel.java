@@ -13,6 +13,7 @@ import nl.airsupplies.utilities.graphics.color.Color3f;
  * @author Mark Jeronimus
  */
 // Created 2025-06-01
+// Changed 2026-10-17 Added batch conversion
 public class RGBColorModel extends ColorModel {
 	@Override
 	public Color3f fromRGB(Color3f color) {
@@ -23,4 +24,29 @@ public class RGBColorModel extends ColorModel {
 	public Color3f toRGB(Color3f color) {
 		return color;
 	}
+
+	@Override
+	public void fromRGB(float[] r, float[] g, float[] b, float[] out0, float[] out1, float[] out2,
+	                    int offset, int length) {
+		copy(r, g, b, out0, out1, out2, offset, length);
+	}
+
+	@Override
+	public void toRGB(float[] in0, float[] in1, float[] in2, float[] r, float[] g, float[] b,
+	                  int offset, int length) {
+		copy(in0, in1, in2, r, g, b, offset, length);
+	}
+
+	private static void copy(float[] in0, float[] in1, float[] in2, float[] out0, float[] out1, float[] out2,
+	                         int offset, int length) {
+		if (in0 != out0) {
+			System.arraycopy(in0, offset, out0, offset, length);
+		}
+		if (in1 != out1) {
+			System.arraycopy(in1, offset, out1, offset, length);
+		}
+		if (in2 != out2) {
+			System.arraycopy(in2, offset, out2, offset, length);
+		}
+	}
 }
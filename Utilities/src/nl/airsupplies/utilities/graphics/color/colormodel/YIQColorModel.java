@@ -13,7 +13,18 @@ import nl.airsupplies.utilities.graphics.color.Color3f;
  * @author Mark Jeronimus
  */
 // Created 2025-06-01
+// Changed 2026-10-17 Added batch conversion
 public class YIQColorModel extends ColorModel {
+	private static final float[] FROM_RGB = {
+			0.29900000f, 0.58700000f, 0.11400000f,
+			0.59571610f, -0.27445284f, -0.32126328f,
+			0.21145640f, -0.52259105f, 0.31113464f};
+
+	private static final float[] TO_RGB = {
+			1, 0.95629483f, 0.62102515f,
+			1, -0.27212146f, -0.64738095f,
+			1, -1.10698990f, 1.70461500f};
+
 	@Override
 	public Color3f fromRGB(Color3f color) {
 		return new Color3f(0.29900000f * color.r + 0.58700000f * color.g + 0.11400000f * color.b,
@@ -27,4 +38,16 @@ public class YIQColorModel extends ColorModel {
 		                   color.r - 0.27212146f * color.g - 0.64738095f * color.b,
 		                   color.r - 1.10698990f * color.g + 1.70461500f * color.b);
 	}
+
+	@Override
+	public void fromRGB(float[] r, float[] g, float[] b, float[] out0, float[] out1, float[] out2,
+	                    int offset, int length) {
+		multiply(FROM_RGB, r, g, b, out0, out1, out2, offset, length);
+	}
+
+	@Override
+	public void toRGB(float[] in0, float[] in1, float[] in2, float[] r, float[] g, float[] b,
+	                  int offset, int length) {
+		multiply(TO_RGB, in0, in1, in2, r, g, b, offset, length);
+	}
 }
@@ -13,8 +13,19 @@ import nl.airsupplies.utilities.graphics.color.Color3f;
  * @author Mark Jeronimus
  */
 // Created 2025-06-01
+// Changed 2026-10-17 Added batch conversion
 @SuppressWarnings("UnaryPlus")
 public class YPbPrColorModel extends ColorModel {
+	private static final float[] FROM_RGB = {
+			0.29900000f, 0.58700000f, 0.11400000f,
+			-0.16873589f, -0.33126410f, 0.50000000f,
+			0.50000000f, -0.41868758f, -0.08131241f};
+
+	private static final float[] TO_RGB = {
+			1, 0.00000000f, 1.40200000f,
+			1, -0.34413630f, -0.71413630f,
+			1, 1.77200000f, 0.00000000f};
+
 	@Override
 	public Color3f fromRGB(Color3f color) {
 		return new Color3f(+0.29900000f * color.r + 0.58700000f * color.g + 0.11400000f * color.b,
@@ -28,4 +39,16 @@ public class YPbPrColorModel extends ColorModel {
 		                   color.r - 0.34413630f * color.g - 0.71413630f * color.b,
 		                   color.r + 1.77200000f * color.g + 0.00000000f * color.b);
 	}
+
+	@Override
+	public void fromRGB(float[] r, float[] g, float[] b, float[] out0, float[] out1, float[] out2,
+	                    int offset, int length) {
+		multiply(FROM_RGB, r, g, b, out0, out1, out2, offset, length);
+	}
+
+	@Override
+	public void toRGB(float[] in0, float[] in1, float[] in2, float[] r, float[] g, float[] b,
+	                  int offset, int length) {
+		multiply(TO_RGB, in0, in1, in2, r, g, b, offset, length);
+	}
 }
@@ -13,8 +13,19 @@ import nl.airsupplies.utilities.graphics.color.Color3f;
  * @author Mark Jeronimus
  */
 // Created 2025-06-01
+// Changed 2026-10-17 Added batch conversion
 @SuppressWarnings("UnaryPlus")
 public class YUVColorModel extends ColorModel {
+	private static final float[] FROM_RGB = {
+			0.2990000f, 0.58700000f, 0.11400000f,
+			-0.1471377f, -0.28886230f, 0.43600000f,
+			0.6150000f, -0.51498574f, -0.10001426f};
+
+	private static final float[] TO_RGB = {
+			1, 0.00000000f, 1.13983740f,
+			1, -0.39465170f, -0.58059860f,
+			1, 2.03211000f, 0.00000000f};
+
 	@Override
 	public Color3f fromRGB(Color3f color) {
 		return new Color3f(+0.2990000f * color.r + 0.58700000f * color.g + 0.11400000f * color.b,
@@ -28,4 +39,16 @@ public class YUVColorModel extends ColorModel {
 		                   color.r - 0.39465170f * color.g - 0.58059860f * color.b,
 		                   color.r + 2.03211000f * color.g + 0.00000000f * color.b);
 	}
+
+	@Override
+	public void fromRGB(float[] r, float[] g, float[] b, float[] out0, float[] out1, float[] out2,
+	                    int offset, int length) {
+		multiply(FROM_RGB, r, g, b, out0, out1, out2, offset, length);
+	}
+
+	@Override
+	public void toRGB(float[] in0, float[] in1, float[] in2, float[] r, float[] g, float[] b,
+	                  int offset, int length) {
+		multiply(TO_RGB, in0, in1, in2, r, g, b, offset, length);
+	}
 }
@@ -2,6 +2,8 @@ package nl.airsupplies.utilities.graphics.gradient;
 
 import java.awt.Color;
 
+import org.jetbrains.annotations.Nullable;
+
 import nl.airsupplies.utilities.NumberUtilities;
 import nl.airsupplies.utilities.graphics.color.Color4f;
 import nl.airsupplies.utilities.gui.color.ColorPalette;
@@ -14,10 +16,14 @@ import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNu
  * Implementations can choose how to handle out-of-range numbers, for example, clamping, looping or reflecting.
  * In case of looping, the colors at 0.0 and at 1.0 are required to be identical,
  * so the range of 'defined' colors shrinks to [0, 1). If not, behavior at non-zero integer positions is undefined.
+ * <p>
+ * For rasterization, the gradient can be baked into a {@link GradientLookupTable}, which is cached. Implementations of
+ * which the colors can change must call {@link #invalidateLookupTable()} when they do.
  *
  * @author Mark Jeronimus
  */
 // Created 2009-04-19
+// Changed 2026-10-17 Added lookup tables
 public abstract class Gradient {
 	/**
 	 * @author Mark Jeronimus
@@ -36,9 +42,13 @@ public abstract class Gradient {
 		BOUNCE,
 	}
 
+	public static final int DEFAULT_LOOKUP_TABLE_SIZE = 1024;
+
 	private final ClampingMode clampingMode;
 	private final boolean      hasTransparency;
 
+	private volatile @Nullable GradientLookupTable lookupTable = null;
+
 	protected Gradient(ClampingMode clampingMode, boolean hasTransparency) {
 		this.clampingMode    = requireNonNull(clampingMode, "clampingMode");
 		this.hasTransparency = hasTransparency;
@@ -67,6 +77,37 @@ public abstract class Gradient {
 		return get(position).toColor();
 	}
 
+	/**
+	 * Returns this gradient baked into a lookup table of {@link #DEFAULT_LOOKUP_TABLE_SIZE} entries.
+	 */
+	public GradientLookupTable getLookupTable() {
+		return getLookupTable(DEFAULT_LOOKUP_TABLE_SIZE);
+	}
+
+	/**
+	 * Returns this gradient baked into a lookup table. The last table is cached, so repeated calls with the same size
+	 * are cheap.
+	 *
+	 * @param size the number of entries, in the range [2, {@link GradientLookupTable#MAX_SIZE}]
+	 */
+	public GradientLookupTable getLookupTable(int size) {
+		GradientLookupTable lookupTable = this.lookupTable;
+		if (lookupTable == null || lookupTable.getSize() != size) {
+			lookupTable      = new GradientLookupTable(this, size);
+			this.lookupTable = lookupTable;
+		}
+
+		return lookupTable;
+	}
+
+	/**
+	 * Discards the cached lookup table, to be called by implementations when their colors change. Paint contexts that
+	 * already obtained the table keep using it until the gradient is set again.
+	 */
+	protected void invalidateLookupTable() {
+		lookupTable = null;
+	}
+
 	protected double applyEdgeBehavior(double position) {
 		switch (clampingMode) {
 			case CLAMP:
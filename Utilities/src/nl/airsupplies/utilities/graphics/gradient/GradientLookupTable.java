@@ -0,0 +1,97 @@
+package nl.airsupplies.utilities.graphics.gradient;
+
+import net.jcip.annotations.Immutable;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireBetween;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * A {@link Gradient} baked into a table of ARGB values, for rasterizers that look up a color for every pixel.
+ * <p>
+ * The table holds {@code size} samples at equally spaced positions spanning [0, 1] (inclusive). Positions outside of
+ * this range are mapped according to the {@link Gradient.ClampingMode} of the gradient before the lookup, like {@link
+ * Gradient#getARGB(double)} does, so the table is valid for every position. Lookups round to the nearest sample.
+ * <p>
+ * For the inner loops of rasterizers, positions can be given in fixed-point with {@value #FRACTION_BITS} fractional
+ * bits, see {@link #getARGBFixed(int)}.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@Immutable
+public final class GradientLookupTable {
+	public static final int FRACTION_BITS = 16;
+	/** The fixed-point representation of the position 1.0 */
+	public static final int ONE           = 1 << FRACTION_BITS;
+
+	/** Limited so {@code position * (size - 1)} fits in an int. */
+	public static final int MAX_SIZE = 1 << 14;
+
+	private final Gradient.ClampingMode clampingMode;
+	private final int[]                 argb;
+
+	GradientLookupTable(Gradient gradient, int size) {
+		requireNonNull(gradient, "gradient");
+		requireBetween(2, MAX_SIZE, size, "size");
+
+		clampingMode = gradient.getClampingMode();
+		argb         = new int[size];
+
+		for (int i = 0; i < size; i++) {
+			argb[i] = gradient.getARGB(i / (double)(size - 1));
+		}
+	}
+
+	public int getSize() {
+		return argb.length;
+	}
+
+	public Gradient.ClampingMode getClampingMode() {
+		return clampingMode;
+	}
+
+	public int getARGB(double position) {
+		double fixed = position * ONE;
+
+		// Saturate instead of overflowing, which only matters for the modes that don't clamp at 0 or 1.
+		return getARGBFixed(fixed >= Integer.MAX_VALUE ? Integer.MAX_VALUE :
+		                    fixed <= Integer.MIN_VALUE ? Integer.MIN_VALUE : (int)Math.floor(fixed));
+	}
+
+	/**
+	 * @param position the position, in fixed-point with {@value #FRACTION_BITS} fractional bits ({@link #ONE} is 1.0)
+	 */
+	public int getARGBFixed(int position) {
+		switch (clampingMode) {
+			case CLAMP:
+				position = Math.max(0, Math.min(ONE, position));
+				break;
+			case REPEAT:
+				position = Math.max(0, position) & (ONE - 1);
+				break;
+			case LOOP:
+				position &= ONE - 1;
+				break;
+			case BOUNCE_HALF:
+				position = ONE - Math.abs((Math.max(0, position) & (ONE * 2 - 1)) - ONE);
+				break;
+			case BOUNCE:
+				position = ONE - Math.abs((position & (ONE * 2 - 1)) - ONE);
+				break;
+			default:
+				throw new AssertionError(clampingMode);
+		}
+
+		return argb[(position * (argb.length - 1) + ONE / 2) >> FRACTION_BITS];
+	}
+
+	/**
+	 * Returns the color of a position in [0, 1] in fixed-point, without applying the clamping mode. This skips a
+	 * switch in the inner loop when the caller already guarantees the range.
+	 *
+	 * @param position the position in [0, {@link #ONE}]
+	 */
+	public int getARGBFixedUnclamped(int position) {
+		return argb[(position * (argb.length - 1) + ONE / 2) >> FRACTION_BITS];
+	}
+}
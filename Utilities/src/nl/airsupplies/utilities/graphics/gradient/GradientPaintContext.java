@@ -10,12 +10,14 @@ import java.awt.image.WritableRaster;
 
 import org.jetbrains.annotations.Nullable;
 
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireBetween;
 import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireState;
 
 /**
  * @author Mark Jeronimus
  */
 // Created 2009-04-04
+// Changed 2026-10-17 Rasterizes from a lookup table
 abstract class GradientPaintContext implements PaintContext {
 	private static final ColorModel COLOR_MODEL_24 = new DirectColorModel(24, 16711680, 65280, 255);
 	private static final ColorModel COLOR_MODEL_32 = ColorModel.getRGBdefault();
@@ -24,7 +26,9 @@ abstract class GradientPaintContext implements PaintContext {
 	private @Nullable WritableRaster persistentRaster     = null;
 
 	@SuppressWarnings("FieldHasSetterButNoGetter")
-	protected @Nullable Gradient gradient = null;
+	protected @Nullable Gradient            gradient        = null;
+	protected @Nullable GradientLookupTable lookupTable     = null;
+	private             int                 lookupTableSize = Gradient.DEFAULT_LOOKUP_TABLE_SIZE;
 
 	private @Nullable ColorModel colorModel = null;
 
@@ -34,7 +38,24 @@ abstract class GradientPaintContext implements PaintContext {
 	public void setGradient(Gradient gradient) {
 		this.gradient = gradient;
 
-		colorModel = gradient.hasTransparency() ? COLOR_MODEL_32 : COLOR_MODEL_24;
+		lookupTable = gradient.getLookupTable(lookupTableSize);
+		colorModel  = gradient.hasTransparency() ? COLOR_MODEL_32 : COLOR_MODEL_24;
+	}
+
+	public int getLookupTableSize() {
+		return lookupTableSize;
+	}
+
+	/**
+	 * Sets the number of entries in the lookup table the gradient is baked into before rasterizing. Larger tables
+	 * give smoother gradients at the cost of memory and setup time.
+	 */
+	public void setLookupTableSize(int lookupTableSize) {
+		this.lookupTableSize = requireBetween(2, GradientLookupTable.MAX_SIZE, lookupTableSize, "lookupTableSize");
+
+		if (gradient != null) {
+			lookupTable = gradient.getLookupTable(lookupTableSize);
+		}
 	}
 
 	@Override
@@ -14,6 +14,7 @@ import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireState
  * @author Mark Jeronimus
  */
 // Created 2009-04-04
+// Changed 2026-10-17 Rasterizes from the gradient lookup table in fixed-point
 public class RadialGradientPaint extends GradientPaintContext implements Paint {
 	private float centerX = 0.0f;
 	private float centerY = 0.0f;
@@ -27,10 +28,10 @@ public class RadialGradientPaint extends GradientPaintContext implements Paint {
 	/**
 	 * Used to limit the size of the square root lookup table
 	 */
-	private static final int MAX_PRECISION = 256;
+	private static final int MAX_PRECISION = 1024;
 
 	/**
-	 * Square root lookup table
+	 * Square root lookup table, in the fixed-point format of {@link GradientLookupTable}
 	 */
 	private final int[] sqrtLutFixed = new int[MAX_PRECISION];
 
@@ -70,7 +71,7 @@ public class RadialGradientPaint extends GradientPaintContext implements Paint {
 		// lookup table (precision-2)
 		int i;
 		for (i = 0; i < MAX_PRECISION - 1; i++) {
-			sqrtLutFixed[i] = (int)Math.sqrt(i * sqStepFloat);
+			sqrtLutFixed[i] = (int)(Math.sqrt(i * sqStepFloat) * GradientLookupTable.ONE);
 		}
 		sqrtLutFixed[i] = sqrtLutFixed[i - 1];
 		invSqStepFloat  = 1 / sqStepFloat;
@@ -78,7 +79,11 @@ public class RadialGradientPaint extends GradientPaintContext implements Paint {
 
 	@Override
 	protected void fillRaster(int x, int y, int w, int h, int[] pixels, int offset, int skip) {
-		requireState(gradient != null, () -> "setGradient() has not been called");
+		GradientLookupTable lookupTable = this.lookupTable;
+		requireState(lookupTable != null, () -> "setGradient() has not been called");
+
+		// Positions outside the radius are beyond 1.0, clamped at 1.0 because this is a non-cyclic fill.
+		int outsideColor = lookupTable.getARGBFixed(GradientLookupTable.ONE);
 
 		float radiusToGradient = 1.0f / radius;
 
@@ -102,12 +107,11 @@ public class RadialGradientPaint extends GradientPaintContext implements Paint {
 			// This combination of scale and circle radius means
 			// essentially no pixels will be anything but the end
 			// stop color. This also avoids math problems.
-			int val = gradient.getARGB(1);
 			for (j = 0; j < h; j++) { // for every row
 				// for every column (inner loop begins here)
 				end = p + w;
 				while (p < end) {
-					pixels[p] = val;
+					pixels[p] = outsideColor;
 					p++;
 				}
 				p += skip;
@@ -139,7 +143,7 @@ public class RadialGradientPaint extends GradientPaintContext implements Paint {
 
 				// since this is a non cyclic fill raster, crop at "1" and 0
 				if (gradientSq >= 1.0f) {
-					pixels[p] = gradient.getARGB(1);
+					pixels[p] = outsideColor;
 				} else {
 					// Square distance index
 					float iSq = gradientSq * invSqStepFloat;
@@ -148,10 +152,10 @@ public class RadialGradientPaint extends GradientPaintContext implements Paint {
 					int iSqInt = (int)iSq; // chop off fractional part
 					iSq -= iSqInt;
 
-					// integer number used to index gradient array
-					int gIndex = sqrtLutFixed[iSqInt];
-					gIndex += (int)((sqrtLutFixed[iSqInt + 1] - gIndex) * iSq);
-					pixels[p] = gradient.getARGB(gIndex);
+					// fixed-point gradient position in [0, 1]
+					int position = sqrtLutFixed[iSqInt];
+					position += (int)((sqrtLutFixed[iSqInt + 1] - position) * iSq);
+					pixels[p] = lookupTable.getARGBFixedUnclamped(position);
 				}
 
 				// incremental calculation
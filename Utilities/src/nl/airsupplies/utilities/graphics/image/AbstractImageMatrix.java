@@ -6,6 +6,7 @@ import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLea
  * @author Mark Jeronimus
  */
 // Created 2013-02-04
+// Changed 2026-10-17 Added strides and offsets
 public abstract class AbstractImageMatrix {
 	/** Width of usable image area */
 	public final int width;
@@ -56,6 +57,47 @@ public abstract class AbstractImageMatrix {
 		return numComponents;
 	}
 
+	/**
+	 * Distance, in samples, between two vertically adjacent samples in a contiguous planar layout. Always equal to
+	 * {@link #numColumns}.
+	 */
+	public int getRowStride() {
+		return numColumns;
+	}
+
+	/**
+	 * Distance, in samples, between two components of the same pixel in a contiguous planar layout. Always equal to
+	 * {@link #numColumns} * {@link #numRows}.
+	 */
+	public int getPlaneStride() {
+		return numColumns * numRows;
+	}
+
+	/**
+	 * Returns the position of a sample in the array that holds its row.
+	 * <p>
+	 * Matrices that store their samples in one contiguous planar block (like {@link ImageMatrixFloatFlat} and {@link
+	 * ImageMatrixIntFlat}) return the position in that block, which uses {@link #getRowStride()} and {@link
+	 * #getPlaneStride()}. The jagged matrices ({@link ImageMatrixFloat}, {@link ImageMatrixInt}) have an array per row,
+	 * and return {@code x}.
+	 *
+	 * @param x the column, including the border (i.e. the first image pixel is at {@link #border})
+	 * @param y the row, including the border (i.e. the first image pixel is at {@link #border})
+	 * @see AbstractImageMatrixFloat#readRow(int, int, FloatRow)
+	 */
+	public int getOffset(int component, int x, int y) {
+		return x;
+	}
+
+	/**
+	 * Returns the number of samples of a contiguous planar layout.
+	 *
+	 * @throws ArithmeticException when the number doesn't fit in an {@code int}.
+	 */
+	protected int getContiguousSize() {
+		return Math.multiplyExact(numComponents, Math.multiplyExact(numColumns, numRows));
+	}
+
 	public boolean isCompatibleByBorderAndSize(AbstractImageMatrix other) {
 		return border == other.border && other.width >= width && other.height >= height;
 	}
@@ -0,0 +1,156 @@
+package nl.airsupplies.utilities.graphics.image;
+
+/**
+ * An image matrix of float samples, accessed by row independently of how the samples are stored.
+ * <p>
+ * {@link #readRow(int, int, FloatRow)} makes the samples of a row available as an array and an offset. For the jagged
+ * {@link ImageMatrixFloat} that's the row array itself, for an {@link ImageMatrixFloatFlat} on a {@link
+ * HeapFloatStorage} it's the storage array, and for other storage the row is copied to a buffer, which has to be
+ * stored again with {@link #writeRow(int, int, FloatRow)} after changing it. The {@code forEachRow} methods do this
+ * for the image area of every row, in bands of rows executed by the {@link ImageMatrixExecutor}.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+public abstract class AbstractImageMatrixFloat extends AbstractImageMatrix {
+	protected AbstractImageMatrixFloat(int width, int height, int numComponents, int border) {
+		super(width, height, numComponents, border);
+	}
+
+	/**
+	 * Makes the samples of a complete row, including the border, available in {@code row}.
+	 *
+	 * @param y the row, including the border (i.e. the first image row is at {@link #border})
+	 * @return {@code row}
+	 */
+	public FloatRow readRow(int component, int y, FloatRow row) {
+		return readRow(component, y, 0, numColumns, row);
+	}
+
+	/**
+	 * Makes {@code length} samples of a row, starting at {@code beginX}, available in {@code row}. Other samples of the
+	 * row may or may not be available.
+	 *
+	 * @param y      the row, including the border (i.e. the first image row is at {@link #border})
+	 * @param beginX the first sample, including the border
+	 * @return {@code row}
+	 */
+	public abstract FloatRow readRow(int component, int y, int beginX, int length, FloatRow row);
+
+	/**
+	 * Stores the samples of a row read by {@link #readRow(int, int, FloatRow)}, after they were changed. Does nothing
+	 * when {@code row} refers to the storage directly.
+	 */
+	public void writeRow(int component, int y, FloatRow row) {
+		writeRow(component, y, 0, numColumns, row);
+	}
+
+	/**
+	 * Stores {@code length} samples of a row, starting at {@code beginX}, after they were changed. Does nothing when
+	 * {@code row} refers to the storage directly.
+	 */
+	public abstract void writeRow(int component, int y, int beginX, int length, FloatRow row);
+
+	/**
+	 * Runs a task on the image area of every row, and stores the changes.
+	 */
+	public void forEachRow(RowTask task) {
+		ImageMatrixExecutor.forEachBand(this, (z, beginY, endY) -> {
+			FloatRow row = new FloatRow();
+			for (int y = beginY; y < endY; y++) {
+				readRow(z, y, border, width, row);
+				task.process(z, row.array, row.offset + border, row.offset + endX);
+				writeRow(z, y, border, width, row);
+			}
+		});
+	}
+
+	/**
+	 * Runs a task on the image area of every row of one component, and stores the changes.
+	 */
+	public void forEachRow(int component, RowTask task) {
+		ImageMatrixExecutor.forEachRowBand(this, (beginY, endY) -> {
+			FloatRow row = new FloatRow();
+			for (int y = beginY; y < endY; y++) {
+				readRow(component, y, border, width, row);
+				task.process(component, row.array, row.offset + border, row.offset + endX);
+				writeRow(component, y, border, width, row);
+			}
+		});
+	}
+
+	/**
+	 * Runs a task on the image area of every row, together with the same row of another image, and stores the changes
+	 * to this image. The other image is only read.
+	 *
+	 * @throws IllegalArgumentException when the other image doesn't have the same border or is smaller.
+	 */
+	public void forEachRow(AbstractImageMatrixFloat other, RowRowTask task) {
+		if (!isCompatibleByBorderAndSize(other)) {
+			throw new IllegalArgumentException("Other ImageMatrix not compatible");
+		}
+
+		ImageMatrixExecutor.forEachBand(this, (z, beginY, endY) -> {
+			FloatRow row      = new FloatRow();
+			FloatRow rowOther = new FloatRow();
+			for (int y = beginY; y < endY; y++) {
+				readRow(z, y, border, width, row);
+				other.readRow(z, y, border, width, rowOther);
+				task.process(z, row.array, row.offset + border, rowOther.array, rowOther.offset + border, width);
+				writeRow(z, y, border, width, row);
+			}
+		});
+	}
+
+	/**
+	 * Runs a task on the image area of every row, together with the same row of two other images, and stores the
+	 * changes to this image. The other images are only read.
+	 *
+	 * @throws IllegalArgumentException when the other images don't have the same border or are smaller.
+	 */
+	public void forEachRow(AbstractImageMatrixFloat other1, AbstractImageMatrixFloat other2, RowRowRowTask task) {
+		if (!(isCompatibleByBorderAndSize(other1) && isCompatibleByBorderAndSize(other2))) {
+			throw new IllegalArgumentException("Other ImageMatrix not compatible");
+		}
+
+		ImageMatrixExecutor.forEachBand(this, (z, beginY, endY) -> {
+			FloatRow row       = new FloatRow();
+			FloatRow rowOther1 = new FloatRow();
+			FloatRow rowOther2 = new FloatRow();
+			for (int y = beginY; y < endY; y++) {
+				readRow(z, y, border, width, row);
+				other1.readRow(z, y, border, width, rowOther1);
+				other2.readRow(z, y, border, width, rowOther2);
+				task.process(z,
+				             row.array,
+				             row.offset + border,
+				             rowOther1.array,
+				             rowOther1.offset + border,
+				             rowOther2.array,
+				             rowOther2.offset + border,
+				             width);
+				writeRow(z, y, border, width, row);
+			}
+		});
+	}
+
+	@FunctionalInterface
+	public interface RowTask {
+		/**
+		 * @param begin the position of the first image sample in {@code row}
+		 * @param end   the position after the last image sample in {@code row}
+		 */
+		void process(int component, float[] row, int begin, int end);
+	}
+
+	@FunctionalInterface
+	public interface RowRowTask {
+		void process(int component, float[] row, int begin, float[] rowOther, int otherBegin, int length);
+	}
+
+	@FunctionalInterface
+	public interface RowRowRowTask {
+		void process(int component, float[] row, int begin, float[] rowOther1, int other1Begin,
+		             float[] rowOther2, int other2Begin, int length);
+	}
+}
@@ -2,23 +2,125 @@ package nl.airsupplies.utilities.graphics.image;
 
 import java.awt.geom.AffineTransform;
 
+import org.jetbrains.annotations.Nullable;
+
 import nl.airsupplies.utilities.graphics.transform.AffineTransformFloat;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
 
 /**
- * {@link ImageMatrixFloat} transformation using an {@link AffineTransform}. The transformation uses Backward Mapping
- * using
- * Linear Interpolation. This means that each output pixel coordinate is multiplied with the transform matrix to obtain
- * the input coordinate. The destination color is the weighted linear average of the four closest integer coordinates.
+ * {@link ImageMatrixFloat} transformation using an {@link AffineTransform}. The transformation uses Backward Mapping.
+ * This means that each output pixel coordinate is multiplied with the transform matrix to obtain the input coordinate.
+ * The destination color is interpolated from the closest integer coordinates using the selected {@link
+ * Interpolation} (by default the weighted linear average of the four closest integer coordinates).
+ * <p>
+ * When the image is scaled down by more than a factor 2, the input is first halved (per axis) until it isn't, to
+ * prevent aliasing (see {@link #setMipmapping(boolean)}). For pure scaling, the interpolation kernel is also widened
+ * for the remaining factor. Rows are processed in bands by the {@link ImageMatrixExecutor}.
+ * <p>
+ * With a {@link #setBorderMode(BorderMode, float) virtual border}, the input doesn't need a border, and the kernel
+ * processes are used for every interpolation (the bilinear fast paths read the physical border).
  *
  * @author Mark Jeronimus
  */
 // Created 2011-11-22
 public class AffineImageTransformation {
+	public enum Interpolation {
+		NEAREST(0.5) {
+			@Override
+			double kernel(double t) {
+				return 1;
+			}
+		},
+		BILINEAR(1) {
+			@Override
+			double kernel(double t) {
+				return 1 - t;
+			}
+		},
+		/** Catmull-Rom spline */
+		BICUBIC(2) {
+			@Override
+			double kernel(double t) {
+				return t < 1 ?
+				       (1.5 * t - 2.5) * t * t + 1 :
+				       ((-0.5 * t + 2.5) * t - 4) * t + 2;
+			}
+		},
+		LANCZOS3(3) {
+			@Override
+			double kernel(double t) {
+				return t < 1.0e-6 ? 1 : sinc(t) * sinc(t / 3);
+			}
+		};
+
+		/**
+		 * Resolution of the lookup table, in entries per input pixel.
+		 */
+		private static final int TABLE_RESOLUTION = 1024;
+
+		public final double radius;
+
+		private final float[] table;
+
+		Interpolation(double radius) {
+			this.radius = radius;
+
+			table = new float[(int)Math.ceil(radius * TABLE_RESOLUTION) + 2];
+			for (int i = 0; i < table.length; i++) {
+				table[i] = (float)weight((double)i / TABLE_RESOLUTION);
+			}
+		}
+
+		/**
+		 * Returns the weight of a sample at distance {@code t} (in input pixels) from the interpolated position.
+		 */
+		public double weight(double t) {
+			t = Math.abs(t);
+			if (t > radius) {
+				return 0;
+			}
+
+			return kernel(t);
+		}
+
+		/**
+		 * The kernel for {@code 0 <= t <= radius}.
+		 */
+		abstract double kernel(double t);
+
+		/**
+		 * Returns the weight of a sample at distance {@code t}, linearly interpolated from the lookup table.
+		 */
+		private float lookup(float t) {
+			float f = Math.abs(t) * TABLE_RESOLUTION;
+			int   i = (int)f;
+			if (i >= table.length - 1) {
+				return 0;
+			}
+
+			return table[i] + (table[i + 1] - table[i]) * (f - i);
+		}
+
+		private static double sinc(double t) {
+			return Math.sin(Math.PI * t) / (Math.PI * t);
+		}
+	}
+
+	/**
+	 * The scale factor below which the input is halved first (when mipmapping is enabled).
+	 */
+	private static final float MIPMAP_THRESHOLD = 0.5f;
+
 	private final AffineTransformFloat transform;
 
 	AffineTransformFloat appliedTransform = new AffineTransformFloat();
 
 	private TransformationProcess processes;
+	private Interpolation         interpolation = Interpolation.BILINEAR;
+	private boolean               mipmapping    = true;
+
+	private @Nullable BorderMode borderMode     = null;
+	private float                borderConstant = 0;
 
 	ImageMatrixFloat in;
 	ImageMatrixFloat out;
@@ -30,15 +132,68 @@ public class AffineImageTransformation {
 	}
 
 	private void selectProcess() {
+		boolean bilinear = interpolation == Interpolation.BILINEAR && borderMode == null;
+
 		if (transform.x1 != 0 || transform.y0 != 0) {
-			processes = new TransformationProcessAffine();
+			processes = bilinear ?
+			            new TransformationProcessAffine() :
+			            new TransformationProcessAffineKernel();
 		} else if (transform.x0 != 1 || transform.y1 != 1) {
-			processes = new TransformationProcessScale();
+			processes = bilinear ?
+			            new TransformationProcessScale() :
+			            new TransformationProcessScaleKernel();
 		} else {
-			processes = new TransformationProcessTranslate();
+			processes = bilinear ?
+			            new TransformationProcessTranslate() :
+			            new TransformationProcessScaleKernel();
 		}
 	}
 
+	public Interpolation getInterpolation() {
+		return interpolation;
+	}
+
+	public void setInterpolation(Interpolation interpolation) {
+		this.interpolation = requireNonNull(interpolation, "interpolation");
+		selectProcess();
+	}
+
+	public boolean isMipmapping() {
+		return mipmapping;
+	}
+
+	/**
+	 * Whether to halve the input before transforming when scaling down by more than a factor 2. Disable this if the
+	 * input is already filtered.
+	 */
+	public void setMipmapping(boolean mipmapping) {
+		this.mipmapping = mipmapping;
+	}
+
+	public @Nullable BorderMode getBorderMode() {
+		return borderMode;
+	}
+
+	public float getBorderConstant() {
+		return borderConstant;
+	}
+
+	/**
+	 * Makes the transformation evaluate samples outside the input image area on the fly, instead of reading them from
+	 * the border, which can then be of any width (including 0). Use {@code null} to read the physical border again.
+	 *
+	 * @param constant the value of samples outside the image area for {@link BorderMode#CONSTANT}
+	 */
+	public void setBorderMode(@Nullable BorderMode borderMode, float constant) {
+		this.borderMode = borderMode;
+		borderConstant  = constant;
+		selectProcess();
+	}
+
+	public void setBorderMode(@Nullable BorderMode borderMode) {
+		setBorderMode(borderMode, 0);
+	}
+
 	public void setTranslation(float x, float y) {
 		transform.x2 = x;
 		transform.y2 = y;
@@ -74,24 +229,95 @@ public class AffineImageTransformation {
 	 * The in and out images may be of different dimensions (border of input should be at least 1). Beforehand, set,
 	 * extend, mirror or wrap the border as you wish. Pro tip: use image flipping to prevent copying an image every
 	 * time.
+	 * <p>
+	 * Samples further outside the image than the first border pixel take the value of that border pixel, unless a
+	 * {@link #setBorderMode(BorderMode, float) virtual border} is set.
 	 */
 	public void transform(ImageMatrixFloat in, ImageMatrixFloat out) {
-		if (in.border < 1) {
+		if (in.border < 1 && borderMode == null) {
 			throw new IllegalArgumentException("Border too small for kernel: " + in.border + " < 1");
 		}
 
+		appliedTransform.set(transform);
+
+		if (mipmapping) {
+			// Halve the input along the axes that it's stepped through too fast. Pixel i of the halved image is
+			// centered between pixels 2i and 2i+1, so u' = (u - 0.5) / 2.
+			while (true) {
+				boolean halveX = Math.hypot(appliedTransform.x0, appliedTransform.x1) > 1 / MIPMAP_THRESHOLD &&
+				                 in.width > 1;
+				boolean halveY = Math.hypot(appliedTransform.y0, appliedTransform.y1) > 1 / MIPMAP_THRESHOLD &&
+				                 in.height > 1;
+				if (!halveX && !halveY) {
+					break;
+				}
+
+				in = halve(in, halveX, halveY);
+				appliedTransform.translateWorld(halveX ? -0.5f : 0, halveY ? -0.5f : 0);
+				appliedTransform.scaleWorld(halveX ? 0.5f : 1, halveY ? 0.5f : 1);
+			}
+		}
+
 		this.in  = in;
 		this.out = out;
 
-		appliedTransform.set(transform);
 		appliedTransform.translateLocal(-out.border, -out.border);
 		appliedTransform.translateWorld(in.border, in.border);
 
-		processes.transform();
+		TransformationProcess processes = this.processes;
+		processes.prepare();
+		ImageMatrixExecutor.forEachBand(out, processes::transform);
+	}
+
+	/**
+	 * Averages pairs of pixels along one or both axes. The result has a border of 1, extended from the image.
+	 */
+	private static ImageMatrixFloat halve(ImageMatrixFloat in, boolean halveX, boolean halveY) {
+		int width  = halveX ? (in.width + 1) / 2 : in.width;
+		int height = halveY ? (in.height + 1) / 2 : in.height;
+		int stepX  = halveX ? 1 : 0;
+		int stepY  = halveY ? 1 : 0;
+
+		ImageMatrixFloat halved = new ImageMatrixFloat(width, height, in.numComponents, 1);
+
+		ImageMatrixExecutor.forEachBand(halved, (z, beginY, endY) -> {
+			// Inner loop
+			int     x; // 4
+			int     u; // 4
+			float[] row0; // 2
+			float[] row1; // 2
+			float[] row; // 1
+			int     lastU = in.endX - 1; // 1
+
+			for (int y = beginY; y < endY; y++) {
+				int v = in.border + ((y - 1) << stepY);
+				row  = halved.matrix[z][y];
+				row0 = in.matrix[z][v];
+				row1 = in.matrix[z][Math.min(v + stepY, in.endY - 1)];
+
+				for (x = 1; x <= width; x++) {
+					u      = in.border + ((x - 1) << stepX);
+					row[x] = (row0[u] + row0[Math.min(u + stepX, lastU)] +
+					          row1[u] + row1[Math.min(u + stepX, lastU)]) * 0.25f;
+				}
+			}
+		});
+
+		halved.extendBorder();
+		return halved;
 	}
 
 	private interface TransformationProcess {
-		void transform();
+		/**
+		 * Called once per transformation, before any {@link #transform(int, int, int)}.
+		 */
+		default void prepare() {
+		}
+
+		/**
+		 * Transforms rows {@code beginY} (inclusive) to {@code endY} (exclusive) of component {@code z}.
+		 */
+		void transform(int z, int beginY, int endY);
 	}
 
 	private class TransformationProcessTranslate implements TransformationProcess {
@@ -99,7 +325,7 @@ public class AffineImageTransformation {
 		}
 
 		@Override
-		public void transform() {
+		public void transform(int z, int beginY, int endY) {
 			// Inner loop
 			int       u0; // 6.5 (5~8)
 			int       u1; // 6.5 (5~8)
@@ -117,61 +343,59 @@ public class AffineImageTransformation {
 			float     tx           = appliedTransform.x2; // 1
 			int       endX         = out.endX; // 1
 
-			for (int z = 0; z < out.numComponents; z++) {
-				plane = in.matrix[z];
-				for (int y = out.border; y < out.endY; y++) {
-					row = out.matrix[z][y];
-
-					float v  = y + appliedTransform.y2;
-					int   v0 = (int)v;
-					int   v1 = v0 + 1;
-					vf = v - v0;
-
-					if (v1 < beforeBorder) {
+			plane = in.matrix[z];
+			for (int y = beginY; y < endY; y++) {
+				row = out.matrix[z][y];
+
+				float v  = y + appliedTransform.y2;
+				int   v0 = (int)v;
+				int   v1 = v0 + 1;
+				vf = v - v0;
+
+				if (v1 < beforeBorder) {
+					v0 = beforeBorder;
+					v1 = beforeBorder;
+				} else if (v0 > in.endY) {
+					v0 = in.endY;
+					v1 = in.endY;
+				} else {
+					if (v0 < beforeBorder) {
 						v0 = beforeBorder;
-						v1 = beforeBorder;
-					} else if (v0 > in.endY) {
-						v0 = in.endY;
+					}
+					if (v1 > in.endY) {
 						v1 = in.endY;
-					} else {
-						if (v0 < beforeBorder) {
-							v0 = beforeBorder;
-						}
-						if (v1 > in.endY) {
-							v1 = in.endY;
-						}
 					}
+				}
 
-					row0 = plane[v0];
-					row1 = plane[v1];
-
-					for (int x = out.border; x < endX; x++) {
-						u  = x + tx;
-						u0 = (int)u;
-						u1 = u0 + 1;
-						if (u1 < beforeBorder) {
+				row0 = plane[v0];
+				row1 = plane[v1];
+
+				for (int x = out.border; x < endX; x++) {
+					u  = x + tx;
+					u0 = (int)u;
+					u1 = u0 + 1;
+					if (u1 < beforeBorder) {
+						u0 = beforeBorder;
+						u1 = beforeBorder;
+					} else if (u0 > afterBorderX) {
+						u0 = afterBorderX;
+						u1 = afterBorderX;
+					} else {
+						if (u0 < beforeBorder) {
 							u0 = beforeBorder;
-							u1 = beforeBorder;
-						} else if (u0 > afterBorderX) {
-							u0 = afterBorderX;
+						}
+						if (u1 > afterBorderX) {
 							u1 = afterBorderX;
-						} else {
-							if (u0 < beforeBorder) {
-								u0 = beforeBorder;
-							}
-							if (u1 > afterBorderX) {
-								u1 = afterBorderX;
-							}
 						}
+					}
 
-						a = row0[u0];
-						c = a + (row1[u0] - a) * vf;
+					a = row0[u0];
+					c = a + (row1[u0] - a) * vf;
 
-						a = row0[u1];
-						d = a + (row1[u1] - a) * vf;
+					a = row0[u1];
+					d = a + (row1[u1] - a) * vf;
 
-						row[x] = c + (d - c) * (u - u0);
-					}
+					row[x] = c + (d - c) * (u - u0);
 				}
 			}
 		}
@@ -182,7 +406,7 @@ public class AffineImageTransformation {
 		}
 
 		@Override
-		public void transform() {
+		public void transform(int z, int beginY, int endY) {
 			// Inner loop
 			int       u0; // 6.5 (5~8)
 			int       u1; // 6.5 (5~8)
@@ -201,61 +425,59 @@ public class AffineImageTransformation {
 			float     tx           = appliedTransform.x2; // 1
 			int       endX         = out.endX; // 1
 
-			for (int z = 0; z < out.numComponents; z++) {
-				plane = in.matrix[z];
-				for (int y = out.border; y < out.endY; y++) {
-					row = out.matrix[z][y];
-
-					float v  = y * appliedTransform.y1 + appliedTransform.y2;
-					int   v0 = (int)v;
-					int   v1 = v0 + 1;
-					vf = v - v0;
-
-					if (v1 < beforeBorder) {
+			plane = in.matrix[z];
+			for (int y = beginY; y < endY; y++) {
+				row = out.matrix[z][y];
+
+				float v  = y * appliedTransform.y1 + appliedTransform.y2;
+				int   v0 = (int)v;
+				int   v1 = v0 + 1;
+				vf = v - v0;
+
+				if (v1 < beforeBorder) {
+					v0 = beforeBorder;
+					v1 = beforeBorder;
+				} else if (v0 > in.endY) {
+					v0 = in.endY;
+					v1 = in.endY;
+				} else {
+					if (v0 < beforeBorder) {
 						v0 = beforeBorder;
-						v1 = beforeBorder;
-					} else if (v0 > in.endY) {
-						v0 = in.endY;
+					}
+					if (v1 > in.endY) {
 						v1 = in.endY;
-					} else {
-						if (v0 < beforeBorder) {
-							v0 = beforeBorder;
-						}
-						if (v1 > in.endY) {
-							v1 = in.endY;
-						}
 					}
+				}
 
-					row0 = plane[v0];
-					row1 = plane[v1];
-
-					for (int x = out.border; x < endX; x++) {
-						u  = x * sx + tx;
-						u0 = (int)u;
-						u1 = u0 + 1;
-						if (u1 < beforeBorder) {
+				row0 = plane[v0];
+				row1 = plane[v1];
+
+				for (int x = out.border; x < endX; x++) {
+					u  = x * sx + tx;
+					u0 = (int)u;
+					u1 = u0 + 1;
+					if (u1 < beforeBorder) {
+						u0 = beforeBorder;
+						u1 = beforeBorder;
+					} else if (u0 > afterBorderX) {
+						u0 = afterBorderX;
+						u1 = afterBorderX;
+					} else {
+						if (u0 < beforeBorder) {
 							u0 = beforeBorder;
-							u1 = beforeBorder;
-						} else if (u0 > afterBorderX) {
-							u0 = afterBorderX;
+						}
+						if (u1 > afterBorderX) {
 							u1 = afterBorderX;
-						} else {
-							if (u0 < beforeBorder) {
-								u0 = beforeBorder;
-							}
-							if (u1 > afterBorderX) {
-								u1 = afterBorderX;
-							}
 						}
+					}
 
-						a = row0[u0];
-						c = a + (row1[u0] - a) * vf;
+					a = row0[u0];
+					c = a + (row1[u0] - a) * vf;
 
-						a = row0[u1];
-						d = a + (row1[u1] - a) * vf;
+					a = row0[u1];
+					d = a + (row1[u1] - a) * vf;
 
-						row[x] = c + (d - c) * (u - u0);
-					}
+					row[x] = c + (d - c) * (u - u0);
 				}
 			}
 		}
@@ -266,7 +488,7 @@ public class AffineImageTransformation {
 		}
 
 		@Override
-		public void transform() {
+		public void transform(int z, int beginY, int endY) {
 			// Inner loop
 			int       u0; // 6.5 (5~8)
 			int       u1; // 6.5 (5~8)
@@ -292,61 +514,303 @@ public class AffineImageTransformation {
 			float     ty           = appliedTransform.y2; // 1
 			int       endX         = out.endX; // 1
 
-			for (int z = 0; z < out.numComponents; z++) {
-				plane = in.matrix[z];
-				for (int y = out.border; y < out.endY; y++) {
-					row = out.matrix[z][y];
+			plane = in.matrix[z];
+			for (int y = beginY; y < endY; y++) {
+				row = out.matrix[z][y];
 
-					for (int x = out.border; x < endX; x++) {
-						v  = x * zy + y * sy + ty;
-						v0 = (int)v;
-						v1 = v0 + 1;
-						vf = v - v0;
+				for (int x = out.border; x < endX; x++) {
+					v  = x * zy + y * sy + ty;
+					v0 = (int)v;
+					v1 = v0 + 1;
+					vf = v - v0;
 
-						if (v1 < beforeBorder) {
+					if (v1 < beforeBorder) {
+						v0 = beforeBorder;
+						v1 = beforeBorder;
+					} else if (v0 > afterBorderY) {
+						v0 = afterBorderY;
+						v1 = afterBorderY;
+					} else {
+						if (v0 < beforeBorder) {
 							v0 = beforeBorder;
-							v1 = beforeBorder;
-						} else if (v0 > afterBorderY) {
-							v0 = afterBorderY;
+						}
+						if (v1 > afterBorderY) {
 							v1 = afterBorderY;
-						} else {
-							if (v0 < beforeBorder) {
-								v0 = beforeBorder;
-							}
-							if (v1 > afterBorderY) {
-								v1 = afterBorderY;
-							}
 						}
+					}
 
-						u  = x * sx + y * zx + tx;
-						u0 = (int)u;
-						u1 = u0 + 1;
-						if (u1 < beforeBorder) {
+					u  = x * sx + y * zx + tx;
+					u0 = (int)u;
+					u1 = u0 + 1;
+					if (u1 < beforeBorder) {
+						u0 = beforeBorder;
+						u1 = beforeBorder;
+					} else if (u0 > afterBorderX) {
+						u0 = afterBorderX;
+						u1 = afterBorderX;
+					} else {
+						if (u0 < beforeBorder) {
 							u0 = beforeBorder;
-							u1 = beforeBorder;
-						} else if (u0 > afterBorderX) {
-							u0 = afterBorderX;
+						}
+						if (u1 > afterBorderX) {
 							u1 = afterBorderX;
-						} else {
-							if (u0 < beforeBorder) {
-								u0 = beforeBorder;
-							}
-							if (u1 > afterBorderX) {
-								u1 = afterBorderX;
-							}
+						}
+					}
+
+					a = plane[v0][u0];
+					b = plane[v1][u0];
+					c = a + (b - a) * vf;
+
+					a = plane[v0][u1];
+					b = plane[v1][u1];
+					d = a + (b - a) * vf;
+
+					row[x] = c + (d - c) * (u - u0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scale or translate with any interpolation kernel, separated into a vertical and a horizontal pass with
+	 * precomputed taps.
+	 */
+	private class TransformationProcessScaleKernel implements TransformationProcess {
+		private KernelTable columns;
+		private KernelTable rows;
+		private int         beginU;
+		private int         endU;
+
+		public TransformationProcessScaleKernel() {
+		}
+
+		@Override
+		public void prepare() {
+			columns = new KernelTable(interpolation, out.width, appliedTransform.x0,
+			                          out.border * appliedTransform.x0 + appliedTransform.x2,
+			                          borderMode, in.border, in.width);
+			rows    = new KernelTable(interpolation, out.height, appliedTransform.y1,
+			                          out.border * appliedTransform.y1 + appliedTransform.y2,
+			                          borderMode, in.border, in.height);
+
+			// Only the input columns that are actually used are filtered in the vertical pass.
+			beginU = columns.indices[0];
+			endU   = beginU + 1;
+			for (int index : columns.indices) {
+				beginU = Math.min(beginU, index);
+				endU   = Math.max(endU, index + 1);
+			}
+		}
+
+		@Override
+		public void transform(int z, int beginY, int endY) {
+			float[] temp = new float[in.numColumns];
+
+			// Inner loop
+			int       k; // 8
+			int       u; // 6
+			float     sum; // 4
+			int       i; // 4
+			float     w; // 3
+			float[]   src; // 2
+			float[][] plane         = in.matrix[z]; // 2
+			float[]   row; // 1
+			float     cv; // 1
+			int       numColumnTaps = columns.numTaps; // 1
+			int       numRowTaps    = rows.numTaps; // 1
+			int[]     indices       = columns.indices; // 1
+			float[]   weights       = columns.weights; // 1
+
+			for (int y = beginY; y < endY; y++) {
+				row = out.matrix[z][y];
+				i   = (y - out.border) * numRowTaps;
+				cv  = rows.constantWeights[y - out.border];
+
+				src = plane[rows.indices[i]];
+				w   = rows.weights[i];
+				for (u = beginU; u < endU; u++) {
+					temp[u] = src[u] * w;
+				}
+
+				for (k = 1; k < numRowTaps; k++) {
+					src = plane[rows.indices[i + k]];
+					w   = rows.weights[i + k];
+					for (u = beginU; u < endU; u++) {
+						temp[u] += src[u] * w;
+					}
+				}
+
+				i = 0;
+				for (int x = out.border; x < out.endX; x++) {
+					sum = 0;
+					for (k = 0; k < numColumnTaps; k++) {
+						sum += temp[indices[i]] * weights[i];
+						i++;
+					}
+
+					row[x] = sum;
+				}
+
+				if (borderMode == BorderMode.CONSTANT) {
+					// The weights of the constant samples were left out of both passes.
+					float[] cu = columns.constantWeights;
+					for (int x = out.border; x < out.endX; x++) {
+						row[x] += borderConstant * ((1 - cv) * cu[x - out.border] + cv);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Any affine transformation with any interpolation kernel, which is evaluated per pixel.
+	 */
+	private class TransformationProcessAffineKernel implements TransformationProcess {
+		public TransformationProcessAffineKernel() {
+		}
+
+		@Override
+		public void transform(int z, int beginY, int endY) {
+			int     numTaps  = (int)Math.ceil(interpolation.radius) * 2;
+			int[]   indicesU = new int[numTaps];
+			int[]   indicesV = new int[numTaps];
+			float[] weightsU = new float[numTaps];
+			float[] weightsV = new float[numTaps];
+			float   constant = borderConstant;
+
+			// Inner loop
+			int       j; // 8
+			int       k; // 8
+			float     sum; // 4
+			float     sumRow; // 4
+			float[]   src; // 3
+			float     sumU; // 2
+			float     sumV; // 2
+			float     u; // 2
+			float     v; // 2
+			int       u0; // 2
+			int       v0; // 2
+			float[][] plane = in.matrix[z]; // 2
+			float[]   row; // 1
+			float     sx    = appliedTransform.x0; // 1
+			float     zx    = appliedTransform.x1; // 1
+			float     tx    = appliedTransform.x2; // 1
+			float     zy    = appliedTransform.y0; // 1
+			float     sy    = appliedTransform.y1; // 1
+			float     ty    = appliedTransform.y2; // 1
+
+			for (int y = beginY; y < endY; y++) {
+				row = out.matrix[z][y];
+
+				for (int x = out.border; x < out.endX; x++) {
+					u  = x * sx + y * zx + tx;
+					v  = x * zy + y * sy + ty;
+					u0 = (int)Math.floor(u) - numTaps / 2 + 1;
+					v0 = (int)Math.floor(v) - numTaps / 2 + 1;
+
+					sumU = 0;
+					sumV = 0;
+					for (k = 0; k < numTaps; k++) {
+						indicesU[k] = mapIndex(u0 + k, in.border, in.width);
+						indicesV[k] = mapIndex(v0 + k, in.border, in.height);
+						weightsU[k] = interpolation.lookup(u0 + k - u);
+						weightsV[k] = interpolation.lookup(v0 + k - v);
+						sumU += weightsU[k];
+						sumV += weightsV[k];
+					}
+
+					sum = 0;
+					for (j = 0; j < numTaps; j++) {
+						if (indicesV[j] < 0) {
+							sum += constant * sumU * weightsV[j];
+							continue;
+						}
+
+						src    = plane[indicesV[j]];
+						sumRow = 0;
+						for (k = 0; k < numTaps; k++) {
+							sumRow += (indicesU[k] < 0 ? constant : src[indicesU[k]]) * weightsU[k];
 						}
 
-						a = plane[v0][u0];
-						b = plane[v1][u0];
-						c = a + (b - a) * vf;
+						sum += sumRow * weightsV[j];
+					}
 
-						a = plane[v0][u1];
-						b = plane[v1][u1];
-						d = a + (b - a) * vf;
+					row[x] = sum / (sumU * sumV);
+				}
+			}
+		}
+	}
 
-						row[x] = c + (d - c) * (u - u0);
+	/**
+	 * Returns the input index of a position (including the border) along one axis, or -1 for a {@link
+	 * BorderMode#CONSTANT} sample.
+	 */
+	private int mapIndex(int i, int border, int length) {
+		BorderMode borderMode = this.borderMode;
+		if (borderMode == null) {
+			return Math.max(border - 1, Math.min(i, border + length));
+		}
+
+		int mapped = borderMode.map(i - border, length);
+		return mapped < 0 ? -1 : border + mapped;
+	}
+
+	/**
+	 * The input samples and their (normalized) weights for every output sample along one axis.
+	 * <p>
+	 * With a {@link BorderMode#CONSTANT} border, the taps outside of the image have weight 0, and their total weight
+	 * is in {@link #constantWeights} instead.
+	 */
+	private static final class KernelTable {
+		private final int     numTaps;
+		private final int[]   indices;
+		private final float[] weights;
+		private final float[] constantWeights;
+
+		/**
+		 * @param step   the distance between output samples, in input samples. Above 1, the kernel is widened by
+		 *               this factor, to filter out the frequencies that can't be represented in the output.
+		 * @param offset the input position of the first output sample
+		 * @param mode   the virtual border, or {@code null} to clamp to the first border sample
+		 */
+		private KernelTable(Interpolation interpolation, int length, float step, float offset,
+		                    @Nullable BorderMode mode, int border, int inputLength) {
+			double widen   = Math.max(1, Math.abs(step));
+			double support = interpolation.radius * widen;
+
+			numTaps = (int)Math.ceil(support * 2) + 1;
+			indices         = new int[length * numTaps];
+			weights         = new float[length * numTaps];
+			constantWeights = new float[length];
+
+			for (int i = 0; i < length; i++) {
+				double center = offset + (double)i * step;
+				int    first  = (int)Math.floor(center - support) + 1;
+				int    index  = i * numTaps;
+
+				double sum         = 0;
+				double constantSum = 0;
+				for (int k = 0; k < numTaps; k++) {
+					double weight = interpolation.weight((first + k - center) / widen);
+					int    mapped = mode == null ?
+					                Math.max(-1, Math.min(first + k - border, inputLength)) :
+					                mode.map(first + k - border, inputLength);
+					sum += weight;
+
+					if (mapped < 0 && mode != null) {
+						indices[index + k] = border;
+						constantSum += weight;
+					} else {
+						indices[index + k] = border + mapped;
+						weights[index + k] = (float)weight;
 					}
 				}
+
+				for (int k = 0; k < numTaps; k++) {
+					weights[index + k] /= sum;
+				}
+
+				constantWeights[i] = (float)(constantSum / sum);
 			}
 		}
 	}
@@ -0,0 +1,78 @@
+package nl.airsupplies.utilities.graphics.image;
+
+/**
+ * How samples outside of the image area are evaluated by filters that support virtual borders, as an alternative to
+ * filling the physical border (with {@link ImageMatrixFloat#extendBorder()} and the like) before every pass.
+ * <p>
+ * With a virtual border, the physical border is neither read nor required, so the image can have a border of 0.
+ * <p>
+ * The examples show the image {@code abcd} with 3 virtual border samples on either side.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+public enum BorderMode {
+	/** The nearest edge sample: {@code aaa|abcd|ddd} */
+	CLAMP {
+		@Override
+		public int map(int i, int length) {
+			return i < 0 ? 0 : i >= length ? length - 1 : i;
+		}
+	},
+	/** Reflected around the edge samples, which are not repeated: {@code dcb|abcd|cba} */
+	MIRROR {
+		@Override
+		public int map(int i, int length) {
+			if (i >= 0 && i < length) {
+				return i;
+			} else if (length == 1) {
+				return 0;
+			}
+
+			int period = (length - 1) * 2;
+			i = Math.floorMod(i, period);
+			return i < length ? i : period - i;
+		}
+	},
+	/** Periodic: {@code bcd|abcd|abc} */
+	WRAP {
+		@Override
+		public int map(int i, int length) {
+			return i >= 0 && i < length ? i : Math.floorMod(i, length);
+		}
+	},
+	/** A constant value, given to the filter together with this mode: {@code kkk|abcd|kkk} */
+	CONSTANT {
+		@Override
+		public int map(int i, int length) {
+			return i >= 0 && i < length ? i : -1;
+		}
+	};
+
+	/**
+	 * Maps a position to the image sample it takes the value of.
+	 *
+	 * @param i      the position, relative to the first image sample
+	 * @param length the number of image samples
+	 * @return a position in the range [0, {@code length}), or -1 for {@link #CONSTANT} positions outside of the image
+	 */
+	public abstract int map(int i, int length);
+
+	/**
+	 * Copies {@code length} samples from {@code src} to {@code dst} starting at {@code radius}, and fills the {@code
+	 * radius} samples before and after them with virtual border samples.
+	 *
+	 * @param constant the value of the border samples for {@link #CONSTANT}, ignored otherwise
+	 */
+	public void padLine(float[] src, int srcBegin, int length, float[] dst, int radius, float constant) {
+		System.arraycopy(src, srcBegin, dst, radius, length);
+
+		// Edges only
+		for (int i = 1; i <= radius; i++) {
+			int before = map(-i, length);
+			int after  = map(length - 1 + i, length);
+			dst[radius - i]              = before < 0 ? constant : src[srcBegin + before];
+			dst[radius + length - 1 + i] = after < 0 ? constant : src[srcBegin + after];
+		}
+	}
+}
@@ -0,0 +1,572 @@
+package nl.airsupplies.utilities.graphics.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.DirectColorModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * Converts between {@link BufferedImage} and {@link ImageMatrixFloat} by accessing the data arrays of the raster
+ * directly, in row bands (see {@link ImageMatrixExecutor}).
+ * <p>
+ * Rasters with 8-bit samples (packed in ints or interleaved in bytes, which covers most standard types) and 16-bit
+ * samples (interleaved in shorts) are converted directly, if the samples are the color components themselves (a
+ * {@link ComponentColorModel} or {@link DirectColorModel} that is not premultiplied). Other images (indexed, binary,
+ * 555/565 and premultiplied) are converted through {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}
+ * a row at a time.
+ * <p>
+ * Component {@code z} of the matrix corresponds to band {@code z} of the raster (R, G, B, A for RGB images). For the
+ * images converted through {@code getRGB} they are the components of the color model instead (R, G, B and alpha if
+ * present, for indexed images). When writing a grayscale matrix (1 component, or 2 with alpha) to an RGB image,
+ * component 0 is used for all color bands, and a missing alpha component is taken as opaque.
+ * <p>
+ * The color bands are decoded with a transfer function (for example, sRGB to linear light) through a lookup table.
+ * Alpha is always linear. Samples are clamped to [0, 1] when encoding.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+// Changed 2026-10-17 Writes grayscale with alpha to the alpha band of RGB images
+@ThreadSafe
+public final class BufferedImageConverter {
+	/**
+	 * Samples are scaled linearly, so 0..255 becomes 0.0..1.0.
+	 */
+	public static final BufferedImageConverter LINEAR = new BufferedImageConverter(null, null);
+
+	/**
+	 * Samples are converted from sRGB to linear light, and back.
+	 */
+	public static final BufferedImageConverter SRGB = new BufferedImageConverter(
+			v -> v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4),
+			v -> v <= 0.0031308 ? v * 12.92 : 1.055 * Math.pow(v, 1 / 2.4) - 0.055);
+
+	/**
+	 * The size of the table to encode linear values to 8 bits, when there's a transfer function. Large enough that
+	 * the steepest part of the sRGB curve is still within a quarter code.
+	 */
+	private static final int ENCODE_TABLE_SIZE = 1 << 14;
+
+	private final @Nullable DoubleUnaryOperator decode;
+	private final @Nullable DoubleUnaryOperator encode;
+
+	private final float[] decodeTable8;
+	private final float[] alphaTable8;
+	private final byte @Nullable [] encodeTable8;
+
+	private volatile float @Nullable [] decodeTable16 = null;
+
+	private BufferedImageConverter(@Nullable DoubleUnaryOperator decode, @Nullable DoubleUnaryOperator encode) {
+		this.decode = decode;
+		this.encode = encode;
+
+		alphaTable8  = new float[256];
+		decodeTable8 = new float[256];
+		for (int i = 0; i < 256; i++) {
+			alphaTable8[i]  = i / 255.0f;
+			decodeTable8[i] = decode == null ? i / 255.0f : (float)decode.applyAsDouble(i / 255.0);
+		}
+
+		if (encode == null) {
+			encodeTable8 = null;
+		} else {
+			encodeTable8 = new byte[ENCODE_TABLE_SIZE + 1];
+			for (int i = 0; i <= ENCODE_TABLE_SIZE; i++) {
+				encodeTable8[i] = (byte)Math.round(encode.applyAsDouble((double)i / ENCODE_TABLE_SIZE) * 255);
+			}
+		}
+	}
+
+	/**
+	 * Samples are raised to the power {@code gamma} when decoding, and to {@code 1 / gamma} when encoding.
+	 */
+	public static BufferedImageConverter forGamma(double gamma) {
+		if (!(gamma > 0)) {
+			throw new IllegalArgumentException("'gamma' should be positive: " + gamma);
+		}
+
+		return new BufferedImageConverter(v -> Math.pow(v, gamma), v -> Math.pow(v, 1 / gamma));
+	}
+
+	/**
+	 * Creates a matrix with all bands of the image (including alpha).
+	 */
+	public ImageMatrixFloat toMatrix(BufferedImage image, int border) {
+		requireNonNull(image, "image");
+		requireAtLeast(0, border, "border");
+
+		int              numComponents = getNumComponents(image);
+		ImageMatrixFloat matrix        = new ImageMatrixFloat(image.getWidth(),
+		                                                      image.getHeight(),
+		                                                      numComponents,
+		                                                      border);
+		toMatrix(image, matrix);
+		return matrix;
+	}
+
+	/**
+	 * Converts the first {@code dst.numComponents} bands (or color model components) of the image to the image area of
+	 * the matrix.
+	 */
+	public void toMatrix(BufferedImage image, ImageMatrixFloat dst) {
+		requireNonNull(image, "image");
+		requireNonNull(dst, "dst");
+
+		WritableRaster raster = image.getRaster();
+		if (dst.width != image.getWidth() || dst.height != image.getHeight() ||
+		    dst.numComponents > getNumComponents(image)) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		SampleModel sampleModel = raster.getSampleModel();
+		DataBuffer  dataBuffer  = raster.getDataBuffer();
+		ColorModel  colorModel  = image.getColorModel();
+		int         alphaBand   = colorModel.hasAlpha() ? raster.getNumBands() - 1 : -1;
+
+		if (!hasDirectSamples(colorModel)) {
+			ImageMatrixExecutor.forEachBand(1, 0, dst.height, dst.width * dst.numComponents,
+			                                (z, beginY, endY) -> decodeRGB(image, dst, beginY, endY));
+		} else if (isPacked8(sampleModel, dataBuffer)) {
+			ImageMatrixExecutor.forEachBand(dst.numComponents, 0, dst.height, dst.width, (z, beginY, endY) ->
+					decodePacked(raster, dst, z, z == alphaBand ? alphaTable8 : decodeTable8, beginY, endY));
+		} else if (sampleModel instanceof ComponentSampleModel && dataBuffer instanceof DataBufferByte) {
+			ImageMatrixExecutor.forEachBand(dst.numComponents, 0, dst.height, dst.width, (z, beginY, endY) ->
+					decodeBytes(raster, dst, z, z == alphaBand ? alphaTable8 : decodeTable8, beginY, endY));
+		} else if (sampleModel instanceof ComponentSampleModel && dataBuffer instanceof DataBufferUShort) {
+			float @Nullable [] decodeTable16 = decode == null ? null : getDecodeTable16();
+			ImageMatrixExecutor.forEachBand(dst.numComponents, 0, dst.height, dst.width, (z, beginY, endY) ->
+					decodeShorts(raster, dst, z, z == alphaBand ? null : decodeTable16, beginY, endY));
+		} else {
+			ImageMatrixExecutor.forEachBand(1, 0, dst.height, dst.width * dst.numComponents,
+			                                (z, beginY, endY) -> decodeRGB(image, dst, beginY, endY));
+		}
+	}
+
+	/**
+	 * Creates an image of a standard type ({@link BufferedImage#TYPE_BYTE_GRAY}, {@link BufferedImage#TYPE_INT_RGB} or
+	 * {@link BufferedImage#TYPE_INT_ARGB}) and converts the matrix to it.
+	 */
+	public BufferedImage toBufferedImage(ImageMatrixFloat src) {
+		requireNonNull(src, "src");
+
+		int type;
+		switch (src.numComponents) {
+			case 1:
+				type = BufferedImage.TYPE_BYTE_GRAY;
+				break;
+			case 3:
+				type = BufferedImage.TYPE_INT_RGB;
+				break;
+			case 4:
+				type = BufferedImage.TYPE_INT_ARGB;
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported number of components: " + src.numComponents);
+		}
+
+		return toBufferedImage(src, new BufferedImage(src.width, src.height, type));
+	}
+
+	/**
+	 * Converts the image area of the matrix to all bands of an existing image.
+	 *
+	 * @return {@code dst}
+	 */
+	public BufferedImage toBufferedImage(ImageMatrixFloat src, BufferedImage dst) {
+		requireNonNull(src, "src");
+		requireNonNull(dst, "dst");
+
+		WritableRaster raster = dst.getRaster();
+		if (src.width != dst.getWidth() || src.height != dst.getHeight()) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		SampleModel sampleModel = raster.getSampleModel();
+		DataBuffer  dataBuffer  = raster.getDataBuffer();
+		ColorModel  colorModel  = dst.getColorModel();
+		int         numBands    = raster.getNumBands();
+		int         alphaBand   = colorModel.hasAlpha() ? numBands - 1 : -1;
+
+		if (!hasDirectSamples(colorModel) ||
+		    !(isPacked8(sampleModel, dataBuffer) ||
+		      sampleModel instanceof ComponentSampleModel &&
+		      (dataBuffer instanceof DataBufferByte || dataBuffer instanceof DataBufferUShort))) {
+			ImageMatrixExecutor.forEachBand(1, 0, src.height, src.width * numBands,
+			                                (z, beginY, endY) -> encodeRGB(src, dst, beginY, endY));
+			return dst;
+		}
+
+		ImageMatrixExecutor.forEachBand(1, 0, src.height, src.width * numBands, (z, beginY, endY) -> {
+			for (int band = 0; band < numBands; band++) {
+				boolean isAlpha = band == alphaBand;
+				int     z1      = getComponent(src.numComponents, band, isAlpha);
+
+				if (dataBuffer instanceof DataBufferInt) {
+					encodePacked(src, raster, z1, band, isAlpha, beginY, endY);
+				} else if (dataBuffer instanceof DataBufferByte) {
+					encodeBytes(src, raster, z1, band, isAlpha, beginY, endY);
+				} else {
+					encodeShorts(src, raster, z1, band, isAlpha, beginY, endY);
+				}
+			}
+		});
+
+		return dst;
+	}
+
+	/**
+	 * Returns the component of the matrix to write to a band, or -1 for opaque. Missing alpha is opaque, and a
+	 * grayscale matrix (1 component, or 2 with alpha) is written to all color bands, like in {@link
+	 * #encodeRGB(ImageMatrixFloat, BufferedImage, int, int)}. Missing colors are taken from the first component.
+	 */
+	private static int getComponent(int numComponents, int band, boolean isAlpha) {
+		boolean hasAlpha = numComponents == 2 || numComponents == 4;
+		if (isAlpha) {
+			return hasAlpha ? numComponents - 1 : -1;
+		} else if (numComponents <= 2) {
+			return 0;
+		} else {
+			return band < numComponents ? band : 0;
+		}
+	}
+
+	/**
+	 * Returns whether the samples of the raster are the color components themselves, as opposed to palette indices or
+	 * premultiplied components.
+	 */
+	private static boolean hasDirectSamples(ColorModel colorModel) {
+		return (colorModel instanceof ComponentColorModel || colorModel instanceof DirectColorModel) &&
+		       !colorModel.isAlphaPremultiplied();
+	}
+
+	/**
+	 * Returns the number of bands of the raster for images with direct samples, or the number of components of the
+	 * color model for the images converted through {@code getRGB}.
+	 */
+	private static int getNumComponents(BufferedImage image) {
+		ColorModel colorModel = image.getColorModel();
+		return hasDirectSamples(colorModel) ? image.getRaster().getNumBands() : colorModel.getNumComponents();
+	}
+
+	private static boolean isPacked8(SampleModel sampleModel, DataBuffer dataBuffer) {
+		if (!(sampleModel instanceof SinglePixelPackedSampleModel) || !(dataBuffer instanceof DataBufferInt)) {
+			return false;
+		}
+
+		for (int sampleSize : sampleModel.getSampleSize()) {
+			if (sampleSize != 8) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static void decodePacked(WritableRaster raster, ImageMatrixFloat dst, int z, float[] table,
+	                                 int beginY, int endY) {
+		SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel)raster.getSampleModel();
+		DataBufferInt                dataBuffer  = (DataBufferInt)raster.getDataBuffer();
+
+		// Inner loop
+		int     x; // 4
+		int     p; // 3
+		int[]   data   = dataBuffer.getData(); // 2
+		float[] row; // 2
+		int     shift  = sampleModel.getBitOffsets()[z]; // 1
+		int     border = dst.border; // 1
+		int     width  = dst.width; // 1
+
+		for (int y = beginY; y < endY; y++) {
+			row = dst.matrix[z][border + y];
+			p   = getIndex(raster, dataBuffer, sampleModel.getScanlineStride(), 1, 0, 0, y);
+
+			for (x = 0; x < width; x++) {
+				row[border + x] = table[data[p] >>> shift & 0xFF];
+				p++;
+			}
+		}
+	}
+
+	private static void decodeBytes(WritableRaster raster, ImageMatrixFloat dst, int z, float[] table,
+	                                int beginY, int endY) {
+		ComponentSampleModel sampleModel = (ComponentSampleModel)raster.getSampleModel();
+		DataBufferByte       dataBuffer  = (DataBufferByte)raster.getDataBuffer();
+		int                  bank        = sampleModel.getBankIndices()[z];
+
+		// Inner loop
+		int     x; // 4
+		int     p; // 3
+		byte[]  data        = dataBuffer.getData(bank); // 2
+		float[] row; // 2
+		int     pixelStride = sampleModel.getPixelStride(); // 1
+		int     border      = dst.border; // 1
+		int     width       = dst.width; // 1
+
+		for (int y = beginY; y < endY; y++) {
+			row = dst.matrix[z][border + y];
+			p   = getIndex(raster, dataBuffer, sampleModel.getScanlineStride(), pixelStride,
+			               sampleModel.getBandOffsets()[z], bank, y);
+
+			for (x = 0; x < width; x++) {
+				row[border + x] = table[data[p] & 0xFF];
+				p += pixelStride;
+			}
+		}
+	}
+
+	/**
+	 * @param table the transfer function, or {@code null} for linear
+	 */
+	private static void decodeShorts(WritableRaster raster, ImageMatrixFloat dst, int z, float @Nullable [] table,
+	                                 int beginY, int endY) {
+		ComponentSampleModel sampleModel = (ComponentSampleModel)raster.getSampleModel();
+		DataBufferUShort     dataBuffer  = (DataBufferUShort)raster.getDataBuffer();
+		int                  bank        = sampleModel.getBankIndices()[z];
+
+		// Inner loop
+		int     x; // 4
+		int     p; // 3
+		short[] data        = dataBuffer.getData(bank); // 2
+		float[] row; // 2
+		int     pixelStride = sampleModel.getPixelStride(); // 1
+		int     border      = dst.border; // 1
+		int     width       = dst.width; // 1
+
+		for (int y = beginY; y < endY; y++) {
+			row = dst.matrix[z][border + y];
+			p   = getIndex(raster, dataBuffer, sampleModel.getScanlineStride(), pixelStride,
+			               sampleModel.getBandOffsets()[z], bank, y);
+
+			if (table == null) {
+				for (x = 0; x < width; x++) {
+					row[border + x] = (data[p] & 0xFFFF) / 65535.0f;
+					p += pixelStride;
+				}
+			} else {
+				for (x = 0; x < width; x++) {
+					row[border + x] = table[data[p] & 0xFFFF];
+					p += pixelStride;
+				}
+			}
+		}
+	}
+
+	private void decodeRGB(BufferedImage image, ImageMatrixFloat dst, int beginY, int endY) {
+		int[] rgb = new int[dst.width];
+
+		// Component z is taken from bits 'shifts[z]' of the ARGB value.
+		boolean gray   = dst.numComponents <= 2;
+		int[]   shifts = gray ? new int[]{16, 24} : new int[]{16, 8, 0, 24};
+
+		for (int y = beginY; y < endY; y++) {
+			image.getRGB(0, y, dst.width, 1, rgb, 0, dst.width);
+
+			for (int z = 0; z < dst.numComponents; z++) {
+				float[] row   = dst.matrix[z][dst.border + y];
+				float[] table = shifts[z] == 24 ? alphaTable8 : decodeTable8;
+				int     shift = shifts[z];
+
+				for (int x = 0; x < dst.width; x++) {
+					row[dst.border + x] = table[rgb[x] >>> shift & 0xFF];
+				}
+			}
+		}
+	}
+
+	private void encodePacked(ImageMatrixFloat src, WritableRaster raster, int z, int band, boolean isAlpha,
+	                          int beginY, int endY) {
+		SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel)raster.getSampleModel();
+		DataBufferInt                dataBuffer  = (DataBufferInt)raster.getDataBuffer();
+
+		// Inner loop
+		int     x; // 4
+		int     p; // 3
+		int[]   data   = dataBuffer.getData(); // 2
+		float[] row; // 2
+		int     shift  = sampleModel.getBitOffsets()[band]; // 1
+		int     mask   = ~(0xFF << shift); // 1
+		int     border = src.border; // 1
+		int     width  = src.width; // 1
+
+		byte @Nullable [] table = isAlpha ? null : encodeTable8;
+
+		for (int y = beginY; y < endY; y++) {
+			p = getIndex(raster, dataBuffer, sampleModel.getScanlineStride(), 1, 0, 0, y);
+
+			if (z < 0) {
+				for (x = 0; x < width; x++) {
+					data[p] |= 0xFF << shift;
+					p++;
+				}
+			} else {
+				row = src.matrix[z][border + y];
+				for (x = 0; x < width; x++) {
+					data[p] = data[p] & mask | encode8(row[border + x], table) << shift;
+					p++;
+				}
+			}
+		}
+	}
+
+	private void encodeBytes(ImageMatrixFloat src, WritableRaster raster, int z, int band, boolean isAlpha,
+	                         int beginY, int endY) {
+		ComponentSampleModel sampleModel = (ComponentSampleModel)raster.getSampleModel();
+		DataBufferByte       dataBuffer  = (DataBufferByte)raster.getDataBuffer();
+		int                  bank        = sampleModel.getBankIndices()[band];
+
+		// Inner loop
+		int     x; // 4
+		int     p; // 3
+		byte[]  data        = dataBuffer.getData(bank); // 2
+		float[] row; // 2
+		int     pixelStride = sampleModel.getPixelStride(); // 1
+		int     border      = src.border; // 1
+		int     width       = src.width; // 1
+
+		byte @Nullable [] table = isAlpha ? null : encodeTable8;
+
+		for (int y = beginY; y < endY; y++) {
+			p = getIndex(raster, dataBuffer, sampleModel.getScanlineStride(), pixelStride,
+			             sampleModel.getBandOffsets()[band], bank, y);
+
+			if (z < 0) {
+				for (x = 0; x < width; x++) {
+					data[p] = (byte)0xFF;
+					p += pixelStride;
+				}
+			} else {
+				row = src.matrix[z][border + y];
+				for (x = 0; x < width; x++) {
+					data[p] = (byte)encode8(row[border + x], table);
+					p += pixelStride;
+				}
+			}
+		}
+	}
+
+	private void encodeShorts(ImageMatrixFloat src, WritableRaster raster, int z, int band, boolean isAlpha,
+	                          int beginY, int endY) {
+		ComponentSampleModel sampleModel = (ComponentSampleModel)raster.getSampleModel();
+		DataBufferUShort     dataBuffer  = (DataBufferUShort)raster.getDataBuffer();
+		int                  bank        = sampleModel.getBankIndices()[band];
+
+		// Inner loop
+		int     x; // 4
+		int     p; // 3
+		short[] data        = dataBuffer.getData(bank); // 2
+		float[] row; // 2
+		float   value; // 2
+		int     pixelStride = sampleModel.getPixelStride(); // 1
+		int     border      = src.border; // 1
+		int     width       = src.width; // 1
+
+		@Nullable DoubleUnaryOperator encode = isAlpha ? null : this.encode;
+
+		for (int y = beginY; y < endY; y++) {
+			p = getIndex(raster, dataBuffer, sampleModel.getScanlineStride(), pixelStride,
+			             sampleModel.getBandOffsets()[band], bank, y);
+
+			if (z < 0) {
+				for (x = 0; x < width; x++) {
+					data[p] = (short)0xFFFF;
+					p += pixelStride;
+				}
+			} else {
+				row = src.matrix[z][border + y];
+				for (x = 0; x < width; x++) {
+					value = Math.max(0, Math.min(row[border + x], 1));
+					if (encode != null) {
+						value = (float)encode.applyAsDouble(value);
+					}
+
+					data[p] = (short)(value * 65535 + 0.5f);
+					p += pixelStride;
+				}
+			}
+		}
+	}
+
+	private void encodeRGB(ImageMatrixFloat src, BufferedImage image, int beginY, int endY) {
+		int[] rgb = new int[src.width];
+
+		// Component z goes to bits 'shifts[z]' of the ARGB value, grayscale goes to all colors.
+		boolean gray   = src.numComponents <= 2;
+		int[]   shifts = gray ? new int[]{16, 24} : new int[]{16, 8, 0, 24};
+
+		for (int y = beginY; y < endY; y++) {
+			Arrays.fill(rgb, 0xFF000000);
+
+			for (int z = 0; z < src.numComponents; z++) {
+				float[] row     = src.matrix[z][src.border + y];
+				boolean isAlpha = shifts[z] == 24;
+				int     shift   = isAlpha || !gray ? shifts[z] : 0;
+				int     mask    = isAlpha || !gray ? ~(0xFF << shift) : 0xFF000000;
+				int     scale   = isAlpha || !gray ? 1 : 0x010101;
+
+				for (int x = 0; x < src.width; x++) {
+					rgb[x] = rgb[x] & mask | encode8(row[src.border + x], isAlpha ? null : encodeTable8) * scale << shift;
+				}
+			}
+
+			image.setRGB(0, y, src.width, 1, rgb, 0, src.width);
+		}
+	}
+
+	/**
+	 * @param table the transfer function, or {@code null} for linear
+	 */
+	private static int encode8(float value, byte @Nullable [] table) {
+		// Not Math.min/max, which are slow because of the special cases for NaN and -0.0. NaN becomes 0.
+		if (value > 1) {
+			value = 1;
+		} else if (!(value > 0)) {
+			return table == null ? 0 : table[0] & 0xFF;
+		}
+
+		if (table == null) {
+			return (int)(value * 255 + 0.5f);
+		}
+
+		return table[(int)(value * ENCODE_TABLE_SIZE + 0.5f)] & 0xFF;
+	}
+
+	/**
+	 * Returns the array index of the first pixel of a row of the image.
+	 */
+	private static int getIndex(WritableRaster raster, DataBuffer dataBuffer, int scanlineStride, int pixelStride,
+	                            int bandOffset, int bank, int y) {
+		int x = -raster.getSampleModelTranslateX();
+		y -= raster.getSampleModelTranslateY();
+		return dataBuffer.getOffsets()[bank] + y * scanlineStride + x * pixelStride + bandOffset;
+	}
+
+	private float[] getDecodeTable16() {
+		float @Nullable [] table = decodeTable16;
+		if (table == null) {
+			table = new float[65536];
+			for (int i = 0; i < 65536; i++) {
+				table[i] = decode == null ? i / 65535.0f : (float)decode.applyAsDouble(i / 65535.0);
+			}
+
+			decodeTable16 = table;
+		}
+
+		return table;
+	}
+}
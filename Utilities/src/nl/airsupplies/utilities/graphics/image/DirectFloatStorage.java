@@ -0,0 +1,90 @@
+package nl.airsupplies.utilities.graphics.image;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtMost;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * Float storage in a direct (off-heap) {@link FloatBuffer}.
+ * <p>
+ * The samples don't count towards the Java heap and are never moved by the garbage collector, which makes this
+ * suitable for images that are too big to keep on the heap. The memory is released when this object becomes
+ * unreachable.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+public class DirectFloatStorage implements FloatStorage {
+	/**
+	 * The maximum number of samples, limited by the capacity of a {@link ByteBuffer}.
+	 */
+	public static final int MAX_SIZE = Integer.MAX_VALUE / Float.BYTES;
+
+	public final FloatBuffer buffer;
+
+	public DirectFloatStorage(int size) {
+		requireAtLeast(0, size, "size");
+		requireAtMost(MAX_SIZE, size, "size");
+
+		buffer = ByteBuffer.allocateDirect(size * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+	}
+
+	/**
+	 * Wraps an existing buffer, for example one that was obtained from a memory-mapped file.
+	 */
+	public DirectFloatStorage(FloatBuffer buffer) {
+		this.buffer = requireNonNull(buffer, "buffer");
+	}
+
+	@Override
+	public int size() {
+		return buffer.capacity();
+	}
+
+	@Override
+	public float get(int index) {
+		return buffer.get(index);
+	}
+
+	@Override
+	public void set(int index, float value) {
+		buffer.put(index, value);
+	}
+
+	@Override
+	public void get(int index, float[] dst, int dstOffset, int length) {
+		FloatBuffer view = buffer.duplicate();
+		view.position(index);
+		view.get(dst, dstOffset, length);
+	}
+
+	@Override
+	public void set(int index, float[] src, int srcOffset, int length) {
+		FloatBuffer view = buffer.duplicate();
+		view.position(index);
+		view.put(src, srcOffset, length);
+	}
+
+	@Override
+	public void copy(int srcIndex, int dstIndex, int length) {
+		FloatBuffer src = buffer.duplicate();
+		src.limit(srcIndex + length);
+		src.position(srcIndex);
+
+		FloatBuffer dst = buffer.duplicate();
+		dst.position(dstIndex);
+		dst.put(src);
+	}
+
+	@Override
+	public void fill(int index, int length, float value) {
+		int end = index + length;
+		for (int i = index; i < end; i++) {
+			buffer.put(i, value);
+		}
+	}
+}
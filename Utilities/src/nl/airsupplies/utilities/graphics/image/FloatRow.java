@@ -0,0 +1,31 @@
+package nl.airsupplies.utilities.graphics.image;
+
+/**
+ * A reference to the samples of one row of an {@link AbstractImageMatrixFloat}, filled by {@link
+ * AbstractImageMatrixFloat#readRow(int, int, FloatRow)}. Sample {@code x} of the row (including the border, i.e. the
+ * first image pixel is at {@link AbstractImageMatrix#border}) is at {@code array[offset + x]}. When only part of the
+ * row was read, only that part is valid and {@link #offset} can be negative.
+ * <p>
+ * Depending on the storage, {@link #array} is the storage itself or a buffer owned by this object. Instances are
+ * reused for many rows and are not thread-safe, so every thread needs its own.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+public final class FloatRow {
+	public float[] array;
+	public int     offset;
+
+	private float[] buffer = new float[0];
+
+	/**
+	 * Returns a buffer of at least {@code length} samples, owned by this object.
+	 */
+	float[] getBuffer(int length) {
+		if (buffer.length < length) {
+			buffer = new float[length];
+		}
+
+		return buffer;
+	}
+}
@@ -0,0 +1,40 @@
+package nl.airsupplies.utilities.graphics.image;
+
+/**
+ * A contiguous block of float samples, addressed by index.
+ * <p>
+ * Used by {@link ImageMatrixFloatFlat}, where the index of a sample is given by
+ * {@link AbstractImageMatrix#getOffset(int, int, int)}.
+ *
+ * @author Mark Jeronimus
+ * @see HeapFloatStorage
+ * @see DirectFloatStorage
+ */
+// Created 2026-10-17
+public interface FloatStorage {
+	/**
+	 * Returns the number of samples in this storage.
+	 */
+	int size();
+
+	float get(int index);
+
+	void set(int index, float value);
+
+	/**
+	 * Copies {@code length} samples starting at {@code index} to {@code dst}.
+	 */
+	void get(int index, float[] dst, int dstOffset, int length);
+
+	/**
+	 * Copies {@code length} samples from {@code src} to this storage, starting at {@code index}.
+	 */
+	void set(int index, float[] src, int srcOffset, int length);
+
+	/**
+	 * Copies {@code length} samples within this storage. The regions must not overlap.
+	 */
+	void copy(int srcIndex, int dstIndex, int length);
+
+	void fill(int index, int length, float value);
+}
@@ -0,0 +1,59 @@
+package nl.airsupplies.utilities.graphics.image;
+
+import java.util.Arrays;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * Float storage in a single {@code float[]} on the Java heap.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+public class HeapFloatStorage implements FloatStorage {
+	public final float[] array;
+
+	public HeapFloatStorage(int size) {
+		array = new float[requireAtLeast(0, size, "size")];
+	}
+
+	public HeapFloatStorage(float[] array) {
+		this.array = requireNonNull(array, "array");
+	}
+
+	@Override
+	public int size() {
+		return array.length;
+	}
+
+	@Override
+	public float get(int index) {
+		return array[index];
+	}
+
+	@Override
+	public void set(int index, float value) {
+		array[index] = value;
+	}
+
+	@Override
+	public void get(int index, float[] dst, int dstOffset, int length) {
+		System.arraycopy(array, index, dst, dstOffset, length);
+	}
+
+	@Override
+	public void set(int index, float[] src, int srcOffset, int length) {
+		System.arraycopy(src, srcOffset, array, index, length);
+	}
+
+	@Override
+	public void copy(int srcIndex, int dstIndex, int length) {
+		System.arraycopy(array, srcIndex, array, dstIndex, length);
+	}
+
+	@Override
+	public void fill(int index, int length, float value) {
+		Arrays.fill(array, index, index + length, value);
+	}
+}
@@ -0,0 +1,266 @@
+package nl.airsupplies.utilities.graphics.image;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import nl.airsupplies.utilities.annotation.StaticClass;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * Execution engine for the element-wise image functions.
+ * <p>
+ * The usable rows ({@link AbstractImageMatrix#border} to {@link AbstractImageMatrix#endY}) of every component are
+ * split into bands, which are processed concurrently on a {@link ForkJoinPool} (the common pool by default) or on a
+ * caller-supplied {@link Executor}. Images with fewer samples than {@link #getThreshold() the threshold} are processed
+ * sequentially on the calling thread, which is also the behavior when the parallelism is 1.
+ * <p>
+ * Tasks handed to this engine must only write to the rows they are given, and must not call back into this engine
+ * when a bounded, non-{@link ForkJoinPool} executor is configured (this could starve the pool).
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@StaticClass
+@ThreadSafe
+public final class ImageMatrixExecutor {
+	/**
+	 * The default minimum number of samples (pixels times components) before processing is split into bands.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+	/**
+	 * Bands per thread. More than one to balance the load when some threads are late to start.
+	 */
+	private static final int BANDS_PER_THREAD = 4;
+	/**
+	 * The minimum number of samples per band, to keep task overhead negligible.
+	 */
+	private static final int MIN_BAND_SAMPLES = 1 << 13;
+
+	private static volatile @Nullable Executor executor    = null;
+	private static volatile int                parallelism = ForkJoinPool.getCommonPoolParallelism();
+	private static volatile int                threshold   = DEFAULT_THRESHOLD;
+
+	/**
+	 * Processes rows {@code beginY} (inclusive) to {@code endY} (exclusive) of component {@code z}.
+	 */
+	@FunctionalInterface
+	public interface BandTask {
+		void process(int z, int beginY, int endY);
+	}
+
+	/**
+	 * Processes rows {@code beginY} (inclusive) to {@code endY} (exclusive) of a single component.
+	 */
+	@FunctionalInterface
+	public interface RowBandTask {
+		void process(int beginY, int endY);
+	}
+
+	/**
+	 * Uses the {@link ForkJoinPool#commonPool() common pool} (this is the default).
+	 */
+	public static void useCommonPool() {
+		executor    = null;
+		parallelism = ForkJoinPool.getCommonPoolParallelism();
+	}
+
+	/**
+	 * Uses the specified executor to process bands.
+	 *
+	 * @param parallelism the number of bands that can effectively run simultaneously on {@code executor}. Set to 1
+	 *                    to process everything on the calling thread.
+	 */
+	public static void setExecutor(Executor executor, int parallelism) {
+		requireNonNull(executor, "executor");
+		requireAtLeast(1, parallelism, "parallelism");
+
+		ImageMatrixExecutor.executor    = executor;
+		ImageMatrixExecutor.parallelism = parallelism;
+	}
+
+	public static Executor getExecutor() {
+		Executor executor = ImageMatrixExecutor.executor;
+		return executor != null ? executor : ForkJoinPool.commonPool();
+	}
+
+	public static int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the minimum number of samples (pixels times components) before processing is split into bands.
+	 */
+	public static void setThreshold(int threshold) {
+		ImageMatrixExecutor.threshold = requireAtLeast(0, threshold, "threshold");
+	}
+
+	public static int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Processes the usable area of every component of the image.
+	 */
+	public static void forEachBand(AbstractImageMatrix img, BandTask task) {
+		forEachBand(img.numComponents, img.border, img.endY, img.width, task);
+	}
+
+	/**
+	 * Processes the usable area of a single component of the image.
+	 */
+	public static void forEachRowBand(AbstractImageMatrix img, RowBandTask task) {
+		forEachBand(1, img.border, img.endY, img.width, (z, beginY, endY) -> task.process(beginY, endY));
+	}
+
+	/**
+	 * Processes an arbitrary range of rows of components {@code 0} to {@code numComponents} (exclusive).
+	 *
+	 * @param width the number of samples per row that the task processes, used to decide the number of bands.
+	 */
+	public static void forEachBand(int numComponents, int beginY, int endY, int width, BandTask task) {
+		int  numRows    = endY - beginY;
+		long numSamples = (long)numComponents * numRows * width;
+		int  numThreads = parallelism;
+
+		if (numRows <= 0 || numComponents <= 0) {
+			return;
+		} else if (numThreads <= 1 || numSamples < threshold) {
+			for (int z = 0; z < numComponents; z++) {
+				task.process(z, beginY, endY);
+			}
+			return;
+		}
+
+		int numBands = (int)Math.min(numThreads * BANDS_PER_THREAD, Math.max(1, numSamples / MIN_BAND_SAMPLES));
+		numBands = Math.max(numBands, numComponents);
+
+		int bandsPerComponent = Math.min(numRows, (numBands + numComponents - 1) / numComponents);
+
+		Band[] bands = new Band[numComponents * bandsPerComponent];
+		int    i     = 0;
+		for (int z = 0; z < numComponents; z++) {
+			for (int band = 0; band < bandsPerComponent; band++) {
+				int bandBeginY = beginY + (int)((long)numRows * band / bandsPerComponent);
+				int bandEndY   = beginY + (int)((long)numRows * (band + 1) / bandsPerComponent);
+				bands[i++] = new Band(z, bandBeginY, bandEndY);
+			}
+		}
+
+		Executor executor = getExecutor();
+		if (executor instanceof ForkJoinPool) {
+			runOnForkJoinPool((ForkJoinPool)executor, bands, task);
+		} else {
+			runOnExecutor(executor, bands, task);
+		}
+	}
+
+	private static void runOnForkJoinPool(ForkJoinPool pool, Band[] bands, BandTask task) {
+		BandAction action = new BandAction(bands, 0, bands.length, task);
+
+		if (ForkJoinTask.getPool() == pool) {
+			action.invoke();
+		} else {
+			pool.invoke(action);
+		}
+	}
+
+	private static void runOnExecutor(Executor executor, Band[] bands, BandTask task) {
+		CountDownLatch             latch = new CountDownLatch(bands.length - 1);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+
+		for (int i = 1; i < bands.length; i++) {
+			Band band = bands[i];
+			executor.execute(() -> {
+				try {
+					band.run(task);
+				} catch (Throwable th) {
+					error.compareAndSet(null, th);
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+
+		// The calling thread takes a share of the work instead of idling.
+		try {
+			bands[0].run(task);
+		} catch (Throwable th) {
+			error.compareAndSet(null, th);
+		}
+
+		boolean interrupted = false;
+		while (true) {
+			try {
+				latch.await();
+				break;
+			} catch (InterruptedException ignored) {
+				// Bands write into the image, so don't return until all of them are done.
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		Throwable th = error.get();
+		if (th instanceof RuntimeException) {
+			throw (RuntimeException)th;
+		} else if (th instanceof Error) {
+			throw (Error)th;
+		} else if (th != null) {
+			throw new IllegalStateException(th);
+		}
+	}
+
+	private static final class Band {
+		private final int z;
+		private final int beginY;
+		private final int endY;
+
+		private Band(int z, int beginY, int endY) {
+			this.z      = z;
+			this.beginY = beginY;
+			this.endY   = endY;
+		}
+
+		private void run(BandTask task) {
+			task.process(z, beginY, endY);
+		}
+	}
+
+	private static final class BandAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Band[]   bands;
+		private final int      begin;
+		private final int      end;
+		private final BandTask task;
+
+		private BandAction(Band[] bands, int begin, int end, BandTask task) {
+			this.bands = bands;
+			this.begin = begin;
+			this.end   = end;
+			this.task  = task;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - begin == 1) {
+				bands[begin].run(task);
+			} else {
+				int mid = (begin + end) >>> 1;
+				invokeAll(new BandAction(bands, begin, mid, task), new BandAction(bands, mid, end, task));
+			}
+		}
+	}
+}
@@ -1,12 +1,10 @@
 package nl.airsupplies.utilities.graphics.image;
 
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
-import java.awt.image.DataBufferInt;
-import java.awt.image.DataBufferShort;
 import java.awt.image.WritableRaster;
 
 import nl.airsupplies.utilities.container.Vector2f;
+import nl.airsupplies.utilities.graphics.image.function.ImageMatrixExpression;
 import nl.airsupplies.utilities.graphics.image.function.ImageMatrixImageImageFunctions;
 import nl.airsupplies.utilities.graphics.image.function.ImageMatrixImageImageFunctionsComponent;
 import nl.airsupplies.utilities.graphics.image.function.ImageMatrixImageImageImageFunctions;
@@ -23,11 +21,14 @@ import nl.airsupplies.utilities.graphics.image.function.ImageMatrixUnaryFunction
 /**
  * The image matrix, with color component sub-images consisting of rows consisting of pixels. For example, an image of
  * 1024x768x24 will have an array of int[3][768][1024].
+ * <p>
+ * The element-wise functions are executed in bands of rows by the {@link ImageMatrixExecutor}.
  *
  * @author Mark Jeronimus
  */
 // Created 2008-02-08
-public class ImageMatrixFloat extends AbstractImageMatrix {
+// Changed 2026-10-17 Added row access independent of the layout
+public class ImageMatrixFloat extends AbstractImageMatrixFloat {
 
 	public final float[][][] matrix;
 
@@ -80,89 +81,19 @@ public class ImageMatrixFloat extends AbstractImageMatrix {
 	}
 
 	// ## Query methods
-	public BufferedImage toBufferedImage(BufferedImage image) {
-		WritableRaster raster = image.getRaster();
-		int            bands  = raster.getNumBands();
-
-		// Inner loop
-		int     x;
-		int     u;
-		int     v;
-		int     endX = this.endX;
-		float[] row0;
-		float[] row1;
-		float[] row2;
-		float[] row3;
-		int     c;
 
-		switch (numComponents * 10 + bands) {
-			case 11:
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					v    = y - border;
-					u    = 0;
-					for (x = border; x < endX; x++) {
-						raster.setSample(u, v, 0, (int)(row0[x] * 255 + 0.499999) & 0xFF);
-						u++;
-					}
-				}
-				break;
-			case 13:
-			case 14:
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					v    = y - border;
-					u    = 0;
-					for (x = border; x < endX; x++) {
-						c = (int)(row0[x] * 255 + 0.499999) & 0xFF;
-						image.setRGB(u, v, 0xFF000000 | (c << 8 | c) << 8 | c);
-						u++;
-					}
-				}
-				break;
-			case 34:
-			case 33:
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					row1 = matrix[1][y];
-					row2 = matrix[2][y];
-					v    = y - border;
-					u    = 0;
-					for (x = border; x < endX; x++) {
-						image.setRGB(u, v, 0xFF000000
-						                   | (((int)(row0[x] * 255 + 0.499999) & 0xFF) << 8 |
-						                      (int)(row1[x] * 255 + 0.499999) & 0xFF) << 8
-						                   | (int)(row2[x] * 255 + 0.499999) & 0xFF);
-						u++;
-					}
-				}
-				break;
-			case 44:
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					row1 = matrix[1][y];
-					row2 = matrix[2][y];
-					row3 = matrix[3][y];
-					v    = y - border;
-					u    = 0;
-					for (x = border; x < endX; x++) {
-						image.setRGB(
-								u,
-								v,
-								((((int)(row3[x] * 255 + 0.499999) & 0xFF) << 8 |
-								  (int)(row0[x] * 255 + 0.499999) & 0xFF) << 8 |
-								 (int)(row1[x] * 255 + 0.499999) & 0xFF) << 8
-								| (int)(row2[x] * 255 + 0.499999) & 0xFF);
-						u++;
-					}
-				}
-				break;
-			default:
-				throw new IllegalArgumentException("Unsupported combination of number of components: " + bands + " vs "
-				                                   + numComponents);
-		}
+	@Override
+	public FloatRow readRow(int component, int y, int beginX, int length, FloatRow row) {
+		row.array  = matrix[component][y];
+		row.offset = 0;
+		return row;
+	}
 
-		return image;
+	/**
+	 * Converts the image area to an existing image, with linear scaling (see {@link BufferedImageConverter}).
+	 */
+	public BufferedImage toBufferedImage(BufferedImage image) {
+		return BufferedImageConverter.LINEAR.toBufferedImage(this, image);
 	}
 
 	public void toBufferedImageDebug(BufferedImage image) {
@@ -239,6 +170,14 @@ public class ImageMatrixFloat extends AbstractImageMatrix {
 	}
 
 	// ## Modification methods
+
+	/**
+	 * Does nothing, the rows refer to the matrix directly.
+	 */
+	@Override
+	public void writeRow(int component, int y, int beginX, int length, FloatRow row) {
+	}
+
 	public void setBorder(float... components) {
 		// Inner loop
 		int     x;// 3+3+3+3
@@ -401,139 +340,22 @@ public class ImageMatrixFloat extends AbstractImageMatrix {
 			// North border, including corners.
 			float[] row = matrix[z][border];
 			for (int y = 0; y < border; y++) {
-				System.arraycopy(row, border, matrix[z][y], 0, width);
+				System.arraycopy(row, border, matrix[z][y], border, width);
 			}
 
 			// South border, including corners.
 			row = matrix[z][endY - 1];
 			for (int y = endY; y < numRows; y++) {
-				System.arraycopy(row, border, matrix[z][y], 0, width);
+				System.arraycopy(row, border, matrix[z][y], border, width);
 			}
 		}
 	}
 
+	/**
+	 * Converts an image to the image area, with linear scaling (see {@link BufferedImageConverter}).
+	 */
 	public void set(BufferedImage image) {
-		WritableRaster raster = image.getRaster();
-
-		if (width != image.getWidth() || height != image.getHeight() || numComponents != raster.getNumBands()) {
-			throw new IllegalArgumentException("Incompatible type");
-		}
-
-		// Inner loop
-		int     x;
-		int     endX = this.endX;
-		float[] row0;
-		float[] row1;
-		float[] row2;
-		float[] row3;
-		int     p    = 0;
-
-		switch (image.getType()) {
-			case BufferedImage.TYPE_INT_RGB: // 1
-				int[] intRaster = ((DataBufferInt)raster.getDataBuffer()).getData();
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					row1 = matrix[1][y];
-					row2 = matrix[2][y];
-					for (x = border; x < endX; x++) {
-						int c = intRaster[p];
-						p++;
-						row0[x] = (c >> 16 & 0xFF) / 255.0f;
-						row1[x] = (c >> 8 & 0xFF) / 255.0f;
-						row2[x] = (c & 0xFF) / 255.0f;
-					}
-				}
-				break;
-			case BufferedImage.TYPE_INT_ARGB: // 2
-				intRaster = ((DataBufferInt)raster.getDataBuffer()).getData();
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					row1 = matrix[1][y];
-					row2 = matrix[2][y];
-					row3 = matrix[3][y];
-					for (x = border; x < endX; x++) {
-						int c = intRaster[p];
-						p++;
-						row3[x] = (c >> 24 & 0xFF) / 255.0f;
-						row0[x] = (c >> 16 & 0xFF) / 255.0f;
-						row1[x] = (c >> 8 & 0xFF) / 255.0f;
-						row2[x] = (c & 0xFF) / 255.0f;
-					}
-				}
-				break;
-			case BufferedImage.TYPE_INT_BGR: // 4
-				intRaster = ((DataBufferInt)raster.getDataBuffer()).getData();
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					row1 = matrix[1][y];
-					row2 = matrix[2][y];
-					for (x = border; x < endX; x++) {
-						int c = intRaster[p];
-						p++;
-						row0[x] = (c & 0xFF) / 255.0f;
-						row1[x] = (c >> 8 & 0xFF) / 255.0f;
-						row2[x] = (c >> 16 & 0xFF) / 255.0f;
-					}
-				}
-				break;
-			case BufferedImage.TYPE_3BYTE_BGR: // 5
-				byte[] byteRaster = ((DataBufferByte)raster.getDataBuffer()).getData();
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					row1 = matrix[1][y];
-					row2 = matrix[2][y];
-					for (x = border; x < endX; x++) {
-						row2[x] = (byteRaster[p] & 0xFF) / 255.0f;
-						p++;
-						row1[x] = (byteRaster[p] & 0xFF) / 255.0f;
-						p++;
-						row0[x] = (byteRaster[p] & 0xFF) / 255.0f;
-						p++;
-					}
-				}
-				break;
-			case BufferedImage.TYPE_4BYTE_ABGR: // 6
-				byteRaster = ((DataBufferByte)raster.getDataBuffer()).getData();
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					row1 = matrix[1][y];
-					row2 = matrix[2][y];
-					row3 = matrix[3][y];
-					for (x = border; x < endX; x++) {
-						row0[x] = (byteRaster[p] & 0xFF) / 255.0f;
-						p++;
-						row1[x] = (byteRaster[p] & 0xFF) / 255.0f;
-						p++;
-						row2[x] = (byteRaster[p] & 0xFF) / 255.0f;
-						p++;
-						row3[x] = (byteRaster[p] & 0xFF) / 255.0f;
-						p++;
-					}
-				}
-				break;
-			case BufferedImage.TYPE_BYTE_GRAY: // 10
-				byteRaster = ((DataBufferByte)raster.getDataBuffer()).getData();
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					for (x = border; x < endX; x++) {
-						row0[x] = (byteRaster[p] & 0xFF) / 255.0f;
-						p++;
-					}
-				}
-				break;
-			case BufferedImage.TYPE_USHORT_GRAY: // 11
-				short[] shortRaster = ((DataBufferShort)raster.getDataBuffer()).getData();
-				for (int y = border; y < endY; y++) {
-					row0 = matrix[0][y];
-					for (x = border; x < endX; x++) {
-						row0[x] = (int)((shortRaster[p] & 0xFFFF) / 65535.0f);
-						p++;
-					}
-				}
-				break;
-			default:
-				throw new IllegalArgumentException("Unsupported type");
-		}
+		BufferedImageConverter.LINEAR.toMatrix(image, this);
 	}
 
 	@SuppressWarnings("unused")
@@ -593,6 +415,15 @@ public class ImageMatrixFloat extends AbstractImageMatrix {
 		}
 	}
 
+	/**
+	 * Starts a lazy expression on this image. Chains of operations on the expression are evaluated in a single pass.
+	 *
+	 * @see ImageMatrixExpression
+	 */
+	public ImageMatrixExpression expression() {
+		return ImageMatrixExpression.of(this);
+	}
+
 	// // ### ImageMatrixImageImageFunctions
 
 	/**
@@ -1758,30 +1589,32 @@ public class ImageMatrixFloat extends AbstractImageMatrix {
 					"Number of channels mismatch: " + table[0].length + " != " + numComponents);
 		}
 
-		// Inner loop
-		int     x;
-		float[] row0;
-		float[] row1;
-		float[] row2;
-		float   r;
-		float   g;
-		float   b;
-
 		if (numComponents == 3) {
-			for (int y = 0; y < numRows; y++) {
-				row0 = matrix[0][y];
-				row1 = matrix[1][y];
-				row2 = matrix[2][y];
-				for (x = 0; x < numColumns; x++) {
-					r = row0[x];
-					g = row1[x];
-					b = row2[x];
+			ImageMatrixExecutor.forEachBand(1, 0, numRows, numColumns, (z, beginY, endY) -> {
+				// Inner loop
+				int     x;
+				float[] row0;
+				float[] row1;
+				float[] row2;
+				float   r;
+				float   g;
+				float   b;
+
+				for (int y = beginY; y < endY; y++) {
+					row0 = matrix[0][y];
+					row1 = matrix[1][y];
+					row2 = matrix[2][y];
+					for (x = 0; x < numColumns; x++) {
+						r = row0[x];
+						g = row1[x];
+						b = row2[x];
 
-					row0[x] = table[0][0] * r + table[0][1] * g + table[0][2] * b;
-					row1[x] = table[1][0] * r + table[1][1] * g + table[1][2] * b;
-					row2[x] = table[2][0] * r + table[2][1] * g + table[2][2] * b;
+						row0[x] = table[0][0] * r + table[0][1] * g + table[0][2] * b;
+						row1[x] = table[1][0] * r + table[1][1] * g + table[1][2] * b;
+						row2[x] = table[2][0] * r + table[2][1] * g + table[2][2] * b;
+					}
 				}
-			}
+			});
 		} else {
 			throw new IllegalArgumentException("Unimplemented: " + numComponents);
 		}
@@ -1797,52 +1630,66 @@ public class ImageMatrixFloat extends AbstractImageMatrix {
 					"Number of channels mismatch: " + table[0].length + " != " + numComponents);
 		}
 
-		// Inner loop
-		int     x;
-		float[] rowIn0;
-		float[] rowIn1;
-		float[] rowIn2;
-		float[] rowOut0;
-		float[] rowOut1;
-		float[] rowOut2;
-		float   r;
-		float   g;
-		float   b;
-
 		switch (outImage.numComponents * 10 + numComponents) {
 			case 13:
-				for (int y = 0; y < numRows; y++) {
-					rowIn0  = matrix[0][y];
-					rowIn1  = matrix[1][y];
-					rowIn2  = matrix[2][y];
-					rowOut0 = outImage.matrix[0][y];
-					for (x = 0; x < numColumns; x++) {
-						r = rowIn0[x];
-						g = rowIn1[x];
-						b = rowIn2[x];
-
-						rowOut0[x] = table[0][0] * r + table[0][1] * g + table[0][2] * b;
+				ImageMatrixExecutor.forEachBand(1, 0, numRows, numColumns, (z, beginY, endY) -> {
+					// Inner loop
+					int     x;
+					float[] rowIn0;
+					float[] rowIn1;
+					float[] rowIn2;
+					float[] rowOut0;
+					float   r;
+					float   g;
+					float   b;
+
+					for (int y = beginY; y < endY; y++) {
+						rowIn0  = matrix[0][y];
+						rowIn1  = matrix[1][y];
+						rowIn2  = matrix[2][y];
+						rowOut0 = outImage.matrix[0][y];
+						for (x = 0; x < numColumns; x++) {
+							r = rowIn0[x];
+							g = rowIn1[x];
+							b = rowIn2[x];
+
+							rowOut0[x] = table[0][0] * r + table[0][1] * g + table[0][2] * b;
+						}
 					}
-				}
+				});
 				break;
 			case 33:
-				for (int y = 0; y < numRows; y++) {
-					rowIn0  = matrix[0][y];
-					rowIn1  = matrix[1][y];
-					rowIn2  = matrix[2][y];
-					rowOut0 = outImage.matrix[0][y];
-					rowOut1 = outImage.matrix[1][y];
-					rowOut2 = outImage.matrix[2][y];
-					for (x = 0; x < numColumns; x++) {
-						r = rowIn0[x];
-						g = rowIn1[x];
-						b = rowIn2[x];
-
-						rowOut0[x] = table[0][0] * r + table[0][1] * g + table[0][2] * b;
-						rowOut1[x] = table[1][0] * r + table[1][1] * g + table[1][2] * b;
-						rowOut2[x] = table[2][0] * r + table[2][1] * g + table[2][2] * b;
+				ImageMatrixExecutor.forEachBand(1, 0, numRows, numColumns, (z, beginY, endY) -> {
+					// Inner loop
+					int     x;
+					float[] rowIn0;
+					float[] rowIn1;
+					float[] rowIn2;
+					float[] rowOut0;
+					float[] rowOut1;
+					float[] rowOut2;
+					float   r;
+					float   g;
+					float   b;
+
+					for (int y = beginY; y < endY; y++) {
+						rowIn0  = matrix[0][y];
+						rowIn1  = matrix[1][y];
+						rowIn2  = matrix[2][y];
+						rowOut0 = outImage.matrix[0][y];
+						rowOut1 = outImage.matrix[1][y];
+						rowOut2 = outImage.matrix[2][y];
+						for (x = 0; x < numColumns; x++) {
+							r = rowIn0[x];
+							g = rowIn1[x];
+							b = rowIn2[x];
+
+							rowOut0[x] = table[0][0] * r + table[0][1] * g + table[0][2] * b;
+							rowOut1[x] = table[1][0] * r + table[1][1] * g + table[1][2] * b;
+							rowOut2[x] = table[2][0] * r + table[2][1] * g + table[2][2] * b;
+						}
 					}
-				}
+				});
 				break;
 			default:
 				throw new IllegalArgumentException("Unimplemented: " + numComponents + " -> " + outImage
@@ -0,0 +1,281 @@
+package nl.airsupplies.utilities.graphics.image;
+
+import nl.airsupplies.utilities.graphics.image.function.ImageMatrixImageImageFunctions;
+import nl.airsupplies.utilities.graphics.image.function.ImageMatrixImageScalarFunctions;
+import nl.airsupplies.utilities.graphics.image.function.ImageMatrixUnaryFunctions;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * An image matrix with all samples in one contiguous, planar block of storage. The position of every sample is given
+ * by {@link #getOffset(int, int, int)}.
+ * <p>
+ * Compared to the jagged {@link ImageMatrixFloat} this has no per-row array header or pointer chase, doesn't fragment
+ * the heap, and can be kept off-heap (see {@link DirectFloatStorage}) for images that don't fit in the Java heap.
+ * The element-wise functions and the row filters accept both layouts. Data can be exchanged with an {@link
+ * ImageMatrixFloat} to use the other filters.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+// Changed 2026-10-17 Shares the row access and element-wise functions with ImageMatrixFloat
+public class ImageMatrixFloatFlat extends AbstractImageMatrixFloat {
+	public final FloatStorage storage;
+
+	public ImageMatrixFloatFlat(int width, int height, int numComponents, int border) {
+		this(width, height, numComponents, border, false);
+	}
+
+	/**
+	 * @param offHeap whether to store the samples in a {@link DirectFloatStorage} instead of a {@link
+	 *                HeapFloatStorage}
+	 */
+	public ImageMatrixFloatFlat(int width, int height, int numComponents, int border, boolean offHeap) {
+		super(width, height, numComponents, border);
+
+		int size = getContiguousSize();
+		storage = offHeap ? new DirectFloatStorage(size) : new HeapFloatStorage(size);
+	}
+
+	/**
+	 * Create an image matrix on existing storage, for example a memory-mapped file.
+	 */
+	public ImageMatrixFloatFlat(int width, int height, int numComponents, int border, FloatStorage storage) {
+		super(width, height, numComponents, border);
+
+		this.storage = requireNonNull(storage, "storage");
+		requireAtLeast(getContiguousSize(), storage.size(), "storage.size()");
+	}
+
+	/**
+	 * Create a copy of an {@link ImageMatrixFloat}, including it's border.
+	 */
+	public ImageMatrixFloatFlat(ImageMatrixFloat image, boolean offHeap) {
+		this(image.width, image.height, image.numComponents, image.border, offHeap);
+
+		set(image);
+	}
+
+	public boolean isOffHeap() {
+		return storage instanceof DirectFloatStorage;
+	}
+
+	@Override
+	public int getOffset(int component, int x, int y) {
+		return component * getPlaneStride() + y * numColumns + x;
+	}
+
+	// ## Query methods
+	public float get(int component, int x, int y) {
+		return storage.get(getOffset(component, x, y));
+	}
+
+	/**
+	 * Copies a complete row, including the border, to {@code dst}.
+	 */
+	public void getRow(int component, int y, float[] dst) {
+		storage.get(getOffset(component, 0, y), dst, 0, numColumns);
+	}
+
+	/**
+	 * Heap storage is referred to directly. Off-heap storage is copied to a buffer of the row.
+	 */
+	@Override
+	public FloatRow readRow(int component, int y, int beginX, int length, FloatRow row) {
+		int offset = getOffset(component, 0, y);
+		if (storage instanceof HeapFloatStorage) {
+			row.array  = ((HeapFloatStorage)storage).array;
+			row.offset = offset;
+		} else {
+			row.array  = row.getBuffer(length);
+			row.offset = -beginX;
+			storage.get(offset + beginX, row.array, 0, length);
+		}
+
+		return row;
+	}
+
+	/**
+	 * Copies the data, including the border, to an {@link ImageMatrixFloat} of the same dimensions.
+	 */
+	public void copyTo(ImageMatrixFloat image) {
+		if (!isSameGeometry(image)) {
+			throw new IllegalArgumentException("Other ImageMatrix not compatible");
+		}
+
+		ImageMatrixExecutor.forEachBand(numComponents, 0, numRows, numColumns, (z, beginY, endY) -> {
+			for (int y = beginY; y < endY; y++) {
+				getRow(z, y, image.matrix[z][y]);
+			}
+		});
+	}
+
+	public ImageMatrixFloat toImageMatrixFloat() {
+		ImageMatrixFloat image = new ImageMatrixFloat(width, height, numComponents, border);
+		copyTo(image);
+		return image;
+	}
+
+	// ## Modification methods
+	public void set(int component, int x, int y, float value) {
+		storage.set(getOffset(component, x, y), value);
+	}
+
+	/**
+	 * Copies a complete row, including the border, from {@code src}.
+	 */
+	public void setRow(int component, int y, float[] src) {
+		storage.set(getOffset(component, 0, y), src, 0, numColumns);
+	}
+
+	@Override
+	public void writeRow(int component, int y, int beginX, int length, FloatRow row) {
+		if (!(storage instanceof HeapFloatStorage)) {
+			storage.set(getOffset(component, beginX, y), row.array, row.offset + beginX, length);
+		}
+	}
+
+	/**
+	 * Copies the data, including the border, from an {@link ImageMatrixFloat} of the same dimensions.
+	 */
+	public void set(ImageMatrixFloat image) {
+		if (!isSameGeometry(image)) {
+			throw new IllegalArgumentException("Other ImageMatrix not compatible");
+		}
+
+		ImageMatrixExecutor.forEachBand(numComponents, 0, numRows, numColumns, (z, beginY, endY) -> {
+			for (int y = beginY; y < endY; y++) {
+				setRow(z, y, image.matrix[z][y]);
+			}
+		});
+	}
+
+	/**
+	 * this = other
+	 */
+	public void set(ImageMatrixFloatFlat other) {
+		if (!isCompatibleByBorderAndSize(other)) {
+			throw new IllegalArgumentException("Other ImageMatrix not compatible");
+		}
+
+		ImageMatrixExecutor.forEachBand(this, (z, beginY, endY) -> {
+			float[] row = new float[width];
+			for (int y = beginY; y < endY; y++) {
+				other.storage.get(other.getOffset(z, border, y), row, 0, width);
+				storage.set(getOffset(z, border, y), row, 0, width);
+			}
+		});
+	}
+
+	public void setBorderUniform(float value) {
+		int planeStride = getPlaneStride();
+
+		for (int z = 0; z < numComponents; z++) {
+			int plane = z * planeStride;
+
+			// North border, including corners.
+			storage.fill(plane, border * numColumns, value);
+
+			for (int y = border; y < endY; y++) {
+				// West and east border, excluding corners.
+				storage.fill(plane + y * numColumns, border, value);
+				storage.fill(plane + y * numColumns + endX, border, value);
+			}
+
+			// South border, including corners.
+			storage.fill(plane + endY * numColumns, border * numColumns, value);
+		}
+	}
+
+	/**
+	 * Extends the edges of the image into the border, ie. fills every border pixel with the color of the closest image
+	 * pixel.
+	 */
+	public void extendBorder() {
+		for (int z = 0; z < numComponents; z++) {
+			for (int y = border; y < endY; y++) {
+				// West and east border, excluding corners.
+				storage.fill(getOffset(z, 0, y), border, get(z, border, y));
+				storage.fill(getOffset(z, endX, y), border, get(z, endX - 1, y));
+			}
+
+			// North and south border, including corners.
+			for (int y = 0; y < border; y++) {
+				storage.copy(getOffset(z, 0, border), getOffset(z, 0, y), numColumns);
+			}
+			for (int y = endY; y < numRows; y++) {
+				storage.copy(getOffset(z, 0, endY - 1), getOffset(z, 0, y), numColumns);
+			}
+		}
+	}
+
+	// ## Element-wise functions
+
+	/**
+	 * this = value
+	 */
+	public void setUniform(float value) {
+		ImageMatrixImageScalarFunctions.set(this, value);
+	}
+
+	/**
+	 * this += value
+	 */
+	public void addUniform(float value) {
+		ImageMatrixImageScalarFunctions.add(this, value);
+	}
+
+	/**
+	 * this *= value
+	 */
+	public void mulUniform(float value) {
+		ImageMatrixImageScalarFunctions.mul(this, value);
+	}
+
+	/**
+	 * this = this * mul + add
+	 */
+	public void mulAddUniform(float mul, float add) {
+		ImageMatrixImageScalarFunctions.mulAdd(this, mul, add);
+	}
+
+	/**
+	 * this = black, if this < black<br> this = white, if this > white<br> this = this, if black <= this <= white<br>
+	 */
+	public void clamp(float black, float white) {
+		ImageMatrixUnaryFunctions.clamp(this, black, white);
+	}
+
+	/**
+	 * this += other
+	 */
+	public void add(AbstractImageMatrixFloat other) {
+		ImageMatrixImageImageFunctions.add(this, other);
+	}
+
+	/**
+	 * this -= other
+	 */
+	public void sub(AbstractImageMatrixFloat other) {
+		ImageMatrixImageImageFunctions.sub(this, other);
+	}
+
+	/**
+	 * this *= other
+	 */
+	public void mul(AbstractImageMatrixFloat other) {
+		ImageMatrixImageImageFunctions.mul(this, other);
+	}
+
+	/**
+	 * this += add * scale
+	 */
+	public void addScaled(AbstractImageMatrixFloat add, float scale) {
+		ImageMatrixImageImageFunctions.addScaled(this, add, scale);
+	}
+
+	private boolean isSameGeometry(AbstractImageMatrix other) {
+		return width == other.width && height == other.height && numComponents == other.numComponents &&
+		       border == other.border;
+	}
+}
@@ -0,0 +1,449 @@
+package nl.airsupplies.utilities.graphics.image;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import nl.airsupplies.utilities.container.CacheMap;
+import nl.airsupplies.utilities.graphics.image.filter.ImageFilter;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtMost;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * An image that is too big for the heap, stored in a file as tiles of {@link #tileWidth} x {@link #tileHeight}
+ * pixels.
+ * <p>
+ * Every tile is stored contiguously (planar, rows of {@link #tileWidth} samples, also for the partial tiles at the
+ * right and bottom edges) in native byte order, and is memory-mapped when it's accessed. At most {@link
+ * #getMaxCachedTiles()} tiles stay mapped. Evicted tiles are unmapped as soon as no thread is using them, and are left
+ * to the operating system to write back. On a JDK that doesn't allow unmapping explicitly, evicted tiles are unmapped
+ * when their buffer is garbage collected.
+ * <p>
+ * The image is processed by copying tiles to a regular {@link ImageMatrixFloat}, with a halo of surrounding pixels
+ * in its border, so the existing filters and functions can be used on it (see {@link #forEachTile(int, boolean,
+ * TileTask)}). Samples outside the image area are the nearest edge sample, as if by {@link
+ * ImageMatrixFloat#extendBorder()}.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+// Changed 2026-10-17 Unmaps evicted tiles
+@ThreadSafe
+public class ImageMatrixFloatTiled implements Closeable {
+	public static final int DEFAULT_TILE_SIZE        = 1024;
+	public static final int DEFAULT_MAX_CACHED_TILES = 64;
+
+	/** {@code sun.misc.Unsafe.invokeCleaner(ByteBuffer)}, or {@code null} when it's not accessible */
+	private static final @Nullable MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+	public final int width;
+	public final int height;
+	public final int numComponents;
+	public final int tileWidth;
+	public final int tileHeight;
+	public final int numTilesX;
+	public final int numTilesY;
+
+	private final FileChannel channel;
+	private final int         tileSamples;
+	private final int         maxCachedTiles;
+
+	private final CacheMap<Integer, Tile> cache;
+
+	/**
+	 * Processes one tile.
+	 *
+	 * @param x the column of the first pixel of the tile in the tiled image (the pixel at {@code tile.border})
+	 * @param y the row of the first pixel of the tile in the tiled image (the pixel at {@code tile.border})
+	 */
+	@FunctionalInterface
+	public interface TileTask {
+		void process(ImageMatrixFloat tile, int x, int y);
+	}
+
+	/**
+	 * Opens or creates a tiled image with tiles of {@link #DEFAULT_TILE_SIZE} pixels square.
+	 */
+	public ImageMatrixFloatTiled(Path file, int width, int height, int numComponents) throws IOException {
+		this(file, width, height, numComponents, DEFAULT_TILE_SIZE, DEFAULT_TILE_SIZE, DEFAULT_MAX_CACHED_TILES);
+	}
+
+	/**
+	 * Opens or creates a tiled image. An existing file is used as-is (and grown if needed), so it has to be created
+	 * with the same dimensions and tile size.
+	 *
+	 * @param maxCachedTiles the maximum number of tiles that stay mapped. This should be at least the number of
+	 *                       tiles per row (plus some) for the tile iterators to be efficient.
+	 */
+	public ImageMatrixFloatTiled(Path file, int width, int height, int numComponents,
+	                             int tileWidth, int tileHeight, int maxCachedTiles) throws IOException {
+		requireNonNull(file, "file");
+		this.width          = requireAtLeast(1, width, "width");
+		this.height         = requireAtLeast(1, height, "height");
+		this.numComponents  = requireAtLeast(1, numComponents, "numComponents");
+		this.tileWidth      = requireAtLeast(1, tileWidth, "tileWidth");
+		this.tileHeight     = requireAtLeast(1, tileHeight, "tileHeight");
+		this.maxCachedTiles = requireAtLeast(1, maxCachedTiles, "maxCachedTiles");
+
+		// A tile is mapped as a single buffer, so it's limited to the capacity of one.
+		long samples = (long)tileWidth * tileHeight * numComponents;
+		requireAtMost(DirectFloatStorage.MAX_SIZE, samples, "tileWidth * tileHeight * numComponents");
+
+		tileSamples = (int)samples;
+		numTilesX   = (width + tileWidth - 1) / tileWidth;
+		numTilesY   = (height + tileHeight - 1) / tileHeight;
+		cache       = new CacheMap<>(maxCachedTiles);
+		cache.addElementRemovedListener((index, tile) -> tile.evict());
+
+		channel = FileChannel.open(file,
+		                           StandardOpenOption.CREATE,
+		                           StandardOpenOption.READ,
+		                           StandardOpenOption.WRITE);
+	}
+
+	public int getMaxCachedTiles() {
+		return maxCachedTiles;
+	}
+
+	/**
+	 * Copies a region of pixels to {@code dst}, including its border.
+	 *
+	 * @param x the column of the pixel to copy to the first pixel of the image area of {@code dst} (the one at
+	 *          {@code dst.border}). Pixels outside of this image take the value of the nearest edge pixel.
+	 * @param y the row of the pixel to copy to the first pixel of the image area of {@code dst}
+	 */
+	public void read(ImageMatrixFloat dst, int x, int y) {
+		if (dst.numComponents > numComponents) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		int beginX = x - dst.border;
+		int endX   = beginX + dst.numColumns;
+
+		// The part of the row inside this image, the rest is extended from the edge pixels.
+		int copyBeginX = Math.max(0, beginX);
+		int copyEndX   = Math.min(width, endX);
+
+		for (int z = 0; z < dst.numComponents; z++) {
+			for (int v = 0; v < dst.numRows; v++) {
+				float[] row  = dst.matrix[z][v];
+				int     imgY = Math.max(0, Math.min(y - dst.border + v, height - 1));
+
+				if (copyBeginX >= copyEndX) {
+					// Entirely left or right of the image.
+					int imgX = beginX < 0 ? 0 : width - 1;
+					getSamples(z, imgX, imgY, row, 0, 1);
+					Arrays.fill(row, row[0]);
+					continue;
+				}
+
+				for (int imgX = copyBeginX; imgX < copyEndX; ) {
+					int tileX  = imgX / tileWidth;
+					int length = Math.min(copyEndX, (tileX + 1) * tileWidth) - imgX;
+
+					getSamples(z, imgX, imgY, row, imgX - beginX, length);
+
+					imgX += length;
+				}
+
+				Arrays.fill(row, 0, copyBeginX - beginX, row[copyBeginX - beginX]);
+				Arrays.fill(row, copyEndX - beginX, dst.numColumns, row[copyEndX - 1 - beginX]);
+			}
+		}
+	}
+
+	/**
+	 * Copies the image area (not the border) of {@code src} to this image. Pixels that fall outside of this image
+	 * are ignored.
+	 *
+	 * @param x the column of the pixel where the first pixel of the image area of {@code src} goes
+	 * @param y the row of the pixel where the first pixel of the image area of {@code src} goes
+	 */
+	public void write(ImageMatrixFloat src, int x, int y) {
+		if (src.numComponents < numComponents) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		int beginX = Math.max(0, x);
+		int endX   = Math.min(width, x + src.width);
+		int beginY = Math.max(0, y);
+		int endY   = Math.min(height, y + src.height);
+
+		for (int z = 0; z < numComponents; z++) {
+			for (int imgY = beginY; imgY < endY; imgY++) {
+				float[] row = src.matrix[z][src.border + imgY - y];
+
+				for (int imgX = beginX; imgX < endX; ) {
+					int tileX  = imgX / tileWidth;
+					int length = Math.min(endX, (tileX + 1) * tileWidth) - imgX;
+
+					putSamples(z, imgX, imgY, row, src.border + imgX - x, length);
+
+					imgX += length;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Processes this image tile by tile, in-place. Every tile is read with a halo of {@code border} pixels, processed,
+	 * and the image area of the tile is written back.
+	 * <p>
+	 * Because tiles are written back while other tiles are still being read, the task should not look at the halo
+	 * when {@code border > 0}. Use {@link #forEachTile(ImageMatrixFloatTiled, int, boolean, TileTask)} with a
+	 * different output image for neighborhood operations.
+	 *
+	 * @param parallel whether to process multiple tiles simultaneously. When {@code false}, the task can still process
+	 *                 every tile in parallel, for example with the element-wise functions.
+	 */
+	public void forEachTile(int border, boolean parallel, TileTask task) {
+		forEachTile(this, border, parallel, task);
+	}
+
+	/**
+	 * Processes this image tile by tile, writing the results to {@code out}. Every tile is read with a halo of
+	 * {@code border} pixels (in the border of the {@link ImageMatrixFloat} given to the task) and after processing,
+	 * the image area of that is written to the same location in {@code out}.
+	 * <p>
+	 * Filters that read the border (like {@link nl.airsupplies.utilities.graphics.image.filter.ImageConvolutionFilter})
+	 * give the same result as on the whole image if {@code border} is at least their radius. Filters that only look
+	 * at the image area (like {@link nl.airsupplies.utilities.graphics.image.filter.ImageLineFilter}) see every tile
+	 * in isolation.
+	 *
+	 * @param parallel whether to process multiple tiles simultaneously. When {@code false}, the task can still process
+	 *                 every tile in parallel, for example with the element-wise functions.
+	 */
+	public void forEachTile(ImageMatrixFloatTiled out, int border, boolean parallel, TileTask task) {
+		requireNonNull(out, "out");
+		requireAtLeast(0, border, "border");
+		requireNonNull(task, "task");
+
+		if (out.width != width || out.height != height || out.numComponents > numComponents) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		runTiles(parallel, (z, begin, end) -> {
+			ImageMatrixFloat tile = new ImageMatrixFloat(tileWidth, tileHeight, numComponents, border);
+
+			for (int i = begin; i < end; i++) {
+				int x = i % numTilesX * tileWidth;
+				int y = i / numTilesX * tileHeight;
+
+				read(tile, x, y);
+				task.process(tile, x, y);
+				out.write(tile, x, y);
+			}
+		});
+	}
+
+	/**
+	 * Filters this image tile by tile with {@link ImageFilter#filter(ImageMatrixFloat, ImageMatrixFloat)}, writing
+	 * the results to {@code out}, which must be a different image.
+	 *
+	 * @param border the halo around every tile, which should be at least the radius of the filter.
+	 */
+	public void filter(ImageFilter filter, ImageMatrixFloatTiled out, int border, boolean parallel) {
+		requireNonNull(filter, "filter");
+		requireNonNull(out, "out");
+		requireAtLeast(0, border, "border");
+
+		if (out == this) {
+			throw new IllegalArgumentException("Parameters in and out must be different images");
+		} else if (out.width != width || out.height != height || out.numComponents > numComponents) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		runTiles(parallel, (z, begin, end) -> {
+			ImageMatrixFloat tile   = new ImageMatrixFloat(tileWidth, tileHeight, numComponents, border);
+			ImageMatrixFloat result = new ImageMatrixFloat(tileWidth, tileHeight, numComponents, border);
+
+			for (int i = begin; i < end; i++) {
+				int x = i % numTilesX * tileWidth;
+				int y = i / numTilesX * tileHeight;
+
+				read(tile, x, y);
+				filter.filter(tile, result);
+				out.write(result, x, y);
+			}
+		});
+	}
+
+	/**
+	 * Runs the task for tile indices {@code 0} to {@code numTilesX * numTilesY} (exclusive), in bands of tiles.
+	 */
+	private void runTiles(boolean parallel, ImageMatrixExecutor.BandTask task) {
+		int numTiles = numTilesX * numTilesY;
+
+		if (parallel) {
+			ImageMatrixExecutor.forEachBand(1, 0, numTiles, tileSamples, task);
+		} else {
+			task.process(0, 0, numTiles);
+		}
+	}
+
+	/**
+	 * Forces all changes in the currently mapped tiles to be written to the file.
+	 */
+	public void flush() {
+		synchronized (cache) {
+			for (Tile tile : cache.values()) {
+				tile.buffer.force();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+
+		synchronized (cache) {
+			cache.clear();
+		}
+
+		channel.close();
+	}
+
+	private int getIndex(int z, int x, int y) {
+		return (z * tileHeight + y % tileHeight) * tileWidth + x % tileWidth;
+	}
+
+	/**
+	 * Copies {@code length} samples of a row, which must all be in the same tile.
+	 */
+	private void getSamples(int z, int x, int y, float[] dst, int offset, int length) {
+		Tile tile = acquireTile(x / tileWidth, y / tileHeight);
+		try {
+			FloatBuffer view = tile.getView();
+			view.position(getIndex(z, x, y));
+			view.get(dst, offset, length);
+		} finally {
+			releaseTile(tile);
+		}
+	}
+
+	/**
+	 * Copies {@code length} samples to a row, which must all be in the same tile.
+	 */
+	private void putSamples(int z, int x, int y, float[] src, int offset, int length) {
+		Tile tile = acquireTile(x / tileWidth, y / tileHeight);
+		try {
+			FloatBuffer view = tile.getView();
+			view.position(getIndex(z, x, y));
+			view.put(src, offset, length);
+		} finally {
+			releaseTile(tile);
+		}
+	}
+
+	/**
+	 * Maps the tile if it isn't already, and marks it in use. Every call must be followed by {@link
+	 * #releaseTile(Tile)}.
+	 */
+	private Tile acquireTile(int tileX, int tileY) {
+		int index = tileY * numTilesX + tileX;
+
+		synchronized (cache) {
+			@Nullable Tile tile = cache.get(index);
+			if (tile == null) {
+				long position = (long)index * tileSamples * Float.BYTES;
+				try {
+					// Mapping beyond the end of the file grows it.
+					tile = new Tile(channel.map(FileChannel.MapMode.READ_WRITE,
+					                            position,
+					                            (long)tileSamples * Float.BYTES));
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+
+				cache.put(index, tile);
+			}
+
+			tile.users++;
+			return tile;
+		}
+	}
+
+	private void releaseTile(Tile tile) {
+		synchronized (cache) {
+			tile.users--;
+			if (tile.evicted && tile.users == 0) {
+				unmap(tile.buffer);
+			}
+		}
+	}
+
+	private static @Nullable MethodHandle findInvokeCleaner() {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field    field       = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+
+			MethodType type = MethodType.methodType(void.class, ByteBuffer.class);
+			return MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner", type).bindTo(field.get(null));
+		} catch (ReflectiveOperationException | RuntimeException ignored) {
+			return null;
+		}
+	}
+
+	/**
+	 * Releases the mapping now instead of when the buffer is garbage collected. The buffer (and every view of it) must
+	 * not be accessed afterwards, or the VM crashes.
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		if (INVOKE_CLEANER == null) {
+			return;
+		}
+
+		try {
+			INVOKE_CLEANER.invokeExact((ByteBuffer)buffer);
+		} catch (Throwable ignored) {
+			// Left to the garbage collector.
+		}
+	}
+
+	/**
+	 * A mapped tile. A tile that is evicted while it's in use is unmapped when the last user releases it. The mutable
+	 * fields are guarded by {@link #cache}.
+	 */
+	private static final class Tile {
+		private final MappedByteBuffer buffer;
+
+		private int     users   = 0;
+		private boolean evicted = false;
+
+		private Tile(MappedByteBuffer buffer) {
+			this.buffer = buffer;
+			buffer.order(ByteOrder.nativeOrder());
+		}
+
+		/**
+		 * Views have their own position, so threads don't interfere.
+		 */
+		private FloatBuffer getView() {
+			return buffer.asFloatBuffer();
+		}
+
+		private void evict() {
+			evicted = true;
+			if (users == 0) {
+				unmap(buffer);
+			}
+		}
+	}
+}
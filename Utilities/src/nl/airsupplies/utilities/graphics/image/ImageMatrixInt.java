@@ -3,12 +3,15 @@ package nl.airsupplies.utilities.graphics.image;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferInt;
-import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
 import java.awt.image.WritableRaster;
 
 /**
  * The image matrix, with color component sub-images consisting of rows consisting of pixels. For example, an image of
  * 1024x768x24 will have an array of int[3][768][1024].
+ * <p>
+ * For images that don't need the full {@code int} range, {@link ImageMatrixByte} and {@link ImageMatrixShort} store
+ * the same samples in a quarter or half of the memory.
  *
  * @author Mark Jeronimus
  */
@@ -202,7 +205,7 @@ public class ImageMatrixInt extends AbstractImageMatrix {
 				break;
 			case BufferedImage.TYPE_USHORT_GRAY: // 11
 				fullRange = 65536;
-				short[] shortRaster = ((DataBufferShort)raster.getDataBuffer()).getData();
+				short[] shortRaster = ((DataBufferUShort)raster.getDataBuffer()).getData();
 				for (int y = border; y < endY; y++) {
 					row0 = matrix[0][y];
 					for (x = border; x < endX; x++) {
@@ -348,7 +351,7 @@ public class ImageMatrixInt extends AbstractImageMatrix {
 				}
 				break;
 			case BufferedImage.TYPE_USHORT_GRAY: // 11
-				short[] shortRaster = ((DataBufferShort)raster.getDataBuffer()).getData();
+				short[] shortRaster = ((DataBufferUShort)raster.getDataBuffer()).getData();
 				for (int y = border; y < endY; y++) {
 					row0 = matrix[0][y];
 					for (x = border; x < endX; x++) {
@@ -437,13 +440,13 @@ public class ImageMatrixInt extends AbstractImageMatrix {
 			// North border, including corners.
 			row = matrix[z][border];
 			for (int y = 0; y < border; y++) {
-				System.arraycopy(row, 0, matrix[y], 0, numColumns);
+				System.arraycopy(row, 0, matrix[z][y], 0, numColumns);
 			}
 
 			// South border, including corners.
 			row = matrix[z][endY - 1];
 			for (int y = endY; y < numRows; y++) {
-				System.arraycopy(row, 0, matrix[y], 0, numColumns);
+				System.arraycopy(row, 0, matrix[z][y], 0, numColumns);
 			}
 		}
 	}
@@ -604,7 +607,28 @@ public class ImageMatrixInt extends AbstractImageMatrix {
 	//
 	// return sortedColorCounts;
 	// }
+
+	/**
+	 * Limits all samples in the image area to the range [0, {@link #fullRange} - 1].
+	 */
 	public void clip() {
-		throw new UnsupportedOperationException("Not supported yet.");
+		// Inner loop
+		int   x;
+		int   endX = this.endX;
+		int   max  = fullRange - 1;
+		int[] row;
+
+		for (int z = 0; z < numComponents; z++) {
+			for (int y = border; y < endY; y++) {
+				row = matrix[z][y];
+				for (x = border; x < endX; x++) {
+					if (row[x] < 0) {
+						row[x] = 0;
+					} else if (row[x] > max) {
+						row[x] = max;
+					}
+				}
+			}
+		}
 	}
 }
@@ -0,0 +1,145 @@
+package nl.airsupplies.utilities.graphics.image;
+
+import java.util.Arrays;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * An integer image matrix with all samples in one contiguous, planar {@code int[]}. The position of every sample is
+ * given by {@link #getOffset(int, int, int)}.
+ *
+ * @author Mark Jeronimus
+ * @see ImageMatrixFloatFlat
+ */
+// Created 2026-10-17
+public class ImageMatrixIntFlat extends AbstractImageMatrix {
+	public final int[] data;
+
+	/**
+	 * The number of level values from black to maximum intensity. Black is always 0 and white is 1 less than this
+	 * value.
+	 */
+	public int fullRange = 256;
+
+	public ImageMatrixIntFlat(int width, int height, int numComponents, int border) {
+		super(width, height, numComponents, border);
+
+		data = new int[getContiguousSize()];
+	}
+
+	/**
+	 * Create an image matrix on an existing array.
+	 */
+	public ImageMatrixIntFlat(int width, int height, int numComponents, int border, int[] data) {
+		super(width, height, numComponents, border);
+
+		this.data = requireNonNull(data, "data");
+		requireAtLeast(getContiguousSize(), data.length, "data.length");
+	}
+
+	/**
+	 * Create a copy of an {@link ImageMatrixInt}, including it's border.
+	 */
+	public ImageMatrixIntFlat(ImageMatrixInt image) {
+		this(image.width, image.height, image.numComponents, image.border);
+
+		set(image);
+	}
+
+	@Override
+	public int getOffset(int component, int x, int y) {
+		return component * getPlaneStride() + y * numColumns + x;
+	}
+
+	// ## Query methods
+	public int get(int component, int x, int y) {
+		return data[getOffset(component, x, y)];
+	}
+
+	/**
+	 * Copies the data, including the border, to an {@link ImageMatrixInt} of the same dimensions.
+	 */
+	public void copyTo(ImageMatrixInt image) {
+		if (!isSameGeometry(image)) {
+			throw new IllegalArgumentException("Other ImageMatrix not compatible");
+		}
+
+		image.fullRange = fullRange;
+
+		for (int z = 0; z < numComponents; z++) {
+			for (int y = 0; y < numRows; y++) {
+				System.arraycopy(data, getOffset(z, 0, y), image.matrix[z][y], 0, numColumns);
+			}
+		}
+	}
+
+	public ImageMatrixInt toImageMatrixInt() {
+		ImageMatrixInt image = new ImageMatrixInt(width, height, numComponents, border);
+		copyTo(image);
+		return image;
+	}
+
+	// ## Modification methods
+	public void set(int component, int x, int y, int value) {
+		data[getOffset(component, x, y)] = value;
+	}
+
+	/**
+	 * Copies the data, including the border, from an {@link ImageMatrixInt} of the same dimensions.
+	 */
+	public void set(ImageMatrixInt image) {
+		if (!isSameGeometry(image)) {
+			throw new IllegalArgumentException("Other ImageMatrix not compatible");
+		}
+
+		fullRange = image.fullRange;
+
+		for (int z = 0; z < numComponents; z++) {
+			for (int y = 0; y < numRows; y++) {
+				System.arraycopy(image.matrix[z][y], 0, data, getOffset(z, 0, y), numColumns);
+			}
+		}
+	}
+
+	public void set(int... color) {
+		if (color.length != numComponents) {
+			throw new IllegalArgumentException("Number of components differs");
+		}
+
+		for (int z = 0; z < numComponents; z++) {
+			for (int y = border; y < endY; y++) {
+				int begin = getOffset(z, border, y);
+				Arrays.fill(data, begin, begin + width, color[z]);
+			}
+		}
+	}
+
+	/**
+	 * Extends the edges of the image into the border, ie. fills every border pixel with the color of the closest image
+	 * pixel.
+	 */
+	public void extendBorder() {
+		for (int z = 0; z < numComponents; z++) {
+			for (int y = border; y < endY; y++) {
+				// West and east border, excluding corners.
+				int row = getOffset(z, 0, y);
+				Arrays.fill(data, row, row + border, data[row + border]);
+				Arrays.fill(data, row + endX, row + numColumns, data[row + endX - 1]);
+			}
+
+			// North and south border, including corners.
+			for (int y = 0; y < border; y++) {
+				System.arraycopy(data, getOffset(z, 0, border), data, getOffset(z, 0, y), numColumns);
+			}
+			for (int y = endY; y < numRows; y++) {
+				System.arraycopy(data, getOffset(z, 0, endY - 1), data, getOffset(z, 0, y), numColumns);
+			}
+		}
+	}
+
+	private boolean isSameGeometry(AbstractImageMatrix other) {
+		return width == other.width && height == other.height && numComponents == other.numComponents &&
+		       border == other.border;
+	}
+}
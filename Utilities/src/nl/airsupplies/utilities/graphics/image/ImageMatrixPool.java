@@ -0,0 +1,224 @@
+package nl.airsupplies.utilities.graphics.image;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+
+/**
+ * A pool of temporary {@link ImageMatrixFloat}s, to avoid allocating full-size scratch images for every frame in a
+ * filter chain.
+ * <p>
+ * Images are borrowed with a {@link Lease} that returns the image to the pool when closed:
+ * <pre>{@code
+ * try (ImageMatrixPool.Lease temp = pool.borrow(in)) {
+ *     filter.filter(in, temp.image, out);
+ * }
+ * }</pre>
+ * {@link nl.airsupplies.utilities.graphics.image.filter.ImageFilter#filterPooled(ImageMatrixFloat, ImageMatrixPool,
+ * ImageMatrixFloat)} does this for a single filter.
+ * <p>
+ * Images are pooled by exact geometry (width, height, number of components and border). The contents of a borrowed
+ * image, including it's border, are undefined. Returned images that would make the pool hold more than {@link
+ * #getMaxPooledSamples()} samples are discarded, and left to the garbage collector.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@ThreadSafe
+public class ImageMatrixPool {
+	/** Default pool size of 64M samples (256MB) */
+	public static final long DEFAULT_MAX_POOLED_SAMPLES = 64L << 20;
+
+	private final long maxPooledSamples;
+
+	@GuardedBy("this")
+	private final Map<Key, ArrayDeque<ImageMatrixFloat>> pool = new HashMap<>(16);
+
+	@GuardedBy("this")
+	private long pooledSamples = 0;
+	@GuardedBy("this")
+	private long hitCount      = 0;
+	@GuardedBy("this")
+	private long missCount     = 0;
+	@GuardedBy("this")
+	private long discardCount  = 0;
+
+	public ImageMatrixPool() {
+		this(DEFAULT_MAX_POOLED_SAMPLES);
+	}
+
+	/**
+	 * @param maxPooledSamples the maximum number of samples, including borders, held by idle images in the pool. Use
+	 *                         0 to pool nothing (useful for measuring the difference).
+	 */
+	public ImageMatrixPool(long maxPooledSamples) {
+		this.maxPooledSamples = requireAtLeast(0L, maxPooledSamples, "maxPooledSamples");
+	}
+
+	public long getMaxPooledSamples() {
+		return maxPooledSamples;
+	}
+
+	/**
+	 * Borrows an image with the same geometry as the given image, for use as temporary image in two-pass filters.
+	 */
+	public Lease borrow(AbstractImageMatrix like) {
+		return borrow(like.width, like.height, like.numComponents, like.border);
+	}
+
+	/**
+	 * Borrows an image of the given geometry, creating one if none is available.
+	 */
+	public Lease borrow(int width, int height, int numComponents, int border) {
+		Key key = new Key(width, height, numComponents, border);
+
+		ImageMatrixFloat image = null;
+		synchronized (this) {
+			ArrayDeque<ImageMatrixFloat> images = pool.get(key);
+			if (images != null && !images.isEmpty()) {
+				image = images.pop();
+				pooledSamples -= key.numSamples;
+				hitCount++;
+			} else {
+				missCount++;
+			}
+		}
+
+		if (image == null) {
+			image = new ImageMatrixFloat(width, height, numComponents, border);
+		}
+
+		return new Lease(key, image);
+	}
+
+	/**
+	 * Discards all idle images. Borrowed images are still returned to the pool.
+	 */
+	public synchronized void clear() {
+		pool.clear();
+		pooledSamples = 0;
+	}
+
+	/**
+	 * Returns the number of samples, including borders, held by idle images in the pool.
+	 */
+	public synchronized long getPooledSamples() {
+		return pooledSamples;
+	}
+
+	/**
+	 * Returns the number of times an image was borrowed that was available in the pool.
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of times an image was borrowed that had to be allocated.
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the number of times a returned image didn't fit in the pool.
+	 */
+	public synchronized long getDiscardCount() {
+		return discardCount;
+	}
+
+	public synchronized void resetStatistics() {
+		hitCount     = 0;
+		missCount    = 0;
+		discardCount = 0;
+	}
+
+	private synchronized void giveBack(Key key, ImageMatrixFloat image) {
+		if (pooledSamples + key.numSamples > maxPooledSamples) {
+			discardCount++;
+			return;
+		}
+
+		pool.computeIfAbsent(key, ignored -> new ArrayDeque<>(4)).push(image);
+		pooledSamples += key.numSamples;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return getClass().getSimpleName() + "[pooledSamples=" + pooledSamples + ", hitCount=" + hitCount +
+		       ", missCount=" + missCount + ", discardCount=" + discardCount + ']';
+	}
+
+	/**
+	 * A borrowed image. Closing it returns the image to the pool, after which it must not be used anymore. Closing
+	 * more than once has no effect.
+	 */
+	@ThreadSafe
+	public final class Lease implements AutoCloseable {
+		public final ImageMatrixFloat image;
+
+		private final Key key;
+
+		@GuardedBy("this")
+		private boolean closed = false;
+
+		Lease(Key key, ImageMatrixFloat image) {
+			this.key   = key;
+			this.image = image;
+		}
+
+		@Override
+		public void close() {
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+
+				closed = true;
+			}
+
+			giveBack(key, image);
+		}
+	}
+
+	private static final class Key {
+		private final int  width;
+		private final int  height;
+		private final int  numComponents;
+		private final int  border;
+		private final long numSamples;
+
+		Key(int width, int height, int numComponents, int border) {
+			this.width         = width;
+			this.height        = height;
+			this.numComponents = numComponents;
+			this.border        = border;
+
+			numSamples = (long)numComponents * (height + border * 2) * (width + border * 2);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+
+			Key other = (Key)o;
+			return width == other.width && height == other.height && numComponents == other.numComponents &&
+			       border == other.border;
+		}
+
+		@Override
+		public int hashCode() {
+			return ((width * 31 + height) * 31 + numComponents) * 31 + border;
+		}
+	}
+}
@@ -1,7 +1,10 @@
 package nl.airsupplies.utilities.graphics.image;
 
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Transparency;
 import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
@@ -13,13 +16,16 @@ import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
@@ -29,6 +35,8 @@ import javax.imageio.stream.ImageInputStream;
 import org.jetbrains.annotations.Nullable;
 
 import nl.airsupplies.utilities.annotation.UtilityClass;
+import nl.airsupplies.utilities.function.IOFunction;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
 
 import at.dhyan.open_imaging.GifDecoder;
 import at.dhyan.open_imaging.GifDecoder.GifImage;
@@ -40,14 +48,108 @@ import at.dhyan.open_imaging.GifDecoder.GifImage;
 // Changed 2015-08-15 added functions for AbstractImageResizer
 // Changed 2015-09-08 added functions for animations
 // Changed 2017-07-18 Extracted GIF loading to GIFLoader, and pulled up AnimationFrame
+// Changed 2026-10-17 Added streamAnimation, subsampled reading and thumbnails
 @UtilityClass
 public final class ImageUtilities {
 	/**
 	 * @see <a href="https://stackoverflow.com/a/27458294/1052284">https://stackoverflow.com/a/27458294/1052284</a>
 	 */
 	public static BufferedImage read(File file, int bufferedImageType) throws IOException {
+		return read(file, bufferedImageType, null, 1);
+	}
+
+	/**
+	 * Reads (part of) an image at a reduced resolution. The reader skips the pixels that aren't needed, which is
+	 * much faster and uses much less memory than reading the whole image and scaling it down afterwards.
+	 *
+	 * @param sourceRegion the area to read, in source pixels, or {@code null} to read the whole image
+	 * @param subsampling  reads only every {@code subsampling}-th row and column. 1 reads all pixels.
+	 */
+	public static BufferedImage read(File file,
+	                                 int bufferedImageType,
+	                                 @Nullable Rectangle sourceRegion,
+	                                 int subsampling) throws IOException {
+		requireAtLeast(1, subsampling, "subsampling");
+
+		return withReader(file, reader -> {
+			// Configure the param to use the destination type you want
+			ImageReadParam param = reader.getDefaultReadParam();
+			param.setDestinationType(ImageTypeSpecifier.createFromBufferedImageType(bufferedImageType));
+			if (sourceRegion != null) {
+				param.setSourceRegion(sourceRegion);
+			}
+
+			param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+			// Finally read the image, using settings from param
+			return reader.read(0, param);
+		});
+	}
+
+	/**
+	 * Reads the width and height of an image from its header, without decoding it.
+	 */
+	public static Dimension readSize(File file) throws IOException {
+		return withReader(file, reader -> new Dimension(reader.getWidth(0), reader.getHeight(0)));
+	}
+
+	/**
+	 * Reads an image scaled down to fit in a square of {@code maxSize} pixels, keeping the aspect ratio. Images that
+	 * already fit are not scaled up.
+	 * <p>
+	 * The image is decoded with the largest subsampling that keeps it at least as large as the result, and then
+	 * scaled down the rest of the way with bilinear interpolation.
+	 *
+	 * @return an image of type {@link BufferedImage#TYPE_INT_ARGB} or {@link BufferedImage#TYPE_INT_RGB}, depending on
+	 * the transparency of the source.
+	 */
+	public static BufferedImage readThumbnail(File file, int maxSize) throws IOException {
+		requireAtLeast(1, maxSize, "maxSize");
+
+		BufferedImage image = withReader(file, reader -> {
+			int longest     = Math.max(reader.getWidth(0), reader.getHeight(0));
+			int subsampling = Math.max(1, longest / maxSize);
+
+			ImageReadParam param = reader.getDefaultReadParam();
+			param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+			return reader.read(0, param);
+		});
+
+		int    width  = image.getWidth();
+		int    height = image.getHeight();
+		double scale  = Math.min(1, maxSize / (double)Math.max(width, height));
+		int    outW   = Math.max(1, (int)Math.round(width * scale));
+		int    outH   = Math.max(1, (int)Math.round(height * scale));
+
+		BufferedImage out = new BufferedImage(outW, outH, image.getTransparency() == Transparency.OPAQUE
+		                                                  ? BufferedImage.TYPE_INT_RGB
+		                                                  : BufferedImage.TYPE_INT_ARGB);
+
+		Graphics2D g = out.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(image, 0, 0, outW, outH, null);
+		g.dispose();
+
+		return out;
+	}
+
+	/**
+	 * Returns whether any installed {@link ImageReader} handles the extension of the file.
+	 */
+	public static boolean hasImageReader(Path file) {
+		String fileName = file.getFileName().toString();
+		int    i        = fileName.lastIndexOf('.');
+		return i >= 0 && ImageIO.getImageReadersBySuffix(fileName.substring(i + 1)).hasNext();
+	}
+
+	private static <T> T withReader(File file, IOFunction<ImageReader, T> operation) throws IOException {
 		// Create input stream
 		try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+			if (input == null) {
+				throw new FileNotFoundException(file.toString());
+			}
+
 			// Get the reader
 			Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
 
@@ -58,15 +160,10 @@ public final class ImageUtilities {
 			ImageReader reader = readers.next();
 
 			try {
-				// Set input
-				reader.setInput(input);
+				// Set input. Seeking forward only and skipping metadata lets the reader drop what it has read.
+				reader.setInput(input, true, true);
 
-				// Configure the param to use the destination type you want
-				ImageReadParam param = reader.getDefaultReadParam();
-				param.setDestinationType(ImageTypeSpecifier.createFromBufferedImageType(bufferedImageType));
-
-				// Finally read the image, using settings from param
-				return reader.read(0, param);
+				return operation.apply(reader);
 			} finally {
 				// Dispose reader in finally block to avoid memory leaks
 				reader.dispose();
@@ -111,28 +208,62 @@ public final class ImageUtilities {
 
 	public static @Nullable List<AnimationFrame> readAnimation(File file) throws IOException {
 		String fileName = file.getName();
-		if (fileName.length() >= 5 && fileName.toLowerCase().endsWith(".gif")) {
+		if (isGif(fileName)) {
+			List<AnimationFrame> frames = new ArrayList<>(16);
+
+			streamAnimation(file, frame -> {
+				BufferedImage image = frame.getImage();
+				int[]         data  = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+				frames.add(new AnimationFrame(toIntRasterImage(image.getWidth(), data, true),
+				                              frame.getDurationMillis()));
+			});
+
+			return frames;
+		} else {
+			// Fail jpg 01568928
+			BufferedImage image = ImageIO.read(file);
+			return image == null ? null : Collections.singletonList(new AnimationFrame(image, 1));
+		}
+	}
+
+	/**
+	 * Reads an animation one frame at a time, keeping only a few frames in memory regardless of the length of the
+	 * animation.
+	 * <p>
+	 * For GIF files, the image of every frame is the same instance, overwritten with the next frame after the consumer
+	 * returns. Copy it to keep it. Other files are read as a single frame.
+	 *
+	 * @return {@code false} if the file couldn't be read as an image
+	 */
+	public static boolean streamAnimation(File file, Consumer<AnimationFrame> consumer) throws IOException {
+		if (isGif(file.getName())) {
 			try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
 				GifImage gifImage = GifDecoder.read(in);
 
-				int                  frameCount = gifImage.getFrameCount();
-				List<AnimationFrame> frames     = new ArrayList<>(frameCount);
-
-				for (int i = 0; i < frameCount; i++) {
-					BufferedImage frame    = gifImage.getFrame(i);
+				Iterator<BufferedImage> iterator = gifImage.frameIterator();
+				for (int i = 0; iterator.hasNext(); i++) {
+					BufferedImage frame    = iterator.next();
 					int           duration = gifImage.getDelay(i) * 10; // Convert tics to ms
-					frames.add(new AnimationFrame(frame, duration));
+					consumer.accept(new AnimationFrame(frame, duration));
 				}
 
-				return frames;
+				return true;
 			}
 		} else {
-			// Fail jpg 01568928
 			BufferedImage image = ImageIO.read(file);
-			return image == null ? null : Collections.singletonList(new AnimationFrame(image, 1));
+			if (image == null) {
+				return false;
+			}
+
+			consumer.accept(new AnimationFrame(image, 1));
+			return true;
 		}
 	}
 
+	private static boolean isGif(String fileName) {
+		return fileName.length() >= 5 && fileName.toLowerCase().endsWith(".gif");
+	}
+
 	@SuppressWarnings("StringConcatenationMissingWhitespace")
 	public static String analyzeImage(Image img) {
 		if (img instanceof BufferedImage) {
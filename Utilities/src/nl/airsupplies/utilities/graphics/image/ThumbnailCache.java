@@ -0,0 +1,381 @@
+package nl.airsupplies.utilities.graphics.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import javax.imageio.ImageIO;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import nl.airsupplies.utilities.FileUtilities;
+import nl.airsupplies.utilities.HexUtilities;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * A directory of thumbnails, keyed by the content of the image they were made from.
+ * <p>
+ * Thumbnails are stored as PNG files named after the SHA-256 hash of the source file, so renamed, moved or duplicated
+ * images share a thumbnail. The hash of every source file is remembered in an index (together with its size and
+ * modification time) that is saved in the same directory by {@link #flush()}. After a restart, finding the thumbnail
+ * of an unchanged file then only costs a file stat.
+ * <p>
+ * The total size of the thumbnails is bounded. When it's exceeded, the least recently used thumbnails are deleted.
+ * Usage is recorded in the modification time of the thumbnails, so it survives restarts.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+// Changed 2026-10-17 getAll() skips files that fail to load, and runs on a given executor
+@ThreadSafe
+public class ThumbnailCache {
+	private static final String INDEX_FILE_NAME = "index.txt";
+	private static final String EXTENSION       = ".png";
+
+	private final Path directory;
+	private final int  thumbnailSize;
+	private final long maxBytes;
+
+	/** Maps the thumbnail file names to their sizes, in order of use (least recent first) */
+	@GuardedBy("this")
+	private final LinkedHashMap<String, Long> thumbnails = new LinkedHashMap<>(256, 0.75f, true);
+	@GuardedBy("this")
+	private final Map<Path, IndexEntry>       index      = new HashMap<>(256);
+	@GuardedBy("this")
+	private       long                        totalBytes = 0;
+	@GuardedBy("this")
+	private       boolean                     indexDirty = false;
+
+	private static final class IndexEntry {
+		private final long   size;
+		private final long   lastModified;
+		private final String hash;
+
+		private IndexEntry(long size, long lastModified, String hash) {
+			this.size         = size;
+			this.lastModified = lastModified;
+			this.hash         = hash;
+		}
+
+		private boolean matches(BasicFileAttributes attributes) {
+			return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+		}
+	}
+
+	/**
+	 * Opens a cache directory, creating it if it doesn't exist.
+	 *
+	 * @param thumbnailSize the maximum width and height of the thumbnails. Directories can be shared by caches with
+	 *                      different thumbnail sizes.
+	 * @param maxBytes      the maximum total size of the thumbnails in the directory
+	 */
+	public ThumbnailCache(Path directory, int thumbnailSize, long maxBytes) throws IOException {
+		this.directory     = requireNonNull(directory, "directory");
+		this.thumbnailSize = requireAtLeast(1, thumbnailSize, "thumbnailSize");
+		this.maxBytes      = requireAtLeast(0, maxBytes, "maxBytes");
+
+		Files.createDirectories(directory);
+		scanThumbnails();
+		readIndex();
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public int getThumbnailSize() {
+		return thumbnailSize;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Returns the thumbnail of an image file, reading and storing it if it isn't cached.
+	 *
+	 * @return an image of type {@link BufferedImage#TYPE_INT_ARGB} or {@link BufferedImage#TYPE_INT_RGB}
+	 * @throws IllegalArgumentException when no reader can decode the file
+	 * @see ImageUtilities#readThumbnail(java.io.File, int)
+	 */
+	public BufferedImage get(Path file) throws IOException {
+		requireNonNull(file, "file");
+
+		Path                key        = file.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+		String              hash;
+
+		synchronized (this) {
+			IndexEntry entry = index.get(key);
+			hash = entry != null && entry.matches(attributes) ? entry.hash : null;
+		}
+
+		if (hash == null) {
+			hash = hash(key);
+
+			synchronized (this) {
+				index.put(key, new IndexEntry(attributes.size(), attributes.lastModifiedTime().toMillis(), hash));
+				indexDirty = true;
+			}
+		}
+
+		String fileName  = hash + '_' + thumbnailSize + EXTENSION;
+		Path   thumbnail = directory.resolve(fileName);
+
+		@Nullable BufferedImage image = readThumbnail(fileName, thumbnail);
+		if (image != null) {
+			return image;
+		}
+
+		image = ImageUtilities.readThumbnail(key.toFile(), thumbnailSize);
+		writeThumbnail(fileName, thumbnail, image);
+		return image;
+	}
+
+	/**
+	 * Returns the thumbnails of all image files in a directory, reading the ones that aren't cached in parallel. The
+	 * index is saved afterwards.
+	 * <p>
+	 * Files that fail to load are left out of the result and reported to {@code failureHandler}, on the calling thread
+	 * after all files are done.
+	 *
+	 * @param fileFilter     selects the files to load, in addition to the files having an image reader for their
+	 *                       extension
+	 * @param executor       runs the loading. Loading is mostly I/O, so this is better not the executor of the image
+	 *                       operations (see {@link ImageMatrixExecutor}).
+	 * @param failureHandler receives the files that failed to load, with an {@link IOException} or an {@link
+	 *                       IllegalArgumentException} when no reader can decode the file
+	 * @return the thumbnails, in no particular order
+	 * @throws IOException when the directory can't be listed
+	 * @see ImageUtilities#hasImageReader(Path)
+	 */
+	public Map<Path, BufferedImage> getAll(Path directory, Predicate<Path> fileFilter, boolean recursive,
+	                                       Executor executor, BiConsumer<Path, Exception> failureHandler)
+			throws IOException {
+		requireNonNull(fileFilter, "fileFilter");
+		requireNonNull(executor, "executor");
+		requireNonNull(failureHandler, "failureHandler");
+
+		List<Path> files = FileUtilities.findFiles(
+				directory, file -> ImageUtilities.hasImageReader(file) && fileFilter.test(file), recursive);
+
+		Map<Path, BufferedImage> thumbnails = new ConcurrentHashMap<>(files.size());
+		Map<Path, Exception>     failures   = new ConcurrentHashMap<>(16);
+
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[files.size()];
+		for (int i = 0; i < futures.length; i++) {
+			Path file = files.get(i);
+			futures[i] = CompletableFuture.runAsync(() -> {
+				try {
+					thumbnails.put(file, get(file));
+				} catch (IOException | RuntimeException ex) {
+					failures.put(file, ex);
+				}
+			}, executor);
+		}
+
+		try {
+			CompletableFuture.allOf(futures).join();
+		} finally {
+			flush();
+		}
+
+		for (Path file : files) {
+			@Nullable Exception failure = failures.get(file);
+			if (failure != null) {
+				failureHandler.accept(file, failure);
+			}
+		}
+
+		return thumbnails;
+	}
+
+	/**
+	 * Saves the index, if it changed. Entries of thumbnails that were deleted are dropped.
+	 */
+	public synchronized void flush() throws IOException {
+		if (!indexDirty) {
+			return;
+		}
+
+		Set<String> hashes = new HashSet<>(thumbnails.size());
+		for (String fileName : thumbnails.keySet()) {
+			hashes.add(fileName.substring(0, fileName.indexOf('_')));
+		}
+
+		index.values().removeIf(entry -> !hashes.contains(entry.hash));
+
+		StringBuilder sb = new StringBuilder(index.size() * 128);
+		for (Map.Entry<Path, IndexEntry> entry : index.entrySet()) {
+			IndexEntry value = entry.getValue();
+			sb.append(value.hash).append('\t')
+			  .append(value.size).append('\t')
+			  .append(value.lastModified).append('\t')
+			  .append(entry.getKey()).append('\n');
+		}
+
+		FileUtilities.safeOverwrite(directory.resolve(INDEX_FILE_NAME),
+		                            file -> Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8)));
+		indexDirty = false;
+	}
+
+	private @Nullable BufferedImage readThumbnail(String fileName, Path thumbnail) throws IOException {
+		synchronized (this) {
+			if (thumbnails.get(fileName) == null) { // Also marks it as most recently used
+				return null;
+			}
+		}
+
+		try {
+			Files.setLastModifiedTime(thumbnail, FileTime.fromMillis(System.currentTimeMillis()));
+
+			@Nullable BufferedImage image = ImageIO.read(thumbnail.toFile());
+			if (image != null) {
+				return image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB
+				       ? image
+				       : ImageUtilities.toIntRasterImage(image);
+			}
+		} catch (NoSuchFileException ignored) {
+		}
+
+		// Deleted or corrupted behind our back
+		synchronized (this) {
+			@Nullable Long size = thumbnails.remove(fileName);
+			if (size != null) {
+				totalBytes -= size;
+			}
+		}
+
+		return null;
+	}
+
+	private void writeThumbnail(String fileName, Path thumbnail, BufferedImage image) throws IOException {
+		Path tmpFile = thumbnail.resolveSibling(fileName + '.' + Thread.currentThread().getId() + ".tmp");
+		ImageIO.write(image, "png", tmpFile.toFile());
+		FileUtilities.moveAtomically(tmpFile, thumbnail);
+
+		long size = Files.size(thumbnail);
+
+		synchronized (this) {
+			@Nullable Long previousSize = thumbnails.put(fileName, size);
+			totalBytes += size - (previousSize == null ? 0 : previousSize);
+
+			evict();
+		}
+	}
+
+	@GuardedBy("this")
+	private void evict() throws IOException {
+		Iterator<Map.Entry<String, Long>> iterator = thumbnails.entrySet().iterator();
+
+		// Always keep the most recent one
+		while (totalBytes > maxBytes && thumbnails.size() > 1) {
+			Map.Entry<String, Long> eldest = iterator.next();
+			iterator.remove();
+			totalBytes -= eldest.getValue();
+			indexDirty = true;
+
+			Files.deleteIfExists(directory.resolve(eldest.getKey()));
+		}
+	}
+
+	private void scanThumbnails() throws IOException {
+		List<Path>          files     = new ArrayList<>(256);
+		Map<Path, FileTime> fileTimes = new HashMap<>(256);
+		Map<Path, Long>     fileSizes = new HashMap<>(256);
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*_*" + EXTENSION)) {
+			for (Path file : stream) {
+				BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+				files.add(file);
+				fileTimes.put(file, attributes.lastModifiedTime());
+				fileSizes.put(file, attributes.size());
+			}
+		}
+
+		files.sort(Comparator.comparing(fileTimes::get));
+
+		synchronized (this) {
+			for (Path file : files) {
+				long size = fileSizes.get(file);
+				thumbnails.put(file.getFileName().toString(), size);
+				totalBytes += size;
+			}
+
+			evict();
+		}
+	}
+
+	private void readIndex() throws IOException {
+		Path indexFile = directory.resolve(INDEX_FILE_NAME);
+		if (!Files.exists(indexFile)) {
+			return;
+		}
+
+		synchronized (this) {
+			for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+				String[] fields = line.split("\t", 4);
+				if (fields.length != 4) {
+					indexDirty = true; // Rewrite without it
+					continue;
+				}
+
+				try {
+					index.put(Paths.get(fields[3]),
+					          new IndexEntry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[0]));
+				} catch (NumberFormatException ignored) {
+					indexDirty = true;
+				}
+			}
+		}
+	}
+
+	private static String hash(Path file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new AssertionError(ex); // Every Java platform is required to support SHA-256
+		}
+
+		byte[] buffer = new byte[65536];
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+
+		return HexUtilities.toUnsignedHex(digest.digest());
+	}
+}
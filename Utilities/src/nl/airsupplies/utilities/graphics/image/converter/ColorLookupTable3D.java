@@ -0,0 +1,176 @@
+package nl.airsupplies.utilities.graphics.image.converter;
+
+import net.jcip.annotations.Immutable;
+
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireBetween;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * A precomputed color conversion of the first three components, for conversions that are too expensive to evaluate
+ * per pixel, like non-linear ones. This is useful when many images are converted the same way, like the frames of a
+ * video.
+ * <p>
+ * The conversion is sampled on a grid of {@code size}<sup>3</sup> points spanning [0, 1] in every input component.
+ * Inputs are clamped to [0, 1] and the output is interpolated trilinearly between the eight surrounding grid points.
+ * Any further components (like alpha) are copied unchanged.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@Immutable
+public final class ColorLookupTable3D {
+	/**
+	 * Calculates the output of a single color.
+	 */
+	@FunctionalInterface
+	public interface ColorFunction {
+		void convert(float c0, float c1, float c2, float[] out);
+	}
+
+	private final int size;
+
+	/**
+	 * The grid, with the three outputs interleaved, indexed by {@code ((c2 * size + c1) * size + c0) * 3}.
+	 */
+	private final float[] table;
+
+	/**
+	 * @param size the number of grid points per component. 17 or 33 are common choices for smooth conversions.
+	 */
+	public ColorLookupTable3D(int size, ColorFunction function) {
+		requireBetween(2, 256, size, "size");
+		requireNonNull(function, "function");
+
+		this.size = size;
+		table     = new float[size * size * size * 3];
+
+		float[] out   = new float[3];
+		float   scale = 1.0f / (size - 1);
+		int     i     = 0;
+		for (int c2 = 0; c2 < size; c2++) {
+			for (int c1 = 0; c1 < size; c1++) {
+				for (int c0 = 0; c0 < size; c0++) {
+					function.convert(c0 * scale, c1 * scale, c2 * scale, out);
+					table[i++] = out[0];
+					table[i++] = out[1];
+					table[i++] = out[2];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Samples the {@link ImageConverter#convert(ImageMatrixFloat, ImageMatrixFloat) conversion} of an {@link
+	 * ImageConverter} that converts three components to three components.
+	 */
+	public static ColorLookupTable3D of(ImageConverter converter, int size) {
+		requireNonNull(converter, "converter");
+		requireBetween(2, 256, size, "size");
+
+		// One image with all grid points: c0 along x, c1 and c2 along y.
+		ImageMatrixFloat grid   = new ImageMatrixFloat(size, size * size, 3, 0);
+		ImageMatrixFloat result = new ImageMatrixFloat(size, size * size, 3, 0);
+		float            scale  = 1.0f / (size - 1);
+		for (int y = 0; y < size * size; y++) {
+			for (int x = 0; x < size; x++) {
+				grid.matrix[0][y][x] = x * scale;
+				grid.matrix[1][y][x] = y % size * scale;
+				grid.matrix[2][y][x] = y / size * scale;
+			}
+		}
+
+		converter.convert(grid, result);
+
+		return new ColorLookupTable3D(size, (c0, c1, c2, out) -> {
+			int x = Math.round(c0 / scale);
+			int y = Math.round(c1 / scale) + Math.round(c2 / scale) * size;
+			out[0] = result.matrix[0][y][x];
+			out[1] = result.matrix[1][y][x];
+			out[2] = result.matrix[2][y][x];
+		});
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Converts the image area. Parameters in and out may be the same image.
+	 */
+	public void apply(ImageMatrixFloat in, ImageMatrixFloat out) {
+		if (in.numComponents < 3 || out.numComponents < 3 || !in.isCompatibleBySize(out)) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		int width         = in.width;
+		int numComponents = Math.min(in.numComponents, out.numComponents);
+
+		ImageMatrixExecutor.forEachBand(1, 0, in.height, width * numComponents, (ignored, beginY, endY) -> {
+			for (int y = beginY; y < endY; y++) {
+				int inY  = in.border + y;
+				int outY = out.border + y;
+
+				applyRow(in.matrix[0][inY], in.matrix[1][inY], in.matrix[2][inY], in.border,
+				         out.matrix[0][outY], out.matrix[1][outY], out.matrix[2][outY], out.border, width);
+
+				if (in != out) {
+					for (int z = 3; z < numComponents; z++) {
+						System.arraycopy(in.matrix[z][inY], in.border, out.matrix[z][outY], out.border, width);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Converts {@code length} pixels of one row. The source and destination rows may be the same arrays.
+	 */
+	public void applyRow(float[] src0, float[] src1, float[] src2, int srcBegin,
+	                     float[] dst0, float[] dst1, float[] dst2, int dstBegin, int length) {
+		// Inner loop
+		int     x; // 4
+		float   f0; // 3
+		float   f1; // 3
+		float   f2; // 3
+		int     i; // 3
+		int     i0; // 2
+		int     i1; // 2
+		int     i2; // 2
+		float[] t      = table; // 2
+		int     stride = size * 3; // 2
+		int     plane  = size * size * 3; // 2
+		int     last   = size - 1; // 1
+		int     delta  = dstBegin - srcBegin; // 1
+		int     end    = srcBegin + length; // 1
+
+		for (x = srcBegin; x < end; x++) {
+			f0 = Math.min(Math.max(src0[x], 0), 1) * last;
+			f1 = Math.min(Math.max(src1[x], 0), 1) * last;
+			f2 = Math.min(Math.max(src2[x], 0), 1) * last;
+			i0 = Math.min((int)f0, last - 1);
+			i1 = Math.min((int)f1, last - 1);
+			i2 = Math.min((int)f2, last - 1);
+			f0 -= i0;
+			f1 -= i1;
+			f2 -= i2;
+
+			i = (i2 * size + i1) * stride + i0 * 3;
+			dst0[x + delta] = interpolate(t, i, stride, plane, f0, f1, f2);
+			dst1[x + delta] = interpolate(t, i + 1, stride, plane, f0, f1, f2);
+			dst2[x + delta] = interpolate(t, i + 2, stride, plane, f0, f1, f2);
+		}
+	}
+
+	private static float interpolate(float[] t, int i, int stride, int plane, float f0, float f1, float f2) {
+		float c00 = t[i] + (t[i + 3] - t[i]) * f0;
+		float c10 = t[i + stride] + (t[i + stride + 3] - t[i + stride]) * f0;
+		float c01 = t[i + plane] + (t[i + plane + 3] - t[i + plane]) * f0;
+		float c11 = t[i + plane + stride] + (t[i + plane + stride + 3] - t[i + plane + stride]) * f0;
+
+		float c0 = c00 + (c10 - c00) * f1;
+		float c1 = c01 + (c11 - c01) * f1;
+		return c0 + (c1 - c0) * f2;
+	}
+}
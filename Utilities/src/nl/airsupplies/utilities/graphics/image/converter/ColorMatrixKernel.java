@@ -0,0 +1,227 @@
+package nl.airsupplies.utilities.graphics.image.converter;
+
+import net.jcip.annotations.Immutable;
+
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * A linear color conversion of the first three components: a 3x3 matrix multiplication followed by an offset, and
+ * optionally clamping of the result. Any further components (like alpha) are copied unchanged.
+ * <p>
+ * Whole rows are converted in simple loops that the JIT can vectorize, and the rows are split into bands which are
+ * converted concurrently by {@link ImageMatrixExecutor}.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@Immutable
+public final class ColorMatrixKernel {
+	private final float m00;
+	private final float m01;
+	private final float m02;
+	private final float m10;
+	private final float m11;
+	private final float m12;
+	private final float m20;
+	private final float m21;
+	private final float m22;
+	private final float offset0;
+	private final float offset1;
+	private final float offset2;
+
+	private final boolean clamp;
+	private final float   min;
+	private final float   max;
+
+	/**
+	 * @param matrix the matrix in row-major order. Row {@code i} produces output component {@code i}.
+	 */
+	public ColorMatrixKernel(float[] matrix) {
+		this(matrix, new float[3]);
+	}
+
+	/**
+	 * @param matrix the matrix in row-major order. Row {@code i} produces output component {@code i}.
+	 * @param offset the values to add to the three output components.
+	 */
+	public ColorMatrixKernel(float[] matrix, float[] offset) {
+		this(matrix, offset, false, 0, 0);
+	}
+
+	private ColorMatrixKernel(float[] matrix, float[] offset, boolean clamp, float min, float max) {
+		requireNonNull(matrix, "matrix");
+		requireNonNull(offset, "offset");
+		if (matrix.length != 9) {
+			throw new IllegalArgumentException("'matrix' must have a length of exactly 9: " + matrix.length);
+		}
+		if (offset.length != 3) {
+			throw new IllegalArgumentException("'offset' must have a length of exactly 3: " + offset.length);
+		}
+
+		m00     = matrix[0];
+		m01     = matrix[1];
+		m02     = matrix[2];
+		m10     = matrix[3];
+		m11     = matrix[4];
+		m12     = matrix[5];
+		m20     = matrix[6];
+		m21     = matrix[7];
+		m22     = matrix[8];
+		offset0 = offset[0];
+		offset1 = offset[1];
+		offset2 = offset[2];
+
+		this.clamp = clamp;
+		this.min   = min;
+		this.max   = max;
+	}
+
+	/**
+	 * Returns a kernel that clamps the results to the range [{@code min}, {@code max}].
+	 */
+	public ColorMatrixKernel withClamp(float min, float max) {
+		if (!(min <= max)) {
+			throw new IllegalArgumentException("'min' must not be larger than 'max': " + min + " > " + max);
+		}
+
+		return new ColorMatrixKernel(getMatrix(), getOffset(), true, min, max);
+	}
+
+	/**
+	 * Returns a kernel that doesn't clamp.
+	 */
+	public ColorMatrixKernel withoutClamp() {
+		return clamp ? new ColorMatrixKernel(getMatrix(), getOffset()) : this;
+	}
+
+	/**
+	 * Returns the kernel that undoes this conversion. Clamping is not part of the inverse.
+	 *
+	 * @throws IllegalStateException if the matrix is singular
+	 */
+	public ColorMatrixKernel inverse() {
+		// Cofactors, in double precision because the matrices are often ill-conditioned
+		double c00 = (double)m11 * m22 - (double)m12 * m21;
+		double c01 = (double)m12 * m20 - (double)m10 * m22;
+		double c02 = (double)m10 * m21 - (double)m11 * m20;
+		double det = m00 * c00 + m01 * c01 + m02 * c02;
+		if (Math.abs(det) < 1.0e-12) {
+			throw new IllegalStateException("Matrix is singular");
+		}
+
+		double   invDet = 1 / det;
+		double[] inv    = {
+				c00 * invDet,
+				((double)m02 * m21 - (double)m01 * m22) * invDet,
+				((double)m01 * m12 - (double)m02 * m11) * invDet,
+				c01 * invDet,
+				((double)m00 * m22 - (double)m02 * m20) * invDet,
+				((double)m02 * m10 - (double)m00 * m12) * invDet,
+				c02 * invDet,
+				((double)m01 * m20 - (double)m00 * m21) * invDet,
+				((double)m00 * m11 - (double)m01 * m10) * invDet};
+
+		float[] matrix = new float[9];
+		float[] offset = new float[3];
+		for (int i = 0; i < 3; i++) {
+			matrix[i * 3]     = (float)inv[i * 3];
+			matrix[i * 3 + 1] = (float)inv[i * 3 + 1];
+			matrix[i * 3 + 2] = (float)inv[i * 3 + 2];
+			offset[i]         = (float)-(inv[i * 3] * offset0 + inv[i * 3 + 1] * offset1 + inv[i * 3 + 2] * offset2);
+		}
+
+		return new ColorMatrixKernel(matrix, offset);
+	}
+
+	public float[] getMatrix() {
+		return new float[]{m00, m01, m02, m10, m11, m12, m20, m21, m22};
+	}
+
+	public float[] getOffset() {
+		return new float[]{offset0, offset1, offset2};
+	}
+
+	public boolean isClamp() {
+		return clamp;
+	}
+
+	public float getMin() {
+		return min;
+	}
+
+	public float getMax() {
+		return max;
+	}
+
+	/**
+	 * Converts the image area. Parameters in and out may be the same image.
+	 */
+	public void apply(ImageMatrixFloat in, ImageMatrixFloat out) {
+		if (in.numComponents < 3 || out.numComponents < 3 || !in.isCompatibleBySize(out)) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		int width         = in.width;
+		int numComponents = Math.min(in.numComponents, out.numComponents);
+
+		ImageMatrixExecutor.forEachBand(1, 0, in.height, width * numComponents, (ignored, beginY, endY) -> {
+			for (int y = beginY; y < endY; y++) {
+				int inY  = in.border + y;
+				int outY = out.border + y;
+
+				applyRow(in.matrix[0][inY], in.matrix[1][inY], in.matrix[2][inY], in.border,
+				         out.matrix[0][outY], out.matrix[1][outY], out.matrix[2][outY], out.border, width);
+
+				if (in != out) {
+					for (int z = 3; z < numComponents; z++) {
+						System.arraycopy(in.matrix[z][inY], in.border, out.matrix[z][outY], out.border, width);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Converts {@code length} pixels of one row. The source and destination rows may be the same arrays.
+	 */
+	public void applyRow(float[] src0, float[] src1, float[] src2, int srcBegin,
+	                     float[] dst0, float[] dst1, float[] dst2, int dstBegin, int length) {
+		// Inner loop
+		int   x; // 3
+		float r; // 2
+		float g; // 2
+		float b; // 2
+		float c0; // 1
+		float c1; // 1
+		float c2; // 1
+		int   delta = dstBegin - srcBegin; // 1
+		int   end   = srcBegin + length; // 1
+
+		if (clamp) {
+			for (x = srcBegin; x < end; x++) {
+				r  = src0[x];
+				g  = src1[x];
+				b  = src2[x];
+				c0 = m00 * r + m01 * g + m02 * b + offset0;
+				c1 = m10 * r + m11 * g + m12 * b + offset1;
+				c2 = m20 * r + m21 * g + m22 * b + offset2;
+
+				dst0[x + delta] = Math.min(Math.max(c0, min), max);
+				dst1[x + delta] = Math.min(Math.max(c1, min), max);
+				dst2[x + delta] = Math.min(Math.max(c2, min), max);
+			}
+		} else {
+			for (x = srcBegin; x < end; x++) {
+				r = src0[x];
+				g = src1[x];
+				b = src2[x];
+
+				dst0[x + delta] = m00 * r + m01 * g + m02 * b + offset0;
+				dst1[x + delta] = m10 * r + m11 * g + m12 * b + offset1;
+				dst2[x + delta] = m20 * r + m21 * g + m22 * b + offset2;
+			}
+		}
+	}
+}
@@ -1,13 +1,99 @@
 package nl.airsupplies.utilities.graphics.image.converter;
 
+import org.jetbrains.annotations.Nullable;
+
 import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
 
 /**
+ * Converters of which the conversion is linear expose it as a {@link #getMatrixKernel() matrix kernel}, which is
+ * used by {@link #convertBatch(ImageMatrixFloat, ImageMatrixFloat)}. For other conversions, a {@link
+ * #setLookupTable(ColorLookupTable3D) 3D lookup table} can be precomputed to turn repeated conversions into table
+ * lookups.
+ *
  * @author Mark Jeronimus
  */
 // Created 2011-11-22
+// Changed 2026-10-17 Added batch conversion
 @SuppressWarnings("unused")
 public abstract class ImageConverter {
+	private @Nullable ColorLookupTable3D lookupTable = null;
+
+	/**
+	 * Returns the conversion as a matrix kernel, or {@code null} if the conversion is not linear.
+	 */
+	public @Nullable ColorMatrixKernel getMatrixKernel() {
+		return null;
+	}
+
+	/**
+	 * Returns the reverse conversion as a matrix kernel, or {@code null} if the reverse conversion is not linear.
+	 */
+	public @Nullable ColorMatrixKernel getReverseMatrixKernel() {
+		return null;
+	}
+
+	public @Nullable ColorLookupTable3D getLookupTable() {
+		return lookupTable;
+	}
+
+	/**
+	 * Sets a lookup table to be used by {@link #convertBatch(ImageMatrixFloat, ImageMatrixFloat)} instead of the
+	 * exact conversion. See {@link #useLookupTable(int)}.
+	 */
+	public void setLookupTable(@Nullable ColorLookupTable3D lookupTable) {
+		this.lookupTable = lookupTable;
+	}
+
+	/**
+	 * Samples the conversion of this converter into a lookup table, to be used by {@link
+	 * #convertBatch(ImageMatrixFloat, ImageMatrixFloat)} from now on. Only for conversions of three components to
+	 * three components.
+	 *
+	 * @param size the number of grid points per component
+	 */
+	public void useLookupTable(int size) {
+		lookupTable = ColorLookupTable3D.of(this, size);
+	}
+
+	/**
+	 * Converts the image area using the fastest available method: the {@link #getLookupTable() lookup table} if set,
+	 * otherwise the {@link #getMatrixKernel() matrix kernel} if the conversion is linear, otherwise {@link
+	 * #convert(ImageMatrixFloat, ImageMatrixFloat)} or {@link #convertSelf(ImageMatrixFloat)}. Parameters in and out
+	 * may be the same image.
+	 */
+	public void convertBatch(ImageMatrixFloat in, ImageMatrixFloat out) {
+		ColorLookupTable3D lookupTable = this.lookupTable;
+		if (lookupTable != null) {
+			lookupTable.apply(in, out);
+			return;
+		}
+
+		ColorMatrixKernel kernel = getMatrixKernel();
+		if (kernel != null) {
+			kernel.apply(in, out);
+		} else if (in == out) {
+			convertSelf(in);
+		} else {
+			convert(in, out);
+		}
+	}
+
+	/**
+	 * Reverses the conversion of the image area using the {@link #getReverseMatrixKernel() reverse matrix kernel} if
+	 * the reverse conversion is linear, otherwise {@link #reverse(ImageMatrixFloat, ImageMatrixFloat)} or {@link
+	 * #reverseSelf(ImageMatrixFloat)}. Parameters in and out may be the same image.
+	 */
+	public void reverseBatch(ImageMatrixFloat in, ImageMatrixFloat out) {
+		ColorMatrixKernel kernel = getReverseMatrixKernel();
+		if (kernel != null) {
+			kernel.apply(in, out);
+		} else if (in == out) {
+			reverseSelf(in);
+		} else {
+			reverse(in, out);
+		}
+	}
+
 	/**
 	 * Writes an image (but not the border) to a 1-dimensional array. The format of the array and what is done to the
 	 * image data depends on the specific implementation of the .
@@ -1,5 +1,6 @@
 package nl.airsupplies.utilities.graphics.image.converter;
 
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
 import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
 
 /**
@@ -8,7 +9,13 @@ import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
  * @author Mark Jeronimus
  */
 // Created 2011-11-22
+// Changed 2026-10-17 Parallel conversion, added convertSelf
 public class ImageGrayScaleConverter extends ImageConverter {
+	private static final ColorMatrixKernel DESATURATE_KERNEL = new ColorMatrixKernel(new float[]{
+			0.299f, 0.587f, 0.114f,
+			0.299f, 0.587f, 0.114f,
+			0.299f, 0.587f, 0.114f});
+
 	@Override
 	public void convertToArray(ImageMatrixFloat image, int[] array, int offset, int lineStride) {
 		// Inner loop
@@ -76,67 +83,103 @@ public class ImageGrayScaleConverter extends ImageConverter {
 		}
 	}
 
+	/**
+	 * Components 0 to 2 are desaturated into the first output component, and component 3 (if present) is copied to
+	 * the second output component.
+	 */
 	@Override
 	public void convert(ImageMatrixFloat inImage, ImageMatrixFloat outImage) {
-		// Inner loop
-		int     x;
-		int     endX = inImage.endX;
-		float[] rowIn0;
-		float[] rowIn1;
-		float[] rowIn2;
-		float[] rowOut0;
-		float[] rowIn3;
-		float[] rowOut1;
-
 		switch (inImage.numComponents) {
 			case 1:
-				for (int y = inImage.border; y < inImage.endY; y++) {
-					rowIn0  = inImage.matrix[0][y];
-					rowOut0 = outImage.matrix[0][y];
-					for (x = inImage.border; x < endX; x++) {
-						rowOut0[x] = rowIn0[x];
-					}
-				}
-				break;
 			case 2:
-				for (int y = inImage.border; y < inImage.endY; y++) {
-					rowIn0  = inImage.matrix[0][y];
-					rowIn1  = inImage.matrix[1][y];
-					rowOut0 = outImage.matrix[0][y];
-					rowOut1 = outImage.matrix[1][y];
-					for (x = inImage.border; x < endX; x++) {
-						rowOut0[x] = rowIn0[x];
-						rowOut1[x] = rowIn1[x];
-					}
-				}
-				break;
 			case 3:
-				for (int y = inImage.border; y < inImage.endY; y++) {
-					rowIn0  = inImage.matrix[0][y];
-					rowIn1  = inImage.matrix[1][y];
-					rowIn2  = inImage.matrix[2][y];
-					rowOut0 = outImage.matrix[0][y];
-					for (x = inImage.border; x < endX; x++) {
-						rowOut0[x] = rowIn0[x] * 0.299f + rowIn1[x] * 0.587f + rowIn2[x] * 0.114f;
+			case 4:
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported number of components: " + inImage.numComponents);
+		}
+
+		int numComponents = inImage.numComponents;
+		int numSamples    = inImage.width * numComponents;
+
+		ImageMatrixExecutor.forEachBand(1, inImage.border, inImage.endY, numSamples, (ignored, beginY, endY) -> {
+			// Inner loop
+			int     x; // 8
+			int     endX = inImage.endX; // 1
+			float[] rowIn0; // 1
+			float[] rowIn1; // 1
+			float[] rowIn2; // 1
+			float[] rowOut0; // 1
+			float[] rowIn3; // 1
+			float[] rowOut1; // 1
+
+			switch (numComponents) {
+				case 1:
+					for (int y = beginY; y < endY; y++) {
+						rowIn0  = inImage.matrix[0][y];
+						rowOut0 = outImage.matrix[0][y];
+						for (x = inImage.border; x < endX; x++) {
+							rowOut0[x] = rowIn0[x];
+						}
 					}
-				}
+					break;
+				case 2:
+					for (int y = beginY; y < endY; y++) {
+						rowIn0  = inImage.matrix[0][y];
+						rowIn1  = inImage.matrix[1][y];
+						rowOut0 = outImage.matrix[0][y];
+						rowOut1 = outImage.matrix[1][y];
+						for (x = inImage.border; x < endX; x++) {
+							rowOut0[x] = rowIn0[x];
+							rowOut1[x] = rowIn1[x];
+						}
+					}
+					break;
+				case 3:
+					for (int y = beginY; y < endY; y++) {
+						rowIn0  = inImage.matrix[0][y];
+						rowIn1  = inImage.matrix[1][y];
+						rowIn2  = inImage.matrix[2][y];
+						rowOut0 = outImage.matrix[0][y];
+						for (x = inImage.border; x < endX; x++) {
+							rowOut0[x] = rowIn0[x] * 0.299f + rowIn1[x] * 0.587f + rowIn2[x] * 0.114f;
+						}
+					}
+					break;
+				case 4:
+					for (int y = beginY; y < endY; y++) {
+						rowIn0  = inImage.matrix[0][y];
+						rowIn1  = inImage.matrix[1][y];
+						rowIn2  = inImage.matrix[2][y];
+						rowIn3  = inImage.matrix[3][y];
+						rowOut0 = outImage.matrix[0][y];
+						rowOut1 = outImage.matrix[1][y];
+						for (x = inImage.border; x < endX; x++) {
+							rowOut0[x] = rowIn0[x] * 0.299f + rowIn1[x] * 0.587f + rowIn2[x] * 0.114f;
+							rowOut1[x] = rowIn3[x];
+						}
+					}
+					break;
+			}
+		});
+	}
+
+	/**
+	 * Replaces components 0 to 2 by their gray value, keeping the number of components. Images with 1 or 2
+	 * components are already gray.
+	 */
+	@Override
+	public void convertSelf(ImageMatrixFloat image) {
+		switch (image.numComponents) {
+			case 1:
+			case 2:
 				break;
+			case 3:
 			case 4:
-				for (int y = inImage.border; y < inImage.endY; y++) {
-					rowIn0  = inImage.matrix[0][y];
-					rowIn1  = inImage.matrix[1][y];
-					rowIn2  = inImage.matrix[2][y];
-					rowIn3  = inImage.matrix[3][y];
-					rowOut0 = outImage.matrix[0][y];
-					rowOut1 = outImage.matrix[1][y];
-					for (x = inImage.border; x < endX; x++) {
-						rowOut0[x] = rowIn0[x] * 0.299f + rowIn1[x] * 0.587f + rowIn2[x] * 0.114f;
-						rowOut1[x] = rowIn3[x];
-					}
-				}
+				DESATURATE_KERNEL.apply(image, image);
 				break;
 			default:
-				throw new IllegalArgumentException("Unsupported number of components: " + inImage.numComponents);
+				throw new IllegalArgumentException("Unsupported number of components: " + image.numComponents);
 		}
 	}
 }
@@ -1,5 +1,6 @@
 package nl.airsupplies.utilities.graphics.image.converter;
 
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
 import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
 
 /**
@@ -8,6 +9,7 @@ import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
  * @author Mark Jeronimus
  */
 // Created 2011-11-22
+// Changed 2026-10-17 Parallel conversion
 public class ImageRainbowConverter extends ImageConverter {
 	@Override
 	public void convertToArray(ImageMatrixFloat image, int[] array, int offset, int lineStride) {
@@ -121,130 +123,140 @@ public class ImageRainbowConverter extends ImageConverter {
 
 	@Override
 	public void convert(ImageMatrixFloat inImage, ImageMatrixFloat outImage) {
-		// Inner loop
-		int     x;
-		int     endX = inImage.endX;
-		float   f;
-		float   hue6;
-		float   hueF;
-		float[] rowIn0;
-		float[] rowOut0;
-		float[] rowOut1;
-		float[] rowOut2;
-		float[] rowIn1;
-		float[] rowOut3;
-
 		switch (inImage.numComponents) {
 			case 1:
-				for (int y = inImage.border; y < inImage.endY; y++) {
-					rowIn0  = inImage.matrix[0][y];
-					rowOut0 = outImage.matrix[0][y];
-					rowOut1 = outImage.matrix[1][y];
-					rowOut2 = outImage.matrix[2][y];
-					for (x = inImage.border; x < endX; x++) {
-						f = rowIn0[x];
+			case 2:
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported number of components: " + inImage.numComponents);
+		}
 
-						// NaN always becomes black.
-						if (f != f) {
-							rowOut0[x] = 0;
-							rowOut1[x] = 0;
-							rowOut2[x] = 0;
-						} else {
-							hue6 = (f - (float)Math.floor(f)) * 6;
-							hueF = hue6 - (float)Math.floor(hue6);
-							switch ((int)hue6) {
-								case 0:
-									rowOut0[x] = 1;
-									rowOut1[x] = hueF;
-									rowOut2[x] = 0;
-									break;
-								case 1:
-									rowOut0[x] = 1 - hueF;
-									rowOut1[x] = 1;
-									rowOut2[x] = 0;
-									break;
-								case 2:
-									rowOut0[x] = 0;
-									rowOut1[x] = 1;
-									rowOut2[x] = hueF;
-									break;
-								case 3:
-									rowOut0[x] = 0;
-									rowOut1[x] = 1 - hueF;
-									rowOut2[x] = 1;
-									break;
-								case 4:
-									rowOut0[x] = hueF;
-									rowOut1[x] = 0;
-									rowOut2[x] = 1;
-									break;
-								case 5:
-									rowOut0[x] = 1;
-									rowOut1[x] = 0;
-									rowOut2[x] = 1 - hueF;
+		int numComponents = inImage.numComponents;
+
+		ImageMatrixExecutor.forEachBand(1, inImage.border, inImage.endY, inImage.width * 4, (ignored, beginY, endY) -> {
+			// Inner loop
+			int     x;
+			int     endX = inImage.endX;
+			float   f;
+			float   hue6;
+			float   hueF;
+			float[] rowIn0;
+			float[] rowOut0;
+			float[] rowOut1;
+			float[] rowOut2;
+			float[] rowIn1;
+			float[] rowOut3;
+
+			switch (numComponents) {
+				case 1:
+					for (int y = beginY; y < endY; y++) {
+						rowIn0  = inImage.matrix[0][y];
+						rowOut0 = outImage.matrix[0][y];
+						rowOut1 = outImage.matrix[1][y];
+						rowOut2 = outImage.matrix[2][y];
+						for (x = inImage.border; x < endX; x++) {
+							f = rowIn0[x];
+
+							// NaN always becomes black.
+							if (f != f) {
+								rowOut0[x] = 0;
+								rowOut1[x] = 0;
+								rowOut2[x] = 0;
+							} else {
+								hue6 = (f - (float)Math.floor(f)) * 6;
+								hueF = hue6 - (float)Math.floor(hue6);
+								switch ((int)hue6) {
+									case 0:
+										rowOut0[x] = 1;
+										rowOut1[x] = hueF;
+										rowOut2[x] = 0;
+										break;
+									case 1:
+										rowOut0[x] = 1 - hueF;
+										rowOut1[x] = 1;
+										rowOut2[x] = 0;
+										break;
+									case 2:
+										rowOut0[x] = 0;
+										rowOut1[x] = 1;
+										rowOut2[x] = hueF;
+										break;
+									case 3:
+										rowOut0[x] = 0;
+										rowOut1[x] = 1 - hueF;
+										rowOut2[x] = 1;
+										break;
+									case 4:
+										rowOut0[x] = hueF;
+										rowOut1[x] = 0;
+										rowOut2[x] = 1;
+										break;
+									case 5:
+										rowOut0[x] = 1;
+										rowOut1[x] = 0;
+										rowOut2[x] = 1 - hueF;
+								}
 							}
 						}
 					}
-				}
-				break;
-			case 2:
-				for (int y = inImage.border; y < inImage.endY; y++) {
-					rowIn0  = inImage.matrix[0][y];
-					rowIn1  = inImage.matrix[1][y];
-					rowOut0 = outImage.matrix[0][y];
-					rowOut1 = outImage.matrix[1][y];
-					rowOut2 = outImage.matrix[2][y];
-					rowOut3 = outImage.matrix[3][y];
-					for (x = inImage.border; x < endX; x++) {
-						f = rowIn0[x];
+					break;
+				case 2:
+					for (int y = beginY; y < endY; y++) {
+						rowIn0  = inImage.matrix[0][y];
+						rowIn1  = inImage.matrix[1][y];
+						rowOut0 = outImage.matrix[0][y];
+						rowOut1 = outImage.matrix[1][y];
+						rowOut2 = outImage.matrix[2][y];
+						rowOut3 = outImage.matrix[3][y];
+						for (x = inImage.border; x < endX; x++) {
+							f = rowIn0[x];
 
-						// NaN always becomes black.
-						if (f != f) {
-							rowOut0[x] = 0;
-							rowOut1[x] = 0;
-							rowOut2[x] = 0;
-						} else {
-							hue6 = (f - (float)Math.floor(f)) * 6;
-							hueF = hue6 - (float)Math.floor(hue6);
-							switch ((int)hue6) {
-								case 0:
-									rowOut0[x] = 1;
-									rowOut1[x] = hueF;
-									rowOut2[x] = 0;
-									break;
-								case 1:
-									rowOut0[x] = 1 - hueF;
-									rowOut1[x] = 1;
-									rowOut2[x] = 0;
-									break;
-								case 2:
-									rowOut0[x] = 0;
-									rowOut1[x] = 1;
-									rowOut2[x] = hueF;
-									break;
-								case 3:
-									rowOut0[x] = 0;
-									rowOut1[x] = 1 - hueF;
-									rowOut2[x] = 1;
-									break;
-								case 4:
-									rowOut0[x] = hueF;
-									rowOut1[x] = 0;
-									rowOut2[x] = 1;
-									break;
-								case 5:
-									rowOut0[x] = 1;
-									rowOut1[x] = 0;
-									rowOut2[x] = 1 - hueF;
+							// NaN always becomes black.
+							if (f != f) {
+								rowOut0[x] = 0;
+								rowOut1[x] = 0;
+								rowOut2[x] = 0;
+							} else {
+								hue6 = (f - (float)Math.floor(f)) * 6;
+								hueF = hue6 - (float)Math.floor(hue6);
+								switch ((int)hue6) {
+									case 0:
+										rowOut0[x] = 1;
+										rowOut1[x] = hueF;
+										rowOut2[x] = 0;
+										break;
+									case 1:
+										rowOut0[x] = 1 - hueF;
+										rowOut1[x] = 1;
+										rowOut2[x] = 0;
+										break;
+									case 2:
+										rowOut0[x] = 0;
+										rowOut1[x] = 1;
+										rowOut2[x] = hueF;
+										break;
+									case 3:
+										rowOut0[x] = 0;
+										rowOut1[x] = 1 - hueF;
+										rowOut2[x] = 1;
+										break;
+									case 4:
+										rowOut0[x] = hueF;
+										rowOut1[x] = 0;
+										rowOut2[x] = 1;
+										break;
+									case 5:
+										rowOut0[x] = 1;
+										rowOut1[x] = 0;
+										rowOut2[x] = 1 - hueF;
+								}
 							}
-						}
 
-						rowOut3[x] = rowIn1[x];
+							rowOut3[x] = rowIn1[x];
+						}
 					}
-				}
-				break;
-			default:
-				throw new IllegalArgumentException("Unsupported number of components: " + inImage.numComponents);
-		}
+					break;
+			}
+		});
 	}
 }
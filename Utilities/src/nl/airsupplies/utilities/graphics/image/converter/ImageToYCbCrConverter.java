@@ -8,75 +8,62 @@ import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
  * @author Mark Jeronimus
  */
 // Created 2011-11-22
+// Changed 2026-10-17 Converts with matrix kernels
 public class ImageToYCbCrConverter extends ImageConverter {
+	/**
+	 * RGB to (Pr, Y, Pb)
+	 */
+	private static final ColorMatrixKernel KERNEL = new ColorMatrixKernel(new float[]{
+			0.50000000000000000000f, -0.41868758915834522111f, -0.081312410841654778888f,
+			0.29900000000000000000f, 0.58700000000000000000f, 0.114000000000000000000f,
+			-0.16873589164785553047f, -0.33126410835214446952f, 0.500000000000000000000f});
+
+	/**
+	 * (Pr, Y, Pb) to RGB
+	 */
+	private static final ColorMatrixKernel REVERSE_KERNEL = new ColorMatrixKernel(new float[]{
+			1.40200000000000000000f, 1, 0,
+			-0.71413628620102214645f, 1, -0.34413628620102214650f,
+			0, 1, 1.77200000000000000000f});
+
+	@Override
+	public ColorMatrixKernel getMatrixKernel() {
+		return KERNEL;
+	}
+
+	@Override
+	public ColorMatrixKernel getReverseMatrixKernel() {
+		return REVERSE_KERNEL;
+	}
+
+	@Override
+	public void convert(ImageMatrixFloat inImage, ImageMatrixFloat outImage) {
+		requireSupported(inImage);
+		KERNEL.apply(inImage, outImage);
+	}
+
 	@Override
 	public void convertSelf(ImageMatrixFloat image) {
-		// Inner loop
-		float   r;
-		float   g;
-		float   b;
-		int     x;
-		int     endX = image.endX;
-		float[] row0;
-		float[] row1;
-		float[] row2;
+		requireSupported(image);
+		KERNEL.apply(image, image);
+	}
 
-		switch (image.numComponents) {
-			case 3:
-			case 4:
-				for (int y = image.border; y < image.endY; y++) {
-					row0 = image.matrix[0][y];
-					row1 = image.matrix[1][y];
-					row2 = image.matrix[2][y];
-					for (x = image.border; x < endX; x++) {
-						r       = row0[x];
-						g       = row1[x];
-						b       = row2[x];
-						row0[x] = 0.50000000000000000000f * r -
-						          0.41868758915834522111f * g -
-						          0.081312410841654778888f * b; // pr
-						row1[x] = 0.29900000000000000000f * r +
-						          0.58700000000000000000f * g +
-						          0.114000000000000000000f * b; // y
-						row2[x] = -0.16873589164785553047f * r -
-						          0.33126410835214446952f * g +
-						          0.500000000000000000000f * b; // pb
-					}
-				}
-				break;
-			default:
-				throw new IllegalArgumentException("Unsupported number of components: " + image.numComponents);
-		}
+	@Override
+	public void reverse(ImageMatrixFloat inImage, ImageMatrixFloat outImage) {
+		requireSupported(inImage);
+		REVERSE_KERNEL.apply(inImage, outImage);
 	}
 
 	@Override
 	public void reverseSelf(ImageMatrixFloat image) {
-		// Inner loop
-		float   pr;
-		float   py;
-		float   pb;
-		int     x;
-		int     endX = image.endX;
-		float[] row0;
-		float[] row1;
-		float[] row2;
+		requireSupported(image);
+		REVERSE_KERNEL.apply(image, image);
+	}
 
+	private static void requireSupported(ImageMatrixFloat image) {
 		switch (image.numComponents) {
 			case 3:
 			case 4:
-				for (int y = image.border; y < image.endY; y++) {
-					row0 = image.matrix[0][y];
-					row1 = image.matrix[1][y];
-					row2 = image.matrix[2][y];
-					for (x = image.border; x < endX; x++) {
-						pr      = row0[x];
-						py      = row1[x];
-						pb      = row2[x];
-						row0[x] = py + 1.40200000000000000000f * pr;
-						row1[x] = py - 0.34413628620102214650f * pb - 0.71413628620102214645f * pr;
-						row2[x] = py + 1.77200000000000000000f * pb;
-					}
-				}
 				break;
 			default:
 				throw new IllegalArgumentException("Unsupported number of components: " + image.numComponents);
@@ -1,6 +1,17 @@
 package nl.airsupplies.utilities.graphics.image.filter;
 
+import java.util.Arrays;
+import java.util.Random;
+
+import org.jetbrains.annotations.Nullable;
+
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.BorderMode;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
 import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.function.RowKernels;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
 
 /**
  * Convolution of the shape:
@@ -10,19 +21,63 @@ import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
  * d e f
  * g h i
  * </pre>
+ * <p>
+ * Kernels with a diameter of at least {@link #getFFTCrossover() the FFT crossover} are convolved with an FFT (see
+ * {@link ImageFFTConvolver}) instead of directly. Kernels of low rank (like Gaussian and box kernels) are convolved as
+ * a sum of horizontal and vertical passes (see {@link ImageSeparableConvolver}) when that's cheaper. The border is
+ * used the same way in all cases. The setup of both (the decomposition of the kernel, or the spectrum of the kernel for
+ * the image size) is kept between calls.
+ * <p>
+ * With a {@link #setBorderMode(BorderMode, float) virtual border}, the FFT is never used.
  *
  * @author Mark Jeronimus
  */
 // Created 2011-11-22
+// Changed 2026-10-17 Accepts any layout of the samples
 public class ImageConvolutionFilter extends ImageFilter {
 	public final int       diameter;
 	public final int       radius;
 	public final float[][] kernel;
 
-	private final ConvolutionProcess processes;
+	/**
+	 * System property to override the default FFT crossover, see {@link #setFFTCrossover(int)}.
+	 */
+	public static final String FFT_CROSSOVER_PROPERTY = "nl.airsupplies.utilities.graphics.image.fftCrossover";
+
+	/**
+	 * The default for {@link #setFFTCrossover(int)}, about where the FFT starts to be faster on current hardware.
+	 */
+	public static final int DEFAULT_FFT_CROSSOVER = 15;
+
+	/**
+	 * The smallest kernel diameter that is considered for separable convolution. The 3x3 convolution is faster
+	 * directly.
+	 */
+	private static final int MIN_SEPARABLE_DIAMETER = 5;
+
+	/**
+	 * The default for {@link #setSeparableTolerance(float)}, about the precision of a {@code float}.
+	 */
+	public static final float DEFAULT_SEPARABLE_TOLERANCE = 1.0e-6f;
+
+	private static final RowKernels KERNELS = RowKernels.get();
+
+	private static volatile int fftCrossover = Integer.getInteger(FFT_CROSSOVER_PROPERTY, DEFAULT_FFT_CROSSOVER);
+
+	private float separableTolerance = DEFAULT_SEPARABLE_TOLERANCE;
+
+	/**
+	 * A copy of the kernel that {@link #separable} was calculated for, to detect changes to {@link #kernel}.
+	 */
+	private @Nullable float[][]               separableKernel = null;
+	private @Nullable ImageSeparableConvolver separable       = null;
+	private @Nullable ImageMatrixFloat        pooledTemp      = null;
 
-	ImageMatrixFloat in;
-	ImageMatrixFloat out;
+	/**
+	 * A copy of the kernel that {@link #fftConvolver} was calculated for, to detect changes to {@link #kernel}.
+	 */
+	private @Nullable float[][]         fftKernel    = null;
+	private @Nullable ImageFFTConvolver fftConvolver = null;
 
 	public ImageConvolutionFilter(float[]... kernel) {
 		diameter = kernel.length;
@@ -38,20 +93,6 @@ public class ImageConvolutionFilter extends ImageFilter {
 
 		radius      = diameter >> 1;
 		this.kernel = kernel;
-
-		switch (radius) {
-			case 1:
-				processes = new ConvolutionProcess3();
-				break;
-			case 2:
-				processes = new ConvolutionProcess5();
-				break;
-			default:
-				processes = new ConvolutionProcessN();
-				// throw new
-				// IllegalArgumentException("Kernel size not supported: " +
-				// diameter);
-		}
 	}
 
 	public static ImageConvolutionFilter designDiscBlur(float radius) {
@@ -173,8 +214,84 @@ public class ImageConvolutionFilter extends ImageFilter {
 		}
 	}
 
+	public float getSeparableTolerance() {
+		return separableTolerance;
+	}
+
+	/**
+	 * Sets the largest error (the Frobenius norm of the difference, relative to that of the kernel) for which the
+	 * kernel is considered separable. Use 0 to never use separable convolution.
+	 */
+	public void setSeparableTolerance(float separableTolerance) {
+		this.separableTolerance = requireAtLeast(0.0f, separableTolerance, "separableTolerance");
+		separableKernel         = null;
+	}
+
+	/**
+	 * Returns the number of separable terms the kernel is convolved with, or 0 if it's not convolved separably.
+	 */
+	public int getSeparableRank() {
+		ImageSeparableConvolver separable = getSeparable();
+		return separable == null ? 0 : separable.getRank();
+	}
+
+	/**
+	 * When the kernel is convolved separably, a temporary image is needed. This is kept between calls.
+	 */
 	@Override
 	public void filter(ImageMatrixFloat in, ImageMatrixFloat out) {
+		filter((AbstractImageMatrixFloat)in, null, out);
+	}
+
+	/**
+	 * When the kernel is convolved separably, a temporary image is needed. This is kept between calls.
+	 */
+	@Override
+	public void filter(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out) {
+		filter(in, null, out);
+	}
+
+	/**
+	 * Only uses a temp image when the kernel is convolved separably, which is not the case when it's convolved with an
+	 * FFT.
+	 */
+	@Override
+	protected boolean usesTemp() {
+		ImageSeparableConvolver separable = getSeparable();
+		return separable != null && !useFFT(separable);
+	}
+
+	/**
+	 * Parameters in and out must be different images. Temp must be different from both, and is only used when the
+	 * kernel is convolved separably.
+	 */
+	@Override
+	public void filter(ImageMatrixFloat in, @Nullable ImageMatrixFloat temp, ImageMatrixFloat out) {
+		filter((AbstractImageMatrixFloat)in, temp, out);
+	}
+
+	/**
+	 * Like {@link #filter(ImageMatrixFloat, ImageMatrixFloat, ImageMatrixFloat)}, for images with any layout of the
+	 * samples. The temp image can have another layout than the in and out images.
+	 */
+	public void filter(AbstractImageMatrixFloat in, @Nullable AbstractImageMatrixFloat temp,
+	                   AbstractImageMatrixFloat out) {
+		BorderMode borderMode = this.borderMode;
+		if (borderMode != null) {
+			if (!in.isCompatibleBySize(out) || in.numComponents > out.numComponents) {
+				throw new IllegalArgumentException("Images not compatible");
+			}
+
+			ImageSeparableConvolver separable = getSeparable();
+			if (separable != null) {
+				separable.convolve(in, getTemp(in, temp), out, borderMode, borderConstant);
+			} else {
+				filterVirtual(in, out, borderMode, borderConstant);
+			}
+
+			return;
+		}
+
 		if (in.border < radius) {
 			throw new IllegalArgumentException("Border too small for kernel: " + in.border + " < " + radius);
 		}
@@ -182,150 +299,271 @@ public class ImageConvolutionFilter extends ImageFilter {
 			throw new IllegalArgumentException("Images not compatible");
 		}
 
-		this.in  = in;
-		this.out = out;
-		processes.convolve();
+		ImageSeparableConvolver separable = getSeparable();
+		if (useFFT(separable)) {
+			getFFTConvolver(in.width, in.height).convolve(in, out);
+		} else if (separable != null) {
+			separable.convolve(in, getTemp(in, temp), out);
+		} else {
+			filterDirect(in, out);
+		}
+	}
+
+	private @Nullable ImageSeparableConvolver getSeparable() {
+		if (diameter < MIN_SEPARABLE_DIAMETER || separableTolerance == 0) {
+			return null;
+		}
+
+		if (!Arrays.deepEquals(kernel, separableKernel)) {
+			// Only worth it while 2 * rank * diameter < diameter * diameter.
+			separable       = ImageSeparableConvolver.decompose(kernel, separableTolerance, (diameter - 1) / 2);
+			separableKernel = copyKernel();
+		}
+
+		return separable;
 	}
 
-	private interface ConvolutionProcess {
-		void convolve();
+	/**
+	 * Returns the FFT convolver for the current kernel and the image size, which is kept between calls.
+	 */
+	private ImageFFTConvolver getFFTConvolver(int width, int height) {
+		ImageFFTConvolver fftConvolver = this.fftConvolver;
+		if (fftConvolver == null || !fftConvolver.isForSize(width, height) || !Arrays.deepEquals(kernel, fftKernel)) {
+			fftConvolver      = new ImageFFTConvolver(kernel, width, height);
+			fftKernel         = copyKernel();
+			this.fftConvolver = fftConvolver;
+		}
+
+		return fftConvolver;
+	}
+
+	private float[][] copyKernel() {
+		float[][] copy = new float[diameter][];
+		for (int y = 0; y < diameter; y++) {
+			copy[y] = kernel[y].clone();
+		}
+
+		return copy;
 	}
 
-	private class ConvolutionProcess3 implements ConvolutionProcess {
-		public ConvolutionProcess3() {
+	private AbstractImageMatrixFloat getTemp(AbstractImageMatrixFloat in, @Nullable AbstractImageMatrixFloat temp) {
+		if (temp != null) {
+			if (!in.isCompatibleByBorderAndSize(temp) || temp.numComponents < in.numComponents) {
+				throw new IllegalArgumentException("Images not compatible");
+			}
+
+			return temp;
 		}
 
-		@Override
-		public void convolve() {
-			// Inner loop
-			int     x;
-			int     endX = in.endX;
-			float[] row0;
-			float[] row1;
-			float[] row2;
-			float[] rowOut;
-			float[] kernel0;
-			float[] kernel1;
-			float[] kernel2;
-
-			for (int z = 0; z < in.numComponents; z++) {
-				for (int y = in.border; y < in.endY; y++) {
-					row0    = in.matrix[z][y - 1];
-					row1    = in.matrix[z][y];
-					row2    = in.matrix[z][y + 1];
-					rowOut  = out.matrix[z][y];
-					kernel0 = kernel[0];
-					kernel1 = kernel[1];
-					kernel2 = kernel[2];
-					for (x = in.border; x < endX; x++) {
-						rowOut[x] = row0[x - 1] * kernel0[0] +
-						            row0[x] * kernel0[1] +
-						            row0[x + 1] * kernel0[2] +
-						            row1[x - 1] * kernel1[0] +
-						            row1[x] * kernel1[1] +
-						            row1[x + 1] * kernel1[2] +
-						            row2[x - 1] * kernel2[0] +
-						            row2[x] * kernel2[1] +
-						            row2[x + 1] * kernel2[2];
+		if (pooledTemp == null || !in.isCompatibleByBorderAndSize(pooledTemp) ||
+		    pooledTemp.numComponents < in.numComponents) {
+			pooledTemp = new ImageMatrixFloat(in.width, in.height, in.numComponents, in.border);
+		}
+
+		return pooledTemp;
+	}
+
+	@Override
+	protected boolean isBorderModeSupported() {
+		return true;
+	}
+
+	/**
+	 * Direct convolution with a virtual border. The {@code diameter} input rows around the current row are kept padded
+	 * in a ring of line buffers, so every input row is padded only once per band.
+	 */
+	private void filterVirtual(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out,
+	                           BorderMode mode, float constant) {
+		int width       = in.width;
+		int height      = in.height;
+		int paddedWidth = width + radius * 2;
+
+		ImageMatrixExecutor.forEachBand(in.numComponents, 0, height, width, (z, beginY, endY) -> {
+			FloatRow  rowIn       = new FloatRow();
+			FloatRow  rowOut      = new FloatRow();
+			float[][] ring        = new float[diameter][paddedWidth];
+			int[]     ringY       = new int[diameter];
+			float[][] rows        = new float[diameter][];
+			int[]     begins      = new int[diameter];
+			float[]   constantRow = new float[paddedWidth];
+			Arrays.fill(ringY, Integer.MIN_VALUE);
+			Arrays.fill(begins, radius);
+			Arrays.fill(constantRow, constant);
+
+			for (int y = beginY; y < endY; y++) {
+				for (int v = 0; v < diameter; v++) {
+					int inY    = y + v - radius;
+					int mapped = mode.map(inY, height);
+					if (mapped < 0) {
+						rows[v] = constantRow;
+						continue;
 					}
+
+					int slot = Math.floorMod(inY, diameter);
+					if (ringY[slot] != inY) {
+						in.readRow(z, in.border + mapped, in.border, width, rowIn);
+						mode.padLine(rowIn.array, rowIn.offset + in.border, width, ring[slot], radius, constant);
+						ringY[slot] = inY;
+					}
+
+					rows[v] = ring[slot];
 				}
+
+				out.readRow(z, out.border + y, out.border, width, rowOut);
+				convolveRows(rows, begins, rowOut.array, rowOut.offset + out.border, width);
+				out.writeRow(z, out.border + y, out.border, width, rowOut);
 			}
-		}
+		});
 	}
 
-	private class ConvolutionProcess5 implements ConvolutionProcess {
-		public ConvolutionProcess5() {
+	/**
+	 * Convolves {@code diameter} rows into {@code length} samples of {@code out}. Sample {@code i} of the output is
+	 * centered on sample {@code begins[v] + i} of {@code rows[v]}.
+	 */
+	private void convolveRows(float[][] rows, int[] begins, float[] out, int outBegin, int length) {
+		switch (radius) {
+			case 1:
+				KERNELS.convolve3(out, outBegin, rows, begins, kernel, length);
+				return;
+			case 2:
+				KERNELS.convolve5(out, outBegin, rows, begins, kernel, length);
+				return;
+			default:
+		}
+
+		// Accumulates one kernel element at a time over a whole row, which sums in the same order as the per-pixel
+		// loop, but with sequential memory access.
+
+		// Inner loop
+		int     x; // 4
+		float[] row; // 3
+		float   k; // 3
+		int     offset; // 2
+		float[] kernelRow; // 1
+		int     end = outBegin + length; // 1
+
+		for (x = outBegin; x < end; x++) {
+			out[x] = 0;
 		}
 
-		@Override
-		public void convolve() {
-			// Inner loop
-			int     x;
-			int     endX = in.endX;
-			float[] row;
-			float[] row0;
-			float[] row1;
-			float[] row2;
-			float[] row3;
-			float[] row4;
-			float[] kernel0;
-			float[] kernel1;
-			float[] kernel2;
-			float[] kernel3;
-			float[] kernel4;
-
-			for (int z = 0; z < in.numComponents; z++) {
-				for (int y = in.border; y < in.endY; y++) {
-					row     = out.matrix[z][y];
-					row0    = in.matrix[z][y - 2];
-					row1    = in.matrix[z][y - 1];
-					row2    = in.matrix[z][y];
-					row3    = in.matrix[z][y + 1];
-					row4    = in.matrix[z][y + 2];
-					kernel0 = kernel[0];
-					kernel1 = kernel[1];
-					kernel2 = kernel[2];
-					kernel3 = kernel[3];
-					kernel4 = kernel[4];
-					for (x = in.border; x < endX; x++) {
-						row[x] = row0[x - 2] * kernel0[0] +
-						         row0[x - 1] * kernel0[1] +
-						         row0[x] * kernel0[2] +
-						         row0[x + 1] * kernel0[3] +
-						         row0[x + 2] * kernel0[4] +
-						         row1[x - 2] * kernel1[0] +
-						         row1[x - 1] * kernel1[1] +
-						         row1[x] * kernel1[2] +
-						         row1[x + 1] * kernel1[3] +
-						         row1[x + 2] * kernel1[4] +
-						         row2[x - 2] * kernel2[0] +
-						         row2[x - 1] * kernel2[1] +
-						         row2[x] * kernel2[2] +
-						         row2[x + 1] * kernel2[3] +
-						         row2[x + 2] * kernel2[4] +
-						         row3[x - 2] * kernel3[0] +
-						         row3[x - 1] * kernel3[1] +
-						         row3[x] * kernel3[2] +
-						         row3[x + 1] * kernel3[3] +
-						         row3[x + 2] * kernel3[4] +
-						         row4[x - 2] * kernel4[0] +
-						         row4[x - 1] * kernel4[1] +
-						         row4[x] * kernel4[2] +
-						         row4[x + 1] * kernel4[3] +
-						         row4[x + 2] * kernel4[4];
-					}
+		for (int v = 0; v < diameter; v++) {
+			row       = rows[v];
+			kernelRow = kernel[v];
+			for (int u = 0; u < diameter; u++) {
+				k      = kernelRow[u];
+				offset = begins[v] - outBegin + u - radius;
+				for (x = outBegin; x < end; x++) {
+					out[x] += row[x + offset] * k;
 				}
 			}
 		}
 	}
 
-	private class ConvolutionProcessN implements ConvolutionProcess {
-		public ConvolutionProcessN() {
+	/**
+	 * Direct convolution with the physical border. The {@code diameter} input rows around the current row are kept in
+	 * a {@link RowWindow}.
+	 */
+	void filterDirect(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out) {
+		int width = in.width;
+
+		ImageMatrixExecutor.forEachBand(in, (z, beginY, endY) -> {
+			RowWindow window = new RowWindow(in, z, in.border - radius, width + radius * 2, diameter);
+			FloatRow  rowOut = new FloatRow();
+			float[][] rows   = new float[diameter][];
+			int[]     begins = new int[diameter];
+
+			for (int y = beginY; y < endY; y++) {
+				for (int v = 0; v < diameter; v++) {
+					FloatRow row = window.get(y + v - radius);
+					rows[v]   = row.array;
+					begins[v] = row.offset + in.border;
+				}
+
+				out.readRow(z, y, out.border, width, rowOut);
+				convolveRows(rows, begins, rowOut.array, rowOut.offset + out.border, width);
+				out.writeRow(z, y, out.border, width, rowOut);
+			}
+		});
+	}
+
+	/**
+	 * Decides between the FFT and the direct or separable convolution, with the current settings.
+	 *
+	 * @param separable the result of {@link #getSeparable()}
+	 */
+	private boolean useFFT(@Nullable ImageSeparableConvolver separable) {
+		int crossover = fftCrossover;
+		if (borderMode != null || diameter < crossover) {
+			return false;
 		}
 
-		@Override
-		public void convolve() {
-			// Inner loop
-			int     x;
-			int     endX = in.endX;
-			float[] row;
-
-			for (int z = 0; z < in.numComponents; z++) {
-				for (int y = in.border; y < in.endY; y++) {
-					row = out.matrix[z][y];
-					for (x = in.border; x < endX; x++) {
-						float sum = 0;
-
-						for (int v = 0; v < diameter; v++) {
-							for (int u = 0; u < diameter; u++) {
-								sum += in.matrix[z][y + v - radius][x + u - radius] * kernel[v][u];
-							}
-						}
-
-						row[x] = sum;
-					}
+		// The FFT costs about as much as a direct convolution at the crossover diameter.
+		return separable == null || (long)separable.getRank() * 2 * diameter >= (long)crossover * crossover;
+	}
+
+	/**
+	 * Returns the smallest kernel diameter that is convolved with an FFT. Unless set with {@link #setFFTCrossover(int)}
+	 * or the system property {@value #FFT_CROSSOVER_PROPERTY}, this is {@value #DEFAULT_FFT_CROSSOVER}.
+	 */
+	public static int getFFTCrossover() {
+		return fftCrossover;
+	}
+
+	/**
+	 * Sets the smallest kernel diameter that is convolved with an FFT. Use {@link Integer#MAX_VALUE} to never use the
+	 * FFT, or {@code setFFTCrossover(measureFFTCrossover())} to tune it for this machine.
+	 */
+	public static void setFFTCrossover(int diameter) {
+		fftCrossover = requireAtLeast(1, diameter, "diameter");
+	}
+
+	/**
+	 * Times both convolution methods on this machine with increasing kernel diameters, and returns the first diameter
+	 * for which the FFT is faster, or {@link Integer#MAX_VALUE} if it never is. This takes in the order of a second, so
+	 * it's never done implicitly.
+	 */
+	public static int measureFFTCrossover() {
+		int[] diameters = {7, 11, 15, 21, 31, 45};
+		int   border    = diameters[diameters.length - 1] / 2;
+
+		ImageMatrixFloat in  = new ImageMatrixFloat(256, 256, 1, border);
+		ImageMatrixFloat out = new ImageMatrixFloat(256, 256, 1, border);
+
+		Random random = new Random(0);
+		for (float[] row : in.matrix[0]) {
+			for (int x = 0; x < row.length; x++) {
+				row[x] = random.nextFloat();
+			}
+		}
+
+		for (int diameter : diameters) {
+			float[][] kernel = new float[diameter][diameter];
+			for (float[] row : kernel) {
+				for (int x = 0; x < diameter; x++) {
+					row[x] = 1.0f / (diameter * diameter);
 				}
 			}
+
+			ImageConvolutionFilter filter = new ImageConvolutionFilter(kernel);
+			ImageFFTConvolver      fft    = new ImageFFTConvolver(kernel, in.width, in.height);
+
+			long directTime = Long.MAX_VALUE;
+			long fftTime    = Long.MAX_VALUE;
+			for (int i = 0; i < 3; i++) {
+				long time = System.nanoTime();
+				filter.filterDirect(in, out);
+				directTime = Math.min(directTime, System.nanoTime() - time);
+
+				time = System.nanoTime();
+				fft.convolve(in, out);
+				fftTime = Math.min(fftTime, System.nanoTime() - time);
+			}
+
+			if (fftTime < directTime) {
+				return diameter;
+			}
 		}
+
+		return Integer.MAX_VALUE;
 	}
 }
@@ -123,6 +123,16 @@ public class ImageConvolutionFlatAntisymmetricXFilter extends ImageFilter {
 
 	@Override
 	public void filter(ImageMatrixFloat in, ImageMatrixFloat out) {
+		if (borderMode != null) {
+			if (!in.isCompatibleBySize(out) || in.numComponents > out.numComponents) {
+				throw new IllegalArgumentException("Images not compatible");
+			}
+
+			VirtualBorderConvolution.convolveRows(in, out, VirtualBorderConvolution.expandHalfKernel(kernel, true),
+			                                       borderMode, borderConstant);
+			return;
+		}
+
 		if (in.border < radius) {
 			throw new IllegalArgumentException("Border too small for kernel: " + in.border + " < " + radius);
 		}
@@ -135,6 +145,11 @@ public class ImageConvolutionFlatAntisymmetricXFilter extends ImageFilter {
 		processes.convolve();
 	}
 
+	@Override
+	protected boolean isBorderModeSupported() {
+		return true;
+	}
+
 	private interface ConvolutionProcessFlat {
 		void convolve();
 	}
@@ -97,6 +97,7 @@ public class ImageConvolutionFlatSymmetricFilter extends ImageFilter {
 	 *                     cause
 	 *                     the precision to be worse than the requested {@code maxRadius}. It is good practice to
 	 *                     choose the maximum radius well above the expected radius.
+	 * @see ImageRecursiveGaussianFilter
 	 */
 	public static ImageConvolutionFlatSymmetricFilter designGaussianBlur(
 			float stdDeviation, float precision, int maxRadius) {
@@ -146,6 +147,18 @@ public class ImageConvolutionFlatSymmetricFilter extends ImageFilter {
 
 	@Override
 	public void filter(ImageMatrixFloat in, ImageMatrixFloat temp, ImageMatrixFloat out) {
+		if (borderMode != null) {
+			if (!in.isCompatibleBySize(temp) || !in.isCompatibleBySize(out) ||
+			    in.numComponents > Math.min(temp.numComponents, out.numComponents)) {
+				throw new IllegalArgumentException("Images not compatible");
+			}
+
+			float[] fullKernel = VirtualBorderConvolution.expandHalfKernel(kernel, false);
+			VirtualBorderConvolution.convolveRows(in, temp, fullKernel, borderMode, borderConstant);
+			VirtualBorderConvolution.convolveColumns(temp, out, fullKernel, borderMode, borderConstant);
+			return;
+		}
+
 		if (in.border < radius) {
 			throw new IllegalArgumentException("Border too small for kernel: " + in.border + " < " + radius);
 		}
@@ -159,6 +172,16 @@ public class ImageConvolutionFlatSymmetricFilter extends ImageFilter {
 		processes.convolve();
 	}
 
+	@Override
+	protected boolean usesTemp() {
+		return true;
+	}
+
+	@Override
+	protected boolean isBorderModeSupported() {
+		return true;
+	}
+
 	private interface ConvolutionProcessFlat {
 		void convolve();
 	}
@@ -126,6 +126,16 @@ public class ImageConvolutionFlatSymmetricXFilter extends ImageFilter {
 
 	@Override
 	public void filter(ImageMatrixFloat in, ImageMatrixFloat out) {
+		if (borderMode != null) {
+			if (!in.isCompatibleBySize(out) || in.numComponents > out.numComponents) {
+				throw new IllegalArgumentException("Images not compatible");
+			}
+
+			VirtualBorderConvolution.convolveRows(in, out, VirtualBorderConvolution.expandHalfKernel(kernel, false),
+			                                       borderMode, borderConstant);
+			return;
+		}
+
 		if (in.border < radius) {
 			throw new IllegalArgumentException("Border too small for kernel: " + in.border + " < " + radius);
 		}
@@ -138,6 +148,11 @@ public class ImageConvolutionFlatSymmetricXFilter extends ImageFilter {
 		processes.convolve();
 	}
 
+	@Override
+	protected boolean isBorderModeSupported() {
+		return true;
+	}
+
 	private interface ConvolutionProcessFlat {
 		void convolve();
 	}
@@ -128,6 +128,16 @@ public class ImageConvolutionFlatSymmetricYFilter extends ImageFilter {
 
 	@Override
 	public void filter(ImageMatrixFloat in, ImageMatrixFloat out) {
+		if (borderMode != null) {
+			if (!in.isCompatibleBySize(out) || in.numComponents > out.numComponents) {
+				throw new IllegalArgumentException("Images not compatible");
+			}
+
+			VirtualBorderConvolution.convolveColumns(in, out, VirtualBorderConvolution.expandHalfKernel(kernel, false),
+			                                          borderMode, borderConstant);
+			return;
+		}
+
 		if (in.border < radius) {
 			throw new IllegalArgumentException("Border too small for kernel: " + in.border + " < " + radius);
 		}
@@ -140,6 +150,11 @@ public class ImageConvolutionFlatSymmetricYFilter extends ImageFilter {
 		processes.convolve();
 	}
 
+	@Override
+	protected boolean isBorderModeSupported() {
+		return true;
+	}
+
 	private interface ConvolutionProcessFlat {
 		void convolve();
 	}
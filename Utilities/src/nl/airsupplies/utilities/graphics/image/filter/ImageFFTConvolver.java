@@ -0,0 +1,307 @@
+package nl.airsupplies.utilities.graphics.image.filter;
+
+import java.util.Arrays;
+
+import nl.airsupplies.utilities.NumberUtilities;
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+
+/**
+ * Square kernel convolution using overlap-save with a 2D FFT, for large kernels.
+ * <p>
+ * The image area is divided in tiles of {@code size - 2 * radius} pixels square. Every tile is transformed together
+ * with the {@code radius} pixels around it (which, like the direct convolution, come from the border for tiles at the
+ * edge), multiplied by the spectrum of the kernel, and transformed back. The pixels that wrapped around are discarded.
+ * Because the kernel is real, two tiles are transformed at once, one in the real part and one in the imaginary part.
+ * <p>
+ * The result is the same as the direct convolution, apart from rounding errors in the order of {@code 1e-6} times the
+ * magnitude of the image.
+ * <p>
+ * An instance only depends on the kernel and the image size, and can be reused for any number of images of that size,
+ * also concurrently.
+ *
+ * @author Mark Jeronimus
+ * @see ImageConvolutionFilter
+ */
+// Created 2026-10-17
+final class ImageFFTConvolver {
+	private static final int MIN_SIZE = 16;
+	private static final int MAX_SIZE = 1024;
+
+	private final int width;
+	private final int height;
+	private final int size;
+	private final int radius;
+	private final int tileSize;
+
+	private final int[]   reverse;
+	private final float[] cos;
+	private final float[] sin;
+
+	/**
+	 * Spectrum of the mirrored kernel, pre-divided by {@code size * size} for the inverse transform.
+	 */
+	private final float[] kernelRe;
+	private final float[] kernelIm;
+
+	ImageFFTConvolver(float[][] kernel, int width, int height) {
+		int diameter = kernel.length;
+
+		this.width  = width;
+		this.height = height;
+
+		radius   = diameter >> 1;
+		size     = chooseSize(diameter, width, height);
+		tileSize = size - 2 * radius;
+
+		int bits = NumberUtilities.log2(size);
+		reverse = new int[size];
+		for (int i = 0; i < size; i++) {
+			reverse[i] = NumberUtilities.reverseBits(i, bits);
+		}
+
+		cos = new float[size / 2];
+		sin = new float[size / 2];
+		for (int i = 0; i < size / 2; i++) {
+			double angle = 2 * Math.PI * i / size;
+			cos[i] = (float)Math.cos(angle);
+			sin[i] = (float)Math.sin(angle);
+		}
+
+		// Convolution with the mirrored kernel (wrapped around) is the correlation that the direct path computes.
+		kernelRe = new float[size * size];
+		kernelIm = new float[size * size];
+		int   mask  = size - 1;
+		float scale = 1.0f / (size * size);
+		for (int v = 0; v < diameter; v++) {
+			for (int u = 0; u < diameter; u++) {
+				kernelRe[((radius - v) & mask) * size + ((radius - u) & mask)] = kernel[v][u] * scale;
+			}
+		}
+
+		transform2D(kernelRe, kernelIm, false);
+	}
+
+	/**
+	 * Chooses the transform size with the least work per output pixel. Tiles much larger than the image are
+	 * pointless.
+	 */
+	static int chooseSize(int diameter, int width, int height) {
+		int radius = diameter >> 1;
+
+		int    best     = 0;
+		double bestCost = Double.POSITIVE_INFINITY;
+		for (int size = NumberUtilities.nextPowerOf2(Math.max(MIN_SIZE, diameter * 2)); size <= MAX_SIZE; size <<= 1) {
+			int    tileSize = size - 2 * radius;
+			long   numTiles = (long)((width + tileSize - 1) / tileSize) * ((height + tileSize - 1) / tileSize);
+			double cost     = (double)numTiles * size * size * NumberUtilities.log2(size);
+			if (cost < bestCost) {
+				best     = size;
+				bestCost = cost;
+			}
+
+			if (tileSize >= width && tileSize >= height) {
+				break;
+			}
+		}
+
+		if (best == 0) {
+			throw new IllegalArgumentException("Kernel too large for FFT convolution: " + diameter);
+		}
+
+		return best;
+	}
+
+	/**
+	 * Returns whether this was set up for images of the given size, see {@link #chooseSize(int, int, int)}.
+	 */
+	public boolean isForSize(int width, int height) {
+		return this.width == width && this.height == height;
+	}
+
+	public void convolve(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out) {
+		int numTilesX = (in.width + tileSize - 1) / tileSize;
+		int numTilesY = (in.height + tileSize - 1) / tileSize;
+
+		ImageMatrixExecutor.forEachBand(in.numComponents, 0, numTilesY, in.width * tileSize, (z, beginY, endY) -> {
+			FloatRow row = new FloatRow();
+			float[]  re  = new float[size * size];
+			float[]  im  = new float[size * size];
+
+			int begin = beginY * numTilesX;
+			int end   = endY * numTilesX;
+			for (int tile = begin; tile < end; tile += 2) {
+				int tileX  = tile % numTilesX;
+				int tileY  = tile / numTilesX;
+				int tileX2 = (tile + 1) % numTilesX;
+				int tileY2 = (tile + 1) / numTilesX;
+
+				boolean pair = tile + 1 < end;
+
+				loadTile(in, z, tileX, tileY, re, row);
+				if (pair) {
+					loadTile(in, z, tileX2, tileY2, im, row);
+				} else {
+					Arrays.fill(im, 0);
+				}
+
+				transform2D(re, im, false);
+				multiplyKernel(re, im);
+				transform2D(re, im, true);
+
+				storeTile(re, out, z, tileX, tileY, row);
+				if (pair) {
+					storeTile(im, out, z, tileX2, tileY2, row);
+				}
+			}
+		});
+	}
+
+	private void loadTile(AbstractImageMatrixFloat in, int component, int tileX, int tileY, float[] dst, FloatRow row) {
+		int x0 = in.border + tileX * tileSize - radius;
+		int y0 = in.border + tileY * tileSize - radius;
+
+		// Only copy what's inside the matrix. Anything else only affects discarded pixels.
+		int beginX = Math.max(0, x0);
+		int endX   = Math.min(in.numColumns, x0 + size);
+
+		for (int v = 0; v < size; v++) {
+			int offset = v * size;
+			int y      = y0 + v;
+			if (y >= in.numRows || beginX >= endX) {
+				Arrays.fill(dst, offset, offset + size, 0);
+				continue;
+			}
+
+			in.readRow(component, y, beginX, endX - beginX, row);
+			Arrays.fill(dst, offset, offset + beginX - x0, 0);
+			System.arraycopy(row.array, row.offset + beginX, dst, offset + beginX - x0, endX - beginX);
+			Arrays.fill(dst, offset + endX - x0, offset + size, 0);
+		}
+	}
+
+	private void storeTile(float[] src, AbstractImageMatrixFloat out, int component, int tileX, int tileY,
+	                       FloatRow row) {
+		int x0     = out.border + tileX * tileSize;
+		int y0     = out.border + tileY * tileSize;
+		int width  = Math.min(tileSize, out.endX - x0);
+		int height = Math.min(tileSize, out.endY - y0);
+
+		for (int v = 0; v < height; v++) {
+			out.readRow(component, y0 + v, x0, width, row);
+			System.arraycopy(src, (v + radius) * size + radius, row.array, row.offset + x0, width);
+			out.writeRow(component, y0 + v, x0, width, row);
+		}
+	}
+
+	private void multiplyKernel(float[] re, float[] im) {
+		// Inner loop
+		int   i; // 4
+		float a; // 3
+		float b; // 3
+		float c; // 3
+		float d; // 3
+		int   length = re.length; // 1
+
+		for (i = 0; i < length; i++) {
+			a     = re[i];
+			b     = im[i];
+			c     = kernelRe[i];
+			d     = kernelIm[i];
+			re[i] = a * c - b * d;
+			im[i] = a * d + b * c;
+		}
+	}
+
+	/**
+	 * In-place 2D FFT, rows first. The inverse is not normalized.
+	 */
+	private void transform2D(float[] re, float[] im, boolean inverse) {
+		for (int y = 0; y < size; y++) {
+			transformRow(re, im, y * size, inverse);
+		}
+
+		transformColumns(re, im, inverse);
+	}
+
+	/**
+	 * Radix-2 decimation-in-time FFT of one row.
+	 */
+	private void transformRow(float[] re, float[] im, int offset, boolean inverse) {
+		for (int i = 0; i < size; i++) {
+			int j = reverse[i];
+			if (j > i) {
+				swap(re, offset + i, offset + j);
+				swap(im, offset + i, offset + j);
+			}
+		}
+
+		for (int half = 1; half < size; half <<= 1) {
+			int step = size / (half * 2);
+			for (int k = 0; k < half; k++) {
+				float wr = cos[k * step];
+				float wi = inverse ? sin[k * step] : -sin[k * step];
+
+				for (int i = offset + k; i < offset + size; i += half * 2) {
+					int   j  = i + half;
+					float tr = re[j] * wr - im[j] * wi;
+					float ti = re[j] * wi + im[j] * wr;
+					re[j] = re[i] - tr;
+					im[j] = im[i] - ti;
+					re[i] += tr;
+					im[i] += ti;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Radix-2 decimation-in-time FFT of all columns at once. Every butterfly operates on two complete rows, which
+	 * keeps the memory access sequential.
+	 */
+	private void transformColumns(float[] re, float[] im, boolean inverse) {
+		for (int i = 0; i < size; i++) {
+			int j = reverse[i];
+			if (j > i) {
+				swapRows(re, i * size, j * size);
+				swapRows(im, i * size, j * size);
+			}
+		}
+
+		for (int half = 1; half < size; half <<= 1) {
+			int step = size / (half * 2);
+			for (int k = 0; k < half; k++) {
+				float wr = cos[k * step];
+				float wi = inverse ? sin[k * step] : -sin[k * step];
+
+				for (int i = k; i < size; i += half * 2) {
+					int rowI = i * size;
+					int rowJ = (i + half) * size;
+					for (int x = 0; x < size; x++) {
+						int   p  = rowI + x;
+						int   q  = rowJ + x;
+						float tr = re[q] * wr - im[q] * wi;
+						float ti = re[q] * wi + im[q] * wr;
+						re[q] = re[p] - tr;
+						im[q] = im[p] - ti;
+						re[p] += tr;
+						im[p] += ti;
+					}
+				}
+			}
+		}
+	}
+
+	private static void swap(float[] array, int i, int j) {
+		float temp = array[i];
+		array[i] = array[j];
+		array[j] = temp;
+	}
+
+	private void swapRows(float[] array, int i, int j) {
+		for (int x = 0; x < size; x++) {
+			swap(array, i + x, j + x);
+		}
+	}
+}
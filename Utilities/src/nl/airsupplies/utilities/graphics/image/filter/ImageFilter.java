@@ -1,12 +1,22 @@
 package nl.airsupplies.utilities.graphics.image.filter;
 
+import org.jetbrains.annotations.Nullable;
+
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.BorderMode;
 import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixPool;
 
 /**
  * @author Mark Jeronimus
  */
 // Created 2012-04-19
+// Changed 2026-10-17 Added virtual borders and pooled temp images
+// Changed 2026-10-17 Accepts any layout of the samples, for filters that support it
 public abstract class ImageFilter {
+	protected @Nullable BorderMode borderMode     = null;
+	protected float                borderConstant = 0;
+
 	@SuppressWarnings({"unused", "static-method"})
 	public void filterSelf(ImageMatrixFloat image) {
 		throw new UnsupportedOperationException("Not supported yet.");
@@ -14,13 +24,27 @@ public abstract class ImageFilter {
 
 	/**
 	 * The in and out images must be different images of the same dimensions (including border). Beforehand, set,
-	 * extend, mirror or wrap the border as you wish. Pro tip: use image swapping to prevent copying an image every
-	 * time.
+	 * extend, mirror or wrap the border as you wish, or use a {@link #setBorderMode(BorderMode) virtual border}. Pro
+	 * tip: use image swapping to prevent copying an image every time.
 	 */
 	public void filter(ImageMatrixFloat in, ImageMatrixFloat out) {
 		throw new UnsupportedOperationException("Not supported yet.");
 	}
 
+	/**
+	 * Like {@link #filter(ImageMatrixFloat, ImageMatrixFloat)}, for images with any layout of the samples. Filters that
+	 * only read the rows of {@link ImageMatrixFloat} directly run that method when both images are of that type.
+	 *
+	 * @throws IllegalArgumentException if the filter doesn't support the layout of either image
+	 */
+	public void filter(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out) {
+		if (!(in instanceof ImageMatrixFloat && out instanceof ImageMatrixFloat)) {
+			throw new IllegalArgumentException(getClass().getSimpleName() + " only supports ImageMatrixFloat");
+		}
+
+		filter((ImageMatrixFloat)in, (ImageMatrixFloat)out);
+	}
+
 	/**
 	 * Parameters in and out may be the same image, but temp must be a different image of the same dimensions
 	 * (including
@@ -29,4 +53,60 @@ public abstract class ImageFilter {
 	public void filter(ImageMatrixFloat in, ImageMatrixFloat temp, ImageMatrixFloat out) {
 		throw new UnsupportedOperationException("Not supported yet.");
 	}
+
+	/**
+	 * Like {@link #filter(ImageMatrixFloat, ImageMatrixFloat, ImageMatrixFloat)}, but borrows the temp image from a
+	 * pool for the duration of the call. Filters that don't {@link #usesTemp() use a temp image} run {@link
+	 * #filter(ImageMatrixFloat, ImageMatrixFloat)} instead, so then in and out must be different images.
+	 */
+	public void filterPooled(ImageMatrixFloat in, ImageMatrixPool pool, ImageMatrixFloat out) {
+		if (!usesTemp()) {
+			filter(in, out);
+			return;
+		}
+
+		try (ImageMatrixPool.Lease temp = pool.borrow(in)) {
+			filter(in, temp.image, out);
+		}
+	}
+
+	/**
+	 * Returns whether the filter uses the temp image of {@link #filter(ImageMatrixFloat, ImageMatrixFloat,
+	 * ImageMatrixFloat)} (with the current settings).
+	 */
+	protected boolean usesTemp() {
+		return false;
+	}
+
+	/**
+	 * Makes the filter evaluate samples outside the image area on the fly, instead of reading them from the border,
+	 * which can then be of any width (including 0). Use {@code null} to read the physical border again.
+	 *
+	 * @param constant the value of samples outside the image area for {@link BorderMode#CONSTANT}
+	 * @throws UnsupportedOperationException if the filter doesn't support virtual borders
+	 */
+	public void setBorderMode(@Nullable BorderMode borderMode, float constant) {
+		if (borderMode != null && !isBorderModeSupported()) {
+			throw new UnsupportedOperationException("Virtual borders not supported by " + getClass().getSimpleName());
+		}
+
+		this.borderMode = borderMode;
+		borderConstant  = constant;
+	}
+
+	public void setBorderMode(@Nullable BorderMode borderMode) {
+		setBorderMode(borderMode, 0);
+	}
+
+	public @Nullable BorderMode getBorderMode() {
+		return borderMode;
+	}
+
+	public float getBorderConstant() {
+		return borderConstant;
+	}
+
+	protected boolean isBorderModeSupported() {
+		return false;
+	}
 }
@@ -0,0 +1,119 @@
+package nl.airsupplies.utilities.graphics.image.filter;
+
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+
+/**
+ * A separable filter that applies a 1D filter to every row and then a 1D filter to every column of the image area.
+ * <p>
+ * Lines are filtered in isolation, with samples outside of the image area taken as the nearest edge sample (as if by
+ * {@link ImageMatrixFloat#extendBorder()}). The border is neither read nor written, so it can be of any width. Columns
+ * are processed in strips that are transposed to rows, so the image can be filtered in-place.
+ * <p>
+ * Any layout of the samples is supported. When the storage copies rows on reading, the strips copy only their own
+ * columns.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+// Changed 2026-10-17 Accepts any layout of the samples
+public abstract class ImageLineFilter extends ImageFilter {
+	/**
+	 * The number of columns transposed at once, which should fit comfortably in the L1 cache.
+	 */
+	private static final int STRIP_WIDTH = 32;
+
+	/**
+	 * Filters {@code length} samples of a row from {@code src} to {@code dst}. The contents of {@code src} may be
+	 * destroyed.
+	 */
+	protected abstract void filterRow(float[] src, float[] dst, int length);
+
+	/**
+	 * Filters {@code length} samples of a column from {@code src} to {@code dst}. The contents of {@code src} may be
+	 * destroyed.
+	 */
+	protected abstract void filterColumn(float[] src, float[] dst, int length);
+
+	@Override
+	public void filterSelf(ImageMatrixFloat image) {
+		filter(image, image);
+	}
+
+	/**
+	 * Parameters in and out may be the same image.
+	 */
+	@Override
+	public void filter(ImageMatrixFloat in, ImageMatrixFloat out) {
+		filter((AbstractImageMatrixFloat)in, out);
+	}
+
+	/**
+	 * Parameters in and out may be the same image.
+	 */
+	@Override
+	public void filter(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out) {
+		if (!in.isCompatibleBySize(out) || in.numComponents > out.numComponents) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		int width  = in.width;
+		int height = in.height;
+
+		ImageMatrixExecutor.forEachBand(in.numComponents, 0, height, width, (z, beginY, endY) -> {
+			FloatRow rowIn  = new FloatRow();
+			FloatRow rowOut = new FloatRow();
+			float[]  src    = new float[width];
+			float[]  dst    = new float[width];
+
+			for (int y = beginY; y < endY; y++) {
+				in.readRow(z, in.border + y, in.border, width, rowIn);
+				System.arraycopy(rowIn.array, rowIn.offset + in.border, src, 0, width);
+				filterRow(src, dst, width);
+				out.readRow(z, out.border + y, out.border, width, rowOut);
+				System.arraycopy(dst, 0, rowOut.array, rowOut.offset + out.border, width);
+				out.writeRow(z, out.border + y, out.border, width, rowOut);
+			}
+		});
+
+		int numStrips = (width + STRIP_WIDTH - 1) / STRIP_WIDTH;
+		ImageMatrixExecutor.forEachBand(in.numComponents, 0, numStrips, STRIP_WIDTH * height, (z, begin, end) -> {
+			FloatRow  row     = new FloatRow();
+			float[][] columns = new float[STRIP_WIDTH][height];
+			float[]   dst     = new float[height];
+
+			for (int strip = begin; strip < end; strip++) {
+				int beginX = out.border + strip * STRIP_WIDTH;
+				int length = Math.min(STRIP_WIDTH, width - strip * STRIP_WIDTH);
+
+				for (int y = 0; y < height; y++) {
+					out.readRow(z, out.border + y, beginX, length, row);
+					int offset = row.offset + beginX;
+					for (int i = 0; i < length; i++) {
+						columns[i][y] = row.array[offset + i];
+					}
+				}
+
+				for (int i = 0; i < length; i++) {
+					filterColumn(columns[i], dst, height);
+
+					float[] temp = columns[i];
+					columns[i] = dst;
+					dst        = temp;
+				}
+
+				for (int y = 0; y < height; y++) {
+					out.readRow(z, out.border + y, beginX, length, row);
+					int offset = row.offset + beginX;
+					for (int i = 0; i < length; i++) {
+						row.array[offset + i] = columns[i][y];
+					}
+
+					out.writeRow(z, out.border + y, beginX, length, row);
+				}
+			}
+		});
+	}
+}
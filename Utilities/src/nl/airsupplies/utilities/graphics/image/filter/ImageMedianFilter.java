@@ -0,0 +1,361 @@
+package nl.airsupplies.utilities.graphics.image.filter;
+
+import java.util.Arrays;
+
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.BorderMode;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireBetween;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * Square median filter of any radius, using the constant-time method of Perreault and Hébert (2007).
+ * <p>
+ * Samples are quantized to {@link #numBits} bits between {@link #black} and {@link #white} (values outside are
+ * clamped). Every column keeps a histogram of the {@code 2 * radius + 1} rows around the current row, and the
+ * histogram of the kernel is updated by adding the column entering it and subtracting the column leaving it. The
+ * histograms have two levels (coarse and fine), and the fine level of the kernel is only updated for the coarse bin
+ * containing the median. The image is processed in vertical strips, in parallel, to keep the column histograms in
+ * cache.
+ * <p>
+ * The border is never read, so it can be of any width. Samples outside the image area are the nearest edge sample,
+ * unless another {@link #setBorderMode(BorderMode, float) border mode} is set.
+ *
+ * @author Mark Jeronimus
+ * @see ImageMedianXFilter
+ * @see ImageMedianYFilter
+ */
+// Created 2026-10-17
+// Changed 2026-10-17 Accepts any layout of the samples
+public class ImageMedianFilter extends ImageFilter {
+	public enum Mode {
+		/** Every component is filtered independently. */
+		PER_COMPONENT,
+		/**
+		 * The luma (Rec. 601) of 3-component images is filtered, and the difference is added to every component. This
+		 * preserves the chroma.
+		 */
+		LUMINANCE
+	}
+
+	/**
+	 * Target size of the column histograms of one strip, in counters.
+	 */
+	private static final int STRIP_HISTOGRAM_SIZE = 1 << 18;
+	private static final int MIN_STRIP_WIDTH      = 32;
+
+	public final int   radius;
+	public final int   numBits;
+	public final float black;
+	public final float white;
+	public final Mode  mode;
+
+	private final int coarseBits;
+	private final int fineBits;
+
+	/**
+	 * An 8-bit median of the range [0, 1] of every component.
+	 */
+	public ImageMedianFilter(int radius) {
+		this(radius, 8, 0, 1, Mode.PER_COMPONENT);
+	}
+
+	/**
+	 * @param numBits the number of quantization levels, in bits, from 8 to 16. More bits are more precise but slower.
+	 */
+	public ImageMedianFilter(int radius, int numBits, float black, float white, Mode mode) {
+		this.radius  = requireAtLeast(1, radius, "radius");
+		this.numBits = requireBetween(8, 16, numBits, "numBits");
+		this.black   = black;
+		this.white   = white;
+		this.mode    = requireNonNull(mode, "mode");
+
+		if (!(white > black)) {
+			throw new IllegalArgumentException("'white' should be greater than 'black': " + white + " <= " + black);
+		}
+
+		coarseBits = (numBits + 1) / 2;
+		fineBits   = numBits - coarseBits;
+	}
+
+	@Override
+	public void filterSelf(ImageMatrixFloat image) {
+		filter(image, image);
+	}
+
+	/**
+	 * Parameters in and out may be the same image.
+	 */
+	@Override
+	public void filter(ImageMatrixFloat in, ImageMatrixFloat out) {
+		filter((AbstractImageMatrixFloat)in, out);
+	}
+
+	/**
+	 * Parameters in and out may be the same image.
+	 */
+	@Override
+	public void filter(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out) {
+		if (!in.isCompatibleBySize(out) || in.numComponents > out.numComponents) {
+			throw new IllegalArgumentException("Images not compatible");
+		}
+
+		if (mode == Mode.PER_COMPONENT) {
+			for (int z = 0; z < in.numComponents; z++) {
+				char[][] quantized = quantize(in, z);
+				char[][] median    = median(quantized, in.width, in.height);
+				dequantize(median, out, z);
+			}
+		} else {
+			if (in.numComponents != 3) {
+				throw new IllegalArgumentException("Luminance mode needs 3 components: " + in.numComponents);
+			}
+
+			filterLuminance(in, out);
+		}
+	}
+
+	private void filterLuminance(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out) {
+		int width  = in.width;
+		int height = in.height;
+
+		ImageMatrixFloat lumaImage = new ImageMatrixFloat(width, height, 1, 0);
+		float[][]        luma      = lumaImage.matrix[0];
+		ImageMatrixExecutor.forEachBand(1, 0, height, width, (z, beginY, endY) -> {
+			FloatRow row0 = new FloatRow();
+			FloatRow row1 = new FloatRow();
+			FloatRow row2 = new FloatRow();
+			for (int y = beginY; y < endY; y++) {
+				in.readRow(0, in.border + y, in.border, width, row0);
+				in.readRow(1, in.border + y, in.border, width, row1);
+				in.readRow(2, in.border + y, in.border, width, row2);
+				for (int x = 0; x < width; x++) {
+					int i = in.border + x;
+					luma[y][x] = row0.array[row0.offset + i] * 0.299f +
+					             row1.array[row1.offset + i] * 0.587f +
+					             row2.array[row2.offset + i] * 0.114f;
+				}
+			}
+		});
+
+		char[][] median = median(quantize(lumaImage, 0), width, height);
+
+		float scale = (white - black) / ((1 << numBits) - 1);
+		ImageMatrixExecutor.forEachBand(3, 0, height, width, (z, beginY, endY) -> {
+			FloatRow rowIn  = new FloatRow();
+			FloatRow rowOut = new FloatRow();
+			for (int y = beginY; y < endY; y++) {
+				in.readRow(z, in.border + y, in.border, width, rowIn);
+				out.readRow(z, out.border + y, out.border, width, rowOut);
+				int inBegin  = rowIn.offset + in.border;
+				int outBegin = rowOut.offset + out.border;
+				for (int x = 0; x < width; x++) {
+					rowOut.array[outBegin + x] = rowIn.array[inBegin + x] + (black + median[y][x] * scale - luma[y][x]);
+				}
+
+				out.writeRow(z, out.border + y, out.border, width, rowOut);
+			}
+		});
+	}
+
+	/**
+	 * Every row has one extra sample at the end, with the level of the {@link BorderMode#CONSTANT} border.
+	 */
+	private char[][] quantize(AbstractImageMatrixFloat in, int component) {
+		int      width     = in.width;
+		int      height    = in.height;
+		char[][] quantized = new char[height][width + 1];
+		int      maxLevel  = (1 << numBits) - 1;
+		float    scale     = maxLevel / (white - black);
+		char     constant  = (char)Math.max(0, Math.min(Math.round((borderConstant - black) * scale), maxLevel));
+
+		ImageMatrixExecutor.forEachBand(1, 0, height, width, (z, beginY, endY) -> {
+			FloatRow row = new FloatRow();
+			for (int y = beginY; y < endY; y++) {
+				in.readRow(component, in.border + y, in.border, width, row);
+				int    begin = row.offset + in.border;
+				char[] rowQ  = quantized[y];
+				for (int x = 0; x < width; x++) {
+					int level = Math.round((row.array[begin + x] - black) * scale);
+					rowQ[x] = (char)Math.max(0, Math.min(level, maxLevel));
+				}
+
+				rowQ[width] = constant;
+			}
+		});
+
+		return quantized;
+	}
+
+	private void dequantize(char[][] quantized, AbstractImageMatrixFloat out, int component) {
+		int   width = out.width;
+		float scale = (white - black) / ((1 << numBits) - 1);
+
+		ImageMatrixExecutor.forEachBand(1, 0, quantized.length, width, (z, beginY, endY) -> {
+			FloatRow row = new FloatRow();
+			for (int y = beginY; y < endY; y++) {
+				out.readRow(component, out.border + y, out.border, width, row);
+				int    begin = row.offset + out.border;
+				char[] rowQ  = quantized[y];
+				for (int x = 0; x < width; x++) {
+					row.array[begin + x] = black + rowQ[x] * scale;
+				}
+
+				out.writeRow(component, out.border + y, out.border, width, row);
+			}
+		});
+	}
+
+	private char[][] median(char[][] quantized, int width, int height) {
+		char[][] median      = new char[height][width];
+		char[]   constantRow = new char[width + 1];
+		Arrays.fill(constantRow, quantized[0][width]);
+
+		// Enough strips to keep all threads busy, but not so wide that the histograms don't fit in the cache.
+		int numTasks   = ImageMatrixExecutor.getParallelism() * 2;
+		int maxWidth   = STRIP_HISTOGRAM_SIZE >> numBits;
+		int stripWidth = Math.max(MIN_STRIP_WIDTH, Math.min((width + numTasks - 1) / numTasks, maxWidth));
+		int numStrips  = (width + stripWidth - 1) / stripWidth;
+
+		ImageMatrixExecutor.forEachBand(1, 0, numStrips, stripWidth * height * (1 << coarseBits), (z, begin, end) -> {
+			for (int strip = begin; strip < end; strip++) {
+				int beginX = strip * stripWidth;
+				medianStrip(quantized, constantRow, median, width, height, beginX,
+				            Math.min(beginX + stripWidth, width));
+			}
+		});
+
+		return median;
+	}
+
+	/**
+	 * Calculates the median of columns {@code beginX} to {@code endX} (exclusive).
+	 */
+	private void medianStrip(char[][] quantized, char[] constantRow, char[][] median, int width, int height,
+	                         int beginX, int endX) {
+		BorderMode mode      = borderMode != null ? borderMode : BorderMode.CLAMP;
+		int        numCoarse = 1 << coarseBits;
+		int        numFine   = 1 << fineBits;
+		int        size      = radius * 2 + 1;
+		int        rank      = size * size / 2;
+
+		// The quantized column of every x from beginX - radius - 1 to endX + radius (exclusive), where column 'width'
+		// is the constant border.
+		int   base    = beginX - radius - 1;
+		int[] columns = new int[endX - beginX + radius * 2 + 1];
+		for (int i = 0; i < columns.length; i++) {
+			int mapped = mode.map(base + i, width);
+			columns[i] = mapped < 0 ? width : mapped;
+		}
+
+		// Column histograms, only for the distinct quantized columns used by the strip.
+		int[] sourceColumns = Arrays.stream(columns).distinct().sorted().toArray();
+		int   numColumns    = sourceColumns.length;
+		int[] coarse        = new int[numColumns * numCoarse];
+		int[] fine          = new int[numColumns * numCoarse * numFine];
+
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = Arrays.binarySearch(sourceColumns, columns[i]);
+		}
+
+		int[] kernelCoarse = new int[numCoarse];
+		int[] kernelFine   = new int[numCoarse * numFine];
+		int[] lastUpdated  = new int[numCoarse];
+
+		// Prime the column histograms with the window of row 0.
+		for (int v = -radius; v < radius; v++) {
+			addRow(getRow(quantized, constantRow, mode, v), coarse, fine, sourceColumns, 1);
+		}
+
+		for (int y = 0; y < height; y++) {
+			addRow(getRow(quantized, constantRow, mode, y + radius), coarse, fine, sourceColumns, 1);
+			if (y > 0) {
+				addRow(getRow(quantized, constantRow, mode, y - radius - 1), coarse, fine, sourceColumns, -1);
+			}
+
+			Arrays.fill(kernelCoarse, 0);
+			Arrays.fill(lastUpdated, Integer.MIN_VALUE);
+			for (int u = 1; u <= size; u++) {
+				addColumn(kernelCoarse, 0, coarse, columns[u] * numCoarse, numCoarse);
+			}
+
+			char[] rowMedian = median[y];
+			for (int x = beginX; x < endX; x++) {
+				int i = x - base;
+				if (x > beginX) {
+					updateColumn(kernelCoarse, 0, coarse, columns[i + radius] * numCoarse,
+					             columns[i - radius - 1] * numCoarse, numCoarse);
+				}
+
+				// Find the coarse bin with the median.
+				int count = 0;
+				int c     = 0;
+				while (count + kernelCoarse[c] <= rank) {
+					count += kernelCoarse[c];
+					c++;
+				}
+
+				// Bring the fine histogram of that bin up to date, from scratch if that's less work.
+				int fineOffset = c * numFine;
+				if (lastUpdated[c] < x - radius) {
+					Arrays.fill(kernelFine, fineOffset, fineOffset + numFine, 0);
+					for (int u = i - radius; u <= i + radius; u++) {
+						addColumn(kernelFine, fineOffset, fine, (columns[u] * numCoarse + c) * numFine, numFine);
+					}
+				} else {
+					for (int u = lastUpdated[c] + 1 - base; u <= i; u++) {
+						updateColumn(kernelFine, fineOffset, fine, (columns[u + radius] * numCoarse + c) * numFine,
+						             (columns[u - radius - 1] * numCoarse + c) * numFine, numFine);
+					}
+				}
+
+				lastUpdated[c] = x;
+
+				int f = 0;
+				while (count + kernelFine[fineOffset + f] <= rank) {
+					count += kernelFine[fineOffset + f];
+					f++;
+				}
+
+				rowMedian[x] = (char)(c << fineBits | f);
+			}
+		}
+	}
+
+	private static void addColumn(int[] kernel, int offset, int[] column, int columnOffset, int length) {
+		for (int i = 0; i < length; i++) {
+			kernel[offset + i] += column[columnOffset + i];
+		}
+	}
+
+	private static void updateColumn(int[] kernel, int offset, int[] column, int entering, int leaving, int length) {
+		for (int i = 0; i < length; i++) {
+			kernel[offset + i] += column[entering + i] - column[leaving + i];
+		}
+	}
+
+	private static char[] getRow(char[][] quantized, char[] constantRow, BorderMode mode, int y) {
+		int mapped = mode.map(y, quantized.length);
+		return mapped < 0 ? constantRow : quantized[mapped];
+	}
+
+	private void addRow(char[] row, int[] coarse, int[] fine, int[] sourceColumns, int delta) {
+		int numCoarse = 1 << coarseBits;
+		int fineMask  = (1 << fineBits) - 1;
+
+		for (int i = 0; i < sourceColumns.length; i++) {
+			int level = row[sourceColumns[i]];
+			int c     = i * numCoarse + (level >> fineBits);
+			coarse[c] += delta;
+			fine[(c << fineBits) + (level & fineMask)] += delta;
+		}
+	}
+
+	@Override
+	protected boolean isBorderModeSupported() {
+		return true;
+	}
+}
@@ -1,5 +1,8 @@
 package nl.airsupplies.utilities.graphics.image.filter;
 
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.BorderMode;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
 import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
 
 /**
@@ -14,9 +17,38 @@ import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
  * @author Mark Jeronimus
  */
 // Created 2011-11-22
+// Changed 2026-10-17 Added virtual borders
+// Changed 2026-10-17 Accepts any layout of the samples
 public class ImageMedianX_BW_Filter extends ImageFilter {
 	@Override
 	public void filter(ImageMatrixFloat in, ImageMatrixFloat out) {
+		filter((AbstractImageMatrixFloat)in, out);
+	}
+
+	@Override
+	public void filter(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out) {
+		FloatRow rowIn  = new FloatRow();
+		FloatRow rowOut = new FloatRow();
+
+		BorderMode borderMode = this.borderMode;
+		if (borderMode != null) {
+			if (!in.isCompatibleBySize(out) || in.numComponents > out.numComponents) {
+				throw new IllegalArgumentException("Images not compatible");
+			}
+
+			float[] padded = new float[in.width + 2];
+			for (int z = 0; z < in.numComponents; z++) {
+				for (int y = 0; y < in.height; y++) {
+					in.readRow(z, in.border + y, in.border, in.width, rowIn);
+					out.readRow(z, out.border + y, out.border, in.width, rowOut);
+					borderMode.padLine(rowIn.array, rowIn.offset + in.border, in.width, padded, 1, borderConstant);
+					filterRow(padded, 1, rowOut.array, rowOut.offset + out.border, in.width);
+					out.writeRow(z, out.border + y, out.border, in.width, rowOut);
+				}
+			}
+			return;
+		}
+
 		if (in.border < 1) {
 			throw new IllegalArgumentException("Border too small");
 		}
@@ -24,20 +56,33 @@ public class ImageMedianX_BW_Filter extends ImageFilter {
 			throw new IllegalArgumentException("Images not compatible");
 		}
 
-		// Inner loop
-		int     x; // 7.3 (6~8)
-		float[] rowIn; // 5.3 (4~6)
-		int     endX = in.endX; // 1
-		float[] rowOut; // 1
-
 		for (int z = 0; z < in.numComponents; z++) {
 			for (int y = in.border; y < in.endY; y++) {
-				rowIn  = in.matrix[z][y];
-				rowOut = out.matrix[z][y];
-				for (x = in.border; x < endX; x++) {
-					rowOut[x] = rowIn[x - 1] != rowIn[x + 1] ? rowIn[x] : rowIn[x - 1];
-				}
+				in.readRow(z, y, in.border - 1, in.width + 2, rowIn);
+				out.readRow(z, y, out.border, in.width, rowOut);
+				filterRow(rowIn.array, rowIn.offset + in.border, rowOut.array, rowOut.offset + out.border, in.width);
+				out.writeRow(z, y, out.border, in.width, rowOut);
 			}
 		}
 	}
+
+	/**
+	 * Filters {@code length} samples of {@code rowIn} from {@code inBegin}, which must have a sample before and after
+	 * them, to {@code rowOut} from {@code outBegin}.
+	 */
+	private static void filterRow(float[] rowIn, int inBegin, float[] rowOut, int outBegin, int length) {
+		// Inner loop
+		int x; // 7.3 (6~8)
+		int endX   = inBegin + length; // 1
+		int offset = outBegin - inBegin; // 1
+
+		for (x = inBegin; x < endX; x++) {
+			rowOut[x + offset] = rowIn[x - 1] != rowIn[x + 1] ? rowIn[x] : rowIn[x - 1];
+		}
+	}
+
+	@Override
+	protected boolean isBorderModeSupported() {
+		return true;
+	}
 }
@@ -1,5 +1,10 @@
 package nl.airsupplies.utilities.graphics.image.filter;
 
+import java.util.Arrays;
+
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.BorderMode;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
 import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
 
 /**
@@ -16,9 +21,52 @@ import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
  * @author Mark Jeronimus
  */
 // Created 2011-11-22
+// Changed 2026-10-17 Added virtual borders
+// Changed 2026-10-17 Accepts any layout of the samples
 public class ImageMedianY_BW_Filter extends ImageFilter {
 	@Override
 	public void filter(ImageMatrixFloat in, ImageMatrixFloat out) {
+		filter((AbstractImageMatrixFloat)in, out);
+	}
+
+	@Override
+	public void filter(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out) {
+		FloatRow rowOut = new FloatRow();
+
+		BorderMode borderMode = this.borderMode;
+		if (borderMode != null) {
+			if (!in.isCompatibleBySize(out) || in.numComponents > out.numComponents) {
+				throw new IllegalArgumentException("Images not compatible");
+			}
+
+			FloatRow constantRow = new FloatRow();
+			constantRow.array  = new float[in.numColumns];
+			constantRow.offset = 0;
+			Arrays.fill(constantRow.array, borderConstant);
+
+			for (int z = 0; z < in.numComponents; z++) {
+				RowWindow window = new RowWindow(in, z, in.border, in.width, 3);
+				for (int y = 0; y < in.height; y++) {
+					FloatRow rowIn1a = window.get(y - 1, borderMode, constantRow);
+					FloatRow rowIn0  = window.get(y, borderMode, constantRow);
+					FloatRow rowIn1b = window.get(y + 1, borderMode, constantRow);
+
+					out.readRow(z, out.border + y, out.border, in.width, rowOut);
+					filterRow(rowIn1a.array,
+					          rowIn1a.offset + in.border,
+					          rowIn0.array,
+					          rowIn0.offset + in.border,
+					          rowIn1b.array,
+					          rowIn1b.offset + in.border,
+					          rowOut.array,
+					          rowOut.offset + out.border,
+					          in.width);
+					out.writeRow(z, out.border + y, out.border, in.width, rowOut);
+				}
+			}
+			return;
+		}
+
 		if (in.border < 1) {
 			throw new IllegalArgumentException("Border too small");
 		}
@@ -26,24 +74,48 @@ public class ImageMedianY_BW_Filter extends ImageFilter {
 			throw new IllegalArgumentException("Images not compatible");
 		}
 
-		// Inner loop
-		int     x; // 7.3 (6~8)
-		float[] rowIn0; // 2
-		float[] rowIn1a; // 1.7 (1~2)
-		float[] rowIn1b; // 1.7 (1~2)
-		int     endX = in.endX; // 1
-		float[] rowOut; // 1
-
 		for (int z = 0; z < in.numComponents; z++) {
+			RowWindow window = new RowWindow(in, z, in.border, in.width, 3);
 			for (int y = in.border; y < in.endY; y++) {
-				rowIn1a = in.matrix[z][y - 1];
-				rowIn0  = in.matrix[z][y];
-				rowIn1b = in.matrix[z][y + 1];
-				rowOut  = out.matrix[z][y];
-				for (x = in.border; x < endX; x++) {
-					rowOut[x] = rowIn1a[x] != rowIn1b[x] ? rowIn0[x] : rowIn1a[x];
-				}
+				FloatRow rowIn1a = window.get(y - 1);
+				FloatRow rowIn0  = window.get(y);
+				FloatRow rowIn1b = window.get(y + 1);
+
+				out.readRow(z, y, out.border, in.width, rowOut);
+				filterRow(rowIn1a.array,
+				          rowIn1a.offset + in.border,
+				          rowIn0.array,
+				          rowIn0.offset + in.border,
+				          rowIn1b.array,
+				          rowIn1b.offset + in.border,
+				          rowOut.array,
+				          rowOut.offset + out.border,
+				          in.width);
+				out.writeRow(z, y, out.border, in.width, rowOut);
 			}
 		}
 	}
+
+	/**
+	 * Filters {@code length} samples of the rows above, at and below the output row, each from its own begin, to {@code
+	 * rowOut} from {@code outBegin}.
+	 */
+	private static void filterRow(float[] rowIn1a, int begin1a, float[] rowIn0, int begin0,
+	                              float[] rowIn1b, int begin1b, float[] rowOut, int outBegin, int length) {
+		// Inner loop
+		int x; // 7.3 (6~8)
+		int endX     = begin0 + length; // 1
+		int offset1a = begin1a - begin0; // 1
+		int offset1b = begin1b - begin0; // 1
+		int offset   = outBegin - begin0; // 1
+
+		for (x = begin0; x < endX; x++) {
+			rowOut[x + offset] = rowIn1a[x + offset1a] != rowIn1b[x + offset1b] ? rowIn0[x] : rowIn1a[x + offset1a];
+		}
+	}
+
+	@Override
+	protected boolean isBorderModeSupported() {
+		return true;
+	}
 }
@@ -0,0 +1,144 @@
+package nl.airsupplies.utilities.graphics.image.filter;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+
+/**
+ * Gaussian blur using the third order recursive filter of Young and van Vliet (1995), costing the same per pixel for
+ * any standard deviation. Every line is filtered forward and then backward, with the state initialized to the edge
+ * sample.
+ * <p>
+ * The published fit of the filter parameter {@code q} to the standard deviation makes the blur up to 25% too wide
+ * (about 10% for most standard deviations), so it's only used as a starting point, and {@code q} is solved for the
+ * exact variance of the impulse response. The published coefficient {@code 2.85619} is replaced by {@code 2.8562}
+ * ({@code 2 * 1.4281}), without which the gain drifts with {@code q} and blurs wider than about 200 can't be reached.
+ * <p>
+ * Samples outside the image area are the nearest edge sample, so the border can be of any width (see {@link
+ * ImageLineFilter}).
+ *
+ * @author Mark Jeronimus
+ * @see ImageBoxBlurFilter
+ * @see ImageConvolutionFlatSymmetricFilter#designGaussianBlur(float, float, int)
+ */
+// Created 2026-10-17
+// Changed 2026-10-17 Solves q for the exact standard deviation
+public class ImageRecursiveGaussianFilter extends ImageLineFilter {
+	private static final int    MAX_ITERATIONS = 50;
+	private static final double CONVERGENCE    = 1.0e-10;
+
+	public final float stdDeviation;
+
+	private final double gain;
+	private final double coefficient1;
+	private final double coefficient2;
+	private final double coefficient3;
+
+	/**
+	 * @param stdDeviation the standard deviation, at least 0.5.
+	 */
+	public ImageRecursiveGaussianFilter(float stdDeviation) {
+		this.stdDeviation = requireAtLeast(0.5f, stdDeviation, "stdDeviation");
+
+		double[] coefficients = calculateCoefficients(calculateQ(stdDeviation));
+		coefficient1 = coefficients[0];
+		coefficient2 = coefficients[1];
+		coefficient3 = coefficients[2];
+		gain         = coefficients[3];
+	}
+
+	/**
+	 * Solves {@code q} with Newton's method, starting at the published fit.
+	 */
+	private static double calculateQ(double stdDeviation) {
+		double q = stdDeviation >= 2.5 ?
+		           0.98711 * stdDeviation - 0.96330 :
+		           3.97156 - 4.14554 * Math.sqrt(1 - 0.26891 * stdDeviation);
+
+		double variance = stdDeviation * stdDeviation;
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			double h          = q * 1.0e-6;
+			double derivative = (calculateVariance(q + h) - calculateVariance(q - h)) / (2 * h);
+			double step       = (calculateVariance(q) - variance) / derivative;
+
+			q -= step;
+			if (Math.abs(step) <= CONVERGENCE * q) {
+				break;
+			}
+		}
+
+		return q;
+	}
+
+	/**
+	 * Returns {@code {b1, b2, b3, gain}} of the recursion {@code w[n] = gain * x[n] + b1 * w[n-1] + b2 * w[n-2] + b3 *
+	 * w[n-3]}.
+	 */
+	private static double[] calculateCoefficients(double q) {
+		double q2 = q * q;
+		double q3 = q2 * q;
+		double b0 = 1.57825 + 2.44413 * q + 1.4281 * q2 + 0.422205 * q3;
+
+		// The gain is 1 - (b1 + b2 + b3), calculated without the cancellation.
+		return new double[]{(2.44413 * q + 2.8562 * q2 + 1.26661 * q3) / b0,
+		                    -(1.4281 * q2 + 1.26661 * q3) / b0,
+		                    0.422205 * q3 / b0,
+		                    1.57825 / b0};
+	}
+
+	/**
+	 * Returns the variance of the impulse response of the forward and backward passes on an infinite line, which is
+	 * twice that of the forward pass. That follows from the first two derivatives of its transfer function
+	 * {@code gain / (1 - b1 z - b2 z^2 - b3 z^3)} at {@code z = 1}.
+	 */
+	private static double calculateVariance(double q) {
+		double[] coefficients = calculateCoefficients(q);
+		double   b1           = coefficients[0];
+		double   b2           = coefficients[1];
+		double   b3           = coefficients[2];
+		double   gain         = coefficients[3];
+
+		double mean = (b1 + 2 * b2 + 3 * b3) / gain;
+		return 2 * ((2 * b2 + 6 * b3) / gain + mean * mean + mean);
+	}
+
+	@Override
+	protected void filterRow(float[] src, float[] dst, int length) {
+		filterLine(src, dst, length);
+	}
+
+	@Override
+	protected void filterColumn(float[] src, float[] dst, int length) {
+		filterLine(src, dst, length);
+	}
+
+	private void filterLine(float[] src, float[] dst, int length) {
+		// Inner loop
+		int    x; // 4
+		double w; // 3
+		double w1; // 3
+		double w2; // 3
+		double w3; // 3
+
+		// Forward, starting in the steady state of the first sample.
+		w1 = src[0];
+		w2 = w1;
+		w3 = w1;
+		for (x = 0; x < length; x++) {
+			w      = gain * src[x] + coefficient1 * w1 + coefficient2 * w2 + coefficient3 * w3;
+			dst[x] = (float)w;
+			w3     = w2;
+			w2     = w1;
+			w1     = w;
+		}
+
+		// Backward, starting in the steady state of the last forward sample.
+		w2 = w1;
+		w3 = w1;
+		for (x = length - 1; x >= 0; x--) {
+			w      = gain * dst[x] + coefficient1 * w1 + coefficient2 * w2 + coefficient3 * w3;
+			dst[x] = (float)w;
+			w3     = w2;
+			w2     = w1;
+			w1     = w;
+		}
+	}
+}
@@ -0,0 +1,290 @@
+package nl.airsupplies.utilities.graphics.image.filter;
+
+import java.util.Arrays;
+
+import org.jetbrains.annotations.Nullable;
+
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.BorderMode;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+
+/**
+ * Square kernel convolution as a sum of separable (horizontal followed by vertical) 1D convolutions.
+ * <p>
+ * The kernel is decomposed into rank-1 terms (the singular value decomposition, calculated with power iteration and
+ * deflation) until the remainder is negligible. A kernel of rank {@code k} then takes {@code 2 * k * diameter}
+ * multiplications per pixel instead of {@code diameter * diameter}.
+ * <p>
+ * The horizontal pass includes the {@code radius} rows above and below the image area, so the vertical pass sees the
+ * same border pixels as the direct convolution would.
+ *
+ * @author Mark Jeronimus
+ * @see ImageConvolutionFilter
+ */
+// Created 2026-10-17
+final class ImageSeparableConvolver {
+	private static final int    MAX_ITERATIONS = 100;
+	private static final double CONVERGENCE    = 1.0e-12;
+
+	private final int radius;
+
+	/**
+	 * {@code horizontal[k]} and {@code vertical[k]} are the 1D kernels of term {@code k}.
+	 */
+	private final float[][] horizontal;
+	private final float[][] vertical;
+
+	private ImageSeparableConvolver(int radius, float[][] horizontal, float[][] vertical) {
+		this.radius     = radius;
+		this.horizontal = horizontal;
+		this.vertical   = vertical;
+	}
+
+	/**
+	 * Decomposes the kernel into at most {@code maxRank} separable terms.
+	 *
+	 * @param tolerance the maximum Frobenius norm of the remainder, relative to that of the kernel
+	 * @return the decomposition, or {@code null} if it needs more than {@code maxRank} terms
+	 */
+	static @Nullable ImageSeparableConvolver decompose(float[][] kernel, double tolerance, int maxRank) {
+		int diameter = kernel.length;
+
+		double[][] remainder = new double[diameter][diameter];
+		for (int v = 0; v < diameter; v++) {
+			for (int u = 0; u < diameter; u++) {
+				remainder[v][u] = kernel[v][u];
+			}
+		}
+
+		double limit = tolerance * tolerance * squaredNorm(remainder);
+
+		float[][] horizontal = new float[maxRank][];
+		float[][] vertical   = new float[maxRank][];
+		int       rank       = 0;
+		while (squaredNorm(remainder) > limit) {
+			if (rank == maxRank) {
+				return null;
+			}
+
+			double[] a = new double[diameter];
+			double[] b = new double[diameter];
+			double   s = largestSingularTriplet(remainder, a, b);
+
+			horizontal[rank] = new float[diameter];
+			vertical[rank]   = new float[diameter];
+			for (int i = 0; i < diameter; i++) {
+				// Split the singular value evenly to keep both kernels in the same range.
+				horizontal[rank][i] = (float)(b[i] * Math.sqrt(s));
+				vertical[rank][i]   = (float)(a[i] * Math.sqrt(s));
+			}
+
+			for (int v = 0; v < diameter; v++) {
+				for (int u = 0; u < diameter; u++) {
+					remainder[v][u] -= s * a[v] * b[u];
+				}
+			}
+
+			rank++;
+		}
+
+		return new ImageSeparableConvolver(diameter >> 1,
+		                                   Arrays.copyOf(horizontal, rank),
+		                                   Arrays.copyOf(vertical, rank));
+	}
+
+	private static double squaredNorm(double[][] matrix) {
+		double sum = 0;
+		for (double[] row : matrix) {
+			for (double value : row) {
+				sum += value * value;
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Power iteration for the largest singular value {@code s} and unit vectors {@code a} and {@code b} such that
+	 * {@code matrix * b = s * a}.
+	 */
+	private static double largestSingularTriplet(double[][] matrix, double[] a, double[] b) {
+		int n = matrix.length;
+
+		// Start with the row with the largest norm, which can't be orthogonal to the dominant right singular vector.
+		int    bestRow  = 0;
+		double bestNorm = -1;
+		for (int v = 0; v < n; v++) {
+			double norm = 0;
+			for (int u = 0; u < n; u++) {
+				norm += matrix[v][u] * matrix[v][u];
+			}
+			if (norm > bestNorm) {
+				bestRow  = v;
+				bestNorm = norm;
+			}
+		}
+
+		System.arraycopy(matrix[bestRow], 0, b, 0, n);
+		normalize(b);
+
+		double s = 0;
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			for (int v = 0; v < n; v++) {
+				double sum = 0;
+				for (int u = 0; u < n; u++) {
+					sum += matrix[v][u] * b[u];
+				}
+				a[v] = sum;
+			}
+			normalize(a);
+
+			for (int u = 0; u < n; u++) {
+				double sum = 0;
+				for (int v = 0; v < n; v++) {
+					sum += matrix[v][u] * a[v];
+				}
+				b[u] = sum;
+			}
+
+			double previous = s;
+			s = normalize(b);
+			if (Math.abs(s - previous) <= CONVERGENCE * s) {
+				break;
+			}
+		}
+
+		return s;
+	}
+
+	private static double normalize(double[] vector) {
+		double norm = 0;
+		for (double value : vector) {
+			norm += value * value;
+		}
+
+		norm = Math.sqrt(norm);
+		if (norm > 0) {
+			for (int i = 0; i < vector.length; i++) {
+				vector[i] /= norm;
+			}
+		}
+
+		return norm;
+	}
+
+	public int getRank() {
+		return horizontal.length;
+	}
+
+	/**
+	 * @param temp receives the horizontal passes, including {@code radius} rows above and below the image area
+	 */
+	public void convolve(AbstractImageMatrixFloat in, AbstractImageMatrixFloat temp, AbstractImageMatrixFloat out) {
+		int width = in.width;
+
+		// Rows of temp needed by the vertical pass.
+		int tempBeginY = in.border - radius;
+		int tempEndY   = in.endY + radius;
+
+		for (int k = 0; k < horizontal.length; k++) {
+			float[] kernelH    = horizontal[k];
+			float[] kernelV    = vertical[k];
+			boolean accumulate = k > 0;
+
+			ImageMatrixExecutor.forEachBand(in.numComponents, tempBeginY, tempEndY, width, (z, beginY, endY) -> {
+				FloatRow rowIn   = new FloatRow();
+				FloatRow rowTemp = new FloatRow();
+				for (int y = beginY; y < endY; y++) {
+					in.readRow(z, y, in.border - radius, width + radius * 2, rowIn);
+					temp.readRow(z, y, temp.border, width, rowTemp);
+					convolveRow(rowIn.array, rowIn.offset + in.border, rowTemp.array, rowTemp.offset + temp.border,
+					            width, kernelH);
+					temp.writeRow(z, y, temp.border, width, rowTemp);
+				}
+			});
+
+			ImageMatrixExecutor.forEachBand(out, (z, beginY, endY) -> {
+				RowWindow window     = new RowWindow(temp, z, temp.border, width, kernelV.length);
+				FloatRow  rowOutBase = new FloatRow();
+
+				// Inner loop
+				int      x; // 4
+				float[]  rowTemp; // 3
+				float    kv; // 3
+				int      offset; // 3
+				float[]  rowOut; // 2
+				FloatRow row; // 1
+				int      begin; // 1
+				int      end; // 1
+
+				for (int y = beginY; y < endY; y++) {
+					out.readRow(z, y, out.border, width, rowOutBase);
+					rowOut = rowOutBase.array;
+					begin  = rowOutBase.offset + out.border;
+					end    = begin + width;
+					for (int v = 0; v < kernelV.length; v++) {
+						row     = window.get(y + v - radius);
+						rowTemp = row.array;
+						offset  = row.offset + temp.border - begin;
+						kv      = kernelV[v];
+						if (v == 0 && !accumulate) {
+							for (x = begin; x < end; x++) {
+								rowOut[x] = rowTemp[x + offset] * kv;
+							}
+						} else {
+							for (x = begin; x < end; x++) {
+								rowOut[x] += rowTemp[x + offset] * kv;
+							}
+						}
+					}
+
+					out.writeRow(z, y, out.border, width, rowOutBase);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Convolves with a virtual border. Only the image area of temp is used, so it can have any border.
+	 */
+	public void convolve(AbstractImageMatrixFloat in, AbstractImageMatrixFloat temp, AbstractImageMatrixFloat out,
+	                     BorderMode mode, float constant) {
+		for (int k = 0; k < horizontal.length; k++) {
+			// A constant row stays constant in the horizontal pass, scaled by the sum of the kernel.
+			float sum = 0;
+			for (float value : horizontal[k]) {
+				sum += value;
+			}
+
+			VirtualBorderConvolution.convolveRows(in, temp, horizontal[k], mode, constant);
+			VirtualBorderConvolution.convolveColumns(temp, out, vertical[k], mode, constant * sum, k > 0);
+		}
+	}
+
+	/**
+	 * Convolves {@code length} samples of {@code rowIn} from {@code inBegin}, which must have {@code radius} samples
+	 * before and after them, to {@code rowOut} from {@code outBegin}.
+	 */
+	private void convolveRow(float[] rowIn, int inBegin, float[] rowOut, int outBegin, int length, float[] kernel) {
+		// Inner loop
+		int   x; // 4
+		float k; // 3
+		int   offset; // 2
+		int   end = outBegin + length; // 1
+
+		k      = kernel[0];
+		offset = inBegin - outBegin - radius;
+		for (x = outBegin; x < end; x++) {
+			rowOut[x] = rowIn[x + offset] * k;
+		}
+
+		for (int u = 1; u < kernel.length; u++) {
+			k      = kernel[u];
+			offset = inBegin - outBegin + u - radius;
+			for (x = outBegin; x < end; x++) {
+				rowOut[x] += rowIn[x + offset] * k;
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package nl.airsupplies.utilities.graphics.image.filter;
+
+import java.util.Arrays;
+
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.BorderMode;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
+
+/**
+ * The most recently read rows of one component of an image, for filters that slide a window of rows over the image.
+ * Every row is read only once while it stays in the window, which matters for storage that copies rows on reading.
+ * <p>
+ * Rows are only read, never written back.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+final class RowWindow {
+	private final AbstractImageMatrixFloat image;
+	private final int                      component;
+	private final int                      beginX;
+	private final int                      length;
+
+	private final FloatRow[] rows;
+	private final int[]      rowPosition;
+
+	/**
+	 * @param beginX the first sample of every row that's needed, including the border
+	 * @param length the number of samples of every row that's needed
+	 * @param size   the number of rows to keep, at least the height of the window
+	 */
+	RowWindow(AbstractImageMatrixFloat image, int component, int beginX, int length, int size) {
+		this.image     = image;
+		this.component = component;
+		this.beginX    = beginX;
+		this.length    = length;
+
+		rows        = new FloatRow[size];
+		rowPosition = new int[size];
+		for (int i = 0; i < size; i++) {
+			rows[i] = new FloatRow();
+		}
+
+		Arrays.fill(rowPosition, Integer.MIN_VALUE);
+	}
+
+	/**
+	 * @param y the row, including the border (i.e. the first image row is at {@code image.border})
+	 */
+	FloatRow get(int y) {
+		return get(y, y);
+	}
+
+	/**
+	 * Returns a row for a position of the window, for when positions map to other rows (like with a virtual border).
+	 * Rows of positions less than {@code size} apart are kept separately, even when they map to the same row.
+	 *
+	 * @param position the position in the window, consecutive for consecutive rows of the window
+	 * @param y        the row, including the border (i.e. the first image row is at {@code image.border})
+	 */
+	FloatRow get(int position, int y) {
+		int slot = Math.floorMod(position, rows.length);
+		if (rowPosition[slot] != position) {
+			image.readRow(component, y, beginX, length, rows[slot]);
+			rowPosition[slot] = position;
+		}
+
+		return rows[slot];
+	}
+
+	/**
+	 * Returns the row that a row position maps to with a virtual border.
+	 *
+	 * @param y           the row position, relative to the first image row
+	 * @param constantRow the row to return for {@link BorderMode#CONSTANT} positions outside of the image
+	 */
+	FloatRow get(int y, BorderMode mode, FloatRow constantRow) {
+		int mapped = mode.map(y, image.height);
+		return mapped < 0 ? constantRow : get(y, image.border + mapped);
+	}
+}
@@ -0,0 +1,152 @@
+package nl.airsupplies.utilities.graphics.image.filter;
+
+import java.util.Arrays;
+
+import nl.airsupplies.utilities.annotation.StaticClass;
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.BorderMode;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+
+/**
+ * 1D convolutions with a {@link BorderMode virtual border}, for filters that don't read the physical border.
+ * <p>
+ * Rows are padded one at a time into a line buffer of {@code width + 2 * radius} samples, so only the {@code radius}
+ * samples on either end are evaluated through the border mode. Columns read the rows of the image directly, and only
+ * the rows outside of the image are mapped.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@StaticClass
+final class VirtualBorderConvolution {
+	/**
+	 * Convolves every row of the image area.
+	 *
+	 * @param kernel the kernel, of odd length, centered at {@code kernel.length / 2}
+	 */
+	static void convolveRows(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out, float[] kernel,
+	                         BorderMode mode, float constant) {
+		int width  = in.width;
+		int radius = kernel.length / 2;
+
+		ImageMatrixExecutor.forEachBand(in.numComponents, 0, in.height, width, (z, beginY, endY) -> {
+			FloatRow rowIn  = new FloatRow();
+			FloatRow rowOut = new FloatRow();
+			float[]  padded = new float[width + radius * 2];
+
+			for (int y = beginY; y < endY; y++) {
+				in.readRow(z, in.border + y, in.border, width, rowIn);
+				mode.padLine(rowIn.array, rowIn.offset + in.border, width, padded, radius, constant);
+				out.readRow(z, out.border + y, out.border, width, rowOut);
+				convolveLine(padded, rowOut.array, rowOut.offset + out.border, width, kernel);
+				out.writeRow(z, out.border + y, out.border, width, rowOut);
+			}
+		});
+	}
+
+	/**
+	 * Convolves every column of the image area. Parameters in and out must be different images.
+	 *
+	 * @param kernel the kernel, of odd length, centered at {@code kernel.length / 2}
+	 */
+	static void convolveColumns(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out, float[] kernel,
+	                            BorderMode mode, float constant) {
+		convolveColumns(in, out, kernel, mode, constant, false);
+	}
+
+	/**
+	 * @param accumulate whether to add the result to the image area of {@code out} instead of replacing it
+	 */
+	static void convolveColumns(AbstractImageMatrixFloat in, AbstractImageMatrixFloat out, float[] kernel,
+	                            BorderMode mode, float constant, boolean accumulate) {
+		int width  = in.width;
+		int height = in.height;
+		int radius = kernel.length / 2;
+
+		ImageMatrixExecutor.forEachBand(in.numComponents, 0, height, width, (z, beginY, endY) -> {
+			RowWindow window      = new RowWindow(in, z, in.border, width, kernel.length);
+			FloatRow  rowOut      = new FloatRow();
+			FloatRow  constantRow = new FloatRow();
+			constantRow.array  = new float[width];
+			constantRow.offset = -in.border;
+			Arrays.fill(constantRow.array, constant);
+
+			// Inner loop
+			int     x; // 4
+			float[] src; // 3
+			float   k; // 3
+			int     offset; // 3
+			float[] dst; // 2
+			int     begin; // 1
+			int     end; // 1
+
+			for (int y = beginY; y < endY; y++) {
+				out.readRow(z, out.border + y, out.border, width, rowOut);
+				dst   = rowOut.array;
+				begin = rowOut.offset + out.border;
+				end   = begin + width;
+
+				for (int v = 0; v < kernel.length; v++) {
+					FloatRow row = window.get(y + v - radius, mode, constantRow);
+					src    = row.array;
+					offset = row.offset + in.border - begin;
+					k      = kernel[v];
+					if (v == 0 && !accumulate) {
+						for (x = begin; x < end; x++) {
+							dst[x] = src[x + offset] * k;
+						}
+					} else {
+						for (x = begin; x < end; x++) {
+							dst[x] += src[x + offset] * k;
+						}
+					}
+				}
+
+				out.writeRow(z, out.border + y, out.border, width, rowOut);
+			}
+		});
+	}
+
+	/**
+	 * Convolves a padded line, of which sample {@code i} is centered on output sample {@code begin + i}.
+	 */
+	static void convolveLine(float[] padded, float[] dst, int begin, int length, float[] kernel) {
+		// Inner loop
+		int   x; // 4
+		float k; // 3
+		int   offset; // 2
+		int   end = begin + length; // 1
+
+		k      = kernel[0];
+		offset = -begin;
+		for (x = begin; x < end; x++) {
+			dst[x] = padded[x + offset] * k;
+		}
+
+		for (int u = 1; u < kernel.length; u++) {
+			k      = kernel[u];
+			offset = u - begin;
+			for (x = begin; x < end; x++) {
+				dst[x] += padded[x + offset] * k;
+			}
+		}
+	}
+
+	/**
+	 * Expands the half kernel of a flat symmetric or antisymmetric filter ({@code {a, b, c}}) to a full kernel
+	 * ({@code {c, b, a, b, c}} or {@code {-c, -b, a, b, c}}).
+	 */
+	static float[] expandHalfKernel(float[] halfKernel, boolean antisymmetric) {
+		int     radius = halfKernel.length - 1;
+		float[] kernel = new float[radius * 2 + 1];
+
+		kernel[radius] = halfKernel[0];
+		for (int i = 1; i <= radius; i++) {
+			kernel[radius + i] = halfKernel[i];
+			kernel[radius - i] = antisymmetric ? -halfKernel[i] : halfKernel[i];
+		}
+
+		return kernel;
+	}
+}
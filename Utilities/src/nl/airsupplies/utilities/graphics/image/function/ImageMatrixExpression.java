@@ -0,0 +1,951 @@
+package nl.airsupplies.utilities.graphics.image.function;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.jetbrains.annotations.Nullable;
+
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * Lazy, fused expression over {@link ImageMatrixFloat}s.
+ * <p>
+ * Each method records an operation and returns a new expression without touching any pixel. Expressions can be
+ * shared between other expressions, forming a DAG. {@link #evaluate(ImageMatrixFloat)} then computes the whole DAG in
+ * one pass over memory, in tiles of a fraction of a row that stay in the L1 cache, instead of one full pass per
+ * operation. Intermediate results only live in tile-sized buffers, which are recycled when a result is used only once.
+ * <p>
+ * For example, {@code img.mul(a); img.add(b); img.sqrt(); img.clamp();} makes four passes, while
+ * {@code ImageMatrixExpression.of(img).mul(a).add(b).sqrt().clamp().evaluate(img);} makes only one.
+ * <p>
+ * Like the eager functions, only the image area (not the border) is computed. All images must be compatible by border
+ * and size with the output image.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+public abstract class ImageMatrixExpression {
+	/**
+	 * Number of samples per tile. Several tile buffers together should comfortably fit in the L1 cache.
+	 */
+	private static final int TILE_WIDTH = 512;
+
+	ImageMatrixExpression() {
+	}
+
+	/**
+	 * Every component of the image, in parallel with the component of the output image being computed.
+	 */
+	public static ImageMatrixExpression of(ImageMatrixFloat image) {
+		return new Source(requireNonNull(image, "image"), -1);
+	}
+
+	/**
+	 * A single component of the image, regardless of the component of the output image being computed.
+	 */
+	public static ImageMatrixExpression of(ImageMatrixFloat image, int component) {
+		requireNonNull(image, "image");
+		if (component < 0 || component >= image.numComponents) {
+			throw new IllegalArgumentException("Component out of range: " + component);
+		}
+
+		return new Source(image, component);
+	}
+
+	public static ImageMatrixExpression constant(float value) {
+		return new Constant(value);
+	}
+
+	// ## Binary operations
+
+	/**
+	 * this + other
+	 */
+	public ImageMatrixExpression add(ImageMatrixExpression other) {
+		return binary(BinaryOperator.ADD, this, other);
+	}
+
+	public ImageMatrixExpression add(ImageMatrixFloat other) {
+		return add(of(other));
+	}
+
+	public ImageMatrixExpression add(float value) {
+		return add(constant(value));
+	}
+
+	/**
+	 * this - other
+	 */
+	public ImageMatrixExpression sub(ImageMatrixExpression other) {
+		return binary(BinaryOperator.SUB, this, other);
+	}
+
+	public ImageMatrixExpression sub(ImageMatrixFloat other) {
+		return sub(of(other));
+	}
+
+	public ImageMatrixExpression sub(float value) {
+		return sub(constant(value));
+	}
+
+	/**
+	 * other - this
+	 */
+	public ImageMatrixExpression subR(ImageMatrixExpression other) {
+		return binary(BinaryOperator.SUB, other, this);
+	}
+
+	public ImageMatrixExpression subR(ImageMatrixFloat other) {
+		return subR(of(other));
+	}
+
+	public ImageMatrixExpression subR(float value) {
+		return subR(constant(value));
+	}
+
+	/**
+	 * this * other
+	 */
+	public ImageMatrixExpression mul(ImageMatrixExpression other) {
+		return binary(BinaryOperator.MUL, this, other);
+	}
+
+	public ImageMatrixExpression mul(ImageMatrixFloat other) {
+		return mul(of(other));
+	}
+
+	public ImageMatrixExpression mul(float value) {
+		return mul(constant(value));
+	}
+
+	/**
+	 * this / other
+	 */
+	public ImageMatrixExpression div(ImageMatrixExpression other) {
+		return binary(BinaryOperator.DIV, this, other);
+	}
+
+	public ImageMatrixExpression div(ImageMatrixFloat other) {
+		return div(of(other));
+	}
+
+	public ImageMatrixExpression div(float value) {
+		return div(constant(value));
+	}
+
+	/**
+	 * other / this
+	 */
+	public ImageMatrixExpression divR(ImageMatrixExpression other) {
+		return binary(BinaryOperator.DIV, other, this);
+	}
+
+	public ImageMatrixExpression divR(float value) {
+		return divR(constant(value));
+	}
+
+	/**
+	 * this<sup>power</sup>
+	 */
+	public ImageMatrixExpression pow(ImageMatrixExpression power) {
+		return binary(BinaryOperator.POW, this, power);
+	}
+
+	public ImageMatrixExpression pow(float power) {
+		return pow(constant(power));
+	}
+
+	/**
+	 * base<sup>this</sup>
+	 */
+	public ImageMatrixExpression powR(ImageMatrixExpression base) {
+		return binary(BinaryOperator.POW, base, this);
+	}
+
+	public ImageMatrixExpression powR(float base) {
+		return powR(constant(base));
+	}
+
+	/**
+	 * hypot(this, other) = sqrt(this<sup>2</sup> + other<sup>2</sup>)
+	 */
+	public ImageMatrixExpression hypot(ImageMatrixExpression other) {
+		return binary(BinaryOperator.HYPOT, this, other);
+	}
+
+	/**
+	 * atan2(this, other)
+	 */
+	public ImageMatrixExpression atan2(ImageMatrixExpression other) {
+		return binary(BinaryOperator.ATAN2, this, other);
+	}
+
+	/**
+	 * min(this, other)
+	 */
+	public ImageMatrixExpression min(ImageMatrixExpression other) {
+		return binary(BinaryOperator.MIN, this, other);
+	}
+
+	public ImageMatrixExpression min(float value) {
+		return min(constant(value));
+	}
+
+	/**
+	 * max(this, other)
+	 */
+	public ImageMatrixExpression max(ImageMatrixExpression other) {
+		return binary(BinaryOperator.MAX, this, other);
+	}
+
+	public ImageMatrixExpression max(float value) {
+		return max(constant(value));
+	}
+
+	// ## Fused scalar operations
+
+	/**
+	 * this * mul + add
+	 */
+	public ImageMatrixExpression mulAdd(float mul, float add) {
+		if (this instanceof Constant) {
+			return constant(((Constant)this).value * mul + add);
+		}
+
+		return new MulAdd(this, mul, add);
+	}
+
+	/**
+	 * (this + add) * mul
+	 */
+	public ImageMatrixExpression addMul(float add, float mul) {
+		return mulAdd(mul, add * mul);
+	}
+
+	/**
+	 * BLACK, if this < BLACK<br> WHITE, if this > WHITE<br> this, if BLACK <= this <= WHITE<br> (where BLACK = 0 and
+	 * WHITE = 1)
+	 */
+	public ImageMatrixExpression clamp() {
+		return clamp(0, 1);
+	}
+
+	/**
+	 * black, if this < black<br> white, if this > white<br> this, if black <= this <= white<br>
+	 */
+	public ImageMatrixExpression clamp(float black, float white) {
+		if (this instanceof Constant) {
+			return constant(Clamp.apply(((Constant)this).value, black, white));
+		}
+
+		return new Clamp(this, black, white);
+	}
+
+	// ## Unary operations
+
+	/**
+	 * -this
+	 */
+	public ImageMatrixExpression invert() {
+		return unary(UnaryOperator.INVERT);
+	}
+
+	/**
+	 * WHITE - this<br> (where WHITE = 1)
+	 */
+	public ImageMatrixExpression negative() {
+		return unary(UnaryOperator.NEGATIVE);
+	}
+
+	/**
+	 * |this|
+	 */
+	public ImageMatrixExpression abs() {
+		return unary(UnaryOperator.ABS);
+	}
+
+	/**
+	 * round(this) (round towards closest int)
+	 */
+	public ImageMatrixExpression round() {
+		return unary(UnaryOperator.ROUND);
+	}
+
+	/**
+	 * floor(this) (round towards -infinity)
+	 */
+	public ImageMatrixExpression floor() {
+		return unary(UnaryOperator.FLOOR);
+	}
+
+	/**
+	 * ceil(this) (round towards infinity)
+	 */
+	public ImageMatrixExpression ceil() {
+		return unary(UnaryOperator.CEIL);
+	}
+
+	/**
+	 * trunc(this) (round towards 0)
+	 */
+	public ImageMatrixExpression trunc() {
+		return unary(UnaryOperator.TRUNC);
+	}
+
+	/**
+	 * 1 / this
+	 */
+	public ImageMatrixExpression recip() {
+		return unary(UnaryOperator.RECIP);
+	}
+
+	/**
+	 * sqr(this)
+	 */
+	public ImageMatrixExpression sqr() {
+		return unary(UnaryOperator.SQR);
+	}
+
+	/**
+	 * sqrt(this)
+	 */
+	public ImageMatrixExpression sqrt() {
+		return unary(UnaryOperator.SQRT);
+	}
+
+	/**
+	 * cube(this)
+	 */
+	public ImageMatrixExpression cube() {
+		return unary(UnaryOperator.CUBE);
+	}
+
+	/**
+	 * cbrt(this)
+	 */
+	public ImageMatrixExpression cbrt() {
+		return unary(UnaryOperator.CBRT);
+	}
+
+	/**
+	 * exp(this)
+	 */
+	public ImageMatrixExpression exp() {
+		return unary(UnaryOperator.EXP);
+	}
+
+	/**
+	 * log(this)
+	 */
+	public ImageMatrixExpression log() {
+		return unary(UnaryOperator.LOG);
+	}
+
+	/**
+	 * sin(this)
+	 */
+	public ImageMatrixExpression sin() {
+		return unary(UnaryOperator.SIN);
+	}
+
+	/**
+	 * cos(this)
+	 */
+	public ImageMatrixExpression cos() {
+		return unary(UnaryOperator.COS);
+	}
+
+	/**
+	 * tan(this)
+	 */
+	public ImageMatrixExpression tan() {
+		return unary(UnaryOperator.TAN);
+	}
+
+	/**
+	 * atan(this)
+	 */
+	public ImageMatrixExpression atan() {
+		return unary(UnaryOperator.ATAN);
+	}
+
+	// ## Evaluation
+
+	/**
+	 * Evaluates the expression into a new image with the geometry of the first image in the expression.
+	 */
+	public ImageMatrixFloat evaluate() {
+		ImageMatrixFloat template = findFirstImage(this, new IdentityHashMap<>());
+		if (template == null) {
+			throw new IllegalStateException("Expression doesn't contain an image");
+		}
+
+		ImageMatrixFloat out = new ImageMatrixFloat(template, false);
+		evaluate(out);
+		return out;
+	}
+
+	/**
+	 * Evaluates the expression into {@code out} in a single pass.
+	 * <p>
+	 * {@code out} may be one of the images in the expression, except when it's used with a fixed component (see
+	 * {@link #of(ImageMatrixFloat, int)}), because components are computed concurrently.
+	 */
+	public void evaluate(ImageMatrixFloat out) {
+		requireNonNull(out, "out");
+
+		Program program = new Program(this, out);
+
+		ImageMatrixExecutor.forEachBand(out, (z, beginY, endY) -> {
+			int       numNodes = program.nodes.length;
+			float[][] arrays   = new float[numNodes][];
+			int[]     offsets  = new int[numNodes];
+			float[][] buffers  = new float[program.numBuffers][TILE_WIDTH];
+
+			for (int i = 0; i < numNodes; i++) {
+				if (program.buffers[i] >= 0) {
+					arrays[i] = buffers[program.buffers[i]];
+				}
+			}
+
+			int root = numNodes - 1;
+			for (int y = beginY; y < endY; y++) {
+				float[] rowOut = out.matrix[z][y];
+
+				for (int x = out.border; x < out.endX; x += TILE_WIDTH) {
+					int length = Math.min(TILE_WIDTH, out.endX - x);
+
+					for (int i = 0; i < numNodes; i++) {
+						program.nodes[i].compute(program, i, arrays, offsets, z, y, x, length);
+					}
+
+					if (program.nodes[root] instanceof Constant) {
+						float value = ((Constant)program.nodes[root]).value;
+						for (int i = 0; i < length; i++) {
+							rowOut[x + i] = value;
+						}
+					} else {
+						System.arraycopy(arrays[root], offsets[root], rowOut, x, length);
+					}
+				}
+			}
+		});
+	}
+
+	abstract void forEachChild(Consumer<ImageMatrixExpression> action);
+
+	/**
+	 * Computes this node for one tile. Source nodes expose the image row, other nodes fill their buffer.
+	 */
+	abstract void compute(Program program, int index, float[][] arrays, int[] offsets,
+	                      int z, int y, int x, int length);
+
+	private ImageMatrixExpression unary(UnaryOperator operator) {
+		if (this instanceof Constant) {
+			return constant(operator.apply(((Constant)this).value));
+		}
+
+		return new Unary(operator, this);
+	}
+
+	private static ImageMatrixExpression binary(BinaryOperator operator,
+	                                            ImageMatrixExpression left,
+	                                            ImageMatrixExpression right) {
+		requireNonNull(left, "left");
+		requireNonNull(right, "right");
+
+		if (left instanceof Constant && right instanceof Constant) {
+			return constant(operator.apply(((Constant)left).value, ((Constant)right).value));
+		}
+
+		return new Binary(operator, left, right);
+	}
+
+	private static @Nullable ImageMatrixFloat findFirstImage(ImageMatrixExpression node,
+	                                                         Map<ImageMatrixExpression, Boolean> visited) {
+		if (visited.put(node, Boolean.TRUE) != null) {
+			return null;
+		} else if (node instanceof Source) {
+			return ((Source)node).image;
+		}
+
+		@Nullable ImageMatrixFloat[] found = {null};
+		node.forEachChild(child -> {
+			if (found[0] == null) {
+				found[0] = findFirstImage(child, visited);
+			}
+		});
+		return found[0];
+	}
+
+	/**
+	 * The DAG in evaluation order (children before parents, root last), with buffer assignments.
+	 */
+	static final class Program {
+		final ImageMatrixExpression[] nodes;
+		final int[]                   left;
+		final int[]                   right;
+		final int[]                   buffers;
+		final int                     numBuffers;
+
+		Program(ImageMatrixExpression root, ImageMatrixFloat out) {
+			Map<ImageMatrixExpression, Integer> indices = new IdentityHashMap<>();
+			List<ImageMatrixExpression>         order   = new ArrayList<>();
+			sort(root, indices, order);
+
+			int numNodes = order.size();
+			nodes   = order.toArray(new ImageMatrixExpression[numNodes]);
+			left    = new int[numNodes];
+			right   = new int[numNodes];
+			buffers = new int[numNodes];
+
+			int[] numUses = new int[numNodes];
+			for (int i = 0; i < numNodes; i++) {
+				ImageMatrixExpression node = nodes[i];
+
+				if (node instanceof Source) {
+					Source source = (Source)node;
+					if (!out.isCompatibleByBorderAndSize(source.image)) {
+						throw new IllegalArgumentException("Other ImageMatrix not compatible");
+					} else if (source.component < 0 && source.image.numComponents < out.numComponents) {
+						throw new IllegalArgumentException("Number of components differs");
+					}
+				}
+
+				int[] children = {-1, -1};
+				int[] n        = {0};
+				node.forEachChild(child -> children[n[0]++] = indices.get(child));
+				left[i]  = children[0];
+				right[i] = children[1];
+				if (left[i] >= 0) {
+					numUses[left[i]]++;
+				}
+				if (right[i] >= 0) {
+					numUses[right[i]]++;
+				}
+			}
+
+			// Results that are used only once give their buffer to their user, so a chain of operations runs in-place.
+			int buffer = 0;
+			for (int i = 0; i < numNodes; i++) {
+				buffers[i] = -1;
+				if (nodes[i] instanceof Source || nodes[i] instanceof Constant) {
+					continue;
+				}
+
+				if (left[i] >= 0 && buffers[left[i]] >= 0 && numUses[left[i]] == 1) {
+					buffers[i] = buffers[left[i]];
+				} else if (right[i] >= 0 && buffers[right[i]] >= 0 && numUses[right[i]] == 1) {
+					buffers[i] = buffers[right[i]];
+				} else {
+					buffers[i] = buffer++;
+				}
+			}
+
+			numBuffers = buffer;
+		}
+
+		private static void sort(ImageMatrixExpression node,
+		                         Map<ImageMatrixExpression, Integer> indices,
+		                         List<ImageMatrixExpression> order) {
+			if (indices.containsKey(node)) {
+				return;
+			}
+
+			node.forEachChild(child -> sort(child, indices, order));
+			indices.put(node, order.size());
+			order.add(node);
+		}
+	}
+
+	private static final class Source extends ImageMatrixExpression {
+		private final ImageMatrixFloat image;
+		private final int              component;
+
+		private Source(ImageMatrixFloat image, int component) {
+			this.image     = image;
+			this.component = component;
+		}
+
+		@Override
+		void forEachChild(Consumer<ImageMatrixExpression> action) {
+		}
+
+		@Override
+		void compute(Program program, int index, float[][] arrays, int[] offsets, int z, int y, int x, int length) {
+			arrays[index]  = image.matrix[component < 0 ? z : component][y];
+			offsets[index] = x;
+		}
+	}
+
+	private static final class Constant extends ImageMatrixExpression {
+		private final float value;
+
+		private Constant(float value) {
+			this.value = value;
+		}
+
+		@Override
+		void forEachChild(Consumer<ImageMatrixExpression> action) {
+		}
+
+		@Override
+		void compute(Program program, int index, float[][] arrays, int[] offsets, int z, int y, int x, int length) {
+			// Parents read the value directly.
+		}
+	}
+
+	private static final class MulAdd extends ImageMatrixExpression {
+		private final ImageMatrixExpression child;
+		private final float                 mul;
+		private final float                 add;
+
+		private MulAdd(ImageMatrixExpression child, float mul, float add) {
+			this.child = child;
+			this.mul   = mul;
+			this.add   = add;
+		}
+
+		@Override
+		void forEachChild(Consumer<ImageMatrixExpression> action) {
+			action.accept(child);
+		}
+
+		@Override
+		void compute(Program program, int index, float[][] arrays, int[] offsets, int z, int y, int x, int length) {
+			int     in    = program.left[index];
+			float[] rowIn = arrays[in];
+			int     p     = offsets[in];
+			float[] row   = arrays[index];
+
+			for (int i = 0; i < length; i++) {
+				row[i] = rowIn[p + i] * mul + add;
+			}
+		}
+	}
+
+	private static final class Clamp extends ImageMatrixExpression {
+		private final ImageMatrixExpression child;
+		private final float                 black;
+		private final float                 white;
+
+		private Clamp(ImageMatrixExpression child, float black, float white) {
+			this.child = child;
+			this.black = black;
+			this.white = white;
+		}
+
+		static float apply(float value, float black, float white) {
+			return value < black ? black : value >= white ? white : value;
+		}
+
+		@Override
+		void forEachChild(Consumer<ImageMatrixExpression> action) {
+			action.accept(child);
+		}
+
+		@Override
+		void compute(Program program, int index, float[][] arrays, int[] offsets, int z, int y, int x, int length) {
+			int     in    = program.left[index];
+			float[] rowIn = arrays[in];
+			int     p     = offsets[in];
+			float[] row   = arrays[index];
+
+			for (int i = 0; i < length; i++) {
+				float c = rowIn[p + i];
+				row[i] = c < black ? black : c >= white ? white : c;
+			}
+		}
+	}
+
+	private static final class Unary extends ImageMatrixExpression {
+		private final UnaryOperator         operator;
+		private final ImageMatrixExpression child;
+
+		private Unary(UnaryOperator operator, ImageMatrixExpression child) {
+			this.operator = operator;
+			this.child    = child;
+		}
+
+		@Override
+		void forEachChild(Consumer<ImageMatrixExpression> action) {
+			action.accept(child);
+		}
+
+		@Override
+		void compute(Program program, int index, float[][] arrays, int[] offsets, int z, int y, int x, int length) {
+			int in = program.left[index];
+			operator.compute(arrays[in], offsets[in], arrays[index], length);
+		}
+	}
+
+	private static final class Binary extends ImageMatrixExpression {
+		private final BinaryOperator        operator;
+		private final ImageMatrixExpression left;
+		private final ImageMatrixExpression right;
+
+		private Binary(BinaryOperator operator, ImageMatrixExpression left, ImageMatrixExpression right) {
+			this.operator = operator;
+			this.left     = left;
+			this.right    = right;
+		}
+
+		@Override
+		void forEachChild(Consumer<ImageMatrixExpression> action) {
+			action.accept(left);
+			action.accept(right);
+		}
+
+		@Override
+		void compute(Program program, int index, float[][] arrays, int[] offsets, int z, int y, int x, int length) {
+			int     a   = program.left[index];
+			int     b   = program.right[index];
+			float[] row = arrays[index];
+
+			if (left instanceof Constant) {
+				operator.compute(((Constant)left).value, arrays[b], offsets[b], row, length);
+			} else if (right instanceof Constant) {
+				operator.compute(arrays[a], offsets[a], ((Constant)right).value, row, length);
+			} else {
+				operator.compute(arrays[a], offsets[a], arrays[b], offsets[b], row, length);
+			}
+		}
+	}
+
+	/**
+	 * Each operator has its own loop so the per-sample work is not hidden behind a virtual call.
+	 */
+	private enum UnaryOperator {
+		INVERT, NEGATIVE, ABS, ROUND, FLOOR, CEIL, TRUNC, RECIP, SQR, SQRT, CUBE, CBRT, EXP, LOG, SIN, COS, TAN, ATAN;
+
+		float apply(float value) {
+			float[] tmp = {value};
+			compute(tmp, 0, tmp, 1);
+			return tmp[0];
+		}
+
+		void compute(float[] in, int p, float[] out, int length) {
+			int i;
+			switch (this) {
+				case INVERT:
+					for (i = 0; i < length; i++) {
+						out[i] = -in[p + i];
+					}
+					break;
+				case NEGATIVE:
+					for (i = 0; i < length; i++) {
+						out[i] = 1 - in[p + i];
+					}
+					break;
+				case ABS:
+					for (i = 0; i < length; i++) {
+						out[i] = Math.abs(in[p + i]);
+					}
+					break;
+				case ROUND:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.floor(in[p + i] + 0.5);
+					}
+					break;
+				case FLOOR:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.floor(in[p + i]);
+					}
+					break;
+				case CEIL:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.ceil(in[p + i]);
+					}
+					break;
+				case TRUNC:
+					for (i = 0; i < length; i++) {
+						out[i] = (int)in[p + i];
+					}
+					break;
+				case RECIP:
+					for (i = 0; i < length; i++) {
+						out[i] = 1 / in[p + i];
+					}
+					break;
+				case SQR:
+					for (i = 0; i < length; i++) {
+						float c = in[p + i];
+						out[i] = c * c;
+					}
+					break;
+				case SQRT:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.sqrt(in[p + i]);
+					}
+					break;
+				case CUBE:
+					for (i = 0; i < length; i++) {
+						float c = in[p + i];
+						out[i] = c * c * c;
+					}
+					break;
+				case CBRT:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.cbrt(in[p + i]);
+					}
+					break;
+				case EXP:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.exp(in[p + i]);
+					}
+					break;
+				case LOG:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.log(in[p + i]);
+					}
+					break;
+				case SIN:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.sin(in[p + i]);
+					}
+					break;
+				case COS:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.cos(in[p + i]);
+					}
+					break;
+				case TAN:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.tan(in[p + i]);
+					}
+					break;
+				case ATAN:
+					for (i = 0; i < length; i++) {
+						out[i] = (float)Math.atan(in[p + i]);
+					}
+					break;
+				default:
+					throw new AssertionError(this);
+			}
+		}
+	}
+
+	private enum BinaryOperator {
+		ADD, SUB, MUL, DIV, POW, HYPOT, ATAN2, MIN, MAX;
+
+		float apply(float a, float b) {
+			switch (this) {
+				case ADD:
+					return a + b;
+				case SUB:
+					return a - b;
+				case MUL:
+					return a * b;
+				case DIV:
+					return a / b;
+				case POW:
+					return (float)Math.pow(a, b);
+				case HYPOT:
+					return (float)Math.hypot(a, b);
+				case ATAN2:
+					return (float)Math.atan2(a, b);
+				case MIN:
+					return Math.min(a, b);
+				case MAX:
+					return Math.max(a, b);
+				default:
+					throw new AssertionError(this);
+			}
+		}
+
+		void compute(float[] a, int p, float[] b, int q, float[] out, int length) {
+			int i;
+			switch (this) {
+				case ADD:
+					for (i = 0; i < length; i++) {
+						out[i] = a[p + i] + b[q + i];
+					}
+					break;
+				case SUB:
+					for (i = 0; i < length; i++) {
+						out[i] = a[p + i] - b[q + i];
+					}
+					break;
+				case MUL:
+					for (i = 0; i < length; i++) {
+						out[i] = a[p + i] * b[q + i];
+					}
+					break;
+				case DIV:
+					for (i = 0; i < length; i++) {
+						out[i] = a[p + i] / b[q + i];
+					}
+					break;
+				default:
+					for (i = 0; i < length; i++) {
+						out[i] = apply(a[p + i], b[q + i]);
+					}
+			}
+		}
+
+		void compute(float[] a, int p, float b, float[] out, int length) {
+			int i;
+			switch (this) {
+				case ADD:
+					for (i = 0; i < length; i++) {
+						out[i] = a[p + i] + b;
+					}
+					break;
+				case SUB:
+					for (i = 0; i < length; i++) {
+						out[i] = a[p + i] - b;
+					}
+					break;
+				case MUL:
+					for (i = 0; i < length; i++) {
+						out[i] = a[p + i] * b;
+					}
+					break;
+				case DIV:
+					for (i = 0; i < length; i++) {
+						out[i] = a[p + i] / b;
+					}
+					break;
+				case MIN:
+					for (i = 0; i < length; i++) {
+						out[i] = Math.min(a[p + i], b);
+					}
+					break;
+				case MAX:
+					for (i = 0; i < length; i++) {
+						out[i] = Math.max(a[p + i], b);
+					}
+					break;
+				default:
+					for (i = 0; i < length; i++) {
+						out[i] = apply(a[p + i], b);
+					}
+			}
+		}
+
+		void compute(float a, float[] b, int q, float[] out, int length) {
+			int i;
+			switch (this) {
+				case SUB:
+					for (i = 0; i < length; i++) {
+						out[i] = a - b[q + i];
+					}
+					break;
+				case DIV:
+					for (i = 0; i < length; i++) {
+						out[i] = a / b[q + i];
+					}
+					break;
+				default:
+					for (i = 0; i < length; i++) {
+						out[i] = apply(a, b[q + i]);
+					}
+			}
+		}
+	}
+}
@@ -1,480 +1,219 @@
 package nl.airsupplies.utilities.graphics.image.function;
 
-import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
 
 /**
- * Functions of the form:<br> {@link ImageMatrixFloat} = ImageMatrix<br> {@link ImageMatrixFloat} = ImageMatrix &lt;
- * operator&gt;
- * ImageMatrix<br> {@link ImageMatrixFloat} = operator(ImageMatrix, ImageMatrix)<br> {@link ImageMatrixFloat} =
- * ImageMatrix
- * &lt;operator&gt; (ImageMatrix &lt;operator&gt; scalar)<br> {@link ImageMatrixFloat} = (ImageMatrix &lt;operator&gt;
- * ImageMatrix) &lt;operator&gt; scalar<br> {@link ImageMatrixFloat} = ImageMatrix &lt;operator&gt; (scalar &lt;
- * operator&gt;
- * ImageMatrix)<br> {@link ImageMatrixFloat} = (ImageMatrix &lt;operator&gt; scalar) &lt;operator&gt; ImageMatrix<br>
+ * Functions of the form:<br> {@link AbstractImageMatrixFloat} = ImageMatrix<br> {@link AbstractImageMatrixFloat} =
+ * ImageMatrix &lt; operator&gt; ImageMatrix<br> {@link AbstractImageMatrixFloat} = operator(ImageMatrix,
+ * ImageMatrix)<br> {@link AbstractImageMatrixFloat} = ImageMatrix &lt;operator&gt; (ImageMatrix &lt;operator&gt;
+ * scalar)<br> {@link AbstractImageMatrixFloat} = (ImageMatrix &lt;operator&gt; ImageMatrix) &lt;operator&gt; scalar<br>
+ * {@link AbstractImageMatrixFloat} = ImageMatrix &lt;operator&gt; (scalar &lt; operator&gt; ImageMatrix)<br>
+ * {@link AbstractImageMatrixFloat} = (ImageMatrix &lt;operator&gt; scalar) &lt;operator&gt; ImageMatrix<br>
  *
  * @author Mark Jeronimus
  */
 // Created 2012-04-05
+// Changed 2026-10-17 Accepts any layout of the samples
 public class ImageMatrixImageImageFunctions {
-	public static void set(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = rowIn[x];
-				}
+	private static final RowKernels KERNELS = RowKernels.get();
+
+	public static void set(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] = rowIn[inBegin + x];
 			}
-		}
+		});
 	}
 
-	public static void add(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] += rowIn[x];
-				}
-			}
-		}
+	public static void add(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			KERNELS.add(rowOut, outBegin, rowIn, inBegin, length);
+		});
 	}
 
-	public static void sub(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] -= rowIn[x];
-				}
-			}
-		}
+	public static void sub(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			KERNELS.sub(rowOut, outBegin, rowIn, inBegin, length);
+		});
 	}
 
-	public static void subR(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = rowIn[x] - rowOut[x];
-				}
+	public static void subR(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] = rowIn[inBegin + x] - rowOut[outBegin + x];
 			}
-		}
+		});
 	}
 
-	public static void mul(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] *= rowIn[x];
-				}
-			}
-		}
+	public static void mul(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			KERNELS.mul(rowOut, outBegin, rowIn, inBegin, length);
+		});
 	}
 
-	public static void div(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] /= rowIn[x];
-				}
-			}
-		}
+	public static void div(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			KERNELS.div(rowOut, outBegin, rowIn, inBegin, length);
+		});
 	}
 
-	public static void divR(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = rowIn[x] / rowOut[x];
-				}
+	public static void divR(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] = rowIn[inBegin + x] / rowOut[outBegin + x];
 			}
-		}
+		});
 	}
 
-	public static void pow(ImageMatrixFloat out, ImageMatrixFloat powerImage) {
-		if (!out.isCompatibleByBorderAndSize(powerImage)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowPower; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut   = out.matrix[z][y];
-				rowPower = powerImage.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = (float)Math.pow(rowPower[x], rowOut[x]);
-				}
-			}
-		}
+	public static void pow(AbstractImageMatrixFloat out, AbstractImageMatrixFloat powerImage) {
+		out.forEachRow(powerImage, (z, rowOut, outBegin, rowPower, powerBegin, length) -> {
+			// Inner loop
+			KERNELS.pow(rowPower, powerBegin, rowOut, outBegin, rowOut, outBegin, length);
+		});
 	}
 
-	public static void powR(ImageMatrixFloat out, ImageMatrixFloat baseImage) {
-		if (!out.isCompatibleByBorderAndSize(baseImage)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowBase; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut  = out.matrix[z][y];
-				rowBase = baseImage.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = (float)Math.pow(rowOut[x], rowBase[x]);
-				}
-			}
-		}
+	public static void powR(AbstractImageMatrixFloat out, AbstractImageMatrixFloat baseImage) {
+		out.forEachRow(baseImage, (z, rowOut, outBegin, rowBase, baseBegin, length) -> {
+			// Inner loop
+			KERNELS.pow(rowOut, outBegin, rowBase, baseBegin, rowOut, outBegin, length);
+		});
 	}
 
-	public static void cabs(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 7
-		float[] rowOut; // 5
-		float[] rowIn; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = rowOut[x] * rowOut[x] + rowIn[x] * rowIn[x];
-				}
+	public static void cabs(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			int x; // 7
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] = rowOut[outBegin + x] * rowOut[outBegin + x] +
+				                       rowIn[inBegin + x] * rowIn[inBegin + x];
 			}
-		}
+		});
 	}
 
-	public static void hypot(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = (float)Math.hypot(rowOut[x], rowIn[x]);
-				}
+	public static void hypot(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] = (float)Math.hypot(rowOut[outBegin + x], rowIn[inBegin + x]);
 			}
-		}
+		});
 	}
 
-	public static void atan2R(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = (float)Math.atan2(rowIn[x], rowOut[x]);
-				}
+	public static void atan2R(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] = (float)Math.atan2(rowIn[inBegin + x], rowOut[outBegin + x]);
 			}
-		}
+		});
 	}
 
-	public static void min(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = Math.min(rowIn[x], rowOut[x]);
-				}
-			}
-		}
+	public static void min(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			KERNELS.min(rowOut, outBegin, rowIn, inBegin, length);
+		});
 	}
 
-	public static void max(ImageMatrixFloat out, ImageMatrixFloat in) {
-		if (!out.isCompatibleByBorderAndSize(in)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowIn; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowIn  = in.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = Math.max(rowIn[x], rowOut[x]);
-				}
-			}
-		}
+	public static void max(AbstractImageMatrixFloat out, AbstractImageMatrixFloat in) {
+		out.forEachRow(in, (z, rowOut, outBegin, rowIn, inBegin, length) -> {
+			// Inner loop
+			KERNELS.max(rowOut, outBegin, rowIn, inBegin, length);
+		});
 	}
 
-	public static void addAdd(ImageMatrixFloat out, ImageMatrixFloat offset1, float offset2) {
-		if (!out.isCompatibleByBorderAndSize(offset1)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowOffset1; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut     = out.matrix[z][y];
-				rowOffset1 = offset1.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] += rowOffset1[x] + offset2;
-				}
+	public static void addAdd(AbstractImageMatrixFloat out, AbstractImageMatrixFloat offset1, float offset2) {
+		out.forEachRow(offset1, (z, rowOut, outBegin, rowOffset1, offset1Begin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] += rowOffset1[offset1Begin + x] + offset2;
 			}
-		}
+		});
 	}
 
-	public static void addMul(ImageMatrixFloat out, ImageMatrixFloat add, float mul) {
-		if (!out.isCompatibleByBorderAndSize(add)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowAdd; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowAdd = add.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = (rowOut[x] + rowAdd[x]) * mul;
-				}
+	public static void addMul(AbstractImageMatrixFloat out, AbstractImageMatrixFloat add, float mul) {
+		out.forEachRow(add, (z, rowOut, outBegin, rowAdd, addBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] = (rowOut[outBegin + x] + rowAdd[addBegin + x]) * mul;
 			}
-		}
+		});
 	}
 
-	public static void addMul(ImageMatrixFloat out, float add, ImageMatrixFloat mul) {
-		if (!out.isCompatibleByBorderAndSize(mul)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowMul; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowMul = mul.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = (rowOut[x] + add) * rowMul[x];
-				}
+	public static void addMul(AbstractImageMatrixFloat out, float add, AbstractImageMatrixFloat mul) {
+		out.forEachRow(mul, (z, rowOut, outBegin, rowMul, mulBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] = (rowOut[outBegin + x] + add) * rowMul[mulBegin + x];
 			}
-		}
+		});
 	}
 
-	public static void mulAdd(ImageMatrixFloat out, ImageMatrixFloat scale, float offset) {
-		if (!out.isCompatibleByBorderAndSize(scale)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowScale; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut   = out.matrix[z][y];
-				rowScale = scale.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = rowOut[x] * rowScale[x] + offset;
-				}
+	public static void mulAdd(AbstractImageMatrixFloat out, AbstractImageMatrixFloat scale, float offset) {
+		out.forEachRow(scale, (z, rowOut, outBegin, rowScale, scaleBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] = rowOut[outBegin + x] * rowScale[scaleBegin + x] + offset;
 			}
-		}
+		});
 	}
 
-	public static void mulOffset(ImageMatrixFloat out, ImageMatrixFloat mul, float offset) {
-		if (!out.isCompatibleByBorderAndSize(mul)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowMul; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowMul = mul.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] *= (rowMul[x] + offset);
-				}
+	public static void mulOffset(AbstractImageMatrixFloat out, AbstractImageMatrixFloat mul, float offset) {
+		out.forEachRow(mul, (z, rowOut, outBegin, rowMul, mulBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] *= (rowMul[mulBegin + x] + offset);
 			}
-		}
+		});
 	}
 
-	public static void mulAdd(ImageMatrixFloat out, float mul, ImageMatrixFloat add) {
-		if (!out.isCompatibleByBorderAndSize(add)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowAdd; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut = out.matrix[z][y];
-				rowAdd = add.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] = rowOut[x] * mul + rowAdd[x];
-				}
+	public static void mulAdd(AbstractImageMatrixFloat out, float mul, AbstractImageMatrixFloat add) {
+		out.forEachRow(add, (z, rowOut, outBegin, rowAdd, addBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] = rowOut[outBegin + x] * mul + rowAdd[addBegin + x];
 			}
-		}
+		});
 	}
 
-	public static void addScaled(ImageMatrixFloat out, ImageMatrixFloat offset, float scale) {
-		if (!out.isCompatibleByBorderAndSize(offset)) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowOffset; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut    = out.matrix[z][y];
-				rowOffset = offset.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] += rowOffset[x] * scale;
-				}
+	public static void addScaled(AbstractImageMatrixFloat out, AbstractImageMatrixFloat offset, float scale) {
+		out.forEachRow(offset, (z, rowOut, outBegin, rowOffset, offsetBegin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] += rowOffset[offsetBegin + x] * scale;
 			}
-		}
+		});
 	}
 }
@@ -1,108 +1,61 @@
 package nl.airsupplies.utilities.graphics.image.function;
 
-import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
 
 /**
- * Functions of the form:<br> {@link ImageMatrixFloat} = ImageMatrix &lt;operator&gt; ImageMatrix &lt;operator&gt;
- * ImageMatrix<br>
+ * Functions of the form:<br> {@link AbstractImageMatrixFloat} = ImageMatrix &lt;operator&gt; ImageMatrix
+ * &lt;operator&gt; ImageMatrix<br>
  *
  * @author Mark Jeronimus
  */
 // Created 2012-04-05
+// Changed 2026-10-17 Accepts any layout of the samples
 public class ImageMatrixImageImageImageFunctions {
-	public static void addAdd(ImageMatrixFloat out, ImageMatrixFloat add1, ImageMatrixFloat add2) {
-		if (!(out.isCompatibleByBorderAndSize(add1) && out.isCompatibleByBorderAndSize(add2))) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowAdd1; // 1
-		float[] rowAdd2; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut  = out.matrix[z][y];
-				rowAdd1 = add1.matrix[z][y];
-				rowAdd2 = add2.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] += rowAdd1[x] + rowAdd2[x];
-				}
+	public static void addAdd(AbstractImageMatrixFloat out, AbstractImageMatrixFloat add1,
+	                          AbstractImageMatrixFloat add2) {
+		out.forEachRow(add1, add2, (z, rowOut, outBegin, rowAdd1, add1Begin, rowAdd2, add2Begin, length) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] += rowAdd1[add1Begin + x] + rowAdd2[add2Begin + x];
 			}
-		}
+		});
 	}
 
-	public static void addScaled(ImageMatrixFloat out, ImageMatrixFloat mul, ImageMatrixFloat scale) {
-		if (!(out.isCompatibleByBorderAndSize(mul) && out.isCompatibleByBorderAndSize(scale))) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowMul; // 1
-		float[] rowScale; // 1
-		int     endX = out.endX; // 1
+	public static void addScaled(AbstractImageMatrixFloat out, AbstractImageMatrixFloat mul,
+	                             AbstractImageMatrixFloat scale) {
+		out.forEachRow(mul, scale, (z, rowOut, outBegin, rowMul, mulBegin, rowScale, scaleBegin, length) -> {
+			// Inner loop
+			int x; // 4
 
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut   = out.matrix[z][y];
-				rowMul   = mul.matrix[z][y];
-				rowScale = scale.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] += rowMul[x] * rowScale[x];
-				}
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] += rowMul[mulBegin + x] * rowScale[scaleBegin + x];
 			}
-		}
+		});
 	}
 
-	public static void mulOffset(ImageMatrixFloat out, ImageMatrixFloat mul, ImageMatrixFloat offset) {
-		if (!(out.isCompatibleByBorderAndSize(mul) && out.isCompatibleByBorderAndSize(offset))) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
+	public static void mulOffset(AbstractImageMatrixFloat out, AbstractImageMatrixFloat mul,
+	                             AbstractImageMatrixFloat offset) {
+		out.forEachRow(mul, offset, (z, rowOut, outBegin, rowMul, mulBegin, rowOffset, offsetBegin, length) -> {
+			// Inner loop
+			int x; // 4
 
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowMul; // 1
-		float[] rowOffset; // 1
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut    = out.matrix[z][y];
-				rowMul    = mul.matrix[z][y];
-				rowOffset = offset.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] *= rowMul[x] + rowOffset[x];
-				}
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] *= rowMul[mulBegin + x] + rowOffset[offsetBegin + x];
 			}
-		}
+		});
 	}
 
-	public static void mulMul(ImageMatrixFloat out, ImageMatrixFloat mul1, ImageMatrixFloat mul2) {
-		if (!(out.isCompatibleByBorderAndSize(mul1) && out.isCompatibleByBorderAndSize(mul2))) {
-			throw new IllegalArgumentException("Other ImageMatrix not compatible");
-		}
-
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowMul1; // 1
-		float[] rowMul2; // 1
-		int     endX = out.endX; // 1
+	public static void mulMul(AbstractImageMatrixFloat out, AbstractImageMatrixFloat mul1,
+	                          AbstractImageMatrixFloat mul2) {
+		out.forEachRow(mul1, mul2, (z, rowOut, outBegin, rowMul1, mul1Begin, rowMul2, mul2Begin, length) -> {
+			// Inner loop
+			int x; // 4
 
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				rowOut  = out.matrix[z][y];
-				rowMul1 = mul1.matrix[z][y];
-				rowMul2 = mul2.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					rowOut[x] *= rowMul1[x] * rowMul2[x];
-				}
+			for (x = 0; x < length; x++) {
+				rowOut[outBegin + x] *= rowMul1[mul1Begin + x] * rowMul2[mul2Begin + x];
 			}
-		}
+		});
 	}
 }
@@ -1,5 +1,6 @@
 package nl.airsupplies.utilities.graphics.image.function;
 
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
 import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
 
 /**
@@ -12,58 +13,64 @@ import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
 public class ImageMatrixImageImageImageFunctionsComponent {
 	public static void addMul(ImageMatrixFloat out, float[][] outComponent, float[][] addComponent, float[][]
 			mulComponent) {
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowAdd; // 1
-		float[] rowMul; // 1
-		int     endX = out.endX; // 1
+		ImageMatrixExecutor.forEachRowBand(out, (beginY, endY) -> {
+			// Inner loop
+			int     x; // 4
+			float[] rowOut; // 2
+			float[] rowAdd; // 1
+			float[] rowMul; // 1
+			int     endX = out.endX; // 1
 
-		for (int y = out.border; y < out.endY; y++) {
-			rowOut = outComponent[y];
-			rowAdd = addComponent[y];
-			rowMul = mulComponent[y];
-			for (x = out.border; x < endX; x++) {
-				rowOut[x] = (rowOut[x] + rowAdd[x]) * rowMul[x];
+			for (int y = beginY; y < endY; y++) {
+				rowOut = outComponent[y];
+				rowAdd = addComponent[y];
+				rowMul = mulComponent[y];
+				for (x = out.border; x < endX; x++) {
+					rowOut[x] = (rowOut[x] + rowAdd[x]) * rowMul[x];
+				}
 			}
-		}
+		});
 	}
 
 	public static void mulAdd(ImageMatrixFloat out, float[][] outComponent, float[][] mulComponent, float[][]
 			addComponent) {
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowMul; // 1
-		float[] rowAdd; // 1
-		int     endX = out.endX; // 1
+		ImageMatrixExecutor.forEachRowBand(out, (beginY, endY) -> {
+			// Inner loop
+			int     x; // 4
+			float[] rowOut; // 2
+			float[] rowMul; // 1
+			float[] rowAdd; // 1
+			int     endX = out.endX; // 1
 
-		for (int y = out.border; y < out.endY; y++) {
-			rowOut = outComponent[y];
-			rowMul = mulComponent[y];
-			rowAdd = addComponent[y];
-			for (x = out.border; x < endX; x++) {
-				rowOut[x] = rowOut[x] * rowMul[x] + rowAdd[x];
+			for (int y = beginY; y < endY; y++) {
+				rowOut = outComponent[y];
+				rowMul = mulComponent[y];
+				rowAdd = addComponent[y];
+				for (x = out.border; x < endX; x++) {
+					rowOut[x] = rowOut[x] * rowMul[x] + rowAdd[x];
+				}
 			}
-		}
+		});
 	}
 
 	public static void addScaled(ImageMatrixFloat out, float[][] outComponent, float[][] offsetComponent,
 	                             float[][] scaleComponentOut) {
-		// Inner loop
-		int     x; // 4
-		float[] rowOut; // 2
-		float[] rowOffset; // 1
-		float[] rowScale; // 1
-		int     endX = out.endX; // 1
+		ImageMatrixExecutor.forEachRowBand(out, (beginY, endY) -> {
+			// Inner loop
+			int     x; // 4
+			float[] rowOut; // 2
+			float[] rowOffset; // 1
+			float[] rowScale; // 1
+			int     endX = out.endX; // 1
 
-		for (int y = out.border; y < out.endY; y++) {
-			rowOut    = outComponent[y];
-			rowOffset = offsetComponent[y];
-			rowScale  = scaleComponentOut[y];
-			for (x = out.border; x < endX; x++) {
-				rowOut[x] += rowOffset[x] * rowScale[x];
+			for (int y = beginY; y < endY; y++) {
+				rowOut    = outComponent[y];
+				rowOffset = offsetComponent[y];
+				rowScale  = scaleComponentOut[y];
+				for (x = out.border; x < endX; x++) {
+					rowOut[x] += rowOffset[x] * rowScale[x];
+				}
 			}
-		}
+		});
 	}
 }
@@ -1,210 +1,156 @@
 package nl.airsupplies.utilities.graphics.image.function;
 
-import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
 
 /**
- * Functions of the form:<br> {@link ImageMatrixFloat} = scalar<br> {@link ImageMatrixFloat} = ImageMatrix &lt;
- * operator&gt;
- * scalar<br> {@link ImageMatrixFloat} = ImageMatrix &lt;operator&gt; scalar &lt;operator&gt; scalar<br>
+ * Functions of the form:<br> {@link AbstractImageMatrixFloat} = scalar<br> {@link AbstractImageMatrixFloat} =
+ * ImageMatrix &lt; operator&gt; scalar<br> {@link AbstractImageMatrixFloat} = ImageMatrix &lt;operator&gt; scalar
+ * &lt;operator&gt; scalar<br>
  *
  * @author Mark Jeronimus
  */
 // Created 2012-04-05
+// Changed 2026-10-17 Accepts any layout of the samples
 public class ImageMatrixImageScalarFunctions {
 	/**
 	 * out = in
 	 */
-	public static void set(ImageMatrixFloat out, float in) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = in;
-				}
+	public static void set(AbstractImageMatrixFloat out, float in) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] = in;
 			}
-		}
+		});
 	}
 
 	/**
 	 * out += in
 	 */
-	public static void add(ImageMatrixFloat out, float in) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] += in;
-				}
+	public static void add(AbstractImageMatrixFloat out, float in) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] += in;
 			}
-		}
+		});
 	}
 
 	/**
 	 * out -= in
 	 */
-	public static void sub(ImageMatrixFloat out, float in) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] -= in;
-				}
+	public static void sub(AbstractImageMatrixFloat out, float in) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] -= in;
 			}
-		}
+		});
 	}
 
 	/**
 	 * out = in - out
 	 */
-	public static void subR(ImageMatrixFloat out, float in) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = in - row[x];
-				}
+	public static void subR(AbstractImageMatrixFloat out, float in) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] = in - row[x];
 			}
-		}
+		});
 	}
 
 	/**
 	 * out *= in
 	 */
-	public static void mul(ImageMatrixFloat out, float in) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] *= in;
-				}
+	public static void mul(AbstractImageMatrixFloat out, float in) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] *= in;
 			}
-		}
+		});
 	}
 
 	/**
 	 * out /= in
 	 */
-	public static void div(ImageMatrixFloat out, float in) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] /= in;
-				}
+	public static void div(AbstractImageMatrixFloat out, float in) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] /= in;
 			}
-		}
+		});
 	}
 
-	public static void divR(ImageMatrixFloat out, float in) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = in / row[x];
-				}
+	public static void divR(AbstractImageMatrixFloat out, float in) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] = in / row[x];
 			}
-		}
+		});
 	}
 
 	/**
 	 * out /= in
 	 */
-	public static void pow(ImageMatrixFloat out, float power) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = (float)Math.pow(row[x], power);
-				}
+	public static void pow(AbstractImageMatrixFloat out, float power) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.pow(row[x], power);
 			}
-		}
+		});
 	}
 
-	public static void powR(ImageMatrixFloat out, float base) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = (float)Math.pow(base, row[x]);
-				}
+	public static void powR(AbstractImageMatrixFloat out, float base) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.pow(base, row[x]);
 			}
-		}
+		});
 	}
 
-	public static void addMul(ImageMatrixFloat out, float add, float mul) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = (row[x] + add) * mul;
-				}
+	public static void addMul(AbstractImageMatrixFloat out, float add, float mul) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] = (row[x] + add) * mul;
 			}
-		}
+		});
 	}
 
-	public static void mulAdd(ImageMatrixFloat out, float mul, float add) {
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		int     endX = out.endX; // 1
-
-		for (int z = 0; z < out.numComponents; z++) {
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = row[x] * mul + add;
-				}
+	public static void mulAdd(AbstractImageMatrixFloat out, float mul, float add) {
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] = row[x] * mul + add;
 			}
-		}
+		});
 	}
 }
@@ -1,373 +1,294 @@
 package nl.airsupplies.utilities.graphics.image.function;
 
-import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
 
 /**
- * Functions of the form:<br> {@link ImageMatrixFloat} = vector<br> {@link ImageMatrixFloat} = ImageMatrix &lt;
- * operator&gt;
- * vector<br> {@link ImageMatrixFloat} = ImageMatrix &lt;operator&gt; vector &lt;operator&gt; vector<br>
+ * Functions of the form:<br> {@link AbstractImageMatrixFloat} = vector<br> {@link AbstractImageMatrixFloat} =
+ * ImageMatrix &lt; operator&gt; vector<br> {@link AbstractImageMatrixFloat} = ImageMatrix &lt;operator&gt; vector
+ * &lt;operator&gt; vector<br>
  *
  * @author Mark Jeronimus
  */
 // Created 2012-04-05
+// Changed 2026-10-17 Accepts any layout of the samples
 public class ImageMatrixImageVectorFunctions {
-	public static void set(ImageMatrixFloat out, float... in) {
+	public static void set(AbstractImageMatrixFloat out, float... in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = inz;
-				}
+			for (x = begin; x < end; x++) {
+				row[x] = inz;
 			}
-		}
+		});
 	}
 
-	public static void add(ImageMatrixFloat out, float... in) {
+	public static void add(AbstractImageMatrixFloat out, float... in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] += inz;
-				}
+			for (x = begin; x < end; x++) {
+				row[x] += inz;
 			}
-		}
+		});
 	}
 
-	public static void sub(ImageMatrixFloat out, float... in) {
+	public static void sub(AbstractImageMatrixFloat out, float... in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] -= inz;
-				}
+			for (x = begin; x < end; x++) {
+				row[x] -= inz;
 			}
-		}
+		});
 	}
 
-	public static void subR(ImageMatrixFloat out, float... in) {
+	public static void subR(AbstractImageMatrixFloat out, float... in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = inz - row[x];
-				}
+			for (x = begin; x < end; x++) {
+				row[x] = inz - row[x];
 			}
-		}
+		});
 	}
 
-	public static void mul(ImageMatrixFloat out, float... in) {
+	public static void mul(AbstractImageMatrixFloat out, float... in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] *= inz;
-				}
+			for (x = begin; x < end; x++) {
+				row[x] *= inz;
 			}
-		}
+		});
 	}
 
-	public static void div(ImageMatrixFloat out, float... in) {
+	public static void div(AbstractImageMatrixFloat out, float... in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] /= inz;
-				}
+			for (x = begin; x < end; x++) {
+				row[x] /= inz;
 			}
-		}
+		});
 	}
 
-	public static void divR(ImageMatrixFloat out, float... in) {
+	public static void divR(AbstractImageMatrixFloat out, float... in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = inz / row[x];
-				}
+			for (x = begin; x < end; x++) {
+				row[x] = inz / row[x];
 			}
-		}
+		});
 	}
 
-	public static void mod(ImageMatrixFloat out, float... in) {
+	public static void mod(AbstractImageMatrixFloat out, float... in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] -= (float)Math.floor(row[x] / inz) * inz;
-				}
+			for (x = begin; x < end; x++) {
+				row[x] -= (float)Math.floor(row[x] / inz) * inz;
 			}
-		}
+		});
 	}
 
-	public static void modR(ImageMatrixFloat out, float... in) {
+	public static void modR(AbstractImageMatrixFloat out, float... in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = inz - (float)Math.floor(inz / row[x]) * row[x];
-				}
+			for (x = begin; x < end; x++) {
+				row[x] = inz - (float)Math.floor(inz / row[x]) * row[x];
 			}
-		}
+		});
 	}
 
-	public static void pow(ImageMatrixFloat out, float... power) {
+	public static void pow(AbstractImageMatrixFloat out, float... power) {
 		if (power.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   powerz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float powerz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			powerz = power[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = (float)Math.pow(row[x], powerz);
-				}
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.pow(row[x], powerz);
 			}
-		}
+		});
 	}
 
-	public static void powR(ImageMatrixFloat out, float... base) {
+	public static void powR(AbstractImageMatrixFloat out, float... base) {
 		if (base.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   basez; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float basez; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			basez = base[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = (float)Math.pow(basez, row[x]);
-				}
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.pow(basez, row[x]);
 			}
-		}
+		});
 	}
 
-	public static void showUnderflow(ImageMatrixFloat out, float[] in) {
+	public static void showUnderflow(AbstractImageMatrixFloat out, float[] in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					if (row[x] < 0) {
-						row[x] = inz;
-					}
+			for (x = begin; x < end; x++) {
+				if (row[x] < 0) {
+					row[x] = inz;
 				}
 			}
-		}
+		});
 	}
 
-	public static void showOverflow(ImageMatrixFloat out, float[] in) {
+	public static void showOverflow(AbstractImageMatrixFloat out, float[] in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					if (row[x] > 0) {
-						row[x] = inz;
-					}
+			for (x = begin; x < end; x++) {
+				if (row[x] > 0) {
+					row[x] = inz;
 				}
 			}
-		}
+		});
 	}
 
-	public static void showBlacks(ImageMatrixFloat out, float[] in) {
+	public static void showBlacks(AbstractImageMatrixFloat out, float[] in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					if (row[x] <= 0) {
-						row[x] = inz;
-					}
+			for (x = begin; x < end; x++) {
+				if (row[x] <= 0) {
+					row[x] = inz;
 				}
 			}
-		}
+		});
 	}
 
-	public static void showWhites(ImageMatrixFloat out, float[] in) {
+	public static void showWhites(AbstractImageMatrixFloat out, float[] in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					if (row[x] >= 1) {
-						row[x] = inz;
-					}
+			for (x = begin; x < end; x++) {
+				if (row[x] >= 1) {
+					row[x] = inz;
 				}
 			}
-		}
+		});
 	}
 
-	public static void threshold(ImageMatrixFloat out, float[] in) {
+	public static void threshold(AbstractImageMatrixFloat out, float[] in) {
 		if (in.length != out.numComponents) {
 			throw new IllegalArgumentException("Number of components differs");
 		}
 
-		// Inner loop
-		int     x; // 4
-		float[] row; // 2
-		float   inz; // 1
-		int     endX = out.endX; // 1
+		out.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int   x; // 4
+			float inz; // 1
 
-		for (int z = 0; z < out.numComponents; z++) {
 			inz = in[z];
-			for (int y = out.border; y < out.endY; y++) {
-				row = out.matrix[z][y];
-				for (x = out.border; x < endX; x++) {
-					row[x] = row[x] > inz ? 1 : 0;
-				}
+			for (x = begin; x < end; x++) {
+				row[x] = row[x] > inz ? 1 : 0;
 			}
-		}
+		});
 	}
 }
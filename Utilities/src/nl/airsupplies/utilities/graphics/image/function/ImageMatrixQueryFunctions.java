@@ -1,27 +1,34 @@
 package nl.airsupplies.utilities.graphics.image.function;
 
 import nl.airsupplies.utilities.container.Vector2f;
-import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
 
 /**
- * Functions of the form:<br> scalar = &lt;operator&gt;({@link ImageMatrixFloat})<br> vector = &lt;operator&gt;({@link
- * ImageMatrixFloat})<br>
+ * Functions of the form:<br> scalar = &lt;operator&gt;({@link AbstractImageMatrixFloat})<br> vector =
+ * &lt;operator&gt;({@link AbstractImageMatrixFloat})<br>
+ * <p>
+ * To compute several of these at once, or per component, use {@link ImageStatistics}.
  *
  * @author Mark Jeronimus
  */
 // Created 2012-04-05
+// Changed 2026-10-17 Accepts any layout of the samples
 public class ImageMatrixQueryFunctions {
-	public static float findMin(ImageMatrixFloat img) {
+	public static float findMin(AbstractImageMatrixFloat img) {
 		// Inner loop
-		int     x; // 3
-		float   min  = Float.MAX_VALUE; // 1.5 (1~2)
-		float[] row; // 1
-		int     endX = img.endX; // 1
+		int      x; // 3
+		float    min      = Float.MAX_VALUE; // 1.5 (1~2)
+		float[]  row; // 1
+		int      end; // 1
+		FloatRow floatRow = new FloatRow();
 
 		for (int z = 0; z < img.numComponents; z++) {
 			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
+				img.readRow(z, y, floatRow);
+				row = floatRow.array;
+				end = floatRow.offset + img.endX;
+				for (x = floatRow.offset + img.border; x < end; x++) {
 					float c = row[x];
 					if (c == c) {
 						if (min > c) {
@@ -35,17 +42,20 @@ public class ImageMatrixQueryFunctions {
 		return min;
 	}
 
-	public static float findMax(ImageMatrixFloat img) {
+	public static float findMax(AbstractImageMatrixFloat img) {
 		// Inner loop
-		int     x; // 3
-		float   max  = -Float.MAX_VALUE; // 1.5 (1~2)
-		float[] row; // 1
-		int     endX = img.endX; // 1
+		int      x; // 3
+		float    max      = -Float.MAX_VALUE; // 1.5 (1~2)
+		float[]  row; // 1
+		int      end; // 1
+		FloatRow floatRow = new FloatRow();
 
 		for (int z = 0; z < img.numComponents; z++) {
 			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
+				img.readRow(z, y, floatRow);
+				row = floatRow.array;
+				end = floatRow.offset + img.endX;
+				for (x = floatRow.offset + img.border; x < end; x++) {
 					float c = row[x];
 					if (c == c) {
 						if (max < c) {
@@ -59,19 +69,22 @@ public class ImageMatrixQueryFunctions {
 		return max;
 	}
 
-	public static Vector2f findMinMax(ImageMatrixFloat img) {
+	public static Vector2f findMinMax(AbstractImageMatrixFloat img) {
 		// Inner loop
-		float   c; // 4.5 (4~6)
-		int     x; // 3
-		float   min  = Float.MAX_VALUE; // 1.5 (1~2)
-		float[] row; // 1
-		int     endX = img.endX; // 1
-		float   max  = -Float.MAX_VALUE; // 0.5 (0~1)
+		float    c; // 4.5 (4~6)
+		int      x; // 3
+		float    min      = Float.MAX_VALUE; // 1.5 (1~2)
+		float[]  row; // 1
+		int      end; // 1
+		float    max      = -Float.MAX_VALUE; // 0.5 (0~1)
+		FloatRow floatRow = new FloatRow();
 
 		for (int z = 0; z < img.numComponents; z++) {
 			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
+				img.readRow(z, y, floatRow);
+				row = floatRow.array;
+				end = floatRow.offset + img.endX;
+				for (x = floatRow.offset + img.border; x < end; x++) {
 					c = row[x];
 					if (c == c) {
 						if (min > c) {
@@ -87,19 +100,22 @@ public class ImageMatrixQueryFunctions {
 		return new Vector2f(min, max);
 	}
 
-	public static Vector2f findBiasAmplitude(ImageMatrixFloat img) {
+	public static Vector2f findBiasAmplitude(AbstractImageMatrixFloat img) {
 		// Inner loop
-		float   c; // 4.5 (4~6)
-		int     x; // 3
-		float   min  = Integer.MAX_VALUE; // 1.5 (1~2)
-		float[] row; // 1
-		int     endX = img.endX; // 1
-		float   max  = -Integer.MAX_VALUE; // 0.5 (0~1)
+		float    c; // 4.5 (4~6)
+		int      x; // 3
+		float    min      = Integer.MAX_VALUE; // 1.5 (1~2)
+		float[]  row; // 1
+		int      end; // 1
+		float    max      = -Integer.MAX_VALUE; // 0.5 (0~1)
+		FloatRow floatRow = new FloatRow();
 
 		for (int z = 0; z < img.numComponents; z++) {
 			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
+				img.readRow(z, y, floatRow);
+				row = floatRow.array;
+				end = floatRow.offset + img.endX;
+				for (x = floatRow.offset + img.border; x < end; x++) {
 					c = row[x];
 					if (c == c) {
 						if (min > c) {
@@ -115,18 +131,21 @@ public class ImageMatrixQueryFunctions {
 		return new Vector2f((max + min) * 0.5f, (max - min) * 0.5f);
 	}
 
-	public static float findAverage(ImageMatrixFloat img) {
+	public static float findAverage(AbstractImageMatrixFloat img) {
 		// Inner loop
-		float   c; // 4
-		int     x; // 4
-		float[] row; // 1
-		int     endX = img.endX; // 1
-		float   sum  = 0; // 1
+		float    c; // 4
+		int      x; // 4
+		float[]  row; // 1
+		int      end; // 1
+		double   sum      = 0; // 1
+		FloatRow floatRow = new FloatRow();
 
 		for (int z = 0; z < img.numComponents; z++) {
 			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
+				img.readRow(z, y, floatRow);
+				row = floatRow.array;
+				end = floatRow.offset + img.endX;
+				for (x = floatRow.offset + img.border; x < end; x++) {
 					c = row[x];
 					if (c == c) {
 						sum += c;
@@ -135,22 +154,25 @@ public class ImageMatrixQueryFunctions {
 			}
 		}
 
-		return sum / (img.numColumns * img.numRows * img.numComponents);
+		return (float)(sum / ((long)img.numColumns * img.numRows * img.numComponents));
 	}
 
-	public static void makeHistogram(ImageMatrixFloat img, int[] hist) {
+	public static void makeHistogram(AbstractImageMatrixFloat img, int[] hist) {
 		// Inner loop
-		float   c; // 4
-		int     x; // 4
-		int     bin; // 2.1 (2~4)
-		int     len  = hist.length - 1; // 2.1 (2~3)
-		float[] row; // 1
-		int     endX = img.endX; // 1
+		float    c; // 4
+		int      x; // 4
+		int      bin; // 2.1 (2~4)
+		int      len      = hist.length - 1; // 2.1 (2~3)
+		float[]  row; // 1
+		int      end; // 1
+		FloatRow floatRow = new FloatRow();
 
 		for (int z = 0; z < img.numComponents; z++) {
 			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
+				img.readRow(z, y, floatRow);
+				row = floatRow.array;
+				end = floatRow.offset + img.endX;
+				for (x = floatRow.offset + img.border; x < end; x++) {
 					c = row[x];
 					if (c != c) {
 						continue;
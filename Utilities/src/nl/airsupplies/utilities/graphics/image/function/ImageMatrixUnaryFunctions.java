@@ -1,429 +1,266 @@
 package nl.airsupplies.utilities.graphics.image.function;
 
 import nl.airsupplies.utilities.container.Vector2f;
-import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
 
 /**
- * Functions of the form:<br> {@link ImageMatrixFloat} = &lt;operator&gt;(ImageMatrix)<br> {@link ImageMatrixFloat} =
- * &lt;operator&gt;(ImageMatrix, scalar)<br> {@link ImageMatrixFloat} = &lt;operator&gt;(ImageMatrix, scalar, scalar)
- * <br>
+ * Functions of the form:<br> {@link AbstractImageMatrixFloat} = &lt;operator&gt;(ImageMatrix)<br>
+ * {@link AbstractImageMatrixFloat} = &lt;operator&gt;(ImageMatrix, scalar)<br> {@link AbstractImageMatrixFloat} =
+ * &lt;operator&gt;(ImageMatrix, scalar, scalar) <br>
  *
  * @author Mark Jeronimus
  */
 // Created 2012-04-05
+// Changed 2026-10-17 Accepts any layout of the samples
 public class ImageMatrixUnaryFunctions {
-	public static void invert(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = -row[x];
-				}
-			}
-		}
+	private static final RowKernels KERNELS = RowKernels.get();
+
+	public static void invert(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.invert(row, begin, end);
+		});
 	}
 
-	public static void negative(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = 1 - row[x];
-				}
-			}
-		}
+	public static void negative(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.negative(row, begin, end);
+		});
 	}
 
-	public static void clamp(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					if (row[x] < 0) {
-						row[x] = 0;
-					} else if (row[x] >= 1) {
-						row[x] = 1;
-					}
-				}
-			}
-		}
+	public static void clamp(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.clamp(row, 0, 1, begin, end);
+		});
 	}
 
-	public static void clamp(ImageMatrixFloat img, float black, float white) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					if (row[x] < black) {
-						row[x] = black;
-					} else if (row[x] >= white) {
-						row[x] = white;
-					}
-				}
-			}
-		}
+	public static void clamp(AbstractImageMatrixFloat img, float black, float white) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.clamp(row, black, white, begin, end);
+		});
 	}
 
-	public static void clampLower(ImageMatrixFloat img, float black) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					if (row[x] < black) {
-						row[x] = black;
-					}
+	public static void clampLower(AbstractImageMatrixFloat img, float black) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				if (row[x] < black) {
+					row[x] = black;
 				}
 			}
-		}
+		});
 	}
 
-	public static void clampUpper(ImageMatrixFloat img, float white) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					if (row[x] >= white) {
-						row[x] = white;
-					}
+	public static void clampUpper(AbstractImageMatrixFloat img, float white) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				if (row[x] >= white) {
+					row[x] = white;
 				}
 			}
-		}
+		});
 	}
 
-	public static void normalize(ImageMatrixFloat img) {
-		float mul = img.findMax();
+	public static void normalize(AbstractImageMatrixFloat img) {
+		float mul = ImageMatrixQueryFunctions.findMax(img);
 
 		mul = mul == 0 ? Float.NaN : 1 / mul;
-		img.mulUniform(mul);
+		ImageMatrixImageScalarFunctions.mul(img, mul);
 	}
 
-	public static void stretchHistogram(ImageMatrixFloat img) {
-		Vector2f biasAmp = img.findBiasAmplitude();
+	public static void stretchHistogram(AbstractImageMatrixFloat img) {
+		Vector2f biasAmp = ImageMatrixQueryFunctions.findBiasAmplitude(img);
 
 		float mul = biasAmp.y == 0 ? Float.NaN : 0.5f / biasAmp.y;
 		float add = biasAmp.y - biasAmp.x;
-		img.addMulUniform(add, mul);
+		ImageMatrixImageScalarFunctions.addMul(img, add, mul);
 	}
 
-	public static void abs(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 3
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					if (row[x] < 0) {
-						row[x] = -row[x];
-					}
-				}
-			}
-		}
+	public static void abs(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.abs(row, begin, end);
+		});
 	}
 
-	public static void round(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 3
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.floor(row[x] + 0.5);
-				}
+	public static void round(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.floor(row[x] + 0.5);
 			}
-		}
+		});
 	}
 
-	public static void floor(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 3
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.floor(row[x]);
-				}
+	public static void floor(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.floor(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void ceil(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 3
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.ceil(row[x]);
-				}
+	public static void ceil(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.ceil(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void trunc(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 3
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (int)row[x];
-				}
+	public static void trunc(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (int)row[x];
 			}
-		}
+		});
 	}
 
-	public static void recip(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = 1 / row[x];
-				}
-			}
-		}
+	public static void recip(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.recip(row, begin, end);
+		});
 	}
 
-	public static void sqr(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] *= row[x];
-				}
-			}
-		}
+	public static void sqr(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.sqr(row, begin, end);
+		});
 	}
 
-	public static void sqrt(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.sqrt(row[x]);
-				}
-			}
-		}
+	public static void sqrt(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.sqrt(row, begin, end);
+		});
 	}
 
-	public static void cube(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 3
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] *= row[x] * row[x];
-				}
-			}
-		}
+	public static void cube(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.cube(row, begin, end);
+		});
 	}
 
-	public static void cbrt(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					if (row[x] < 0) {
-						row[x] = (float)Math.cbrt(row[x]);
-					}
+	public static void cbrt(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				if (row[x] < 0) {
+					row[x] = (float)Math.cbrt(row[x]);
 				}
 			}
-		}
+		});
 	}
 
-	public static void exp(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.exp(row[x]);
-				}
+	public static void exp(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.exp(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void log(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.log(row[x]);
-				}
+	public static void log(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.log(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void pow(ImageMatrixFloat img, float power) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.pow(row[x], power);
-				}
+	public static void pow(AbstractImageMatrixFloat img, float power) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.pow(row[x], power);
 			}
-		}
+		});
 	}
 
-	public static void powR(ImageMatrixFloat img, float base) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.pow(base, row[x]);
-				}
+	public static void powR(AbstractImageMatrixFloat img, float base) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.pow(base, row[x]);
 			}
-		}
+		});
 	}
 
-	public static void sin(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.sin(row[x]);
-				}
+	public static void sin(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.sin(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void cos(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.cos(row[x]);
-				}
+	public static void cos(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.cos(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void tan(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.tan(row[x]);
-				}
+	public static void tan(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.tan(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void atan(ImageMatrixFloat img) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int z = 0; z < img.numComponents; z++) {
-			for (int y = img.border; y < img.endY; y++) {
-				row = img.matrix[z][y];
-				for (x = img.border; x < endX; x++) {
-					row[x] = (float)Math.atan(row[x]);
-				}
+	public static void atan(AbstractImageMatrixFloat img) {
+		img.forEachRow((z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
+
+			for (x = begin; x < end; x++) {
+				row[x] = (float)Math.atan(row[x]);
 			}
-		}
+		});
 	}
 }
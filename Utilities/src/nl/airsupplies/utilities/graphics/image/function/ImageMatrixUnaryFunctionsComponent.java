@@ -1,285 +1,205 @@
 package nl.airsupplies.utilities.graphics.image.function;
 
 import nl.airsupplies.utilities.container.Vector2f;
-import nl.airsupplies.utilities.graphics.image.ImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
 
 /**
- * Functions of the form:<br> {@link ImageMatrixFloat} = &lt;operator&gt;(ImageMatrix)<br> {@link ImageMatrixFloat} =
- * &lt;operator&gt;(ImageMatrix, scalar)<br> {@link ImageMatrixFloat} = &lt;operator&gt;(ImageMatrix, scalar, scalar)
- * <br>
+ * Functions of the form:<br> {@link AbstractImageMatrixFloat} = &lt;operator&gt;(ImageMatrix)<br>
+ * {@link AbstractImageMatrixFloat} = &lt;operator&gt;(ImageMatrix, scalar)<br> {@link AbstractImageMatrixFloat} =
+ * &lt;operator&gt;(ImageMatrix, scalar, scalar) <br>
  *
  * @author Mark Jeronimus
  */
 // Created 2012-04-05
+// Changed 2026-10-17 Accepts any layout of the samples
 public class ImageMatrixUnaryFunctionsComponent {
-	public static void invert(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
-				row[x] = -row[x];
-			}
-		}
-	}
+	private static final RowKernels KERNELS = RowKernels.get();
 
-	public static void negative(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
-				row[x] = 1 - row[x];
-			}
-		}
+	public static void invert(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.invert(row, begin, end);
+		});
 	}
 
-	public static void clamp(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
-				if (row[x] < 0) {
-					row[x] = 0;
-				} else if (row[x] >= 1) {
-					row[x] = 1;
-				}
-			}
-		}
+	public static void negative(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.negative(row, begin, end);
+		});
 	}
 
-	public static void clamp(ImageMatrixFloat img, int component, float black, float white) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
+	public static void clamp(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.clamp(row, 0, 1, begin, end);
+		});
+	}
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
-				if (row[x] < black) {
-					row[x] = black;
-				} else if (row[x] >= white) {
-					row[x] = white;
-				}
-			}
-		}
+	public static void clamp(AbstractImageMatrixFloat img, int component, float black, float white) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.clamp(row, black, white, begin, end);
+		});
 	}
 
-	public static void clampLower(ImageMatrixFloat img, int component, float black) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
+	public static void clampLower(AbstractImageMatrixFloat img, int component, float black) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
+			for (x = begin; x < end; x++) {
 				if (row[x] < black) {
 					row[x] = black;
 				}
 			}
-		}
+		});
 	}
 
-	public static void clampUpper(ImageMatrixFloat img, int component, float white) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
+	public static void clampUpper(AbstractImageMatrixFloat img, int component, float white) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
+			for (x = begin; x < end; x++) {
 				if (row[x] >= white) {
 					row[x] = white;
 				}
 			}
-		}
+		});
 	}
 
-	public static void normalize(ImageMatrixFloat img, int component) {
-		float mul = img.findMax();
+	public static void normalize(AbstractImageMatrixFloat img, int component) {
+		float max = ImageMatrixQueryFunctions.findMax(img);
+		float mul = max == 0 ? Float.NaN : 1 / max;
 
-		mul = mul == 0 ? Float.NaN : 1 / mul;
-		img.mulComponent(component, mul);
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
+
+			for (x = begin; x < end; x++) {
+				row[x] *= mul;
+			}
+		});
 	}
 
-	public static void stretchHistogram(ImageMatrixFloat img, int component) {
-		Vector2f minMax = img.findBiasAmplitude();
+	public static void stretchHistogram(AbstractImageMatrixFloat img, int component) {
+		Vector2f minMax = ImageMatrixQueryFunctions.findBiasAmplitude(img);
 
 		minMax.y -= minMax.x;
 
 		float mul = minMax.y == 0 ? Float.NaN : 1 / minMax.y;
 		float add = -minMax.x;
-		img.mulAddComponent(component, mul, add);
-	}
-
-	public static void abs(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 3
-		int     endX = img.endX; // 1
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
-				if (row[x] < 0) {
-					row[x] = -row[x];
-				}
+			for (x = begin; x < end; x++) {
+				row[x] = row[x] * mul + add;
 			}
-		}
+		});
 	}
 
-	public static void recip(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
-				row[x] = 1 / row[x];
-			}
-		}
+	public static void abs(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.abs(row, begin, end);
+		});
 	}
 
-	public static void sqr(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
-				row[x] *= row[x];
-			}
-		}
+	public static void recip(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.recip(row, begin, end);
+		});
 	}
 
-	public static void sqrt(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
-
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
-				row[x] = (float)Math.sqrt(row[x]);
-			}
-		}
+	public static void sqr(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.sqr(row, begin, end);
+		});
 	}
 
-	public static void cube(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 3
-		int     endX = img.endX; // 1
+	public static void sqrt(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.sqrt(row, begin, end);
+		});
+	}
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
-				row[x] *= row[x] * row[x];
-			}
-		}
+	public static void cube(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			KERNELS.cube(row, begin, end);
+		});
 	}
 
-	public static void cbrt(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
+	public static void cbrt(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
+			for (x = begin; x < end; x++) {
 				if (row[x] < 0) {
 					row[x] = (float)Math.cbrt(row[x]);
 				}
 			}
-		}
+		});
 	}
 
-	public static void exp(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
+	public static void exp(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
+			for (x = begin; x < end; x++) {
 				row[x] = (float)Math.cbrt(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void sin(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
+	public static void sin(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
+			for (x = begin; x < end; x++) {
 				row[x] = (float)Math.sin(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void cos(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
+	public static void cos(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
+			for (x = begin; x < end; x++) {
 				row[x] = (float)Math.cos(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void tan(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
+	public static void tan(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
+			for (x = begin; x < end; x++) {
 				row[x] = (float)Math.tan(row[x]);
 			}
-		}
+		});
 	}
 
-	public static void atan(ImageMatrixFloat img, int component) {
-		// Inner loop
-		int     x; // 4 (3~5)
-		float[] row; // 2
-		int     endX = img.endX; // 1
+	public static void atan(AbstractImageMatrixFloat img, int component) {
+		img.forEachRow(component, (z, row, begin, end) -> {
+			// Inner loop
+			int x; // 4 (3~5)
 
-		for (int y = img.border; y < img.endY; y++) {
-			row = img.matrix[component][y];
-			for (x = img.border; x < endX; x++) {
+			for (x = begin; x < end; x++) {
 				row[x] = (float)Math.atan(row[x]);
 			}
-		}
+		});
 	}
 }
@@ -0,0 +1,389 @@
+package nl.airsupplies.utilities.graphics.image.function;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import nl.airsupplies.utilities.graphics.image.AbstractImageMatrixFloat;
+import nl.airsupplies.utilities.graphics.image.FloatRow;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * Any combination of statistics of every component of an image, computed in a single pass.
+ * <p>
+ * {@link #of(AbstractImageMatrixFloat, Set)} processes the image in bands (see {@link ImageMatrixExecutor}), each
+ * into its own partial result, which are then {@link #merge(ImageStatistics) merged}. The same can be done manually
+ * to gather statistics of multiple images or tiles, using {@link #accumulate(int, float[], int, int)}.
+ * <p>
+ * NaN samples are counted separately (if requested) and otherwise ignored. Sums are accumulated in double precision.
+ *
+ * @author Mark Jeronimus
+ * @see ImageMatrixQueryFunctions
+ */
+// Created 2026-10-17
+@NotThreadSafe
+public class ImageStatistics {
+	public enum Statistic {
+		MIN,
+		MAX,
+		/** Also enables {@link #getAverage(int)} */
+		SUM,
+		/** Also enables {@link #getVariance(int)} and {@link #getStdDeviation(int)} (together with {@link #SUM}) */
+		SUM_OF_SQUARES,
+		HISTOGRAM,
+		NAN_COUNT
+	}
+
+	public final int numComponents;
+	public final int numBins;
+
+	private final boolean doMinMax;
+	private final boolean doSum;
+	private final boolean doSumOfSquares;
+	private final boolean doHistogram;
+	private final float   histogramLow;
+	private final float   histogramScale;
+
+	private final Set<Statistic> statistics;
+	private final float[]        min;
+	private final float[]        max;
+	private final long[]         count;
+	private final double[]       sum;
+	private final double[]       sumOfSquares;
+	private final long[]         nanCount;
+	private final int[][]        histogram;
+
+	/**
+	 * Creates empty statistics, without a histogram.
+	 */
+	public ImageStatistics(int numComponents, Set<Statistic> statistics) {
+		this(numComponents, statistics, 0, 0, 1);
+	}
+
+	/**
+	 * Creates empty statistics.
+	 *
+	 * @param numBins       the number of histogram bins, when {@link Statistic#HISTOGRAM} is requested. Samples are
+	 *                      rounded to the nearest bin, as in {@link
+	 *                      ImageMatrixQueryFunctions#makeHistogram(AbstractImageMatrixFloat, int[])}, so the first bin
+	 *                      is centered at {@code histogramLow} and the last bin at {@code histogramHigh}. Samples
+	 *                      outside this range go to the first or last bin.
+	 * @param histogramLow  the value of the first bin
+	 * @param histogramHigh the value of the last bin
+	 */
+	public ImageStatistics(int numComponents, Set<Statistic> statistics,
+	                       int numBins, float histogramLow, float histogramHigh) {
+		this.numComponents = requireAtLeast(1, numComponents, "numComponents");
+		this.statistics    = EnumSet.noneOf(Statistic.class);
+		this.statistics.addAll(requireNonNull(statistics, "statistics"));
+
+		doMinMax       = statistics.contains(Statistic.MIN) || statistics.contains(Statistic.MAX);
+		doSum          = statistics.contains(Statistic.SUM);
+		doSumOfSquares = statistics.contains(Statistic.SUM_OF_SQUARES);
+		doHistogram    = statistics.contains(Statistic.HISTOGRAM);
+
+		if (doHistogram) {
+			requireAtLeast(2, numBins, "numBins");
+			if (!(histogramHigh > histogramLow)) {
+				throw new IllegalArgumentException(
+						"'histogramHigh' should be greater than 'histogramLow': " + histogramHigh + " <= " +
+						histogramLow);
+			}
+		}
+
+		this.numBins      = doHistogram ? numBins : 0;
+		this.histogramLow = doHistogram ? histogramLow : 0;
+		histogramScale    = doHistogram ? (numBins - 1) / (histogramHigh - histogramLow) : 0;
+
+		min          = new float[numComponents];
+		max          = new float[numComponents];
+		count        = new long[numComponents];
+		sum          = new double[numComponents];
+		sumOfSquares = new double[numComponents];
+		nanCount     = new long[numComponents];
+		histogram    = new int[numComponents][this.numBins];
+
+		Arrays.fill(min, Float.POSITIVE_INFINITY);
+		Arrays.fill(max, Float.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Creates empty statistics with the same configuration as another, for example to merge into it later.
+	 */
+	public ImageStatistics(ImageStatistics other) {
+		numComponents  = other.numComponents;
+		numBins        = other.numBins;
+		statistics     = other.statistics;
+		doMinMax       = other.doMinMax;
+		doSum          = other.doSum;
+		doSumOfSquares = other.doSumOfSquares;
+		doHistogram    = other.doHistogram;
+		histogramLow   = other.histogramLow;
+		histogramScale = other.histogramScale;
+
+		min          = new float[numComponents];
+		max          = new float[numComponents];
+		count        = new long[numComponents];
+		sum          = new double[numComponents];
+		sumOfSquares = new double[numComponents];
+		nanCount     = new long[numComponents];
+		histogram    = new int[numComponents][numBins];
+
+		Arrays.fill(min, Float.POSITIVE_INFINITY);
+		Arrays.fill(max, Float.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Computes the statistics of the image area of every component, without a histogram.
+	 */
+	public static ImageStatistics of(AbstractImageMatrixFloat img, Set<Statistic> statistics) {
+		return of(img, new ImageStatistics(img.numComponents, statistics));
+	}
+
+	/**
+	 * Computes the statistics of the image area of every component, with a histogram over the range [0, 1].
+	 */
+	public static ImageStatistics of(AbstractImageMatrixFloat img, Set<Statistic> statistics, int numBins) {
+		return of(img, new ImageStatistics(img.numComponents, statistics, numBins, 0, 1));
+	}
+
+	/**
+	 * Adds the statistics of the image area of every component to existing statistics (which must have at least as
+	 * many components as the image).
+	 *
+	 * @return {@code statistics}
+	 */
+	public static ImageStatistics of(AbstractImageMatrixFloat img, ImageStatistics statistics) {
+		if (statistics.numComponents < img.numComponents) {
+			throw new IllegalArgumentException("Statistics have fewer components than the image: " +
+			                                   statistics.numComponents + " < " + img.numComponents);
+		}
+
+		ImageMatrixExecutor.forEachBand(img, (z, beginY, endY) -> {
+			ImageStatistics partial = new ImageStatistics(statistics);
+			FloatRow        row     = new FloatRow();
+
+			for (int y = beginY; y < endY; y++) {
+				img.readRow(z, y, row);
+				partial.accumulate(z, row.array, row.offset + img.border, row.offset + img.endX);
+			}
+
+			synchronized (statistics) {
+				statistics.merge(partial);
+			}
+		});
+
+		return statistics;
+	}
+
+	public Set<Statistic> getStatistics() {
+		return EnumSet.copyOf(statistics);
+	}
+
+	/**
+	 * Adds samples {@code begin} to {@code end} (exclusive) of {@code row} to component {@code z}.
+	 */
+	public void accumulate(int z, float[] row, int begin, int end) {
+		// Inner loop
+		float  c; // 8
+		int    x; // 4
+		float  min            = this.min[z]; // 2
+		float  max            = this.max[z]; // 2
+		double sum            = 0; // 2
+		double sumOfSquares   = 0; // 2
+		int    numNaN         = 0; // 1
+		int    bin; // 1
+		int    lastBin        = numBins - 1; // 1
+		int[]  histogram      = this.histogram[z]; // 1
+		float  histogramLow   = this.histogramLow; // 1
+		float  histogramScale = this.histogramScale; // 1
+
+		for (x = begin; x < end; x++) {
+			c = row[x];
+			if (c != c) {
+				numNaN++;
+				continue;
+			}
+
+			if (doMinMax) {
+				if (min > c) {
+					min = c;
+				}
+				if (max < c) {
+					max = c;
+				}
+			}
+
+			if (doSum) {
+				sum += c;
+			}
+
+			if (doSumOfSquares) {
+				sumOfSquares += (double)c * c;
+			}
+
+			if (doHistogram) {
+				bin = (int)((c - histogramLow) * histogramScale + 0.5f);
+				if (bin >= lastBin) {
+					bin = lastBin;
+				} else if (bin < 0) {
+					bin = 0;
+				}
+				histogram[bin]++;
+			}
+		}
+
+		this.min[z] = min;
+		this.max[z] = max;
+		this.sum[z] += sum;
+		this.sumOfSquares[z] += sumOfSquares;
+		count[z] += end - begin - numNaN;
+		nanCount[z] += numNaN;
+	}
+
+	/**
+	 * Adds the partial results of other statistics, which must have the same configuration, to these.
+	 */
+	public void merge(ImageStatistics other) {
+		if (other.numComponents != numComponents || !other.statistics.equals(statistics) ||
+		    other.numBins != numBins || other.histogramLow != histogramLow || other.histogramScale != histogramScale) {
+			throw new IllegalArgumentException("Other ImageStatistics not compatible");
+		}
+
+		for (int z = 0; z < numComponents; z++) {
+			min[z] = Math.min(min[z], other.min[z]);
+			max[z] = Math.max(max[z], other.max[z]);
+			count[z] += other.count[z];
+			sum[z] += other.sum[z];
+			sumOfSquares[z] += other.sumOfSquares[z];
+			nanCount[z] += other.nanCount[z];
+
+			for (int i = 0; i < numBins; i++) {
+				histogram[z][i] += other.histogram[z][i];
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of samples that are not NaN.
+	 */
+	public long getCount(int z) {
+		return count[z];
+	}
+
+	/**
+	 * Returns the lowest value, or {@link Float#POSITIVE_INFINITY} if there were no samples.
+	 */
+	public float getMin(int z) {
+		require(Statistic.MIN);
+		return min[z];
+	}
+
+	/**
+	 * Returns the lowest value of all components.
+	 */
+	public float getMin() {
+		require(Statistic.MIN);
+
+		float min = Float.POSITIVE_INFINITY;
+		for (float value : this.min) {
+			min = Math.min(min, value);
+		}
+
+		return min;
+	}
+
+	/**
+	 * Returns the highest value, or {@link Float#NEGATIVE_INFINITY} if there were no samples.
+	 */
+	public float getMax(int z) {
+		require(Statistic.MAX);
+		return max[z];
+	}
+
+	/**
+	 * Returns the highest value of all components.
+	 */
+	public float getMax() {
+		require(Statistic.MAX);
+
+		float max = Float.NEGATIVE_INFINITY;
+		for (float value : this.max) {
+			max = Math.max(max, value);
+		}
+
+		return max;
+	}
+
+	public double getSum(int z) {
+		require(Statistic.SUM);
+		return sum[z];
+	}
+
+	public double getSumOfSquares(int z) {
+		require(Statistic.SUM_OF_SQUARES);
+		return sumOfSquares[z];
+	}
+
+	/**
+	 * Returns the mean of the samples that are not NaN, or NaN if there were none.
+	 */
+	public double getAverage(int z) {
+		require(Statistic.SUM);
+		return sum[z] / count[z];
+	}
+
+	/**
+	 * Returns the mean of all components.
+	 */
+	public double getAverage() {
+		require(Statistic.SUM);
+
+		double sum   = 0;
+		long   count = 0;
+		for (int z = 0; z < numComponents; z++) {
+			sum += this.sum[z];
+			count += this.count[z];
+		}
+
+		return sum / count;
+	}
+
+	/**
+	 * Returns the population variance of the samples that are not NaN.
+	 */
+	public double getVariance(int z) {
+		require(Statistic.SUM);
+		require(Statistic.SUM_OF_SQUARES);
+
+		double average = sum[z] / count[z];
+		return Math.max(0, sumOfSquares[z] / count[z] - average * average);
+	}
+
+	public double getStdDeviation(int z) {
+		return Math.sqrt(getVariance(z));
+	}
+
+	/**
+	 * Returns the histogram (not a copy).
+	 */
+	public int[] getHistogram(int z) {
+		require(Statistic.HISTOGRAM);
+		return histogram[z];
+	}
+
+	public long getNaNCount(int z) {
+		require(Statistic.NAN_COUNT);
+		return nanCount[z];
+	}
+
+	private void require(Statistic statistic) {
+		if (!statistics.contains(statistic)) {
+			throw new IllegalStateException("Statistic not computed: " + statistic);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package nl.airsupplies.utilities.graphics.image.function;
+
+/**
+ * Inner loops over a range of a row, shared by the image functions and filters so they can be swapped for vectorized
+ * versions.
+ * <p>
+ * {@link #get()} returns the Vector API kernels ({@code VectorRowKernels}) when they are on the class path and the
+ * {@code jdk.incubator.vector} module is present in the boot layer (i.e. the VM was started with {@code --add-modules
+ * jdk.incubator.vector}), and the {@link ScalarRowKernels scalar kernels} otherwise. The Vector API kernels are in the
+ * optional {@code UtilitiesVector} module, which needs Java 16 or newer, so this module stays compatible with Java 8.
+ * They can be disabled with the system property {@code nl.airsupplies.utilities.graphics.image.vector=false}.
+ * <p>
+ * All kernels produce results bit-for-bit identical to the scalar kernels, except {@link #pow(float[], int,
+ * float[], int, float[], int, int)}, which is within 2 ULP.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+// Changed 2026-10-17 Vector API kernels moved to an optional module
+public abstract class RowKernels {
+	private static final RowKernels INSTANCE = select();
+
+	RowKernels() {
+	}
+
+	public static RowKernels get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns whether vectorized kernels are used.
+	 */
+	public static boolean isVectorized() {
+		return !(INSTANCE instanceof ScalarRowKernels);
+	}
+
+	private static RowKernels select() {
+		if (!Boolean.parseBoolean(System.getProperty("nl.airsupplies.utilities.graphics.image.vector", "true"))) {
+			return new ScalarRowKernels();
+		}
+
+		try {
+			// Loaded reflectively so this class compiles and links without the module or the vector source root. Without
+			// the module (or on a VM older than the class) initializing it throws a LinkageError.
+			return (RowKernels)Class.forName(RowKernels.class.getPackage().getName() + ".VectorRowKernels")
+			                        .getDeclaredConstructor()
+			                        .newInstance();
+		} catch (ReflectiveOperationException | LinkageError ignored) {
+			return new ScalarRowKernels();
+		}
+	}
+
+	/**
+	 * out += in
+	 */
+	public abstract void add(float[] out, int outBegin, float[] in, int inBegin, int length);
+
+	/**
+	 * out -= in
+	 */
+	public abstract void sub(float[] out, int outBegin, float[] in, int inBegin, int length);
+
+	/**
+	 * out *= in
+	 */
+	public abstract void mul(float[] out, int outBegin, float[] in, int inBegin, int length);
+
+	/**
+	 * out /= in
+	 */
+	public abstract void div(float[] out, int outBegin, float[] in, int inBegin, int length);
+
+	/**
+	 * out = min(in, out)
+	 */
+	public abstract void min(float[] out, int outBegin, float[] in, int inBegin, int length);
+
+	/**
+	 * out = max(in, out)
+	 */
+	public abstract void max(float[] out, int outBegin, float[] in, int inBegin, int length);
+
+	/**
+	 * out = base<sup>power</sup>
+	 */
+	public abstract void pow(float[] base, int baseBegin, float[] power, int powerBegin, float[] out, int outBegin,
+	                         int length);
+
+	/**
+	 * row = -row
+	 */
+	public abstract void invert(float[] row, int begin, int end);
+
+	/**
+	 * row = 1 - row
+	 */
+	public abstract void negative(float[] row, int begin, int end);
+
+	/**
+	 * row = black, if row < black<br> row = white, if row >= white<br> row = row, otherwise (including NaN)
+	 */
+	public abstract void clamp(float[] row, float black, float white, int begin, int end);
+
+	/**
+	 * row = -row, if row < 0
+	 */
+	public abstract void abs(float[] row, int begin, int end);
+
+	/**
+	 * row = 1 / row
+	 */
+	public abstract void recip(float[] row, int begin, int end);
+
+	/**
+	 * row = row * row
+	 */
+	public abstract void sqr(float[] row, int begin, int end);
+
+	/**
+	 * row = sqrt(row)
+	 */
+	public abstract void sqrt(float[] row, int begin, int end);
+
+	/**
+	 * row = row * (row * row)
+	 */
+	public abstract void cube(float[] row, int begin, int end);
+
+	/**
+	 * 3x3 convolution with the three rows centered around the output row. Sample {@code i} of the output is centered on
+	 * sample {@code begins[v] + i} of {@code rows[v]}. Terms are summed row by row, left to right.
+	 */
+	public abstract void convolve3(float[] out, int outBegin, float[][] rows, int[] begins, float[][] kernel,
+	                               int length);
+
+	/**
+	 * 5x5 convolution with the five rows centered around the output row. Sample {@code i} of the output is centered on
+	 * sample {@code begins[v] + i} of {@code rows[v]}. Terms are summed row by row, left to right.
+	 */
+	public abstract void convolve5(float[] out, int outBegin, float[][] rows, int[] begins, float[][] kernel,
+	                               int length);
+}
@@ -0,0 +1,195 @@
+package nl.airsupplies.utilities.graphics.image.function;
+
+/**
+ * The reference kernels, as plain loops.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+public class ScalarRowKernels extends RowKernels {
+	@Override
+	public void add(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		for (int x = 0; x < length; x++) {
+			out[outBegin + x] += in[inBegin + x];
+		}
+	}
+
+	@Override
+	public void sub(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		for (int x = 0; x < length; x++) {
+			out[outBegin + x] -= in[inBegin + x];
+		}
+	}
+
+	@Override
+	public void mul(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		for (int x = 0; x < length; x++) {
+			out[outBegin + x] *= in[inBegin + x];
+		}
+	}
+
+	@Override
+	public void div(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		for (int x = 0; x < length; x++) {
+			out[outBegin + x] /= in[inBegin + x];
+		}
+	}
+
+	@Override
+	public void min(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		for (int x = 0; x < length; x++) {
+			out[outBegin + x] = Math.min(in[inBegin + x], out[outBegin + x]);
+		}
+	}
+
+	@Override
+	public void max(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		for (int x = 0; x < length; x++) {
+			out[outBegin + x] = Math.max(in[inBegin + x], out[outBegin + x]);
+		}
+	}
+
+	@Override
+	public void pow(float[] base, int baseBegin, float[] power, int powerBegin, float[] out, int outBegin,
+	                int length) {
+		for (int x = 0; x < length; x++) {
+			out[outBegin + x] = (float)Math.pow(base[baseBegin + x], power[powerBegin + x]);
+		}
+	}
+
+	@Override
+	public void invert(float[] row, int begin, int end) {
+		for (int x = begin; x < end; x++) {
+			row[x] = -row[x];
+		}
+	}
+
+	@Override
+	public void negative(float[] row, int begin, int end) {
+		for (int x = begin; x < end; x++) {
+			row[x] = 1 - row[x];
+		}
+	}
+
+	@Override
+	public void clamp(float[] row, float black, float white, int begin, int end) {
+		for (int x = begin; x < end; x++) {
+			if (row[x] < black) {
+				row[x] = black;
+			} else if (row[x] >= white) {
+				row[x] = white;
+			}
+		}
+	}
+
+	@Override
+	public void abs(float[] row, int begin, int end) {
+		for (int x = begin; x < end; x++) {
+			if (row[x] < 0) {
+				row[x] = -row[x];
+			}
+		}
+	}
+
+	@Override
+	public void recip(float[] row, int begin, int end) {
+		for (int x = begin; x < end; x++) {
+			row[x] = 1 / row[x];
+		}
+	}
+
+	@Override
+	public void sqr(float[] row, int begin, int end) {
+		for (int x = begin; x < end; x++) {
+			row[x] *= row[x];
+		}
+	}
+
+	@Override
+	public void sqrt(float[] row, int begin, int end) {
+		for (int x = begin; x < end; x++) {
+			row[x] = (float)Math.sqrt(row[x]);
+		}
+	}
+
+	@Override
+	public void cube(float[] row, int begin, int end) {
+		for (int x = begin; x < end; x++) {
+			row[x] *= row[x] * row[x];
+		}
+	}
+
+	@Override
+	public void convolve3(float[] out, int outBegin, float[][] rows, int[] begins, float[][] kernel, int length) {
+		float[] row0    = rows[0];
+		float[] row1    = rows[1];
+		float[] row2    = rows[2];
+		int     delta0  = begins[0] - outBegin;
+		int     delta1  = begins[1] - outBegin;
+		int     delta2  = begins[2] - outBegin;
+		float[] kernel0 = kernel[0];
+		float[] kernel1 = kernel[1];
+		float[] kernel2 = kernel[2];
+		int     end     = outBegin + length;
+
+		for (int x = outBegin; x < end; x++) {
+			out[x] = row0[x + delta0 - 1] * kernel0[0] +
+			         row0[x + delta0] * kernel0[1] +
+			         row0[x + delta0 + 1] * kernel0[2] +
+			         row1[x + delta1 - 1] * kernel1[0] +
+			         row1[x + delta1] * kernel1[1] +
+			         row1[x + delta1 + 1] * kernel1[2] +
+			         row2[x + delta2 - 1] * kernel2[0] +
+			         row2[x + delta2] * kernel2[1] +
+			         row2[x + delta2 + 1] * kernel2[2];
+		}
+	}
+
+	@Override
+	public void convolve5(float[] out, int outBegin, float[][] rows, int[] begins, float[][] kernel, int length) {
+		float[] row0    = rows[0];
+		float[] row1    = rows[1];
+		float[] row2    = rows[2];
+		float[] row3    = rows[3];
+		float[] row4    = rows[4];
+		int     delta0  = begins[0] - outBegin;
+		int     delta1  = begins[1] - outBegin;
+		int     delta2  = begins[2] - outBegin;
+		int     delta3  = begins[3] - outBegin;
+		int     delta4  = begins[4] - outBegin;
+		float[] kernel0 = kernel[0];
+		float[] kernel1 = kernel[1];
+		float[] kernel2 = kernel[2];
+		float[] kernel3 = kernel[3];
+		float[] kernel4 = kernel[4];
+		int     end     = outBegin + length;
+
+		for (int x = outBegin; x < end; x++) {
+			out[x] = row0[x + delta0 - 2] * kernel0[0] +
+			         row0[x + delta0 - 1] * kernel0[1] +
+			         row0[x + delta0] * kernel0[2] +
+			         row0[x + delta0 + 1] * kernel0[3] +
+			         row0[x + delta0 + 2] * kernel0[4] +
+			         row1[x + delta1 - 2] * kernel1[0] +
+			         row1[x + delta1 - 1] * kernel1[1] +
+			         row1[x + delta1] * kernel1[2] +
+			         row1[x + delta1 + 1] * kernel1[3] +
+			         row1[x + delta1 + 2] * kernel1[4] +
+			         row2[x + delta2 - 2] * kernel2[0] +
+			         row2[x + delta2 - 1] * kernel2[1] +
+			         row2[x + delta2] * kernel2[2] +
+			         row2[x + delta2 + 1] * kernel2[3] +
+			         row2[x + delta2 + 2] * kernel2[4] +
+			         row3[x + delta3 - 2] * kernel3[0] +
+			         row3[x + delta3 - 1] * kernel3[1] +
+			         row3[x + delta3] * kernel3[2] +
+			         row3[x + delta3 + 1] * kernel3[3] +
+			         row3[x + delta3 + 2] * kernel3[4] +
+			         row4[x + delta4 - 2] * kernel4[0] +
+			         row4[x + delta4 - 1] * kernel4[1] +
+			         row4[x + delta4] * kernel4[2] +
+			         row4[x + delta4 + 1] * kernel4[3] +
+			         row4[x + delta4 + 2] * kernel4[4];
+		}
+	}
+}
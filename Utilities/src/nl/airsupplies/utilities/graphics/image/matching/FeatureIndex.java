@@ -0,0 +1,46 @@
+package nl.airsupplies.utilities.graphics.image.matching;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An index over a fixed set of features, that finds the features nearest to a query without matching it against
+ * every feature.
+ * <p>
+ * The index is a snapshot: features added to or removed from the originating collection afterwards are not seen. After
+ * construction, queries may run concurrently, provided the distance function (usually
+ * {@link MatchFeature#match(MatchFeature)}) can be called concurrently.
+ * <p>
+ * Features rejected by the filter (when not {@code null}) are skipped and don't count towards {@code k}. Results are
+ * sorted by increasing distance.
+ *
+ * @author Mark Jeronimus
+ * @see VPTree
+ * @see KDTree
+ */
+// Created 2026-10-17
+public interface FeatureIndex {
+	int size();
+
+	/**
+	 * Returns (at most) the {@code k} features nearest to the query.
+	 */
+	List<FeatureMatch> nearest(MatchFeature query, int k, @Nullable Predicate<? super MatchFeature> filter);
+
+	default List<FeatureMatch> nearest(MatchFeature query, int k) {
+		return nearest(query, k, null);
+	}
+
+	/**
+	 * Returns all features with a distance to the query of at most {@code radius}.
+	 */
+	List<FeatureMatch> withinRadius(MatchFeature query,
+	                                double radius,
+	                                @Nullable Predicate<? super MatchFeature> filter);
+
+	default List<FeatureMatch> withinRadius(MatchFeature query, double radius) {
+		return withinRadius(query, radius, null);
+	}
+}
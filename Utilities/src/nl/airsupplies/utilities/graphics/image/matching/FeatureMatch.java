@@ -0,0 +1,42 @@
+package nl.airsupplies.utilities.graphics.image.matching;
+
+import net.jcip.annotations.Immutable;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * A feature found by a query, together with its distance to the query.
+ * <p>
+ * This class supports sorting, and elements are sorted by increasing distance.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@Immutable
+public final class FeatureMatch implements Comparable<FeatureMatch> {
+	private final MatchFeature feature;
+	private final double       distance;
+
+	public FeatureMatch(MatchFeature feature, double distance) {
+		this.feature  = requireNonNull(feature, "feature");
+		this.distance = distance;
+	}
+
+	public MatchFeature getFeature() {
+		return feature;
+	}
+
+	public double getDistance() {
+		return distance;
+	}
+
+	@Override
+	public int compareTo(FeatureMatch other) {
+		return Double.compare(distance, other.distance);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + '[' + feature.getName() + ", " + distance + ']';
+	}
+}
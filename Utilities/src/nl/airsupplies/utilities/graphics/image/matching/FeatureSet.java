@@ -2,67 +2,189 @@ package nl.airsupplies.utilities.graphics.image.matching;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+import org.jetbrains.annotations.Nullable;
 
 import nl.airsupplies.utilities.container.Vector2i;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor.BandTask;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
 
 /**
+ * A set of features that can be matched against each other or against a query.
+ * <p>
+ * The all-pairs methods ({@link #getBestMatch()}, {@link #getBestMatchUnMarked()} and
+ * {@link #getNearestNeighbors(FeatureIndex, boolean)}) can run in parallel (see {@link #setParallel(boolean)}),
+ * provided {@link MatchFeature#match(MatchFeature)} can be called concurrently. For queries against large sets, build
+ * an index with {@link #createMetricIndex()} or {@link #createDescriptorIndex()}.
+ *
  * @author Mark Jeronimus
  */
 // Created 2013-03-02
+// Changed 2026-10-17 Added indexes, top-k selection and parallel all-pairs matching
 public class FeatureSet extends ArrayList<MatchFeature> {
+	private boolean parallel = false;
+
 	public static void mark(MatchFeature first, MatchFeature second) {
 		first.marks.add(second);
 		second.marks.add(first);
 	}
 
+	/**
+	 * Sets whether the all-pairs methods distribute the features over the threads of {@link ImageMatrixExecutor}. The
+	 * results are the same either way.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Builds a {@link VPTree} of the current features, which uses {@link MatchFeature#match(MatchFeature)} as the
+	 * distance.
+	 */
+	public VPTree createMetricIndex() {
+		return new VPTree(this);
+	}
+
+	/**
+	 * Builds a {@link KDTree} of the {@link MatchFeature#getDescriptor() descriptors} of the current features.
+	 *
+	 * @throws IllegalArgumentException when a feature has no descriptor, or when descriptors have different lengths.
+	 */
+	public KDTree createDescriptorIndex() {
+		return new KDTree(this);
+	}
+
 	public Vector2i getBestMatch() {
+		return findBestMatch(false);
+	}
+
+	public Vector2i getBestMatchUnMarked() {
+		return findBestMatch(true);
+	}
+
+	private Vector2i findBestMatch(boolean skipMarked) {
 		int length = size();
 
+		// The best match of every feature with the features before it.
+		double[] bestMatches = new double[length];
+		int[]    bestIndices = new int[length];
+
+		forEachFeature(1, length, (ignored, begin, end) -> {
+			for (int i = begin; i < end; i++) {
+				MatchFeature          first = get(i);
+				HashSet<MatchFeature> marks = first.marks;
+
+				double bestMatch = Double.MAX_VALUE;
+				int    bestIndex = -1;
+				for (int j = i - 1; j >= 0; j--) {
+					MatchFeature second = get(j);
+
+					if (skipMarked && marks.contains(second)) {
+						continue;
+					}
+
+					double match = first.match(second);
+					if (bestMatch > match) {
+						bestMatch = match;
+						bestIndex = j;
+					}
+				}
+
+				bestMatches[i] = bestMatch;
+				bestIndices[i] = bestIndex;
+			}
+		});
+
 		double   bestMatch = Double.MAX_VALUE;
 		Vector2i best      = new Vector2i(-1, -1);
 		for (int i = length - 1; i > 0; i--) {
-			MatchFeature first = get(i);
-			for (int j = i - 1; j >= 0; j--) {
-				double match = first.match(get(j));
-				if (bestMatch > match) {
-					bestMatch = match;
-					best.set(i, j);
-				}
+			if (bestMatch > bestMatches[i]) {
+				bestMatch = bestMatches[i];
+				best.set(i, bestIndices[i]);
 			}
 		}
 
 		return best;
 	}
 
-	public Vector2i getBestMatchUnMarked() {
+	/**
+	 * Finds, for every feature, the nearest other feature. Elements are {@code null} for features without any
+	 * candidates.
+	 *
+	 * @param index      an index of the features of this set (for example from {@link #createMetricIndex()}), or
+	 *                   {@code null} to match every pair of features.
+	 * @param skipMarked whether to skip the features that are {@link #mark(MatchFeature, MatchFeature) marked} with a
+	 *                   feature.
+	 */
+	public FeatureMatch[] getNearestNeighbors(@Nullable FeatureIndex index, boolean skipMarked) {
 		int length = size();
 
-		double   bestMatch = Double.MAX_VALUE;
-		Vector2i best      = new Vector2i(-1, -1);
-		for (int i = length - 1; i > 0; i--) {
-			MatchFeature          first = get(i);
-			HashSet<MatchFeature> marks = first.marks;
+		FeatureMatch[] neighbors = new FeatureMatch[length];
 
-			for (int j = i - 1; j >= 0; j--) {
-				MatchFeature second = get(j);
+		forEachFeature(0, length, (ignored, begin, end) -> {
+			for (int i = begin; i < end; i++) {
+				MatchFeature            feature = get(i);
+				HashSet<MatchFeature>   marks   = feature.marks;
+				Predicate<MatchFeature> filter  = other -> other != feature && !(skipMarked && marks.contains(other));
 
-				if (marks.contains(second)) {
+				if (index != null) {
+					List<FeatureMatch> nearest = index.nearest(feature, 1, filter);
+					neighbors[i] = nearest.isEmpty() ? null : nearest.get(0);
 					continue;
 				}
 
-				double match = first.match(second);
-				if (bestMatch > match) {
-					bestMatch = match;
-					best.set(i, j);
+				MatchFeature bestFeature = null;
+				double       bestMatch   = Double.POSITIVE_INFINITY;
+				for (int j = 0; j < length; j++) {
+					MatchFeature other = get(j);
+
+					if (!filter.test(other)) {
+						continue;
+					}
+
+					double match = other.match(feature);
+					if (bestFeature == null || bestMatch > match) {
+						bestFeature = other;
+						bestMatch   = match;
+					}
 				}
+
+				neighbors[i] = bestFeature == null ? null : new FeatureMatch(bestFeature, bestMatch);
 			}
-		}
+		});
 
-		return best;
+		return neighbors;
+	}
+
+	private void forEachFeature(int begin, int end, BandTask task) {
+		if (parallel) {
+			ImageMatrixExecutor.forEachBand(1, begin, end, size(), task);
+		} else {
+			task.process(0, begin, end);
+		}
 	}
 
 	public void matchAndSort(MatchFeature matchItem) {
+		matchAndSort(matchItem, size());
+	}
+
+	/**
+	 * Like {@link #matchAndSort(MatchFeature)}, but only moves the {@code k} best matches to the front, in sorted
+	 * order. The other features follow in their original order. This takes O(N log k) instead of O(N log N).
+	 */
+	public void matchAndSort(MatchFeature matchItem, int k) {
+		requireAtLeast(1, k, "k");
+
 		int length = size();
 
 		double[] matches = new double[length];
@@ -73,17 +195,20 @@ public class FeatureSet extends ArrayList<MatchFeature> {
 			matches[i] = other.match(matchItem);
 		}
 
-		// Store scores.
-		for (int i = length - 1; i >= 0; i--) {
-			get(i).setSortValue(matches[i]);
-		}
-
-		matchItem.setSortValue(-Double.MIN_VALUE);
-
-		Collections.sort(this);
+		storeAndSort(matchItem, matches, k);
 	}
 
 	public void matchAndSortUnmarked(MatchFeature matchItem) {
+		matchAndSortUnmarked(matchItem, size());
+	}
+
+	/**
+	 * Like {@link #matchAndSortUnmarked(MatchFeature)}, but only moves the {@code k} best matches to the front, in
+	 * sorted order. The other features follow in their original order. This takes O(N log k) instead of O(N log N).
+	 */
+	public void matchAndSortUnmarked(MatchFeature matchItem, int k) {
+		requireAtLeast(1, k, "k");
+
 		int length = size();
 
 		HashSet<MatchFeature> marks = matchItem.marks;
@@ -93,12 +218,15 @@ public class FeatureSet extends ArrayList<MatchFeature> {
 		for (int i = length - 1; i >= 0; i--) {
 			MatchFeature other = get(i);
 
-			matches[i] = other.match(matchItem);
-			if (marks.contains(other)) {
-				matches[i] = Double.MAX_VALUE;
-			}
+			matches[i] = marks.contains(other) ? Double.MAX_VALUE : other.match(matchItem);
 		}
 
+		storeAndSort(matchItem, matches, k);
+	}
+
+	private void storeAndSort(MatchFeature matchItem, double[] matches, int k) {
+		int length = size();
+
 		// Store scores.
 		for (int i = length - 1; i >= 0; i--) {
 			get(i).setSortValue(matches[i]);
@@ -106,6 +234,44 @@ public class FeatureSet extends ArrayList<MatchFeature> {
 
 		matchItem.setSortValue(-Double.MIN_VALUE);
 
-		Collections.sort(this);
+		if (k >= length) {
+			Collections.sort(this);
+			return;
+		}
+
+		// Max-heap of the best k so far. Ties are broken by index, which gives the same order as a (stable) full sort.
+		Comparator<Integer> order = (i, j) -> {
+			int compare = get(i).compareTo(get(j));
+			return compare != 0 ? compare : Integer.compare(i, j);
+		};
+
+		PriorityQueue<Integer> best = new PriorityQueue<>(k, order.reversed());
+		for (int i = 0; i < length; i++) {
+			if (best.size() < k) {
+				best.add(i);
+			} else if (order.compare(i, best.peek()) < 0) {
+				best.poll();
+				best.add(i);
+			}
+		}
+
+		boolean[]      selected = new boolean[length];
+		MatchFeature[] sorted   = new MatchFeature[length];
+		for (int i = k - 1; i >= 0; i--) {
+			int index = best.poll();
+			selected[index] = true;
+			sorted[i]       = get(index);
+		}
+
+		int n = k;
+		for (int i = 0; i < length; i++) {
+			if (!selected[i]) {
+				sorted[n++] = get(i);
+			}
+		}
+
+		for (int i = 0; i < length; i++) {
+			set(i, sorted[i]);
+		}
 	}
 }
@@ -0,0 +1,281 @@
+package nl.airsupplies.utilities.graphics.image.matching;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * A k-d tree, which indexes features by the Euclidean distance between their {@link MatchFeature#getDescriptor()
+ * descriptors}. Unlike {@link VPTree}, it never calls {@link MatchFeature#match(MatchFeature)}.
+ * <p>
+ * Every node splits its features at the median of the dimension in which they are spread widest. A query skips a half
+ * when the distance to the splitting plane is larger than the distance of the ones already found. This works best with
+ * few dimensions (up to about 20); with more, most of the tree is visited anyway.
+ * <p>
+ * The descriptors are copied, and the nodes are stored implicitly: the node of a range of features is in the middle of
+ * it, with the features on the lower side of the splitting plane before it and the others after it.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@ThreadSafe
+public class KDTree implements FeatureIndex {
+	private final MatchFeature[] features;
+	private final double[][]     points;
+	/** The dimension that splits the node at the same index */
+	private final int[]          splitDimensions;
+	private final int            numDimensions;
+
+	/**
+	 * @throws IllegalArgumentException when a feature has no descriptor, or when descriptors have different lengths.
+	 */
+	public KDTree(Collection<? extends MatchFeature> features) {
+		requireNonNull(features, "features");
+
+		this.features   = features.toArray(new MatchFeature[0]);
+		points          = new double[this.features.length][];
+		splitDimensions = new int[this.features.length];
+
+		int dimensions = -1;
+		for (int i = 0; i < points.length; i++) {
+			points[i] = getDescriptor(this.features[i], dimensions);
+			dimensions = points[i].length;
+		}
+
+		numDimensions = Math.max(0, dimensions);
+
+		build(0, points.length, new double[points.length]);
+	}
+
+	private static double[] getDescriptor(MatchFeature feature, int numDimensions) {
+		double[] descriptor = feature.getDescriptor();
+		if (descriptor == null) {
+			throw new IllegalArgumentException("Feature has no descriptor: " + feature.getName());
+		} else if (numDimensions >= 0 && descriptor.length != numDimensions) {
+			throw new IllegalArgumentException("Descriptor length should be " + numDimensions + ": " +
+			                                   descriptor.length);
+		}
+
+		return descriptor.clone();
+	}
+
+	private void build(int begin, int end, double[] keys) {
+		if (end - begin < 2) {
+			return;
+		}
+
+		int dimension = getWidestDimension(begin, end);
+		for (int i = begin; i < end; i++) {
+			keys[i] = points[i][dimension];
+		}
+
+		int mid = begin + end >>> 1;
+		select(keys, begin, end, mid);
+		splitDimensions[mid] = dimension;
+
+		build(begin, mid, keys);
+		build(mid + 1, end, keys);
+	}
+
+	private int getWidestDimension(int begin, int end) {
+		int    widest    = 0;
+		double bestWidth = -1;
+		for (int d = 0; d < numDimensions; d++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = begin; i < end; i++) {
+				double value = points[i][d];
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+
+			if (max - min > bestWidth) {
+				bestWidth = max - min;
+				widest    = d;
+			}
+		}
+
+		return widest;
+	}
+
+	/**
+	 * Reorders the range such that the element at {@code k} is in sorted position, elements before it are not greater,
+	 * and elements after it are not smaller.
+	 */
+	private void select(double[] keys, int begin, int end, int k) {
+		int lo = begin;
+		int hi = end - 1;
+		while (lo < hi) {
+			double pivot = keys[lo + hi >>> 1];
+
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (keys[i] < pivot) {
+					i++;
+				}
+				while (keys[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(keys, i, j);
+					i++;
+					j--;
+				}
+			}
+
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				break;
+			}
+		}
+	}
+
+	private void swap(double[] keys, int i, int j) {
+		double key = keys[i];
+		keys[i] = keys[j];
+		keys[j] = key;
+
+		double[] point = points[i];
+		points[i] = points[j];
+		points[j] = point;
+
+		MatchFeature feature = features[i];
+		features[i] = features[j];
+		features[j] = feature;
+	}
+
+	@Override
+	public int size() {
+		return features.length;
+	}
+
+	/**
+	 * @throws IllegalArgumentException when the query has no descriptor, or a descriptor of the wrong length. An empty
+	 *                                  tree doesn't check the query.
+	 */
+	@Override
+	public List<FeatureMatch> nearest(MatchFeature query, int k, @Nullable Predicate<? super MatchFeature> filter) {
+		requireNonNull(query, "query");
+		requireAtLeast(1, k, "k");
+
+		// An empty tree has no dimensions to check the query against.
+		if (features.length == 0) {
+			return Collections.emptyList();
+		}
+
+		double[]     point = getDescriptor(query, numDimensions);
+		NeighborHeap heap  = new NeighborHeap(k);
+		searchNearest(point, 0, features.length, filter, heap);
+		return heap.toList();
+	}
+
+	private void searchNearest(double[] query,
+	                           int begin,
+	                           int end,
+	                           @Nullable Predicate<? super MatchFeature> filter,
+	                           NeighborHeap heap) {
+		if (begin >= end) {
+			return;
+		}
+
+		int      mid   = begin + end >>> 1;
+		double[] point = points[mid];
+		if (filter == null || filter.test(features[mid])) {
+			heap.offer(features[mid], getDistance(query, point));
+		}
+
+		if (end - begin < 2) {
+			return;
+		}
+
+		int    dimension = splitDimensions[mid];
+		double delta     = query[dimension] - point[dimension];
+
+		// Visit the side containing the query first, to tighten the bound before considering the other side.
+		if (delta < 0) {
+			searchNearest(query, begin, mid, filter, heap);
+			if (-delta <= heap.bound()) {
+				searchNearest(query, mid + 1, end, filter, heap);
+			}
+		} else {
+			searchNearest(query, mid + 1, end, filter, heap);
+			if (delta <= heap.bound()) {
+				searchNearest(query, begin, mid, filter, heap);
+			}
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException when the query has no descriptor, or a descriptor of the wrong length. An empty
+	 *                                  tree doesn't check the query.
+	 */
+	@Override
+	public List<FeatureMatch> withinRadius(MatchFeature query,
+	                                       double radius,
+	                                       @Nullable Predicate<? super MatchFeature> filter) {
+		requireNonNull(query, "query");
+		requireAtLeast(0.0, radius, "radius");
+
+		if (features.length == 0) {
+			return Collections.emptyList();
+		}
+
+		double[]           point   = getDescriptor(query, numDimensions);
+		List<FeatureMatch> matches = new ArrayList<>();
+		searchRadius(point, 0, features.length, radius, filter, matches);
+		Collections.sort(matches);
+		return matches;
+	}
+
+	private void searchRadius(double[] query,
+	                          int begin,
+	                          int end,
+	                          double radius,
+	                          @Nullable Predicate<? super MatchFeature> filter,
+	                          List<FeatureMatch> matches) {
+		if (begin >= end) {
+			return;
+		}
+
+		int      mid      = begin + end >>> 1;
+		double[] point    = points[mid];
+		double   distance = getDistance(query, point);
+		if (distance <= radius && (filter == null || filter.test(features[mid]))) {
+			matches.add(new FeatureMatch(features[mid], distance));
+		}
+
+		if (end - begin < 2) {
+			return;
+		}
+
+		double delta = query[splitDimensions[mid]] - point[splitDimensions[mid]];
+		if (delta <= radius) {
+			searchRadius(query, begin, mid, radius, filter, matches);
+		}
+		if (-delta <= radius) {
+			searchRadius(query, mid + 1, end, radius, filter, matches);
+		}
+	}
+
+	private static double getDistance(double[] a, double[] b) {
+		double sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			double delta = a[i] - b[i];
+			sum += delta * delta;
+		}
+
+		return Math.sqrt(sum);
+	}
+}
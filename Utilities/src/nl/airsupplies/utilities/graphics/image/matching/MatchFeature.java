@@ -3,10 +3,13 @@ package nl.airsupplies.utilities.graphics.image.matching;
 import java.awt.image.BufferedImage;
 import java.util.HashSet;
 
+import org.jetbrains.annotations.Nullable;
+
 /**
  * @author Mark Jeronimus
  */
 // Created 2013-03-02
+// Changed 2026-10-17 Added getDescriptor() for KDTree
 public abstract class MatchFeature implements Comparable<MatchFeature> {
 	protected HashSet<MatchFeature> marks     = new HashSet<>();
 	private   double                sortValue = 0;
@@ -36,6 +39,17 @@ public abstract class MatchFeature implements Comparable<MatchFeature> {
 
 	public abstract double match(MatchFeature other);
 
+	/**
+	 * Returns a vector of numbers describing this feature, for indexing in a {@link KDTree}, or {@code null} when the
+	 * feature can only be compared with {@link #match(MatchFeature)}. All features in an index must have descriptors
+	 * of the same length.
+	 * <p>
+	 * The default implementation returns {@code null}.
+	 */
+	public @Nullable double[] getDescriptor() {
+		return null;
+	}
+
 	public abstract int getNumParameters();
 
 	public abstract String getParameterName(int index);
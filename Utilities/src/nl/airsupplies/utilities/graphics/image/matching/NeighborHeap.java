@@ -0,0 +1,44 @@
+package nl.airsupplies.utilities.graphics.image.matching;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the {@code k} nearest of the features offered to it, in a max-heap with the farthest one on top.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+final class NeighborHeap {
+	private final int                         k;
+	private final PriorityQueue<FeatureMatch> heap;
+
+	NeighborHeap(int k) {
+		this.k = k;
+		heap   = new PriorityQueue<>(Math.min(k, 256), Comparator.reverseOrder());
+	}
+
+	/**
+	 * Returns the distance a feature must beat to be kept, which is infinite until {@code k} features are kept.
+	 */
+	double bound() {
+		return heap.size() < k ? Double.POSITIVE_INFINITY : heap.peek().getDistance();
+	}
+
+	void offer(MatchFeature feature, double distance) {
+		if (heap.size() < k) {
+			heap.add(new FeatureMatch(feature, distance));
+		} else if (distance < heap.peek().getDistance()) {
+			heap.poll();
+			heap.add(new FeatureMatch(feature, distance));
+		}
+	}
+
+	List<FeatureMatch> toList() {
+		FeatureMatch[] matches = heap.toArray(new FeatureMatch[0]);
+		Arrays.sort(matches);
+		return Arrays.asList(matches);
+	}
+}
@@ -0,0 +1,216 @@
+package nl.airsupplies.utilities.graphics.image.matching;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jetbrains.annotations.Nullable;
+
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
+
+/**
+ * A vantage-point tree, which indexes features by {@link MatchFeature#match(MatchFeature)}.
+ * <p>
+ * Every node takes one feature as vantage point and splits the other features at their median distance to it, into
+ * an inner and an outer half. A query skips a half when the triangle inequality shows that it can't contain a feature
+ * nearer than the ones already found. This is only correct when {@code match} is a metric: non-negative, symmetric,
+ * and satisfying the triangle inequality.
+ * <p>
+ * Building takes O(N log N) matches. A query takes O(log N) matches for well-spread features, degrading to N for
+ * features that are all (nearly) equally far apart.
+ * <p>
+ * The nodes are stored implicitly: the subtree of a range of features starts with its vantage point, followed by the
+ * inner half and then the outer half.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+@ThreadSafe
+public class VPTree implements FeatureIndex {
+	private final MatchFeature[] features;
+	/** The distance that splits the inner and outer half of the node with its vantage point at the same index */
+	private final double[]       thresholds;
+
+	public VPTree(Collection<? extends MatchFeature> features) {
+		requireNonNull(features, "features");
+
+		this.features = features.toArray(new MatchFeature[0]);
+		thresholds    = new double[this.features.length];
+
+		build(0, this.features.length, new double[this.features.length]);
+	}
+
+	private void build(int begin, int end, double[] distances) {
+		if (end - begin < 2) {
+			return;
+		}
+
+		MatchFeature vantage = features[begin];
+		for (int i = begin + 1; i < end; i++) {
+			distances[i] = features[i].match(vantage);
+		}
+
+		int mid = getMid(begin, end);
+		select(distances, begin + 1, end, mid);
+		thresholds[begin] = distances[mid];
+
+		build(begin + 1, mid, distances);
+		build(mid, end, distances);
+	}
+
+	/**
+	 * Reorders the range such that the element at {@code k} is in sorted position, elements before it are not greater,
+	 * and elements after it are not smaller.
+	 */
+	private void select(double[] distances, int begin, int end, int k) {
+		int lo = begin;
+		int hi = end - 1;
+		while (lo < hi) {
+			double pivot = distances[lo + hi >>> 1];
+
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (distances[i] < pivot) {
+					i++;
+				}
+				while (distances[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(distances, i, j);
+					i++;
+					j--;
+				}
+			}
+
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				break;
+			}
+		}
+	}
+
+	private void swap(double[] distances, int i, int j) {
+		double distance = distances[i];
+		distances[i] = distances[j];
+		distances[j] = distance;
+
+		MatchFeature feature = features[i];
+		features[i] = features[j];
+		features[j] = feature;
+	}
+
+	/**
+	 * Returns the start of the outer half of the node in the specified range.
+	 */
+	private static int getMid(int begin, int end) {
+		return begin + 1 + (end - begin - 1) / 2;
+	}
+
+	@Override
+	public int size() {
+		return features.length;
+	}
+
+	@Override
+	public List<FeatureMatch> nearest(MatchFeature query, int k, @Nullable Predicate<? super MatchFeature> filter) {
+		requireNonNull(query, "query");
+		requireAtLeast(1, k, "k");
+
+		NeighborHeap heap = new NeighborHeap(k);
+		searchNearest(query, 0, features.length, filter, heap);
+		return heap.toList();
+	}
+
+	private void searchNearest(MatchFeature query,
+	                           int begin,
+	                           int end,
+	                           @Nullable Predicate<? super MatchFeature> filter,
+	                           NeighborHeap heap) {
+		if (begin >= end) {
+			return;
+		}
+
+		MatchFeature vantage  = features[begin];
+		double       distance = vantage.match(query);
+		if (filter == null || filter.test(vantage)) {
+			heap.offer(vantage, distance);
+		}
+
+		if (end - begin < 2) {
+			return;
+		}
+
+		int    mid       = getMid(begin, end);
+		double threshold = thresholds[begin];
+
+		// Visit the half containing the query first, to tighten the bound before considering the other half.
+		if (distance < threshold) {
+			if (distance - heap.bound() <= threshold) {
+				searchNearest(query, begin + 1, mid, filter, heap);
+			}
+			if (distance + heap.bound() >= threshold) {
+				searchNearest(query, mid, end, filter, heap);
+			}
+		} else {
+			if (distance + heap.bound() >= threshold) {
+				searchNearest(query, mid, end, filter, heap);
+			}
+			if (distance - heap.bound() <= threshold) {
+				searchNearest(query, begin + 1, mid, filter, heap);
+			}
+		}
+	}
+
+	@Override
+	public List<FeatureMatch> withinRadius(MatchFeature query,
+	                                       double radius,
+	                                       @Nullable Predicate<? super MatchFeature> filter) {
+		requireNonNull(query, "query");
+		requireAtLeast(0.0, radius, "radius");
+
+		List<FeatureMatch> matches = new ArrayList<>();
+		searchRadius(query, 0, features.length, radius, filter, matches);
+		Collections.sort(matches);
+		return matches;
+	}
+
+	private void searchRadius(MatchFeature query,
+	                          int begin,
+	                          int end,
+	                          double radius,
+	                          @Nullable Predicate<? super MatchFeature> filter,
+	                          List<FeatureMatch> matches) {
+		if (begin >= end) {
+			return;
+		}
+
+		MatchFeature vantage  = features[begin];
+		double       distance = vantage.match(query);
+		if (distance <= radius && (filter == null || filter.test(vantage))) {
+			matches.add(new FeatureMatch(vantage, distance));
+		}
+
+		if (end - begin < 2) {
+			return;
+		}
+
+		int    mid       = getMid(begin, end);
+		double threshold = thresholds[begin];
+
+		if (distance - radius <= threshold) {
+			searchRadius(query, begin + 1, mid, radius, filter, matches);
+		}
+		if (distance + radius >= threshold) {
+			searchRadius(query, mid, end, radius, filter, matches);
+		}
+	}
+}
@@ -1,50 +1,312 @@
 package nl.airsupplies.utilities.graphics.pixelsorter;
 
 import java.awt.Point;
+import java.util.AbstractList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+import nl.airsupplies.utilities.graphics.image.ImageMatrixExecutor;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireAtLeast;
+import static nl.airsupplies.utilities.validator.ValidatorUtilities.requireNonNull;
 
 /**
+ * Orders the pixels of a canvas, for example to reveal an image pixel by pixel.
+ * <p>
+ * Pixels are ordered by {@link #getSortOrder(int, int, int, int)}, with ties in scanline order. The order is returned
+ * as pixel indices ({@code y * width + x}). Sorting uses no objects per pixel: the keys are packed in a {@code long[]}
+ * and sorted with a radix sort. First the pixels are distributed over buckets by the most significant bits of their
+ * key, then runs of buckets are sorted by the remaining bits. Because runs are sorted one after another, the order can
+ * also be streamed in chunks (see {@link #streamPixelOrder(int, int, int, ObjIntConsumer)}), with the first chunk
+ * available long before the whole canvas is sorted.
+ *
  * @author Mark Jeronimus
  */
 // Created 2009-04-17
 // Changed 2016-02-04
+// Changed 2026-10-17 Sorts packed keys with a radix sort, and added streaming
 public abstract class PixelSorter {
+	/** Bits of the first (most significant) digit */
+	private static final int BUCKET_BITS = 16;
+	/** Bits of the digits sorted within runs of buckets */
+	private static final int DIGIT_BITS  = 8;
+	private static final int NUM_DIGITS  = Long.SIZE / DIGIT_BITS;
+	private static final int RADIX       = 1 << DIGIT_BITS;
+	/** The number of pixels to gather into a run of buckets before sorting it */
+	private static final int RUN_SIZE    = 1 << 16;
+
 	public static List<Point> getSortedPixels(int width, int height, PixelSorter sorter) {
-		ScheduledPoint[] pixels = new ScheduledPoint[width * height];
+		return toPoints(getPixelOrder(width, height, sorter), width);
+	}
+
+	public List<Point> getSortedPixels(int width, int height) {
+		return toPoints(getPixelOrder(width, height), width);
+	}
+
+	/**
+	 * Returns the pixel indices ({@code y * width + x}) in sorted order.
+	 */
+	public static int[] getPixelOrder(int width, int height, PixelSorter sorter) {
+		requireNonNull(sorter, "sorter");
+		requireAtLeast(0, width, "width");
+		requireAtLeast(0, height, "height");
+
+		long[] keys  = computeKeys(width, height, sorter);
+		int[]  order = new int[keys.length];
+
+		RunSorter runSorter = new RunSorter(keys, order, RUN_SIZE);
+		runSorter.sortAll();
+
+		return order;
+	}
+
+	public int[] getPixelOrder(int width, int height) {
+		return getPixelOrder(width, height, this);
+	}
+
+	/**
+	 * Hands the pixel indices ({@code y * width + x}) in sorted order to the consumer, in chunks of {@code
+	 * chunkSize} (the last chunk may be smaller). The array passed to the consumer is reused for every chunk, and only
+	 * the first {@code length} elements are valid.
+	 * <p>
+	 * The first chunk arrives after computing the keys, a single distribution pass, and sorting the first run of
+	 * buckets.
+	 */
+	public static void streamPixelOrder(int width,
+	                                    int height,
+	                                    PixelSorter sorter,
+	                                    int chunkSize,
+	                                    ObjIntConsumer<int[]> consumer) {
+		requireNonNull(sorter, "sorter");
+		requireAtLeast(0, width, "width");
+		requireAtLeast(0, height, "height");
+		requireAtLeast(1, chunkSize, "chunkSize");
+		requireNonNull(consumer, "consumer");
 
-		int i = 0;
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-				double z = sorter.getSortOrder(x, y, width, height);
-				pixels[i] = new ScheduledPoint(x, y, z);
-				i++;
+		long[] keys  = computeKeys(width, height, sorter);
+		int[]  order = new int[keys.length];
+		int[]  chunk = new int[Math.min(chunkSize, Math.max(1, keys.length))];
+
+		RunSorter runSorter = new RunSorter(keys, order, Math.max(chunkSize, RUN_SIZE));
+		int       length    = 0;
+
+		while (runSorter.hasNextRun()) {
+			int begin = runSorter.begin;
+			int end   = runSorter.sortNextRun();
+
+			while (begin < end) {
+				int n = Math.min(end - begin, chunk.length - length);
+				System.arraycopy(order, begin, chunk, length, n);
+				begin += n;
+				length += n;
+
+				if (length == chunk.length) {
+					consumer.accept(chunk, length);
+					length = 0;
+				}
 			}
 		}
 
-		Arrays.parallelSort(pixels);
+		if (length > 0) {
+			consumer.accept(chunk, length);
+		}
+	}
 
-		return Arrays.asList(pixels);
+	public void streamPixelOrder(int width, int height, int chunkSize, ObjIntConsumer<int[]> consumer) {
+		streamPixelOrder(width, height, this, chunkSize, consumer);
 	}
 
-	public List<Point> getSortedPixels(int width, int height) {
-		return getSortedPixels(width, height, this);
+	/**
+	 * Computes the sort order of every pixel, mapped to a long that sorts (as unsigned) the same as {@link
+	 * Double#compare(double, double)}.
+	 */
+	private static long[] computeKeys(int width, int height, PixelSorter sorter) {
+		long[] keys = new long[Math.multiplyExact(width, height)];
+
+		ImageMatrixExecutor.forEachBand(1, 0, height, width, (ignored, beginY, endY) -> {
+			for (int y = beginY; y < endY; y++) {
+				int i = y * width;
+				for (int x = 0; x < width; x++) {
+					long bits = Double.doubleToLongBits(sorter.getSortOrder(x, y, width, height));
+					keys[i++] = bits ^ (bits >> 63 | Long.MIN_VALUE);
+				}
+			}
+		});
+
+		return keys;
+	}
+
+	private static List<Point> toPoints(int[] order, int width) {
+		return new AbstractList<Point>() {
+			@Override
+			public Point get(int index) {
+				int i = order[index];
+				return new Point(i % width, i / width);
+			}
+
+			@Override
+			public int size() {
+				return order.length;
+			}
+		};
 	}
 
 	/**
-	 * Note: this class has a natural ordering that is inconsistent with equals.
+	 * Distributes the pixels over buckets by the most significant bits of their key, and then sorts runs of consecutive
+	 * buckets with an LSD radix sort. Both steps are stable.
 	 */
-	private static final class ScheduledPoint extends Point implements Comparable<ScheduledPoint> {
-		private final double sortOrder;
+	private static final class RunSorter {
+		private final long[]  keys;
+		private final int[]   order;
+		private final int     runSize;
+		private final long    min;
+		private final int     shift;
+		private final int[]   bucketStarts = new int[(1 << BUCKET_BITS) + 1];
+		private final int[][] counts       = new int[NUM_DIGITS][RADIX + 1];
+
+		private int    bucket = 0;
+		private int    begin  = 0;
+		private long[] runKeys;
+		private long[] tmpKeys;
+		private int[]  tmpOrder;
 
-		private ScheduledPoint(int x, int y, double sortOrder) {
-			super(x, y);
-			this.sortOrder = sortOrder;
+		private RunSorter(long[] keys, int[] order, int runSize) {
+			this.keys    = keys;
+			this.order   = order;
+			this.runSize = runSize;
+
+			long min = -1;
+			long max = 0;
+			for (long key : keys) {
+				if (Long.compareUnsigned(key, min) < 0) {
+					min = key;
+				}
+				if (Long.compareUnsigned(key, max) > 0) {
+					max = key;
+				}
+			}
+
+			this.min = min;
+			shift    = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(max - min) - BUCKET_BITS);
+
+			distribute();
+		}
+
+		private void distribute() {
+			int[] starts = bucketStarts;
+
+			for (long key : keys) {
+				starts[(int)((key - min) >>> shift) + 1]++;
+			}
+
+			int largest = 0;
+			for (int i = 1; i < starts.length; i++) {
+				largest = Math.max(largest, starts[i]);
+				starts[i] += starts[i - 1];
+			}
+
+			int[] next = starts.clone();
+			for (int i = 0; i < keys.length; i++) {
+				order[next[(int)((keys[i] - min) >>> shift)]++] = i;
+			}
+
+			int maxRun = Math.min(keys.length, Math.max(largest, runSize) + runSize);
+			runKeys  = new long[maxRun];
+			tmpKeys  = new long[maxRun];
+			tmpOrder = new int[maxRun];
+		}
+
+		private boolean hasNextRun() {
+			return begin < order.length;
+		}
+
+		private void sortAll() {
+			while (hasNextRun()) {
+				sortNextRun();
+			}
 		}
 
-		@Override
-		public int compareTo(ScheduledPoint o) {
-			return java.lang.Double.compare(sortOrder, o.sortOrder);
+		/**
+		 * @return the end of the run that was sorted, which starts at {@link #begin}
+		 */
+		private int sortNextRun() {
+			int end = begin;
+			do {
+				end = bucketStarts[++bucket];
+			} while (end - begin < runSize && bucket < 1 << BUCKET_BITS);
+
+			if (end - begin > 1) {
+				sortRun(begin, end);
+			}
+
+			begin = end;
+			return end;
+		}
+
+		private void sortRun(int begin, int end) {
+			int    n     = end - begin;
+			long[] keysA = runKeys;
+			long[] keysB = tmpKeys;
+			int[]  ordA  = tmpOrder;
+			int[]  ordB  = order;
+
+			// Histograms of all digits in one pass
+			for (int[] count : counts) {
+				Arrays.fill(count, 0);
+			}
+			for (int i = 0; i < n; i++) {
+				long key = keys[order[begin + i]] - min;
+				keysA[i] = key;
+				ordA[i]  = order[begin + i];
+				for (int d = 0; d < NUM_DIGITS; d++) {
+					counts[d][(int)(key >>> d * DIGIT_BITS & RADIX - 1) + 1]++;
+				}
+			}
+
+			boolean inOrder = true; // Is the data in ordA, as opposed to ordB?
+			for (int d = 0; d < NUM_DIGITS; d++) {
+				int[] count      = counts[d];
+				int   digitShift = d * DIGIT_BITS;
+
+				// Skip digits that are the same for every key
+				boolean constant = false;
+				for (int i = 1; i <= RADIX; i++) {
+					if (count[i] == n) {
+						constant = true;
+						break;
+					} else if (count[i] != 0) {
+						break;
+					}
+				}
+				if (constant) {
+					continue;
+				}
+
+				for (int i = 1; i <= RADIX; i++) {
+					count[i] += count[i - 1];
+				}
+
+				int[]  srcOrd  = inOrder ? ordA : ordB;
+				int[]  dstOrd  = inOrder ? ordB : ordA;
+				int    srcOff  = inOrder ? 0 : begin;
+				int    dstOff  = inOrder ? begin : 0;
+				long[] srcKeys = inOrder ? keysA : keysB;
+				long[] dstKeys = inOrder ? keysB : keysA;
+
+				// Inner loop
+				for (int i = 0; i < n; i++) {
+					long key = srcKeys[i];
+					int  j   = count[(int)(key >>> digitShift & RADIX - 1)]++;
+					dstKeys[j]         = key;
+					dstOrd[dstOff + j] = srcOrd[srcOff + i];
+				}
+
+				inOrder = !inOrder;
+			}
+
+			if (inOrder) {
+				System.arraycopy(ordA, 0, order, begin, n);
+			}
 		}
 	}
 
@@ -1,8 +1,7 @@
 package nl.airsupplies.utilities.graphics.pixelsorter;
 
-import java.awt.Point;
-import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ObjIntConsumer;
 
 import nl.airsupplies.utilities.graphics.pixelsorter.SpiralPixelSorter.SpiralType;
 
@@ -10,6 +9,7 @@ import nl.airsupplies.utilities.graphics.pixelsorter.SpiralPixelSorter.SpiralTyp
  * @author Mark Jeronimus
  */
 // Created 2016-02-06
+// Changed 2026-10-17 Overrides the pixel order instead of the point list
 public class RandomProgressivePixelSorter extends PixelSorter {
 	PixelSorter[] pixelSorters = {
 			new CRTPixelSorter(),
@@ -27,9 +27,16 @@ public class RandomProgressivePixelSorter extends PixelSorter {
 	}
 
 	@Override
-	public List<Point> getSortedPixels(int width, int height) {
-		PixelSorter pixelSorter = pixelSorters[ThreadLocalRandom.current().nextInt(pixelSorters.length)];
+	public int[] getPixelOrder(int width, int height) {
+		return getPixelOrder(width, height, randomPixelSorter());
+	}
+
+	@Override
+	public void streamPixelOrder(int width, int height, int chunkSize, ObjIntConsumer<int[]> consumer) {
+		streamPixelOrder(width, height, randomPixelSorter(), chunkSize, consumer);
+	}
 
-		return getSortedPixels(width, height, pixelSorter);
+	private PixelSorter randomPixelSorter() {
+		return pixelSorters[ThreadLocalRandom.current().nextInt(pixelSorters.length)];
 	}
 }
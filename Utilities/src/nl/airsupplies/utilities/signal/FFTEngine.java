@@ -71,8 +71,8 @@ public class FFTEngine {
 	public void transform(Complex2d[] in, Complex2d[] out) {
 		requireValuesNonNull(in, "in");
 		requireValuesNonNull(out, "out");
-		requireArrayLengthExactly(size, in.length, "in.length");
-		requireArrayLengthExactly(size, out.length, "out.length");
+		requireArrayLengthExactly(size, in, "in");
+		requireArrayLengthExactly(size, out, "out");
 
 		// Load the waveform, index bits reversed.
 		for (int i = size - 1; i >= 0; i--) {
@@ -0,0 +1,283 @@
+package nl.airsupplies.utilities.graphics.image.function;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels using the Vector API, for the preferred vector size of the platform. The tail of each range is handled by
+ * the scalar kernels.
+ * <p>
+ * To stay bit-for-bit identical to {@link ScalarRowKernels}, products and sums are never fused, terms are accumulated
+ * in the same order, and clamp and abs use compare-and-blend (so NaN and -0.0 are preserved) instead of min/max.
+ * <p>
+ * Requires Java 16 or newer and {@code --add-modules jdk.incubator.vector} both to compile and to run, which is why this
+ * class is in the separate {@code UtilitiesVector} module: the {@code Utilities} module builds with Java 8 without it.
+ * Never reference this class directly, use {@link RowKernels#get()}.
+ *
+ * @author Mark Jeronimus
+ */
+// Created 2026-10-17
+// Changed 2026-10-17 Moved to the UtilitiesVector module
+// Changed 2026-10-17 Separate offsets for the rows of two-row kernels
+final class VectorRowKernels extends RowKernels {
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+	private static final int                  LENGTH  = SPECIES.length();
+
+	private final ScalarRowKernels tail = new ScalarRowKernels();
+
+	@Override
+	public void add(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		int x     = 0;
+		int bound = SPECIES.loopBound(length);
+		for (; x < bound; x += LENGTH) {
+			FloatVector.fromArray(SPECIES, out, outBegin + x)
+			           .add(FloatVector.fromArray(SPECIES, in, inBegin + x))
+			           .intoArray(out, outBegin + x);
+		}
+
+		tail.add(out, outBegin + x, in, inBegin + x, length - x);
+	}
+
+	@Override
+	public void sub(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		int x     = 0;
+		int bound = SPECIES.loopBound(length);
+		for (; x < bound; x += LENGTH) {
+			FloatVector.fromArray(SPECIES, out, outBegin + x)
+			           .sub(FloatVector.fromArray(SPECIES, in, inBegin + x))
+			           .intoArray(out, outBegin + x);
+		}
+
+		tail.sub(out, outBegin + x, in, inBegin + x, length - x);
+	}
+
+	@Override
+	public void mul(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		int x     = 0;
+		int bound = SPECIES.loopBound(length);
+		for (; x < bound; x += LENGTH) {
+			FloatVector.fromArray(SPECIES, out, outBegin + x)
+			           .mul(FloatVector.fromArray(SPECIES, in, inBegin + x))
+			           .intoArray(out, outBegin + x);
+		}
+
+		tail.mul(out, outBegin + x, in, inBegin + x, length - x);
+	}
+
+	@Override
+	public void div(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		int x     = 0;
+		int bound = SPECIES.loopBound(length);
+		for (; x < bound; x += LENGTH) {
+			FloatVector.fromArray(SPECIES, out, outBegin + x)
+			           .div(FloatVector.fromArray(SPECIES, in, inBegin + x))
+			           .intoArray(out, outBegin + x);
+		}
+
+		tail.div(out, outBegin + x, in, inBegin + x, length - x);
+	}
+
+	@Override
+	public void min(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		int x     = 0;
+		int bound = SPECIES.loopBound(length);
+		for (; x < bound; x += LENGTH) {
+			FloatVector.fromArray(SPECIES, in, inBegin + x)
+			           .min(FloatVector.fromArray(SPECIES, out, outBegin + x))
+			           .intoArray(out, outBegin + x);
+		}
+
+		tail.min(out, outBegin + x, in, inBegin + x, length - x);
+	}
+
+	@Override
+	public void max(float[] out, int outBegin, float[] in, int inBegin, int length) {
+		int x     = 0;
+		int bound = SPECIES.loopBound(length);
+		for (; x < bound; x += LENGTH) {
+			FloatVector.fromArray(SPECIES, in, inBegin + x)
+			           .max(FloatVector.fromArray(SPECIES, out, outBegin + x))
+			           .intoArray(out, outBegin + x);
+		}
+
+		tail.max(out, outBegin + x, in, inBegin + x, length - x);
+	}
+
+	@Override
+	public void pow(float[] base, int baseBegin, float[] power, int powerBegin, float[] out, int outBegin,
+	                int length) {
+		int x     = 0;
+		int bound = SPECIES.loopBound(length);
+		for (; x < bound; x += LENGTH) {
+			FloatVector.fromArray(SPECIES, base, baseBegin + x)
+			           .lanewise(VectorOperators.POW, FloatVector.fromArray(SPECIES, power, powerBegin + x))
+			           .intoArray(out, outBegin + x);
+		}
+
+		tail.pow(base, baseBegin + x, power, powerBegin + x, out, outBegin + x, length - x);
+	}
+
+	@Override
+	public void invert(float[] row, int begin, int end) {
+		int x     = begin;
+		int bound = begin + SPECIES.loopBound(end - begin);
+		for (; x < bound; x += LENGTH) {
+			FloatVector.fromArray(SPECIES, row, x).neg().intoArray(row, x);
+		}
+
+		tail.invert(row, x, end);
+	}
+
+	@Override
+	public void negative(float[] row, int begin, int end) {
+		FloatVector one = FloatVector.broadcast(SPECIES, 1);
+
+		int x     = begin;
+		int bound = begin + SPECIES.loopBound(end - begin);
+		for (; x < bound; x += LENGTH) {
+			one.sub(FloatVector.fromArray(SPECIES, row, x)).intoArray(row, x);
+		}
+
+		tail.negative(row, x, end);
+	}
+
+	@Override
+	public void clamp(float[] row, float black, float white, int begin, int end) {
+		int x     = begin;
+		int bound = begin + SPECIES.loopBound(end - begin);
+		for (; x < bound; x += LENGTH) {
+			FloatVector       v     = FloatVector.fromArray(SPECIES, row, x);
+			VectorMask<Float> below = v.compare(VectorOperators.LT, black);
+			VectorMask<Float> above = v.compare(VectorOperators.GE, white);
+			v.blend(black, below).blend(white, above.andNot(below)).intoArray(row, x);
+		}
+
+		tail.clamp(row, black, white, x, end);
+	}
+
+	@Override
+	public void abs(float[] row, int begin, int end) {
+		int x     = begin;
+		int bound = begin + SPECIES.loopBound(end - begin);
+		for (; x < bound; x += LENGTH) {
+			FloatVector v = FloatVector.fromArray(SPECIES, row, x);
+			v.blend(v.neg(), v.compare(VectorOperators.LT, 0)).intoArray(row, x);
+		}
+
+		tail.abs(row, x, end);
+	}
+
+	@Override
+	public void recip(float[] row, int begin, int end) {
+		FloatVector one = FloatVector.broadcast(SPECIES, 1);
+
+		int x     = begin;
+		int bound = begin + SPECIES.loopBound(end - begin);
+		for (; x < bound; x += LENGTH) {
+			one.div(FloatVector.fromArray(SPECIES, row, x)).intoArray(row, x);
+		}
+
+		tail.recip(row, x, end);
+	}
+
+	@Override
+	public void sqr(float[] row, int begin, int end) {
+		int x     = begin;
+		int bound = begin + SPECIES.loopBound(end - begin);
+		for (; x < bound; x += LENGTH) {
+			FloatVector v = FloatVector.fromArray(SPECIES, row, x);
+			v.mul(v).intoArray(row, x);
+		}
+
+		tail.sqr(row, x, end);
+	}
+
+	@Override
+	public void sqrt(float[] row, int begin, int end) {
+		// Correctly rounded in float, which equals the double square root rounded to float.
+		int x     = begin;
+		int bound = begin + SPECIES.loopBound(end - begin);
+		for (; x < bound; x += LENGTH) {
+			FloatVector.fromArray(SPECIES, row, x).sqrt().intoArray(row, x);
+		}
+
+		tail.sqrt(row, x, end);
+	}
+
+	@Override
+	public void cube(float[] row, int begin, int end) {
+		int x     = begin;
+		int bound = begin + SPECIES.loopBound(end - begin);
+		for (; x < bound; x += LENGTH) {
+			FloatVector v = FloatVector.fromArray(SPECIES, row, x);
+			v.mul(v.mul(v)).intoArray(row, x);
+		}
+
+		tail.cube(row, x, end);
+	}
+
+	@Override
+	public void convolve3(float[] out, int outBegin, float[][] rows, int[] begins, float[][] kernel, int length) {
+		float[] row0    = rows[0];
+		float[] row1    = rows[1];
+		float[] row2    = rows[2];
+		int     delta0  = begins[0] - outBegin;
+		int     delta1  = begins[1] - outBegin;
+		int     delta2  = begins[2] - outBegin;
+		float[] kernel0 = kernel[0];
+		float[] kernel1 = kernel[1];
+		float[] kernel2 = kernel[2];
+
+		int x     = outBegin;
+		int bound = outBegin + SPECIES.loopBound(length);
+		for (; x < bound; x += LENGTH) {
+			FloatVector sum = FloatVector.fromArray(SPECIES, row0, x + delta0 - 1).mul(kernel0[0]);
+			sum = sum.add(FloatVector.fromArray(SPECIES, row0, x + delta0).mul(kernel0[1]));
+			sum = sum.add(FloatVector.fromArray(SPECIES, row0, x + delta0 + 1).mul(kernel0[2]));
+			sum = sum.add(FloatVector.fromArray(SPECIES, row1, x + delta1 - 1).mul(kernel1[0]));
+			sum = sum.add(FloatVector.fromArray(SPECIES, row1, x + delta1).mul(kernel1[1]));
+			sum = sum.add(FloatVector.fromArray(SPECIES, row1, x + delta1 + 1).mul(kernel1[2]));
+			sum = sum.add(FloatVector.fromArray(SPECIES, row2, x + delta2 - 1).mul(kernel2[0]));
+			sum = sum.add(FloatVector.fromArray(SPECIES, row2, x + delta2).mul(kernel2[1]));
+			sum = sum.add(FloatVector.fromArray(SPECIES, row2, x + delta2 + 1).mul(kernel2[2]));
+			sum.intoArray(out, x);
+		}
+
+		int done = x - outBegin;
+		tail.convolve3(out, x, rows, offsetBegins(begins, done), kernel, length - done);
+	}
+
+	@Override
+	public void convolve5(float[] out, int outBegin, float[][] rows, int[] begins, float[][] kernel, int length) {
+		int x     = outBegin;
+		int bound = outBegin + SPECIES.loopBound(length);
+		for (; x < bound; x += LENGTH) {
+			FloatVector sum = null;
+			for (int v = 0; v < 5; v++) {
+				float[] row       = rows[v];
+				float[] kernelRow = kernel[v];
+				int     delta     = begins[v] - outBegin;
+				for (int u = 0; u < 5; u++) {
+					FloatVector term = FloatVector.fromArray(SPECIES, row, x + delta + u - 2).mul(kernelRow[u]);
+					sum = sum == null ? term : sum.add(term);
+				}
+			}
+
+			sum.intoArray(out, x);
+		}
+
+		int done = x - outBegin;
+		tail.convolve5(out, x, rows, offsetBegins(begins, done), kernel, length - done);
+	}
+
+	private static int[] offsetBegins(int[] begins, int delta) {
+		int[] offset = new int[begins.length];
+		for (int v = 0; v < begins.length; v++) {
+			offset[v] = begins[v] + delta;
+		}
+
+		return offset;
+	}
+}